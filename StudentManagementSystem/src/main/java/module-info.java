@@ -11,6 +11,9 @@ module org.example.studentmanagementsystem {
     requires eu.hansolo.tilesfx;
     requires com.almasb.fxgl.all;
     requires java.sql;
+    requires jdk.jfr;
+    requires jdk.httpserver;
+    requires java.net.http;
 
     opens system to javafx.fxml;
     exports system;
@@ -0,0 +1,77 @@
+package system;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+// Hands log records to a background thread so a slow disk never blocks the caller, in particular
+// the FX Application Thread. When the queue is full records are dropped and counted rather than
+// waiting; the count is reported with the next record written.
+public class AsyncLogHandler extends Handler {
+    static final int QUEUE_CAPACITY = 8_192;
+
+    private final Handler delegate;
+    private final BlockingQueue<LogRecord> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public AsyncLogHandler(Handler delegate) {
+        this.delegate = delegate;
+        writer = new Thread(this::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        // Resolve the caller now; the writer thread would otherwise infer its own frames.
+        record.getSourceClassName();
+        if (!queue.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                LogRecord record = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (record == null) {
+                    delegate.flush();
+                    continue;
+                }
+                long lost = dropped.getAndSet(0);
+                if (lost > 0) {
+                    delegate.publish(new LogRecord(Level.WARNING, "Dropped " + lost + " log records while the log queue was full"));
+                }
+                delegate.publish(record);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.flush();
+    }
+
+    @Override
+    public void flush() {
+        // The writer flushes whenever the queue runs empty.
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+}
@@ -0,0 +1,496 @@
+package system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+// Per-semester cohort statistics over the three subject marks and the total: mean, median, standard
+// deviation, pairwise subject correlation, and each student's class rank and percentile by total.
+// Every cohort keeps one sorted int array per measure plus running sums, sums of squares and cross
+// products, so a changed record costs a binary search and a shift of the array tail rather than a
+// recomputation. The initial build extracts the marks into primitive arrays, partitions them by
+// semester and sorts and reduces each cohort with fork/join. Not thread-safe: build it anywhere,
+// then use it from one thread.
+public class CohortAnalytics {
+    public static final String[] MEASURES = {"Mathematics", "Physics", "Chemistry", "Total"};
+    static final int MATHEMATICS = 0;
+    static final int PHYSICS = 1;
+    static final int CHEMISTRY = 2;
+    static final int TOTAL = 3;
+    static final int LEAF_SIZE = 16_384;
+
+    // Numeric semesters in numeric order, then the rest alphabetically.
+    static final Comparator<String> SEMESTER_ORDER = Comparator
+            .comparingInt((String semester) -> {
+                int number = StudentRepository.SemesterMark.parseSemester(semester);
+                return number < 0 ? Integer.MAX_VALUE : number;
+            })
+            .thenComparing(Comparator.naturalOrder());
+
+    private final Map<String, Cohort> cohorts = new TreeMap<>(SEMESTER_ORDER);
+
+    public static CohortAnalytics build(List<Student> students, ForkJoinPool pool) {
+        int size = students.size();
+        Columns columns = new Columns(size);
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> semesters = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String semester = key(students.get(i).getSemester());
+            Integer code = codes.get(semester);
+            if (code == null) {
+                code = semesters.size();
+                codes.put(semester, code);
+                semesters.add(semester);
+            }
+            columns.semesters[i] = code;
+        }
+        pool.invoke(new ExtractTask(students, columns, 0, size));
+
+        // Partition by semester: each chunk counts its rows per cohort, a prefix sum over the counts
+        // gives every chunk its own write offsets, and the chunks then scatter without locking.
+        int chunks = Math.max(1, (size + LEAF_SIZE - 1) / LEAF_SIZE);
+        int[][] counts = new int[chunks][semesters.size()];
+        pool.invoke(new ChunkTask(chunks, chunk -> {
+            for (int i = chunk * LEAF_SIZE, end = Math.min(size, i + LEAF_SIZE); i < end; i++) {
+                counts[chunk][columns.semesters[i]]++;
+            }
+        }));
+        int[] cohortSizes = new int[semesters.size()];
+        int[][] offsets = new int[chunks][semesters.size()];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            for (int code = 0; code < semesters.size(); code++) {
+                offsets[chunk][code] = cohortSizes[code];
+                cohortSizes[code] += counts[chunk][code];
+            }
+        }
+        int[][][] partitions = new int[semesters.size()][MEASURES.length][];
+        for (int code = 0; code < semesters.size(); code++) {
+            for (int measure = 0; measure < MEASURES.length; measure++) {
+                partitions[code][measure] = new int[cohortSizes[code]];
+            }
+        }
+        pool.invoke(new ChunkTask(chunks, chunk -> {
+            int[] next = offsets[chunk];
+            for (int i = chunk * LEAF_SIZE, end = Math.min(size, i + LEAF_SIZE); i < end; i++) {
+                int code = columns.semesters[i];
+                int at = next[code]++;
+                for (int measure = 0; measure < MEASURES.length; measure++) {
+                    partitions[code][measure][at] = columns.marks[measure][i];
+                }
+            }
+        }));
+
+        Cohort[] built = new Cohort[semesters.size()];
+        pool.invoke(new ChunkTask(semesters.size(), code -> built[code] = Cohort.of(partitions[code])));
+        CohortAnalytics analytics = new CohortAnalytics();
+        for (int code = 0; code < built.length; code++) {
+            analytics.cohorts.put(semesters.get(code), built[code]);
+        }
+        return analytics;
+    }
+
+    // Folds a list change in. Additions go first, so a row that was added and removed again while the
+    // caller was buffering changes cancels out.
+    public void apply(Collection<Student> added, Collection<Student> removed) {
+        update(added, 1);
+        update(removed, -1);
+    }
+
+    private void update(Collection<Student> students, int sign) {
+        if (students.isEmpty()) {
+            return;
+        }
+        Map<String, List<Student>> bySemester = new HashMap<>();
+        for (Student student : students) {
+            bySemester.computeIfAbsent(key(student.getSemester()), semester -> new ArrayList<>()).add(student);
+        }
+        for (Map.Entry<String, List<Student>> entry : bySemester.entrySet()) {
+            Cohort cohort = cohorts.get(entry.getKey());
+            if (cohort == null) {
+                if (sign < 0) {
+                    continue;
+                }
+                cohort = new Cohort();
+                cohorts.put(entry.getKey(), cohort);
+            }
+            int[][] values = new int[MEASURES.length][entry.getValue().size()];
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                int[] marks = marks(entry.getValue().get(i));
+                for (int measure = 0; measure < MEASURES.length; measure++) {
+                    values[measure][i] = marks[measure];
+                }
+            }
+            if (sign > 0) {
+                cohort.insert(values);
+            } else {
+                cohort.remove(values);
+                if (cohort.size == 0) {
+                    cohorts.remove(entry.getKey());
+                }
+            }
+        }
+    }
+
+    public List<SemesterStats> getSemesterStats() {
+        List<SemesterStats> stats = new ArrayList<>(cohorts.size());
+        for (Map.Entry<String, Cohort> entry : cohorts.entrySet()) {
+            stats.add(entry.getValue().stats(entry.getKey()));
+        }
+        return stats;
+    }
+
+    // Rank by total marks among the students of the same semester (ties share the better rank), and
+    // the percentage of the cohort below the student, counting ties as half. Null when the student's
+    // semester has no cohort.
+    public Standing standing(Student student) {
+        Cohort cohort = cohorts.get(key(student.getSemester()));
+        if (cohort == null) {
+            return null;
+        }
+        int total = marks(student)[TOTAL];
+        int[] totals = cohort.sorted[TOTAL];
+        int below = lowerBound(totals, cohort.size, total);
+        int notAbove = lowerBound(totals, cohort.size, total + 1);
+        double percentile = 100.0 * (below + (notAbove - below) / 2.0) / cohort.size;
+        return new Standing(cohort.size - notAbove + 1, cohort.size, percentile);
+    }
+
+    private static String key(String semester) {
+        return semester == null ? "" : semester;
+    }
+
+    private static int[] marks(Student student) {
+        int mathematics = student.getMathematicsMarks();
+        int physics = student.getPhysicsMarks();
+        int chemistry = student.getChemistryMarks();
+        return new int[]{mathematics, physics, chemistry, mathematics + physics + chemistry};
+    }
+
+    // First index in a[0, size) holding a value >= value.
+    static int lowerBound(int[] a, int size, int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (a[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static final class Cohort {
+        private int size;
+        private int[][] sorted = new int[MEASURES.length][16];
+        private final long[] sums = new long[MEASURES.length];
+        private final long[] squares = new long[MEASURES.length];
+        // mathematics x physics, mathematics x chemistry, physics x chemistry
+        private final long[] products = new long[3];
+
+        // Called from a fork/join task: the reduction and the sorts run in the caller's pool.
+        static Cohort of(int[][] values) {
+            Cohort cohort = new Cohort();
+            cohort.size = values[TOTAL].length;
+            long[] reduced = new SumTask(values, 0, cohort.size).invoke();
+            for (int measure = 0; measure < MEASURES.length; measure++) {
+                cohort.sums[measure] = reduced[measure];
+                cohort.squares[measure] = reduced[MEASURES.length + measure];
+                Arrays.parallelSort(values[measure]);
+                cohort.sorted[measure] = values[measure];
+            }
+            System.arraycopy(reduced, 2 * MEASURES.length, cohort.products, 0, cohort.products.length);
+            return cohort;
+        }
+
+        // values[measure] holds one value per added student, in student order.
+        void insert(int[][] values) {
+            int count = values[TOTAL].length;
+            accumulate(values, 1);
+            for (int measure = 0; measure < MEASURES.length; measure++) {
+                int[] added = values[measure].clone();
+                Arrays.sort(added);
+                int[] target = sorted[measure];
+                if (size + count > target.length) {
+                    target = Arrays.copyOf(target, Math.max(size + count, target.length * 2));
+                    sorted[measure] = target;
+                }
+                // Merge from the back, so only the part of the array above the smallest new value moves.
+                int i = size - 1;
+                int j = count - 1;
+                int write = size + count - 1;
+                while (j >= 0) {
+                    target[write--] = i >= 0 && target[i] > added[j] ? target[i--] : added[j--];
+                }
+            }
+            size += count;
+        }
+
+        // Every removed row must have been inserted before; anything else would leave the measures
+        // with different sizes.
+        void remove(int[][] values) {
+            int count = values[TOTAL].length;
+            for (int measure = 0; measure < MEASURES.length; measure++) {
+                int[] gone = values[measure].clone();
+                Arrays.sort(gone);
+                int[] target = sorted[measure];
+                int read = lowerBound(target, size, gone[0]);
+                int write = read;
+                int j = 0;
+                while (read < size && j < count) {
+                    if (target[read] == gone[j]) {
+                        read++;
+                        j++;
+                    } else if (target[read] > gone[j]) {
+                        break;
+                    } else {
+                        target[write++] = target[read++];
+                    }
+                }
+                if (read - write != count) {
+                    throw new IllegalStateException("Removed " + (read - write) + " of " + count + " " + MEASURES[measure] + " values");
+                }
+                System.arraycopy(target, read, target, write, size - read);
+            }
+            accumulate(values, -1);
+            size -= count;
+        }
+
+        private void accumulate(int[][] values, int sign) {
+            for (int i = 0; i < values[TOTAL].length; i++) {
+                for (int measure = 0; measure < MEASURES.length; measure++) {
+                    long value = values[measure][i];
+                    sums[measure] += sign * value;
+                    squares[measure] += sign * value * value;
+                }
+                products[0] += sign * (long) values[MATHEMATICS][i] * values[PHYSICS][i];
+                products[1] += sign * (long) values[MATHEMATICS][i] * values[CHEMISTRY][i];
+                products[2] += sign * (long) values[PHYSICS][i] * values[CHEMISTRY][i];
+            }
+        }
+
+        SemesterStats stats(String semester) {
+            double[] means = new double[MEASURES.length];
+            double[] medians = new double[MEASURES.length];
+            double[] deviations = new double[MEASURES.length];
+            for (int measure = 0; measure < MEASURES.length; measure++) {
+                means[measure] = (double) sums[measure] / size;
+                int[] values = sorted[measure];
+                medians[measure] = size % 2 == 1 ? values[size / 2] : (values[size / 2 - 1] + values[size / 2]) / 2.0;
+                deviations[measure] = Math.sqrt(Math.max(0, (double) squares[measure] / size - means[measure] * means[measure]));
+            }
+            double[] correlations = {
+                    correlation(MATHEMATICS, PHYSICS, products[0]),
+                    correlation(MATHEMATICS, CHEMISTRY, products[1]),
+                    correlation(PHYSICS, CHEMISTRY, products[2])};
+            return new SemesterStats(semester, size, means, medians, deviations, correlations);
+        }
+
+        // Pearson's r from the running sums; NaN when either subject has no spread.
+        private double correlation(int x, int y, long product) {
+            double covariance = (double) size * product - (double) sums[x] * sums[y];
+            double spreadX = (double) size * squares[x] - (double) sums[x] * sums[x];
+            double spreadY = (double) size * squares[y] - (double) sums[y] * sums[y];
+            return spreadX <= 0 || spreadY <= 0 ? Double.NaN : covariance / Math.sqrt(spreadX * spreadY);
+        }
+    }
+
+    private static final class Columns {
+        private final int[] semesters;
+        private final int[][] marks;
+
+        private Columns(int size) {
+            semesters = new int[size];
+            marks = new int[MEASURES.length][size];
+        }
+    }
+
+    private static final class ExtractTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Student> students;
+        private final transient Columns columns;
+        private final int from;
+        private final int to;
+
+        private ExtractTask(List<Student> students, Columns columns, int from, int to) {
+            this.students = students;
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ExtractTask(students, columns, from, mid), new ExtractTask(students, columns, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                int[] marks = marks(students.get(i));
+                for (int measure = 0; measure < MEASURES.length; measure++) {
+                    columns.marks[measure][i] = marks[measure];
+                }
+            }
+        }
+    }
+
+    // Sums, sums of squares per measure and the three subject cross products over [from, to).
+    private static final class SumTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[][] values;
+        private final int from;
+        private final int to;
+
+        private SumTask(int[][] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                SumTask left = new SumTask(values, from, mid);
+                left.fork();
+                long[] right = new SumTask(values, mid, to).compute();
+                long[] result = left.join();
+                for (int i = 0; i < result.length; i++) {
+                    result[i] += right[i];
+                }
+                return result;
+            }
+            long[] result = new long[2 * MEASURES.length + 3];
+            for (int i = from; i < to; i++) {
+                for (int measure = 0; measure < MEASURES.length; measure++) {
+                    long value = values[measure][i];
+                    result[measure] += value;
+                    result[MEASURES.length + measure] += value * value;
+                }
+                result[2 * MEASURES.length] += (long) values[MATHEMATICS][i] * values[PHYSICS][i];
+                result[2 * MEASURES.length + 1] += (long) values[MATHEMATICS][i] * values[CHEMISTRY][i];
+                result[2 * MEASURES.length + 2] += (long) values[PHYSICS][i] * values[CHEMISTRY][i];
+            }
+            return result;
+        }
+    }
+
+    // Runs body for every index in [0, count) as separate fork/join tasks.
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int count;
+        private final transient ChunkBody body;
+
+        private ChunkTask(int count, ChunkBody body) {
+            this.count = count;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<>(count);
+            for (int index = 0; index < count; index++) {
+                int chunk = index;
+                tasks.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        body.run(chunk);
+                    }
+                });
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private interface ChunkBody {
+        void run(int index);
+    }
+
+    public static final class SemesterStats {
+        private final String semester;
+        private final int count;
+        private final double[] means;
+        private final double[] medians;
+        private final double[] standardDeviations;
+        private final double[] correlations;
+
+        public SemesterStats(String semester, int count, double[] means, double[] medians, double[] standardDeviations, double[] correlations) {
+            this.semester = semester;
+            this.count = count;
+            this.means = means;
+            this.medians = medians;
+            this.standardDeviations = standardDeviations;
+            this.correlations = correlations;
+        }
+
+        public String getSemester() {
+            return semester;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        // measure indexes MEASURES
+        public double getMean(int measure) {
+            return means[measure];
+        }
+
+        public double getMedian(int measure) {
+            return medians[measure];
+        }
+
+        public double getStandardDeviation(int measure) {
+            return standardDeviations[measure];
+        }
+
+        public double getMathematicsPhysicsCorrelation() {
+            return correlations[0];
+        }
+
+        public double getMathematicsChemistryCorrelation() {
+            return correlations[1];
+        }
+
+        public double getPhysicsChemistryCorrelation() {
+            return correlations[2];
+        }
+    }
+
+    public static final class Standing {
+        private final int rank;
+        private final int cohortSize;
+        private final double percentile;
+
+        public Standing(int rank, int cohortSize, double percentile) {
+            this.rank = rank;
+            this.cohortSize = cohortSize;
+            this.percentile = percentile;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public int getCohortSize() {
+            return cohortSize;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+    }
+}
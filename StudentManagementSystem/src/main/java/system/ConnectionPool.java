@@ -0,0 +1,101 @@
+package system;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DatabaseConfig config;
+    private final BlockingQueue<PooledConnection> idle;
+    private final Semaphore permits;
+    private volatile boolean closed;
+
+    public ConnectionPool(DatabaseConfig config) {
+        this.config = config;
+        this.idle = new ArrayBlockingQueue<>(config.getPoolSize());
+        this.permits = new Semaphore(config.getPoolSize(), true);
+    }
+
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.poll()) != null) {
+                if (pooled.isUsable(VALIDATION_TIMEOUT_SECONDS)) {
+                    return pooled;
+                }
+                pooled.closePhysical();
+            }
+            Connection connection = DriverManager.getConnection(config.getUrl(), connectionProperties());
+            return new PooledConnection(this, connection);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Connector/J only turns addBatch/executeBatch into multi-row INSERTs when asked to.
+    private Properties connectionProperties() {
+        Properties properties = new Properties();
+        if (config.getUser() != null) {
+            properties.setProperty("user", config.getUser());
+        }
+        if (config.getPassword() != null) {
+            properties.setProperty("password", config.getPassword());
+        }
+        if (config.getUrl().startsWith("jdbc:mysql:")) {
+            properties.setProperty("rewriteBatchedStatements", "true");
+        }
+        return properties;
+    }
+
+    void release(PooledConnection pooled) {
+        try {
+            if (closed || pooled.isBroken() || !pooled.reset() || !idle.offer(pooled.reuse())) {
+                pooled.closePhysical();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public DatabaseConfig getConfig() {
+        return config;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection pooled;
+        while ((pooled = idle.poll()) != null) {
+            pooled.closePhysical();
+        }
+        logger.log(Level.FINE, "Connection pool closed");
+    }
+}
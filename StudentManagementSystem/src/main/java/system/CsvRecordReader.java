@@ -0,0 +1,127 @@
+package system;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Streaming RFC 4180 reader: the first record is the header, quoted fields may contain commas,
+// doubled quotes and line breaks. A byte order mark before the header is skipped.
+class CsvRecordReader implements ImportRecordReader {
+    private final Reader reader;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private List<String> header;
+    private int line = 1;
+    private int recordLine;
+    private int pushedBack = -2;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        if (header == null) {
+            int first = read();
+            if (first != BYTE_ORDER_MARK) {
+                unread(first);
+            }
+            if (!readRecord()) {
+                return null;
+            }
+            header = new ArrayList<>(fields.size());
+            for (String column : fields) {
+                header.add(ImportRecordReader.normalizeColumn(column));
+            }
+        }
+        while (readRecord()) {
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                continue;
+            }
+            Map<String, String> record = new HashMap<>();
+            for (int i = 0; i < fields.size() && i < header.size(); i++) {
+                record.put(header.get(i), fields.get(i));
+            }
+            if (fields.size() > header.size()) {
+                record.put(StudentImporter.EXTRA_FIELDS, String.valueOf(fields.size() - header.size()));
+            }
+            return record;
+        }
+        return null;
+    }
+
+    private boolean readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        recordLine = line;
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(following);
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        unread(following);
+                    }
+                }
+                line++;
+                fields.add(field.toString());
+                return true;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (any) {
+            fields.add(field.toString());
+        }
+        return any;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+
+    @Override
+    public int getLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,100 @@
+package system;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+public class DatabaseConfig {
+    public static final String CONFIG_FILE = "student_management.properties";
+
+    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/student_database";
+    private static final String DEFAULT_USER = "root";
+    private static final String DEFAULT_PASSWORD = "root";
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 10_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int poolSize;
+    private final long acquireTimeoutMillis;
+    private final Properties properties;
+
+    public DatabaseConfig(String url, String user, String password, int poolSize, long acquireTimeoutMillis) {
+        this(url, user, password, poolSize, acquireTimeoutMillis, new Properties());
+    }
+
+    private DatabaseConfig(String url, String user, String password, int poolSize, long acquireTimeoutMillis, Properties properties) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("poolSize must be at least 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.poolSize = poolSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.properties = properties;
+    }
+
+    // -Dsms.* system properties win over student_management.properties in the working directory;
+    // anything unset falls back to the historical localhost defaults.
+    public static DatabaseConfig load() throws IOException {
+        Properties properties = new Properties();
+        Path file = Paths.get(CONFIG_FILE);
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+        }
+        return fromProperties(properties);
+    }
+
+    public static DatabaseConfig fromProperties(Properties properties) {
+        return new DatabaseConfig(
+                setting(properties, "sms.db.url", DEFAULT_URL),
+                setting(properties, "sms.db.user", DEFAULT_USER),
+                setting(properties, "sms.db.password", DEFAULT_PASSWORD),
+                Integer.parseInt(setting(properties, "sms.db.poolSize", String.valueOf(DEFAULT_POOL_SIZE))),
+                Long.parseLong(setting(properties, "sms.db.acquireTimeoutMillis", String.valueOf(DEFAULT_ACQUIRE_TIMEOUT_MILLIS))),
+                properties);
+    }
+
+    private static String setting(Properties properties, String key, String defaultValue) {
+        return System.getProperty(key, properties.getProperty(key, defaultValue));
+    }
+
+    public boolean getFlag(String key) {
+        return Boolean.parseBoolean(setting(properties, key, "false"));
+    }
+
+    public String getString(String key, String defaultValue) {
+        return setting(properties, key, defaultValue);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return Integer.parseInt(setting(properties, key, String.valueOf(defaultValue)));
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+}
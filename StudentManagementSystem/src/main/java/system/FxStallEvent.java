@@ -0,0 +1,20 @@
+package system;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("system.FxStall")
+@Label("FX Thread Stall")
+@Category("Student Management")
+@Description("The JavaFX Application Thread did not process events for longer than the stall threshold")
+public class FxStallEvent extends jdk.jfr.Event {
+    @Label("Stall Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long stallNanos;
+
+    @Label("Blocked In")
+    String blockedIn;
+}
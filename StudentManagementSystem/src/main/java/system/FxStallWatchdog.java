@@ -0,0 +1,82 @@
+package system;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Posts a heartbeat to the FX Application Thread every CHECK_INTERVAL_MILLIS and measures how long
+// it takes to run. A heartbeat still pending after the threshold means the thread is blocked: the
+// stack it is blocked in is logged once, and when the heartbeat finally runs the whole stall is
+// recorded under Metrics.FX_STALL and as an FxStallEvent.
+public class FxStallWatchdog implements AutoCloseable {
+    static final long CHECK_INTERVAL_MILLIS = 50;
+    private static final Logger logger = Logger.getLogger(FxStallWatchdog.class.getName());
+
+    private final long thresholdNanos;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile long acknowledged;
+    private volatile Thread fxThread;
+
+    public FxStallWatchdog(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        thread = new Thread(this::watch, "fx-stall-watchdog");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    private void watch() {
+        while (running) {
+            long posted = System.nanoTime();
+            Platform.runLater(() -> {
+                fxThread = Thread.currentThread();
+                acknowledged = posted;
+            });
+            String blockedIn = null;
+            try {
+                while (running && acknowledged != posted) {
+                    Thread.sleep(CHECK_INTERVAL_MILLIS);
+                    if (blockedIn == null && acknowledged != posted && System.nanoTime() - posted > thresholdNanos) {
+                        blockedIn = blockedIn();
+                        logger.log(Level.WARNING, "FX Application Thread blocked for more than "
+                                + TimeUnit.NANOSECONDS.toMillis(thresholdNanos) + " ms in:\n" + blockedIn);
+                    }
+                }
+                long stall = System.nanoTime() - posted;
+                if (blockedIn != null) {
+                    Metrics.getDefault().stats(Metrics.FX_STALL).getLatency().recordNanos(stall);
+                    FxStallEvent event = new FxStallEvent();
+                    event.stallNanos = stall;
+                    event.blockedIn = blockedIn;
+                    event.commit();
+                }
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private String blockedIn() {
+        Thread target = fxThread;
+        if (target == null) {
+            return "(FX Application Thread not seen yet)";
+        }
+        StringBuilder trace = new StringBuilder();
+        for (StackTraceElement frame : target.getStackTrace()) {
+            trace.append("    at ").append(frame).append('\n');
+        }
+        return trace.toString();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+}
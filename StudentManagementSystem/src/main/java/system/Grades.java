@@ -0,0 +1,10 @@
+package system;
+
+public final class Grades {
+    private Grades() {
+    }
+
+    public static String calculateGrade(int marks) {
+        return GradingEngine.getDefault().grade(marks);
+    }
+}
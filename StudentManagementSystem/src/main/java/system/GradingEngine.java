@@ -0,0 +1,216 @@
+package system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+// Grade bands compiled into a lookup table indexed by mark, so grading is one array read per mark.
+// Whole mark columns are graded and counted in one pass, split across the common fork/join pool once
+// they are large enough to be worth it.
+public class GradingEngine {
+    public static final String DEFAULT_BANDS = "A:75,B:65,C:55,S:35,F:0";
+    public static final String[] SUBJECTS = {"Mathematics", "Physics", "Chemistry"};
+    static final int MAX_MARKS = 100;
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static volatile GradingEngine defaultEngine = fromSpec(DEFAULT_BANDS);
+
+    private final String[] grades;
+    private final byte[] bandByMark = new byte[MAX_MARKS + 1];
+    private final byte outOfRangeBand;
+
+    // bands: grade -> lowest mark that earns it. Marks below every band, and marks outside 0..100,
+    // get the band with the lowest threshold.
+    public GradingEngine(Map<String, Integer> bands) {
+        if (bands.isEmpty()) {
+            throw new IllegalArgumentException("At least one grade band is required");
+        }
+        List<Map.Entry<String, Integer>> ordered = new ArrayList<>(bands.entrySet());
+        ordered.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        if (ordered.size() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many grade bands");
+        }
+        grades = new String[ordered.size()];
+        for (int band = 0; band < ordered.size(); band++) {
+            grades[band] = ordered.get(band).getKey();
+        }
+        outOfRangeBand = (byte) (ordered.size() - 1);
+        for (int marks = 0; marks <= MAX_MARKS; marks++) {
+            byte band = outOfRangeBand;
+            for (int i = 0; i < ordered.size(); i++) {
+                if (marks >= ordered.get(i).getValue()) {
+                    band = (byte) i;
+                    break;
+                }
+            }
+            bandByMark[marks] = band;
+        }
+    }
+
+    // Parses "A:75,B:65,..." as used by the sms.grading.bands setting.
+    public static GradingEngine fromSpec(String spec) {
+        Map<String, Integer> bands = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] band = part.trim().split(":");
+            if (band.length != 2) {
+                throw new IllegalArgumentException("Invalid grade band '" + part + "', expected GRADE:MIN_MARKS");
+            }
+            bands.put(band[0].trim(), Integer.parseInt(band[1].trim()));
+        }
+        return new GradingEngine(bands);
+    }
+
+    public static GradingEngine getDefault() {
+        return defaultEngine;
+    }
+
+    public static void setDefault(GradingEngine engine) {
+        defaultEngine = engine;
+    }
+
+    public List<String> getGrades() {
+        return Collections.unmodifiableList(Arrays.asList(grades));
+    }
+
+    public int band(int marks) {
+        return marks >= 0 && marks <= MAX_MARKS ? bandByMark[marks] : outOfRangeBand;
+    }
+
+    public String grade(int marks) {
+        return grades[band(marks)];
+    }
+
+    // Band index for every mark in the column.
+    public byte[] gradeColumn(int[] marks) {
+        byte[] bands = new byte[marks.length];
+        if (marks.length < PARALLEL_THRESHOLD) {
+            gradeRange(marks, bands, 0, marks.length);
+        } else {
+            ForkJoinPool.commonPool().invoke(new GradeColumnTask(marks, bands, 0, marks.length));
+        }
+        return bands;
+    }
+
+    // Grade counts per semester and subject: result.get(semester)[subject][band], subjects in
+    // SUBJECTS order.
+    public Map<String, long[][]> distributionBySemester(List<Student> students) {
+        int size = students.size();
+        int[][] marks = new int[SUBJECTS.length][size];
+        int[] semesterCodes = new int[size];
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> semesters = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Student student = students.get(i);
+            marks[0][i] = student.getMathematicsMarks();
+            marks[1][i] = student.getPhysicsMarks();
+            marks[2][i] = student.getChemistryMarks();
+            String semester = student.getSemester() == null ? "" : student.getSemester();
+            Integer code = codes.get(semester);
+            if (code == null) {
+                code = semesters.size();
+                codes.put(semester, code);
+                semesters.add(semester);
+            }
+            semesterCodes[i] = code;
+        }
+
+        long[][][] counts = size < PARALLEL_THRESHOLD
+                ? countBySemester(marks, semesterCodes, semesters.size(), 0, size)
+                : ForkJoinPool.commonPool().invoke(new SemesterDistributionTask(marks, semesterCodes, semesters.size(), 0, size));
+
+        Map<String, long[][]> result = new LinkedHashMap<>();
+        for (int code = 0; code < semesters.size(); code++) {
+            result.put(semesters.get(code), counts[code]);
+        }
+        return result;
+    }
+
+    private void gradeRange(int[] marks, byte[] bands, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int mark = marks[i];
+            bands[i] = mark >= 0 && mark <= MAX_MARKS ? bandByMark[mark] : outOfRangeBand;
+        }
+    }
+
+    private long[][][] countBySemester(int[][] marks, int[] semesterCodes, int semesterCount, int from, int to) {
+        long[][][] counts = new long[semesterCount][SUBJECTS.length][grades.length];
+        for (int i = from; i < to; i++) {
+            long[][] semester = counts[semesterCodes[i]];
+            for (int subject = 0; subject < SUBJECTS.length; subject++) {
+                semester[subject][band(marks[subject][i])]++;
+            }
+        }
+        return counts;
+    }
+
+    private final class GradeColumnTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] marks;
+        private final byte[] bands;
+        private final int from;
+        private final int to;
+
+        GradeColumnTask(int[] marks, byte[] bands, int from, int to) {
+            this.marks = marks;
+            this.bands = bands;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                gradeRange(marks, bands, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new GradeColumnTask(marks, bands, from, middle), new GradeColumnTask(marks, bands, middle, to));
+        }
+    }
+
+    private final class SemesterDistributionTask extends RecursiveTask<long[][][]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[][] marks;
+        private final int[] semesterCodes;
+        private final int semesterCount;
+        private final int from;
+        private final int to;
+
+        SemesterDistributionTask(int[][] marks, int[] semesterCodes, int semesterCount, int from, int to) {
+            this.marks = marks;
+            this.semesterCodes = semesterCodes;
+            this.semesterCount = semesterCount;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[][][] compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return countBySemester(marks, semesterCodes, semesterCount, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            SemesterDistributionTask left = new SemesterDistributionTask(marks, semesterCodes, semesterCount, from, middle);
+            left.fork();
+            long[][][] right = new SemesterDistributionTask(marks, semesterCodes, semesterCount, middle, to).compute();
+            long[][][] counts = left.join();
+            for (int semester = 0; semester < semesterCount; semester++) {
+                for (int subject = 0; subject < SUBJECTS.length; subject++) {
+                    for (int band = 0; band < grades.length; band++) {
+                        counts[semester][subject][band] += right[semester][subject][band];
+                    }
+                }
+            }
+            return counts;
+        }
+    }
+}
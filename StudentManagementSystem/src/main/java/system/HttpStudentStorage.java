@@ -0,0 +1,320 @@
+package system;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Client mode (sms.storage=server): the rows come from a StudentServer's shared cache instead of the
+// database. Requests use the StudentWire binary encoding. Small answers are kept with their ETag and
+// revalidated with If-None-Match, so repeating a query while nothing changed costs a 304 without a
+// body. An unreachable or overloaded server is reported as a transient failure, which the
+// write-behind queue retries. Writes carry the shared sms.server.token. An insert batch is one
+// request and one server transaction, so it is limited to StudentServer.MAX_BATCH_ROWS rows; deletes
+// are idempotent and sent in chunks of that size.
+public class HttpStudentStorage implements StudentStorage {
+    static final int MAX_CACHED_BYTES = 64 * 1024;
+    static final int CACHED_RESPONSES = 256;
+    static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI base;
+    private final String token;
+    private final HttpClient client;
+    private final Map<String, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > CACHED_RESPONSES;
+        }
+    };
+
+    public HttpStudentStorage(URI base, String token) {
+        this.base = base;
+        this.token = token;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public int count() throws SQLException {
+        try (DataInputStream in = get("/students/count", true)) {
+            return (int) in.readLong();
+        } catch (IOException e) {
+            throw malformed(e);
+        }
+    }
+
+    // Pages through the server's rows in id order with its keyset cursor.
+    @Override
+    public int streamAll(int firstBatchSize, int batchSize, Consumer<List<Student>> consumer, BooleanSupplier cancelled) throws SQLException {
+        try (Metrics.Operation op = Metrics.getDefault().start("load")) {
+            StudentStore store = StudentStore.getDefault();
+            int loaded = 0;
+            long after = 0;
+            int limit = firstBatchSize;
+            while (!cancelled.getAsBoolean()) {
+                List<Student> batch;
+                long next;
+                try (DataInputStream in = get("/students?after=" + after + "&limit=" + limit, false)) {
+                    int count = in.readInt();
+                    batch = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        batch.add(StudentWire.readRow(in, store));
+                    }
+                    next = in.readLong();
+                } catch (IOException e) {
+                    throw malformed(e);
+                }
+                for (Student student : batch) {
+                    op.addRow(student);
+                }
+                if (!batch.isEmpty()) {
+                    loaded += batch.size();
+                    consumer.accept(batch);
+                }
+                if (next == 0) {
+                    break;
+                }
+                after = next;
+                limit = batchSize;
+            }
+            return loaded;
+        }
+    }
+
+    @Override
+    public void save(Student student) throws SQLException {
+        try (Metrics.Operation op = Metrics.getDefault().start("save")) {
+            insert(List.of(student));
+            op.addRows(1);
+        }
+    }
+
+    @Override
+    public void insertBatch(List<Student> students) throws SQLException {
+        try (Metrics.Operation op = Metrics.getDefault().start("insert")) {
+            insert(students);
+            op.addRows(students.size());
+        }
+    }
+
+    private void insert(List<Student> students) throws SQLException {
+        if (students.isEmpty()) {
+            return;
+        }
+        // Several requests would not be atomic: a failure after the first leaves part of the batch
+        // stored, and the caller's retry stores it twice.
+        if (students.size() > StudentServer.MAX_BATCH_ROWS) {
+            throw new SQLNonTransientException("A batch of " + students.size() + " students is larger than the server's limit of "
+                    + StudentServer.MAX_BATCH_ROWS);
+        }
+        try (DataInputStream in = post("/students", out -> {
+            out.writeInt(students.size());
+            for (Student student : students) {
+                StudentWire.writeRow(out, student);
+            }
+        })) {
+            int count = in.readInt();
+            if (count != students.size()) {
+                throw new SQLNonTransientException("The server stored " + count + " of " + students.size() + " students");
+            }
+            for (Student student : students) {
+                student.setId(in.readLong());
+            }
+        } catch (IOException e) {
+            throw malformed(e);
+        }
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return StudentServer.MAX_BATCH_ROWS;
+    }
+
+    @Override
+    public int deleteByIds(long[] ids) throws SQLException {
+        int deleted = 0;
+        for (int from = 0; from < ids.length; from += StudentServer.MAX_BATCH_ROWS) {
+            int to = Math.min(ids.length, from + StudentServer.MAX_BATCH_ROWS);
+            int first = from;
+            try (Metrics.Operation op = Metrics.getDefault().start("delete");
+                 DataInputStream in = post("/students/delete", out -> {
+                     out.writeInt(to - first);
+                     for (int i = first; i < to; i++) {
+                         out.writeLong(ids[i]);
+                     }
+                 })) {
+                int chunk = (int) in.readLong();
+                op.addRows(chunk);
+                deleted += chunk;
+            } catch (IOException e) {
+                throw malformed(e);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public long findMatchingId(Student student) throws SQLException {
+        StringBuilder path = new StringBuilder("/students/match?name=").append(encode(student.getName()));
+        if (student.getAdmissionNumber() != null) {
+            path.append("&admission=").append(encode(student.getAdmissionNumber()));
+        }
+        if (student.getSemester() != null) {
+            path.append("&semester=").append(encode(student.getSemester()));
+        }
+        try (DataInputStream in = get(path.toString(), false)) {
+            return in.readLong();
+        } catch (IOException e) {
+            throw malformed(e);
+        }
+    }
+
+    @Override
+    public List<StudentRepository.SemesterMark> findSemesterMarks(String studentName, String subject) throws SQLException {
+        try (Metrics.Operation op = Metrics.getDefault().start("semesterMarks");
+             DataInputStream in = get("/students/marks?name=" + encode(studentName) + "&subject=" + encode(subject), true)) {
+            int count = in.readInt();
+            List<StudentRepository.SemesterMark> marks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                marks.add(new StudentRepository.SemesterMark(in.readInt(), in.readInt()));
+            }
+            op.addRows(count);
+            return marks;
+        } catch (IOException e) {
+            throw malformed(e);
+        }
+    }
+
+    // The server does not publish a change feed; rows other clients write show up on the next load.
+    @Override
+    public Timestamp currentTimestamp() {
+        return null;
+    }
+
+    @Override
+    public String getSource() {
+        return "server:" + base;
+    }
+
+    // GETs the path as binary. With cacheable set, a small answer is kept with its ETag and served
+    // again when the server answers 304.
+    private DataInputStream get(String path, boolean cacheable) throws SQLException {
+        CachedResponse cached = null;
+        if (cacheable) {
+            synchronized (responses) {
+                cached = responses.get(path);
+            }
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve(path))
+                .timeout(TIMEOUT)
+                .header("Accept", StudentWire.BINARY_TYPE)
+                .GET();
+        if (cached != null) {
+            request.header("If-None-Match", cached.etag);
+        }
+        HttpResponse<byte[]> response = send(request.build());
+        if (response.statusCode() == 304 && cached != null) {
+            return new DataInputStream(new ByteArrayInputStream(cached.body));
+        }
+        check(response);
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        if (cacheable && etag != null && response.body().length <= MAX_CACHED_BYTES) {
+            synchronized (responses) {
+                responses.put(path, new CachedResponse(etag, response.body()));
+            }
+        }
+        return new DataInputStream(new ByteArrayInputStream(response.body()));
+    }
+
+    private DataInputStream post(String path, Body body) throws SQLException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            body.write(out);
+        } catch (IOException e) {
+            throw malformed(e);
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve(path))
+                .timeout(TIMEOUT)
+                .header("Accept", StudentWire.BINARY_TYPE)
+                .header("Content-Type", StudentWire.BINARY_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(bytes.toByteArray()));
+        if (token != null && !token.isEmpty()) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<byte[]> response = send(request.build());
+        check(response);
+        return new DataInputStream(new ByteArrayInputStream(response.body()));
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws SQLException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            throw new SQLRecoverableException("Could not reach the student server at " + base, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLNonTransientException("Interrupted while waiting for the student server", e);
+        }
+    }
+
+    // 503 means the server's database failed transiently; other errors are final.
+    private static void check(HttpResponse<byte[]> response) throws SQLException {
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            return;
+        }
+        String message = "Student server answered " + status + ": " + new String(response.body(), StandardCharsets.UTF_8);
+        if (status == 503) {
+            throw new SQLTransientException(message);
+        }
+        throw new SQLNonTransientException(message);
+    }
+
+    private SQLException malformed(IOException cause) {
+        return new SQLNonTransientException("Unreadable answer from the student server at " + base, cause);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value == null ? "" : value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static final class CachedResponse {
+        private final String etag;
+        private final byte[] body;
+
+        private CachedResponse(String etag, byte[] body) {
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+}
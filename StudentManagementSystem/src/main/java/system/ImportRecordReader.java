@@ -0,0 +1,31 @@
+package system;
+
+import java.io.IOException;
+import java.util.Map;
+
+interface ImportRecordReader extends AutoCloseable {
+    // Excel and Notepad start UTF-8 files with one; the readers skip it.
+    char BYTE_ORDER_MARK = '\uFEFF';
+
+    // Returns the next record keyed by normalized column name, or null at end of input.
+    Map<String, String> next() throws IOException;
+
+    // Line on which the record last returned by next() started.
+    int getLine();
+
+    @Override
+    void close() throws IOException;
+
+    static String normalizeColumn(String column) {
+        StringBuilder normalized = new StringBuilder(column.length() + 4);
+        String trimmed = column.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(trimmed.charAt(i - 1))) {
+                normalized.append('_');
+            }
+            normalized.append(c == ' ' || c == '-' ? '_' : Character.toLowerCase(c));
+        }
+        return normalized.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package system;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ImportReport {
+    static final int MAX_REJECTIONS_KEPT = 10_000;
+
+    private final List<Rejection> rejections = new ArrayList<>();
+    private long imported;
+    private long rejected;
+    private long elapsedNanos;
+    private boolean cancelled;
+    private Exception failure;
+
+    void addImported(int count) {
+        imported += count;
+    }
+
+    void addRejection(Rejection rejection) {
+        rejected++;
+        if (rejections.size() < MAX_REJECTIONS_KEPT) {
+            rejections.add(rejection);
+        }
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    void setFailure(Exception failure) {
+        this.failure = failure;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<Rejection> getRejections() {
+        return Collections.unmodifiableList(rejections);
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // The error that stopped the import part way, or null. The imported count covers the chunks
+    // committed before it.
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : imported * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public static final class Rejection {
+        private final int line;
+        private final String reason;
+
+        public Rejection(int line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + reason;
+        }
+    }
+}
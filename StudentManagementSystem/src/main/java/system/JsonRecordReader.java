@@ -0,0 +1,256 @@
+package system;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+// Streaming reader for flat JSON objects, either as one top-level array or as JSON Lines. Nested
+// values are rejected; numbers, booleans and null are returned as their literal text. A syntax
+// error rejects only the record it is in: the reader returns it as a record holding just the
+// error and carries on after the end of that object, as the CSV reader does for a bad row.
+class JsonRecordReader implements ImportRecordReader {
+    private final Reader reader;
+    private int line = 1;
+    private int recordLine;
+    private int pushedBack = -2;
+    private boolean started;
+    private boolean inString;
+
+    JsonRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        if (!started) {
+            started = true;
+            int first = read();
+            if (first != BYTE_ORDER_MARK) {
+                pushedBack = first;
+            }
+        }
+        int c = skipWhitespace();
+        while (c == '[' || c == ',' || c == ']') {
+            c = skipWhitespace();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        if (c != '{') {
+            String message = syntaxMessage("expected '{'");
+            skipToNextObject();
+            return rejected(message);
+        }
+        try {
+            return readObject();
+        } catch (SyntaxException e) {
+            skipRestOfObject(e.offending);
+            return rejected(e.getMessage());
+        }
+    }
+
+    private Map<String, String> readObject() throws IOException {
+        Map<String, String> record = new HashMap<>();
+        int c = skipWhitespace();
+        if (c == '}') {
+            return record;
+        }
+        while (true) {
+            if (c != '"') {
+                throw syntaxError("expected a field name", c);
+            }
+            String key = ImportRecordReader.normalizeColumn(readString());
+            c = skipWhitespace();
+            if (c != ':') {
+                throw syntaxError("expected ':'", c);
+            }
+            c = skipWhitespace();
+            String value;
+            if (c == '"') {
+                value = readString();
+            } else if (c == '{' || c == '[') {
+                // A '{' here opens a nested value, not the next record.
+                throw new SyntaxException(syntaxMessage("nested values are not supported"), '[');
+            } else {
+                value = readLiteral(c);
+            }
+            record.put(key, "null".equals(value) && c != '"' ? null : value);
+            c = skipWhitespace();
+            if (c == '}') {
+                return record;
+            }
+            if (c != ',') {
+                throw syntaxError("expected ',' or '}'", c);
+            }
+            c = skipWhitespace();
+        }
+    }
+
+    private static Map<String, String> rejected(String message) {
+        Map<String, String> record = new HashMap<>();
+        record.put(StudentImporter.SYNTAX_ERROR, message);
+        return record;
+    }
+
+    // Skips garbage between records up to the next '{', which is left for next().
+    private void skipToNextObject() throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != '{') {
+            if (c == '\n') {
+                line++;
+            }
+        }
+        pushedBack = c;
+    }
+
+    // Skips the rest of the object the error was found in, nested values and strings included. A
+    // '{' found where a field was expected starts the next record (a JSON Lines record cut short),
+    // so it is left for next().
+    private void skipRestOfObject(int offending) throws IOException {
+        boolean string = inString;
+        inString = false;
+        int depth = 1;
+        if (!string) {
+            switch (offending) {
+                case -1:
+                case '}':
+                    return;
+                case '{':
+                    pushedBack = offending;
+                    return;
+                case '[':
+                    depth++;
+                    break;
+                case '"':
+                    string = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        int c;
+        while (depth > 0 && (c = read()) != -1) {
+            if (c == '\n') {
+                line++;
+            }
+            if (string) {
+                if (c == '\\') {
+                    read();
+                } else if (c == '"') {
+                    string = false;
+                }
+            } else if (c == '"') {
+                string = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+        StringBuilder value = new StringBuilder();
+        inString = true;
+        int c;
+        while ((c = read()) != '"') {
+            if (c == -1) {
+                throw syntaxError("unterminated string", c);
+            }
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'n': value.append('\n'); break;
+                    case 't': value.append('\t'); break;
+                    case 'r': value.append('\r'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(read(), 16);
+                            if (digit < 0) {
+                                throw syntaxError("invalid \\u escape", 0);
+                            }
+                            code = code << 4 | digit;
+                        }
+                        value.append((char) code);
+                        break;
+                    default:
+                        value.append((char) c);
+                }
+            } else {
+                value.append((char) c);
+            }
+        }
+        inString = false;
+        return value.toString();
+    }
+
+    private String readLiteral(int first) throws IOException {
+        StringBuilder value = new StringBuilder();
+        int c = first;
+        while (c != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+            value.append((char) c);
+            c = read();
+        }
+        pushedBack = c;
+        if (c == '\n') {
+            pushedBack = -2;
+            line++;
+        }
+        return value.toString();
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+            if (c == '\n') {
+                line++;
+            }
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private static String syntaxMessage(String message) {
+        return "invalid JSON: " + message;
+    }
+
+    // offending is the character the parser stopped at, already consumed.
+    private SyntaxException syntaxError(String message, int offending) {
+        return new SyntaxException(syntaxMessage(message), offending);
+    }
+
+    @Override
+    public int getLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class SyntaxException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int offending;
+
+        private SyntaxException(String message, int offending) {
+            super(message);
+            this.offending = offending;
+        }
+    }
+}
@@ -0,0 +1,1049 @@
+package system;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Embedded storage backend: the students live as records in append-only segment files in one
+// directory, with the id -> record location index and a name index in memory. Layout (big-endian):
+//
+//   segment-NNNNNN.log: int magic, long next id when the segment was started, then records of
+//   int payload length, int CRC32 of the payload, payload:
+//     byte PUT or DELETE, long id, and for PUT the strings name, gender, email, contact number,
+//     address, admission number, semester (int UTF-8 length, -1 for null) and int mathematics,
+//     physics and chemistry marks.
+//
+// Writers append under the lock and then wait until their bytes are forced to disk. Whoever finds no
+// force in progress forces for everyone waiting (group commit), so concurrent saves share an fsync.
+// Opening replays the segments in order and truncates the torn record a crash can leave at the end
+// of the active segment; a bad record in a sealed segment fails the open instead.
+// Once more than half the bytes in the sealed segments are dead (deleted rows and tombstones), a
+// background thread copies the live records into the active segment and deletes the sealed ones,
+// oldest first, so a crash part way never brings back a row whose tombstone is already gone.
+public class LogStructuredStudentStorage implements StudentStorage {
+    static final int MAGIC = 0x534D534C;
+    static final int SEGMENT_HEADER_SIZE = 12;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final int BUFFER_SIZE = 1 << 20;
+    static final int MAX_PAYLOAD_SIZE = BUFFER_SIZE - RECORD_HEADER_SIZE;
+    static final double COMPACTION_THRESHOLD = 0.5;
+    static final int COMPACTION_BATCH = 1_000;
+    private static final int ADMISSION_NUMBER = 5;
+    private static final int SEMESTER = 6;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.log");
+    private static final Logger logger = Logger.getLogger(LogStructuredStudentStorage.class.getName());
+
+    private final Path directory;
+    private final long segmentSize;
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final LocationIndex index = new LocationIndex();
+    private final Map<String, long[]> idsByName = new HashMap<>();
+    private final Object syncMonitor = new Object();
+    private final Object compactionLock = new Object();
+    private final ScheduledExecutorService compactor;
+    private Segment active;
+    private long nextId = 1;
+    private long written;
+    private boolean closed;
+    private volatile boolean closing;
+    private long durable;
+    private boolean syncing;
+    private long syncCount;
+
+    // Segments roll over once they reach segmentSize bytes; compactionSeconds is how often the
+    // background thread checks for dead bytes, 0 to only compact through compact().
+    public LogStructuredStudentStorage(Path directory, long segmentSize, int compactionSeconds) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.max(SEGMENT_HEADER_SIZE + BUFFER_SIZE, Math.min(segmentSize, Integer.MAX_VALUE));
+        Files.createDirectories(directory);
+        recover();
+        if (active == null || active.size >= this.segmentSize) {
+            roll();
+        }
+        if (compactionSeconds > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "storage-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactIfNeeded, compactionSeconds, compactionSeconds, TimeUnit.SECONDS);
+        } else {
+            compactor = null;
+        }
+    }
+
+    @Override
+    public synchronized int count() {
+        return index.size();
+    }
+
+    // Scans the segments in order against a copy of the index taken up front, so the rows are those
+    // stored when the scan started; rows written meanwhile are left out. Each segment is read through
+    // its own channel, which keeps a segment compacted away during the scan readable.
+    @Override
+    public int streamAll(int firstBatchSize, int batchSize, Consumer<List<Student>> consumer, BooleanSupplier cancelled) throws SQLException {
+        LocationIndex live;
+        List<FileChannel> channels = new ArrayList<>();
+        List<long[]> ranges = new ArrayList<>();
+        try (Metrics.Operation op = Metrics.getDefault().start("load")) {
+            try {
+                synchronized (this) {
+                    checkOpen();
+                    live = index.copy();
+                    for (Segment segment : segments.values()) {
+                        channels.add(FileChannel.open(segment.file, StandardOpenOption.READ));
+                        ranges.add(new long[]{segment.number, segment.size});
+                    }
+                }
+                StudentStore store = StudentStore.getDefault();
+                int loaded = 0;
+                int limit = firstBatchSize;
+                List<Student> batch = new ArrayList<>(limit);
+                for (int i = 0; i < channels.size(); i++) {
+                    int number = (int) ranges.get(i)[0];
+                    SegmentReader reader = new SegmentReader(channels.get(i), SEGMENT_HEADER_SIZE, ranges.get(i)[1]);
+                    while (reader.next()) {
+                        if (cancelled.getAsBoolean()) {
+                            return loaded;
+                        }
+                        ByteBuffer payload = reader.payload;
+                        int slot = live.find(payload.getLong(1));
+                        if (payload.get(0) != PUT || slot < 0 || live.location(slot) != location(number, reader.position)) {
+                            continue;
+                        }
+                        Student student = decode(payload, store);
+                        batch.add(student);
+                        op.addRow(student);
+                        if (batch.size() == limit) {
+                            loaded += batch.size();
+                            consumer.accept(batch);
+                            limit = batchSize;
+                            batch = new ArrayList<>(limit);
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    loaded += batch.size();
+                    consumer.accept(batch);
+                }
+                return loaded;
+            } catch (IOException e) {
+                throw failure("load the students", e);
+            } finally {
+                for (FileChannel channel : channels) {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        logger.log(Level.WARNING, "An error occurred while closing a segment", e);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void save(Student student) throws SQLException {
+        try (Metrics.Operation op = Metrics.getDefault().start("save")) {
+            write(Collections.singletonList(student));
+            op.addRows(1);
+        }
+    }
+
+    // All records go out in one write and one force. A crash can still leave a prefix of the batch
+    // behind, as with any append; WriteBehindQueue skips the rows found again when it replays.
+    @Override
+    public void insertBatch(List<Student> students) throws SQLException {
+        try (Metrics.Operation op = Metrics.getDefault().start("insert")) {
+            write(students);
+            op.addRows(students.size());
+        }
+    }
+
+    private void write(List<Student> students) throws SQLException {
+        if (students.isEmpty()) {
+            return;
+        }
+        long[] ids = new long[students.size()];
+        try {
+            long end;
+            synchronized (this) {
+                checkOpen();
+                RecordBuffer records = new RecordBuffer();
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = nextId++;
+                    records.put(ids[i], students.get(i));
+                }
+                end = append(records.finish());
+            }
+            awaitDurable(end);
+        } catch (IOException e) {
+            throw failure("store students", e);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            students.get(i).setId(ids[i]);
+        }
+    }
+
+    @Override
+    public int deleteByIds(long[] ids) throws SQLException {
+        if (ids.length == 0) {
+            return 0;
+        }
+        try (Metrics.Operation op = Metrics.getDefault().start("delete")) {
+            int deleted = 0;
+            long end;
+            synchronized (this) {
+                checkOpen();
+                RecordBuffer records = new RecordBuffer();
+                for (long id : ids) {
+                    if (index.find(id) >= 0 && !records.contains(id)) {
+                        records.delete(id);
+                        deleted++;
+                    }
+                }
+                if (deleted == 0) {
+                    return 0;
+                }
+                end = append(records.finish());
+            }
+            awaitDurable(end);
+            op.addRows(deleted);
+            return deleted;
+        } catch (IOException e) {
+            throw failure("delete students", e);
+        }
+    }
+
+    @Override
+    public long findMatchingId(Student student) throws SQLException {
+        try {
+            synchronized (this) {
+                checkOpen();
+                for (long id : idsNamed(student.getName())) {
+                    String[] stored = getStrings(read(id).position(1 + Long.BYTES));
+                    if (Objects.equals(stored[ADMISSION_NUMBER], student.getAdmissionNumber())
+                            && Objects.equals(stored[SEMESTER], student.getSemester())) {
+                        return id;
+                    }
+                }
+                return 0;
+            }
+        } catch (IOException e) {
+            throw failure("look up a student", e);
+        }
+    }
+
+    // The scatter query: one positional read per stored row of the student.
+    @Override
+    public List<StudentRepository.SemesterMark> findSemesterMarks(String studentName, String subject) throws SQLException {
+        int subjectIndex = StudentTrendService.SUBJECTS.indexOf(subject);
+        if (subjectIndex < 0) {
+            throw new IllegalArgumentException("Unknown subject: " + subject);
+        }
+        List<StudentRepository.SemesterMark> marks = new ArrayList<>();
+        try (Metrics.Operation op = Metrics.getDefault().start("semesterMarks")) {
+            synchronized (this) {
+                checkOpen();
+                for (long id : idsNamed(studentName)) {
+                    ByteBuffer in = read(id).position(1 + Long.BYTES);
+                    int semester = StudentRepository.SemesterMark.parseSemester(getStrings(in)[SEMESTER]);
+                    if (semester >= 0) {
+                        marks.add(new StudentRepository.SemesterMark(semester, in.getInt(in.position() + subjectIndex * Integer.BYTES)));
+                    }
+                    op.addRows(1);
+                }
+            }
+        } catch (IOException e) {
+            throw failure("read semester marks", e);
+        }
+        marks.sort(Comparator.comparingInt(StudentRepository.SemesterMark::getSemester));
+        return marks;
+    }
+
+    // No other client writes to the directory, so there is no change feed to follow.
+    @Override
+    public Timestamp currentTimestamp() {
+        return null;
+    }
+
+    @Override
+    public String getSource() {
+        return "embedded:" + directory.toAbsolutePath();
+    }
+
+    // Number of forces writers waited for; with group commit, fewer than the writes that asked.
+    public long getSyncCount() {
+        synchronized (syncMonitor) {
+            return syncCount;
+        }
+    }
+
+    // Compacts every segment written so far, the active one included.
+    public void compact() throws SQLException {
+        try {
+            compact(true);
+        } catch (IOException e) {
+            throw failure("compact the storage", e);
+        }
+    }
+
+    private void compactIfNeeded() {
+        long sealed = 0;
+        long live = 0;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            for (Segment segment : segments.headMap(active.number).values()) {
+                sealed += segment.size - SEGMENT_HEADER_SIZE;
+                live += segment.liveBytes;
+            }
+        }
+        if (sealed > 0 && sealed - live > sealed * COMPACTION_THRESHOLD) {
+            try {
+                compact(false);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "An error occurred while compacting the storage", e);
+            }
+        }
+    }
+
+    // Copies the live records of the sealed segments into the active one, COMPACTION_BATCH at a time
+    // so writers are not held up for long, forces them and then deletes the sealed segments. Rows
+    // deleted meanwhile are simply not copied; new rows only ever go to the active segment.
+    private void compact(boolean includeActive) throws IOException {
+        synchronized (compactionLock) {
+            long start = System.nanoTime();
+            List<Integer> sealed;
+            long[] ids;
+            synchronized (this) {
+                checkOpen();
+                if (includeActive && active.size > SEGMENT_HEADER_SIZE) {
+                    roll();
+                }
+                sealed = new ArrayList<>(segments.headMap(active.number).keySet());
+                if (sealed.isEmpty()) {
+                    return;
+                }
+                int last = sealed.get(sealed.size() - 1);
+                long[] found = new long[index.size()];
+                int count = 0;
+                for (int slot = 0; slot < index.capacity(); slot++) {
+                    if (index.idAt(slot) != 0 && segmentOf(index.location(slot)) <= last) {
+                        found[count++] = index.idAt(slot);
+                    }
+                }
+                ids = Arrays.copyOf(found, count);
+            }
+            long end = 0;
+            for (int from = 0; from < ids.length; from += COMPACTION_BATCH) {
+                if (closing) {
+                    // The copies made so far are harmless duplicates; the next start compacts again.
+                    return;
+                }
+                synchronized (this) {
+                    checkOpen();
+                    RecordBuffer records = new RecordBuffer();
+                    int last = sealed.get(sealed.size() - 1);
+                    for (int i = from; i < Math.min(ids.length, from + COMPACTION_BATCH); i++) {
+                        int slot = index.find(ids[i]);
+                        if (slot >= 0 && segmentOf(index.location(slot)) <= last) {
+                            records.putPayload(read(ids[i]));
+                        }
+                    }
+                    if (records.size() > 0) {
+                        end = append(records.finish());
+                    }
+                }
+            }
+            awaitDurable(end);
+            long reclaimed = 0;
+            synchronized (this) {
+                checkOpen();
+                for (int number : sealed) {
+                    Segment segment = segments.get(number);
+                    if (segment.liveBytes != 0) {
+                        logger.log(Level.WARNING, "Keeping " + segment.file + ", it still holds live records");
+                        break;
+                    }
+                    segment.channel.close();
+                    Files.delete(segment.file);
+                    segments.remove(number);
+                    reclaimed += segment.size;
+                }
+            }
+            logger.log(Level.INFO, String.format("Compacted %d segment(s) in %.1f s: %d live rows copied, %d bytes reclaimed",
+                    sealed.size(), (System.nanoTime() - start) / 1e9, ids.length, reclaimed));
+        }
+    }
+
+    // Writes the records at the end of the active segment and applies them to the index. Returns the
+    // position to pass to awaitDurable. A failed write is cut off again so the next one starts clean.
+    private long append(ByteBuffer records) throws IOException {
+        if (active.size + records.remaining() > segmentSize && active.size > SEGMENT_HEADER_SIZE) {
+            roll();
+        }
+        long start = active.size;
+        try {
+            writeFully(active, records.duplicate(), start);
+        } catch (IOException e) {
+            reopen(active);
+            try {
+                active.channel.truncate(start);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        }
+        for (int at = records.position(); at < records.limit(); ) {
+            int length = records.getInt(at);
+            apply(active, start + at - records.position(), RECORD_HEADER_SIZE + length, records.slice(at + RECORD_HEADER_SIZE, length));
+            at += RECORD_HEADER_SIZE + length;
+        }
+        active.size += records.remaining();
+        written += records.remaining();
+        return written;
+    }
+
+    private void apply(Segment segment, long position, int size, ByteBuffer payload) {
+        long id = payload.getLong(1);
+        nextId = Math.max(nextId, id + 1);
+        int slot = index.find(id);
+        if (slot >= 0) {
+            segments.get(segmentOf(index.location(slot))).liveBytes -= index.size(slot);
+        }
+        if (payload.get(0) == PUT) {
+            index.put(id, location(segment.number, position), size);
+            segment.liveBytes += size;
+            if (slot < 0) {
+                addName(getString(payload, 1 + Long.BYTES), id);
+            }
+        } else if (slot >= 0) {
+            index.remove(id);
+        }
+    }
+
+    // Seals the active segment, forcing what it holds, and starts the next one.
+    private void roll() throws IOException {
+        int number = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path file = directory.resolve(String.format("segment-%06d.log", number));
+        if (active != null) {
+            forceFully(active);
+            markDurable(written);
+        }
+        Segment segment = new Segment(number, file, FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE).putInt(MAGIC).putLong(nextId).flip();
+        writeFully(segment, header, 0);
+        forceFully(segment);
+        segment.size = SEGMENT_HEADER_SIZE;
+        segments.put(number, segment);
+        active = segment;
+    }
+
+    // Group commit: returns once everything up to position is forced. The first writer to find no
+    // force running forces the active segment for all records appended so far; the others wait for
+    // it and return without a force of their own if it covered them.
+    private void awaitDurable(long position) throws IOException {
+        synchronized (syncMonitor) {
+            while (durable < position && syncing) {
+                try {
+                    syncMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the storage to sync");
+                }
+            }
+            if (durable >= position) {
+                return;
+            }
+            syncing = true;
+        }
+        long upTo = 0;
+        boolean forced = false;
+        try {
+            Segment segment;
+            synchronized (this) {
+                checkOpen();
+                upTo = written;
+                segment = active;
+            }
+            forced = force(segment, upTo);
+        } finally {
+            synchronized (syncMonitor) {
+                syncing = false;
+                if (forced) {
+                    durable = Math.max(durable, upTo);
+                    syncCount++;
+                }
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    // Forces the segment outside the lock. A channel closed under us means the segment was sealed
+    // (and forced by roll) or closed by another thread's interrupt and reopened, so try again.
+    private boolean force(Segment segment, long upTo) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            FileChannel channel;
+            synchronized (this) {
+                channel = segment.channel;
+            }
+            try {
+                channel.force(false);
+                return true;
+            } catch (ClosedByInterruptException e) {
+                reopen(segment);
+                throw e;
+            } catch (ClosedChannelException e) {
+                synchronized (syncMonitor) {
+                    if (durable >= upTo) {
+                        return false;
+                    }
+                }
+                synchronized (this) {
+                    checkOpen();
+                }
+                if (attempt == 3) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void markDurable(long position) {
+        synchronized (syncMonitor) {
+            durable = Math.max(durable, position);
+            syncMonitor.notifyAll();
+        }
+    }
+
+    // Reads the payload of the live record of id, which must be in the index.
+    private ByteBuffer read(long id) throws IOException {
+        int slot = index.find(id);
+        long location = index.location(slot);
+        Segment segment = segments.get(segmentOf(location));
+        ByteBuffer record = ByteBuffer.allocate(index.size(slot));
+        long position = offsetOf(location);
+        try {
+            while (record.hasRemaining()) {
+                if (segment.channel.read(record, position + record.position()) < 0) {
+                    throw new IOException("Record of student " + id + " ends past " + segment.file);
+                }
+            }
+        } catch (ClosedByInterruptException e) {
+            reopen(segment);
+            throw e;
+        }
+        return record.position(RECORD_HEADER_SIZE).slice();
+    }
+
+    private long[] idsNamed(String name) {
+        long[] ids = idsByName.get(name);
+        if (ids == null) {
+            return new long[0];
+        }
+        // Deleted rows stay in the name index until the name is next looked up.
+        long[] live = Arrays.stream(ids).filter(id -> index.find(id) >= 0).toArray();
+        if (live.length == 0) {
+            idsByName.remove(name);
+        } else if (live.length < ids.length) {
+            idsByName.put(name, live);
+        }
+        return live;
+    }
+
+    private void addName(String name, long id) {
+        long[] ids = idsByName.get(name);
+        if (ids == null) {
+            idsByName.put(name, new long[]{id});
+        } else {
+            long[] grown = Arrays.copyOf(ids, ids.length + 1);
+            grown[ids.length] = id;
+            idsByName.put(name, grown);
+        }
+    }
+
+    // Replays every segment in order. In the active (last) segment, a record that is cut short or
+    // fails its checksum is a write the crash interrupted, and it and what follows are truncated. The
+    // same in a sealed segment means the file is damaged, and opening fails rather than lose rows.
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingInt(LogStructuredStudentStorage::segmentNumber))
+                    .collect(Collectors.toList());
+        }
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+            if (header.hasRemaining() && i == files.size() - 1) {
+                // The crash came while the segment was being started; nothing was written to it yet.
+                channel.close();
+                Files.delete(file);
+                break;
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                channel.close();
+                closeSegments();
+                throw new IOException(file + " is not a student storage segment");
+            }
+            nextId = Math.max(nextId, header.getLong(4));
+            Segment segment = new Segment(segmentNumber(file), file, channel);
+            segments.put(segment.number, segment);
+            SegmentReader reader = new SegmentReader(channel, SEGMENT_HEADER_SIZE, channel.size());
+            while (reader.next()) {
+                apply(segment, reader.position, reader.size, reader.payload);
+            }
+            segment.size = reader.end();
+            if (segment.size < channel.size()) {
+                if (i < files.size() - 1) {
+                    // Sealed segments were complete when the next one was started, so this is damage,
+                    // not an interrupted write; cutting it off would silently drop every later record.
+                    long unreadable = channel.size() - segment.size;
+                    closeSegments();
+                    throw new IOException(file + " is damaged at offset " + segment.size + "; " + unreadable + " bytes after it cannot be read");
+                }
+                logger.log(Level.WARNING, "Truncating " + (channel.size() - segment.size) + " bytes of an interrupted write in " + file);
+                channel.truncate(segment.size);
+                channel.force(true);
+            }
+            active = segment;
+        }
+        if (!segments.isEmpty()) {
+            logger.log(Level.INFO, "Opened " + index.size() + " students in " + segments.size() + " segment(s) in " + directory);
+        }
+    }
+
+    // Closes the segments recover() opened before it gave up.
+    private void closeSegments() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "An error occurred while closing " + segment.file, e);
+            }
+        }
+        segments.clear();
+    }
+
+    private static int segmentNumber(Path file) {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    private static long location(int segment, long offset) {
+        return (long) segment << 32 | offset;
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static long offsetOf(long location) {
+        return location & 0xFFFFFFFFL;
+    }
+
+    private void writeFully(Segment segment, ByteBuffer bytes, long position) throws IOException {
+        while (bytes.hasRemaining()) {
+            position += segment.channel.write(bytes, position);
+        }
+    }
+
+    private void forceFully(Segment segment) throws IOException {
+        try {
+            segment.channel.force(false);
+        } catch (ClosedByInterruptException e) {
+            reopen(segment);
+            throw e;
+        }
+    }
+
+    // A FileChannel closes itself when a thread blocked in it is interrupted, such as a cancelled
+    // import; reopening keeps the storage usable for everyone else.
+    private synchronized void reopen(Segment segment) throws IOException {
+        if (!closed && !segment.channel.isOpen() && segments.get(segment.number) == segment) {
+            segment.channel = FileChannel.open(segment.file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The student storage in " + directory + " is closed");
+        }
+    }
+
+    private static SQLException failure(String action, IOException cause) {
+        return new SQLNonTransientException("Could not " + action + " in the embedded storage", cause);
+    }
+
+    private static Student decode(ByteBuffer payload, StudentStore store) {
+        ByteBuffer in = payload.duplicate().position(1);
+        long id = in.getLong();
+        String[] strings = getStrings(in);
+        return store.append(id, strings[0], strings[1], strings[2], strings[3], strings[4], in.getInt(), in.getInt(), in.getInt(),
+                strings[ADMISSION_NUMBER], strings[SEMESTER]);
+    }
+
+    // The seven strings of a PUT payload in record order, leaving in at the marks.
+    private static String[] getStrings(ByteBuffer in) {
+        String[] strings = new String[7];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = getString(in);
+        }
+        return strings;
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static String getString(ByteBuffer payload, int position) {
+        return getString(payload.duplicate().position(position));
+    }
+
+    @Override
+    public void close() {
+        closing = true;
+        if (compactor != null) {
+            compactor.shutdown();
+        }
+        synchronized (compactionLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    forceFully(active);
+                    markDurable(written);
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "An error occurred while syncing the student storage", e);
+                }
+                closed = true;
+                for (Segment segment : segments.values()) {
+                    try {
+                        segment.channel.close();
+                    } catch (IOException e) {
+                        logger.log(Level.SEVERE, "An error occurred while closing " + segment.file, e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Segment {
+        private final int number;
+        private final Path file;
+        private FileChannel channel;
+        private long size;
+        private long liveBytes;
+
+        private Segment(int number, Path file, FileChannel channel) {
+            this.number = number;
+            this.file = file;
+            this.channel = channel;
+        }
+    }
+
+    // Encodes records back to back, each with its length and checksum.
+    private static final class RecordBuffer {
+        private ByteBuffer buffer = ByteBuffer.allocate(4_096);
+        private final LocationIndex ids = new LocationIndex();
+        private int count;
+
+        void put(long id, Student student) throws IOException {
+            int start = begin();
+            buffer.put(PUT).putLong(id);
+            putString(student.getName());
+            putString(student.getGender());
+            putString(student.getEmail());
+            putString(student.getContactNumber());
+            putString(student.getAddress());
+            putString(student.getAdmissionNumber());
+            putString(student.getSemester());
+            ensure(3 * Integer.BYTES);
+            buffer.putInt(student.getMathematicsMarks()).putInt(student.getPhysicsMarks()).putInt(student.getChemistryMarks());
+            end(start, id);
+        }
+
+        void delete(long id) throws IOException {
+            int start = begin();
+            buffer.put(DELETE).putLong(id);
+            end(start, id);
+        }
+
+        void putPayload(ByteBuffer payload) throws IOException {
+            int start = begin();
+            ensure(payload.remaining());
+            long id = payload.getLong(payload.position() + 1);
+            buffer.put(payload.duplicate());
+            end(start, id);
+        }
+
+        boolean contains(long id) {
+            return ids.find(id) >= 0;
+        }
+
+        int size() {
+            return count;
+        }
+
+        ByteBuffer finish() {
+            return buffer.flip();
+        }
+
+        private int begin() {
+            ensure(RECORD_HEADER_SIZE + 1 + Long.BYTES);
+            int start = buffer.position();
+            buffer.position(start + RECORD_HEADER_SIZE);
+            return start;
+        }
+
+        private void end(int start, long id) throws IOException {
+            int length = buffer.position() - start - RECORD_HEADER_SIZE;
+            if (length > MAX_PAYLOAD_SIZE) {
+                throw new IOException("Student " + id + " does not fit in a storage record");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), start + RECORD_HEADER_SIZE, length);
+            buffer.putInt(start, length).putInt(start + Integer.BYTES, (int) crc.getValue());
+            ids.put(id, start, length);
+            count++;
+        }
+
+        private void putString(String value) {
+            if (value == null) {
+                ensure(Integer.BYTES);
+                buffer.putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(Integer.BYTES + bytes.length);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer = grown.put(buffer.flip());
+            }
+        }
+    }
+
+    // Reads the records of a segment front to back through a large buffer. next() stops at the end
+    // or at the first record that is cut short or fails its checksum; end() is where that is.
+    private static final class SegmentReader {
+        private final FileChannel channel;
+        private final long limit;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long bufferStart;
+        private long position;
+        private int size;
+        private ByteBuffer payload;
+
+        private SegmentReader(FileChannel channel, long start, long limit) {
+            this.channel = channel;
+            this.limit = limit;
+            this.bufferStart = start;
+            buffer.limit(0);
+        }
+
+        boolean next() throws IOException {
+            if (!fill(RECORD_HEADER_SIZE)) {
+                return false;
+            }
+            int at = buffer.position();
+            int length = buffer.getInt(at);
+            if (length <= 0 || length > MAX_PAYLOAD_SIZE || !fill(RECORD_HEADER_SIZE + length)) {
+                return false;
+            }
+            at = buffer.position();
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), at + RECORD_HEADER_SIZE, length);
+            if ((int) crc.getValue() != buffer.getInt(at + Integer.BYTES)) {
+                return false;
+            }
+            position = bufferStart + at;
+            size = RECORD_HEADER_SIZE + length;
+            payload = buffer.slice(at + RECORD_HEADER_SIZE, length);
+            buffer.position(at + size);
+            return true;
+        }
+
+        long end() {
+            return bufferStart + buffer.position();
+        }
+
+        private boolean fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return true;
+            }
+            bufferStart += buffer.position();
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                long at = bufferStart + buffer.position();
+                if (at >= limit) {
+                    break;
+                }
+                buffer.limit((int) Math.min(buffer.capacity(), buffer.position() + (limit - at)));
+                if (channel.read(buffer, at) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer.remaining() >= bytes;
+        }
+    }
+
+    // id -> record location and size, open addressing with linear probing: two arrays instead of a
+    // map entry per row. Ids are positive, so 0 marks a free slot.
+    static final class LocationIndex {
+        private long[] ids = new long[16];
+        private long[] locations = new long[16];
+        private int[] sizes = new int[16];
+        private int count;
+
+        int find(long id) {
+            int mask = ids.length - 1;
+            for (int slot = hash(id) & mask; ids[slot] != 0; slot = (slot + 1) & mask) {
+                if (ids[slot] == id) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        void put(long id, long location, int size) {
+            if ((count + 1) * 4L > ids.length * 3L) {
+                resize(ids.length * 2);
+            }
+            int mask = ids.length - 1;
+            int slot = hash(id) & mask;
+            while (ids[slot] != 0 && ids[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            if (ids[slot] == 0) {
+                ids[slot] = id;
+                count++;
+            }
+            locations[slot] = location;
+            sizes[slot] = size;
+        }
+
+        // Backward-shift deletion: later entries of the probe run move up into the hole, so lookups
+        // never need tombstones.
+        boolean remove(long id) {
+            int hole = find(id);
+            if (hole < 0) {
+                return false;
+            }
+            int mask = ids.length - 1;
+            for (int next = (hole + 1) & mask; ids[next] != 0; next = (next + 1) & mask) {
+                int home = hash(ids[next]) & mask;
+                boolean movable = next > hole ? home <= hole || home > next : home <= hole && home > next;
+                if (movable) {
+                    ids[hole] = ids[next];
+                    locations[hole] = locations[next];
+                    sizes[hole] = sizes[next];
+                    hole = next;
+                }
+            }
+            ids[hole] = 0;
+            count--;
+            return true;
+        }
+
+        int size() {
+            return count;
+        }
+
+        int capacity() {
+            return ids.length;
+        }
+
+        long idAt(int slot) {
+            return ids[slot];
+        }
+
+        long location(int slot) {
+            return locations[slot];
+        }
+
+        int size(int slot) {
+            return sizes[slot];
+        }
+
+        LocationIndex copy() {
+            LocationIndex copy = new LocationIndex();
+            copy.ids = ids.clone();
+            copy.locations = locations.clone();
+            copy.sizes = sizes.clone();
+            copy.count = count;
+            return copy;
+        }
+
+        private void resize(int capacity) {
+            long[] oldIds = ids;
+            long[] oldLocations = locations;
+            int[] oldSizes = sizes;
+            ids = new long[capacity];
+            locations = new long[capacity];
+            sizes = new int[capacity];
+            count = 0;
+            for (int slot = 0; slot < oldIds.length; slot++) {
+                if (oldIds[slot] != 0) {
+                    put(oldIds[slot], oldLocations[slot], oldSizes[slot]);
+                }
+            }
+        }
+
+        private static int hash(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ h >>> 32);
+        }
+    }
+}
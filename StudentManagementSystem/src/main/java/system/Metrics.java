@@ -0,0 +1,134 @@
+package system;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide operation statistics: a latency histogram plus row and byte counters per named
+// operation. Each timed operation is also emitted as a RepositoryEvent for JDK Flight Recorder.
+public class Metrics {
+    public static final String FX_STALL = "fx.stall";
+
+    private static final Metrics defaultMetrics = new Metrics();
+
+    private final Map<String, OperationStats> operations = new ConcurrentSkipListMap<>();
+
+    public static Metrics getDefault() {
+        return defaultMetrics;
+    }
+
+    public Operation start(String name) {
+        return new Operation(stats(name), name);
+    }
+
+    public OperationStats stats(String name) {
+        return operations.computeIfAbsent(name, key -> new OperationStats());
+    }
+
+    public Map<String, OperationStats> getOperations() {
+        return Collections.unmodifiableMap(operations);
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"timestamp\":\"").append(Instant.now()).append("\",\"operations\":{");
+        boolean first = true;
+        for (Map.Entry<String, OperationStats> entry : operations.entrySet()) {
+            OperationStats stats = entry.getValue();
+            LatencyHistogram latency = stats.getLatency();
+            ReportWriter.appendJson(json.append(first ? "" : ","), entry.getKey())
+                    .append(":{\"count\":").append(latency.getCount())
+                    .append(",\"meanMicros\":").append(String.format(Locale.ROOT, "%.1f", latency.getMeanMicros()))
+                    .append(",\"p50Micros\":").append(latency.getPercentileMicros(50))
+                    .append(",\"p95Micros\":").append(latency.getPercentileMicros(95))
+                    .append(",\"p99Micros\":").append(latency.getPercentileMicros(99))
+                    .append(",\"maxMicros\":").append(latency.getMaxMicros())
+                    .append(",\"rows\":").append(stats.getRows())
+                    .append(",\"bytes\":").append(stats.getBytes())
+                    .append('}');
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    // Replaces the file atomically so readers never see a half-written snapshot.
+    public void writeSnapshot(Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        Files.write(temp, toJson().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static final class OperationStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+    }
+
+    // Times one operation from start() to close(). Not thread-safe; owned by the calling thread.
+    public static final class Operation implements AutoCloseable {
+        private final OperationStats stats;
+        private final RepositoryEvent event = new RepositoryEvent();
+        private final long startNanos = System.nanoTime();
+        private long rows;
+        private long bytes;
+
+        private Operation(OperationStats stats, String name) {
+            this.stats = stats;
+            event.operation = name;
+            event.begin();
+        }
+
+        public void addRows(long count) {
+            rows += count;
+        }
+
+        public void addBytes(long count) {
+            bytes += count;
+        }
+
+        // Counts the row and an estimate of its size on the wire: string lengths plus the numeric
+        // columns.
+        public void addRow(Student student) {
+            rows++;
+            bytes += 20 + length(student.getName()) + length(student.getGender()) + length(student.getEmail())
+                    + length(student.getContactNumber()) + length(student.getAddress())
+                    + length(student.getAdmissionNumber()) + length(student.getSemester());
+        }
+
+        private static int length(String value) {
+            return value == null ? 0 : value.length();
+        }
+
+        @Override
+        public void close() {
+            stats.latency.recordNanos(System.nanoTime() - startNanos);
+            stats.rows.add(rows);
+            stats.bytes.add(bytes);
+            event.end();
+            if (event.shouldCommit()) {
+                event.rows = rows;
+                event.bytes = bytes;
+                event.commit();
+            }
+        }
+    }
+}
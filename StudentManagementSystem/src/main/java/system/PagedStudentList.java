@@ -0,0 +1,152 @@
+package system;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Read-only list for the TableView that only holds a bounded number of pages in memory. Rows that
+// are not loaded yet are reported as null and filled in by a change event once their page arrives.
+// Must only be used from the FX Application Thread.
+public class PagedStudentList extends ObservableListBase<Student> {
+    private static final Logger logger = Logger.getLogger(PagedStudentList.class.getName());
+
+    static final int PAGE_SIZE = 200;
+    static final int MAX_CACHED_PAGES = 16;
+
+    private final StudentRepository repository;
+    private final Executor executor;
+    private final Map<Integer, List<Student>> pages = new LinkedHashMap<>(MAX_CACHED_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Student>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    // Key of the last row of each page seen so far; page n + 1 starts right after boundaries[n].
+    private final TreeMap<Integer, StudentRepository.PageKey> boundaries = new TreeMap<>();
+    private final Set<Integer> pending = new HashSet<>();
+    private String sortColumn = "id";
+    private boolean ascending = true;
+    private int size;
+    private int generation;
+
+    public PagedStudentList(StudentRepository repository, Executor executor) {
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    @Override
+    public Student get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int page = index / PAGE_SIZE;
+        List<Student> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        if (!pages.containsKey(page + 1) && (page + 1) * PAGE_SIZE < size) {
+            requestPage(page + 1);
+        }
+        int offset = index % PAGE_SIZE;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public void setSort(String sortColumn, boolean ascending) {
+        if (sortColumn.equals(this.sortColumn) && ascending == this.ascending) {
+            return;
+        }
+        this.sortColumn = sortColumn;
+        this.ascending = ascending;
+        reset(size);
+    }
+
+    // Re-reads the row count and drops every cached page, e.g. after records were added or deleted.
+    public void refresh() {
+        int currentGeneration = ++generation;
+        executor.execute(() -> {
+            try {
+                int count = repository.count();
+                Platform.runLater(() -> {
+                    if (currentGeneration == generation) {
+                        reset(count);
+                    }
+                });
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, "An error occurred while counting students", e);
+            }
+        });
+    }
+
+    private void reset(int newSize) {
+        int oldSize = size;
+        generation++;
+        pages.clear();
+        boundaries.clear();
+        pending.clear();
+        size = newSize;
+        beginChange();
+        nextReplace(0, newSize, Collections.nCopies(oldSize, null));
+        endChange();
+    }
+
+    private void requestPage(int page) {
+        if (!pending.add(page)) {
+            return;
+        }
+        Map.Entry<Integer, StudentRepository.PageKey> start = boundaries.floorEntry(page - 1);
+        StudentRepository.PageKey after = start == null ? null : start.getValue();
+        int skippedPages = start == null ? page : page - start.getKey() - 1;
+        String column = sortColumn;
+        boolean ascendingOrder = ascending;
+        int currentGeneration = generation;
+
+        executor.execute(() -> {
+            try {
+                StudentRepository.Page result = repository.findPage(column, ascendingOrder, after, skippedPages * PAGE_SIZE, PAGE_SIZE);
+                Platform.runLater(() -> pageLoaded(currentGeneration, page, result));
+            } catch (SQLException e) {
+                Platform.runLater(() -> pending.remove(page));
+                logger.log(Level.SEVERE, "An error occurred while loading a page of students", e);
+            }
+        });
+    }
+
+    private void pageLoaded(int loadedGeneration, int page, StudentRepository.Page result) {
+        if (loadedGeneration != generation) {
+            return;
+        }
+        pending.remove(page);
+        pages.put(page, result.getRows());
+        if (result.getLastKey() != null) {
+            boundaries.put(page, result.getLastKey());
+        }
+
+        int from = page * PAGE_SIZE;
+        int to = Math.min(size, from + PAGE_SIZE);
+        if (from >= to) {
+            return;
+        }
+        beginChange();
+        for (int index = from; index < to; index++) {
+            nextSet(index, null);
+        }
+        endChange();
+    }
+}
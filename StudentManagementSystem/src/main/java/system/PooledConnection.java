@@ -0,0 +1,124 @@
+package system;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// A physical connection checked out of a ConnectionPool. Prepared statements are cached per SQL
+// string for the lifetime of the physical connection, so callers must not close them; closing the
+// PooledConnection hands it back to the pool. Each borrow gets its own handle, so closing a handle
+// again (nested try-with-resources) does nothing, even after the connection went to someone else.
+public class PooledConnection implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(PooledConnection.class.getName());
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+    private boolean broken;
+    private boolean released;
+
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this(pool, connection, new HashMap<>());
+    }
+
+    private PooledConnection(ConnectionPool pool, Connection connection, Map<String, PreparedStatement> statements) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statements = statements;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt == null || stmt.isClosed()) {
+            stmt = connection.prepareStatement(sql);
+            statements.put(sql, stmt);
+        } else {
+            stmt.clearParameters();
+        }
+        return stmt;
+    }
+
+    public PreparedStatement prepareReturningKeys(String sql) throws SQLException {
+        String key = "keys:" + sql;
+        PreparedStatement stmt = statements.get(key);
+        if (stmt == null || stmt.isClosed()) {
+            stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            statements.put(key, stmt);
+        } else {
+            stmt.clearParameters();
+        }
+        return stmt;
+    }
+
+    // Marks the physical connection as unusable so it is discarded rather than pooled again.
+    public void invalidate() {
+        broken = true;
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    boolean isUsable(int timeoutSeconds) {
+        try {
+            return !connection.isClosed() && connection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    boolean reset() {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            for (PreparedStatement stmt : statements.values()) {
+                stmt.clearBatch();
+            }
+            return true;
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Discarding connection that could not be reset", e);
+            return false;
+        }
+    }
+
+    // A new handle on the same physical connection and statement cache, for the next borrower.
+    PooledConnection reuse() {
+        return new PooledConnection(pool, connection, statements);
+    }
+
+    void closePhysical() {
+        for (PreparedStatement stmt : statements.values()) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                logger.log(Level.FINE, "Error closing cached statement", e);
+            }
+        }
+        statements.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Error closing pooled connection", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (released) {
+            return;
+        }
+        released = true;
+        pool.release(this);
+    }
+}
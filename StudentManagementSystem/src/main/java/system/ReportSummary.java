@@ -0,0 +1,125 @@
+package system;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-semester subject averages and grade counts, accumulated one row at a time so a report over
+// any number of students needs memory only per semester. Shards keep their own summary and merge.
+public class ReportSummary {
+    static final String SEMESTER_SCOPE = "semester";
+    static final String ALL_SCOPE = "all";
+
+    private final GradingEngine engine;
+    private final Map<String, Stats> bySemester = new TreeMap<>();
+
+    public ReportSummary(GradingEngine engine) {
+        this.engine = engine;
+    }
+
+    // bands holds the grade band of each mark, as GradingEngine.gradeColumn returns them.
+    public void add(String semester, int[] marks, byte[] bands) {
+        bySemester.computeIfAbsent(semester == null ? "" : semester, key -> new Stats()).add(marks, bands);
+    }
+
+    public void merge(ReportSummary other) {
+        other.bySemester.forEach((semester, stats) -> bySemester.computeIfAbsent(semester, key -> new Stats()).merge(stats));
+    }
+
+    public long getStudentCount() {
+        long count = 0;
+        for (Stats stats : bySemester.values()) {
+            count += stats.students;
+        }
+        return count;
+    }
+
+    // One row per semester and subject, followed by the totals over all semesters. The scope column
+    // tells them apart ("semester" or "all"; totals have no semester), since any string can be a
+    // semester name.
+    public void writeCsv(ReportWriter writer) throws IOException {
+        List<String> grades = engine.getGrades();
+        StringBuilder line = new StringBuilder("scope,semester,subject,students,average");
+        for (String grade : grades) {
+            ReportWriter.appendCsv(line.append(",grade_"), grade);
+        }
+        writer.writeLine(line);
+        for (Map.Entry<String, Stats> entry : bySemester.entrySet()) {
+            writeCsv(writer, line, SEMESTER_SCOPE, entry.getKey(), entry.getValue());
+        }
+        writeCsv(writer, line, ALL_SCOPE, null, total());
+    }
+
+    private static void writeCsv(ReportWriter writer, StringBuilder line, String scope, String semester, Stats stats) throws IOException {
+        for (int subject = 0; subject < GradingEngine.SUBJECTS.length; subject++) {
+            line.setLength(0);
+            ReportWriter.appendCsv(line.append(scope).append(','), semester).append(',').append(GradingEngine.SUBJECTS[subject])
+                    .append(',').append(stats.students).append(',').append(String.format(Locale.ROOT, "%.2f", stats.average(subject)));
+            for (long count : stats.bands[subject]) {
+                line.append(',').append(count);
+            }
+            writer.writeLine(line);
+        }
+    }
+
+    // Same rows as writeCsv; the totals have "scope":"all" and a null semester.
+    public void writeJsonLines(ReportWriter writer) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (Map.Entry<String, Stats> entry : bySemester.entrySet()) {
+            writeJsonLines(writer, line, SEMESTER_SCOPE, entry.getKey(), entry.getValue());
+        }
+        writeJsonLines(writer, line, ALL_SCOPE, null, total());
+    }
+
+    private void writeJsonLines(ReportWriter writer, StringBuilder line, String scope, String semester, Stats stats) throws IOException {
+        List<String> grades = engine.getGrades();
+        for (int subject = 0; subject < GradingEngine.SUBJECTS.length; subject++) {
+            line.setLength(0);
+            ReportWriter.appendJson(line.append("{\"scope\":\"").append(scope).append("\",\"semester\":"), semester)
+                    .append(",\"subject\":\"").append(GradingEngine.SUBJECTS[subject])
+                    .append("\",\"students\":").append(stats.students)
+                    .append(",\"average\":").append(String.format(Locale.ROOT, "%.2f", stats.average(subject)))
+                    .append(",\"grades\":{");
+            for (int band = 0; band < grades.size(); band++) {
+                ReportWriter.appendJson(line.append(band == 0 ? "" : ","), grades.get(band)).append(':').append(stats.bands[subject][band]);
+            }
+            writer.writeLine(line.append("}}"));
+        }
+    }
+
+    private Stats total() {
+        Stats total = new Stats();
+        bySemester.values().forEach(total::merge);
+        return total;
+    }
+
+    private final class Stats {
+        private long students;
+        private final long[] sums = new long[GradingEngine.SUBJECTS.length];
+        private final long[][] bands = new long[GradingEngine.SUBJECTS.length][engine.getGrades().size()];
+
+        void add(int[] marks, byte[] markBands) {
+            students++;
+            for (int subject = 0; subject < marks.length; subject++) {
+                sums[subject] += marks[subject];
+                bands[subject][markBands[subject]]++;
+            }
+        }
+
+        void merge(Stats other) {
+            students += other.students;
+            for (int subject = 0; subject < sums.length; subject++) {
+                sums[subject] += other.sums[subject];
+                for (int band = 0; band < bands[subject].length; band++) {
+                    bands[subject][band] += other.bands[subject][band];
+                }
+            }
+        }
+
+        double average(int subject) {
+            return students == 0 ? 0 : (double) sums[subject] / students;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package system;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("system.RepositoryOperation")
+@Label("Repository Operation")
+@Category("Student Management")
+@Description("A database operation issued by StudentRepository")
+public class RepositoryEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
@@ -0,0 +1,199 @@
+package system;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Applies the numbered scripts under /db/migration in order and records each one in schema_version,
+// so every database ends up with the same indexes and tables whatever version it started from.
+// Clients migrating at the same time are serialized by a MySQL named lock, and the version is read
+// again once the lock is held. Every statement is safe to run twice (MySQL commits each DDL
+// statement on its own, so a script cut short is simply run again from the top).
+//
+// Migrations that rewrite the whole students table are left to an administrator:
+//
+//   java -cp ... system.SchemaMigrator
+//
+// The desktop applies them at startup only with sms.schema.migrateOnStartup=true.
+public class SchemaMigrator {
+    private static final Logger logger = Logger.getLogger(SchemaMigrator.class.getName());
+
+    static final String[] MIGRATIONS = {
+            "V1__add_student_indexes.sql",
+            "V2__add_change_tracking.sql",
+            "V3__add_normalized_student_tables.sql",
+    };
+    // Migrations up to this version are cheap enough for every client to apply at startup.
+    static final int LAST_CLIENT_MIGRATION = 1;
+    // V2 adds students.updated_at and student_tombstones, which deletes and the delta sync rely on.
+    static final int CHANGE_TRACKING_VERSION = 2;
+    static final String LOCK_NAME = "sms_schema";
+    static final int LOCK_TIMEOUT_SECONDS = 600;
+
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version ("
+            + "version INT NOT NULL PRIMARY KEY, "
+            + "script VARCHAR(255) NOT NULL, "
+            + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+
+    // "Already exists" errors for an index, a column or a table, left behind by a script that was
+    // cut short: MySQL 1061, 1060 and 1050, H2 42111, 42121 and 42101.
+    private static final Set<Integer> ALREADY_APPLIED = Set.of(1061, 1060, 1050, 42111, 42121, 42101);
+    // "Table not found" for schema_version on a database no client has migrated yet: MySQL 1146,
+    // H2 42102 and 42104.
+    private static final Set<Integer> MISSING_TABLE = Set.of(1146, 42102, 42104);
+
+    private final ConnectionPool pool;
+
+    public SchemaMigrator(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) {
+        try (ConnectionPool pool = new ConnectionPool(DatabaseConfig.load())) {
+            SchemaMigrator migrator = new SchemaMigrator(pool);
+            int applied = migrator.migrate();
+            System.out.println("Applied " + applied + " migration(s); the schema is at version " + migrator.version());
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An error occurred while migrating the database schema", e);
+            System.exit(1);
+        }
+    }
+
+    // Applies every pending migration and returns the number applied by this call.
+    public int migrate() throws SQLException, IOException {
+        return migrate(MIGRATIONS.length);
+    }
+
+    // Applies pending migrations up to and including throughVersion.
+    public int migrate(int throughVersion) throws SQLException, IOException {
+        int applied = 0;
+        try (PooledConnection conn = pool.borrow()) {
+            Connection connection = conn.getConnection();
+            try {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute(CREATE_VERSION_TABLE);
+                }
+                int target = Math.min(throughVersion, MIGRATIONS.length);
+                if (currentVersion(connection) >= target) {
+                    return 0;
+                }
+                boolean locked = lock(connection);
+                try {
+                    for (int i = currentVersion(connection); i < target; i++) {
+                        apply(connection, i + 1, MIGRATIONS[i]);
+                        applied++;
+                    }
+                } finally {
+                    if (locked) {
+                        unlock(connection);
+                    }
+                }
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+        return applied;
+    }
+
+    // 0 when no migration was ever applied.
+    public int version() throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            try {
+                return currentVersion(conn.getConnection());
+            } catch (SQLException e) {
+                if (MISSING_TABLE.contains(e.getErrorCode())) {
+                    return 0;
+                }
+                conn.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Takes the named lock on MySQL and MariaDB. Other databases (the embedded H2 used by the
+    // benchmarks) have no named locks and a single process migrating them, so nothing is taken.
+    private static boolean lock(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        if (!"MySQL".equalsIgnoreCase(product) && !"MariaDB".equalsIgnoreCase(product)) {
+            return false;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another client to finish migrating the schema");
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        }
+    }
+
+    private static void apply(Connection connection, int version, String script) throws SQLException, IOException {
+        logger.log(Level.INFO, "Applying schema migration " + script);
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : statements(read(script))) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (!ALREADY_APPLIED.contains(e.getErrorCode())) {
+                        throw e;
+                    }
+                    logger.log(Level.INFO, "Skipping a statement of " + script + " that was already applied: " + e.getMessage());
+                }
+            }
+        }
+        try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO schema_version (version, script) VALUES (?, ?)")) {
+            stmt.setInt(1, version);
+            stmt.setString(2, script);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static String read(String script) throws IOException {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream("/db/migration/" + script)) {
+            if (in == null) {
+                throw new IOException("Missing migration script " + script);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Scripts are plain DDL: strip "--" comment lines and split on semicolons.
+    static String[] statements(String script) {
+        StringBuilder sql = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            if (!line.trim().startsWith("--")) {
+                sql.append(line).append('\n');
+            }
+        }
+        return Arrays.stream(sql.toString().split(";"))
+                .map(String::trim)
+                .filter(statement -> !statement.isEmpty())
+                .toArray(String[]::new);
+    }
+}
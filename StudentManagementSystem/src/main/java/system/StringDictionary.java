@@ -0,0 +1,56 @@
+package system;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dictionary encoding for low-cardinality string columns. Codes are dense ints; values are kept in
+// fixed-size chunks that are never copied, so readers never see a half-grown array.
+class StringDictionary {
+    static final int NULL_CODE = -1;
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[][] chunks = new String[1][];
+    private int size;
+
+    int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = codes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int code = size;
+        int chunk = code >>> CHUNK_BITS;
+        String[][] current = chunks;
+        if (chunk == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        if (current[chunk] == null) {
+            current[chunk] = new String[CHUNK_SIZE];
+        }
+        current[chunk][code & (CHUNK_SIZE - 1)] = value;
+        chunks = current;
+        size++;
+        codes.put(value, code);
+        return code;
+    }
+
+    String decode(int code) {
+        if (code == NULL_CODE) {
+            return null;
+        }
+        return chunks[code >>> CHUNK_BITS][code & (CHUNK_SIZE - 1)];
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
@@ -2,118 +2,213 @@ package system;
 
 import javafx.beans.property.*;
 
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
 public class Student {
-    private final StringProperty name;
-    private final StringProperty gender;
-    private final StringProperty email;
-    private final StringProperty contactNumber;
-    private final StringProperty address;
-    private final IntegerProperty mathematicsMarks;
-    private final IntegerProperty physicsMarks;
-    private final IntegerProperty chemistryMarks;
-    private final StringProperty admissionNumber;
-    private final StringProperty semester;
-    private final IntegerProperty totalMarks;
+    private final StudentStore store;
+    private final int row;
+    private Properties properties;
 
     public Student(String name, String gender, String email, String contactNumber, String address, int mathematicsMarks, int physicsMarks, int chemistryMarks, String admissionNumber, String semester) {
-        this.name = new SimpleStringProperty(name);
-        this.gender = new SimpleStringProperty(gender);
-        this.email = new SimpleStringProperty(email);
-        this.contactNumber = new SimpleStringProperty(contactNumber);
-        this.address = new SimpleStringProperty(address);
-        this.mathematicsMarks = new SimpleIntegerProperty(mathematicsMarks);
-        this.physicsMarks = new SimpleIntegerProperty(physicsMarks);
-        this.chemistryMarks = new SimpleIntegerProperty(chemistryMarks);
-        this.admissionNumber = new SimpleStringProperty(admissionNumber);
-        this.semester = new SimpleStringProperty(semester);
-        this.totalMarks = new SimpleIntegerProperty(mathematicsMarks + physicsMarks + chemistryMarks);
+        this(0, name, gender, email, contactNumber, address, mathematicsMarks, physicsMarks, chemistryMarks, admissionNumber, semester);
+    }
+
+    public Student(long id, String name, String gender, String email, String contactNumber, String address, int mathematicsMarks, int physicsMarks, int chemistryMarks, String admissionNumber, String semester) {
+        this(StudentStore.getDefault(), StudentStore.getDefault().appendRow(id, name, gender, email, contactNumber, address, mathematicsMarks, physicsMarks, chemistryMarks, admissionNumber, semester));
+    }
+
+    Student(StudentStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    public long getId() {
+        return store.getId(row);
+    }
+
+    public void setId(long id) {
+        store.setId(row, id);
     }
 
     public String getName() {
-        return name.get();
+        return store.getName(row);
     }
 
     public String getGender() {
-        return gender.get();
+        return store.getGender(row);
     }
 
     public String getEmail() {
-        return email.get();
+        return store.getEmail(row);
     }
 
     public String getContactNumber() {
-        return contactNumber.get();
+        return store.getContactNumber(row);
     }
 
     public String getAddress() {
-        return address.get();
+        return store.getAddress(row);
     }
 
     public int getMathematicsMarks() {
-        return mathematicsMarks.get();
+        return store.getMathematicsMarks(row);
     }
 
     public int getPhysicsMarks() {
-        return physicsMarks.get();
+        return store.getPhysicsMarks(row);
     }
 
     public int getChemistryMarks() {
-        return chemistryMarks.get();
+        return store.getChemistryMarks(row);
+    }
+
+    public int getMarks(String subject) {
+        switch (subject) {
+            case "Mathematics":
+                return getMathematicsMarks();
+            case "Physics":
+                return getPhysicsMarks();
+            case "Chemistry":
+                return getChemistryMarks();
+            default:
+                throw new IllegalArgumentException("Unknown subject: " + subject);
+        }
     }
 
     public String getAdmissionNumber() {
-        return admissionNumber.get();
+        return store.getAdmissionNumber(row);
     }
 
     public String getSemester() {
-        return semester.get();
+        return store.getSemester(row);
     }
 
     public StringProperty nameProperty() {
-        return name;
+        Properties p = properties();
+        if (p.name == null) {
+            p.name = stringProperty(getName(), value -> store.setName(row, value));
+        }
+        return p.name;
     }
 
     public StringProperty genderProperty() {
-        return gender;
+        Properties p = properties();
+        if (p.gender == null) {
+            p.gender = stringProperty(getGender(), value -> store.setGender(row, value));
+        }
+        return p.gender;
     }
 
     public StringProperty emailProperty() {
-        return email;
+        Properties p = properties();
+        if (p.email == null) {
+            p.email = stringProperty(getEmail(), value -> store.setEmail(row, value));
+        }
+        return p.email;
     }
 
     public StringProperty contactNumberProperty() {
-        return contactNumber;
+        Properties p = properties();
+        if (p.contactNumber == null) {
+            p.contactNumber = stringProperty(getContactNumber(), value -> store.setContactNumber(row, value));
+        }
+        return p.contactNumber;
     }
 
     public StringProperty addressProperty() {
-        return address;
+        Properties p = properties();
+        if (p.address == null) {
+            p.address = stringProperty(getAddress(), value -> store.setAddress(row, value));
+        }
+        return p.address;
     }
 
     public IntegerProperty mathematicsMarksProperty() {
-        return mathematicsMarks;
+        Properties p = properties();
+        if (p.mathematicsMarks == null) {
+            p.mathematicsMarks = integerProperty(getMathematicsMarks(), value -> store.setMathematicsMarks(row, value));
+        }
+        return p.mathematicsMarks;
     }
 
     public IntegerProperty physicsMarksProperty() {
-        return physicsMarks;
+        Properties p = properties();
+        if (p.physicsMarks == null) {
+            p.physicsMarks = integerProperty(getPhysicsMarks(), value -> store.setPhysicsMarks(row, value));
+        }
+        return p.physicsMarks;
     }
 
     public IntegerProperty chemistryMarksProperty() {
-        return chemistryMarks;
+        Properties p = properties();
+        if (p.chemistryMarks == null) {
+            p.chemistryMarks = integerProperty(getChemistryMarks(), value -> store.setChemistryMarks(row, value));
+        }
+        return p.chemistryMarks;
     }
 
     public StringProperty admissionNumberProperty() {
-        return admissionNumber;
+        Properties p = properties();
+        if (p.admissionNumber == null) {
+            p.admissionNumber = stringProperty(getAdmissionNumber(), value -> store.setAdmissionNumber(row, value));
+        }
+        return p.admissionNumber;
     }
 
     public StringProperty semesterProperty() {
-        return semester;
+        Properties p = properties();
+        if (p.semester == null) {
+            p.semester = stringProperty(getSemester(), value -> store.setSemester(row, value));
+        }
+        return p.semester;
     }
 
     public int getTotalMarks() {
-        return totalMarks.get();
+        return getMathematicsMarks() + getPhysicsMarks() + getChemistryMarks();
+    }
+
+    // Bound to the three mark properties, so it follows edits to any of them.
+    public ReadOnlyIntegerProperty totalMarksProperty() {
+        Properties p = properties();
+        if (p.totalMarks == null) {
+            p.totalMarks = new ReadOnlyIntegerWrapper(this, "totalMarks");
+            p.totalMarks.bind(mathematicsMarksProperty().add(physicsMarksProperty()).add(chemistryMarksProperty()));
+        }
+        return p.totalMarks.getReadOnlyProperty();
+    }
+
+    private Properties properties() {
+        if (properties == null) {
+            properties = new Properties();
+        }
+        return properties;
+    }
+
+    private StringProperty stringProperty(String initial, Consumer<String> writeBack) {
+        StringProperty property = new SimpleStringProperty(this, null, initial);
+        property.addListener((observable, oldValue, newValue) -> writeBack.accept(newValue));
+        return property;
+    }
+
+    private IntegerProperty integerProperty(int initial, IntConsumer writeBack) {
+        IntegerProperty property = new SimpleIntegerProperty(this, null, initial);
+        property.addListener((observable, oldValue, newValue) -> writeBack.accept(newValue.intValue()));
+        return property;
     }
 
-    public IntegerProperty totalMarksProperty() {
-        return totalMarks;
+    // JavaFX properties are only created for rows a TableCell actually displays.
+    private static final class Properties {
+        private StringProperty name;
+        private StringProperty gender;
+        private StringProperty email;
+        private StringProperty contactNumber;
+        private StringProperty address;
+        private IntegerProperty mathematicsMarks;
+        private IntegerProperty physicsMarks;
+        private IntegerProperty chemistryMarks;
+        private StringProperty admissionNumber;
+        private StringProperty semester;
+        private ReadOnlyIntegerWrapper totalMarks;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,151 @@
+package system;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Polls the students table for rows changed since the last sync and hands the delta to the FX
+// thread, instead of reloading everything. Each poll reaches OVERLAP_MILLIS behind its watermark so
+// a transaction that committed late with an earlier updated_at is still picked up; rows that come
+// back unchanged are skipped when the delta is applied.
+//
+// updated_at is stamped when a row is written, not when its transaction commits, so this is only a
+// window: a transaction that commits more than OVERLAP_MILLIS after writing a row (a long import
+// batch, a lock wait) is missed by the sync. Its rows show up once they change again or on the next
+// full load. The application's own writes commit within one statement batch, well inside the window.
+public class StudentDeltaSync implements AutoCloseable {
+    static final long OVERLAP_MILLIS = 5_000;
+    static final long TOMBSTONE_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(7);
+    private static final Logger logger = Logger.getLogger(StudentDeltaSync.class.getName());
+
+    private final StudentRepository repository;
+    private final Consumer<StudentRepository.Changes> applier;
+    private final Executor applyExecutor;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "student-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Timestamp watermark;
+    private Timestamp appliedThrough;
+    private long lastPurge;
+
+    public StudentDeltaSync(StudentRepository repository, long intervalMillis, Consumer<StudentRepository.Changes> applier) {
+        this(repository, intervalMillis, applier, Platform::runLater);
+    }
+
+    // applyExecutor runs the applier; the UI uses the FX thread, StudentServer the sync thread itself.
+    public StudentDeltaSync(StudentRepository repository, long intervalMillis, Consumer<StudentRepository.Changes> applier, Executor applyExecutor) {
+        this.repository = repository;
+        this.intervalMillis = intervalMillis;
+        this.applier = applier;
+        this.applyExecutor = applyExecutor;
+    }
+
+    // since should be the database time read before the initial load started, or the watermark of
+    // the snapshot it came from. The first poll runs right away.
+    public void start(Timestamp since) {
+        watermark = since;
+        appliedThrough = since;
+        scheduler.scheduleWithFixedDelay(this::poll, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Database time the applied rows are current as of. Only on the applyExecutor's thread.
+    public Timestamp getAppliedThrough() {
+        return appliedThrough;
+    }
+
+    private void poll() {
+        try {
+            StudentRepository.Changes changes = repository.findChangesSince(new Timestamp(watermark.getTime() - OVERLAP_MILLIS));
+            watermark = changes.getAsOf();
+            applyExecutor.execute(() -> {
+                if (!changes.isEmpty()) {
+                    applier.accept(changes);
+                }
+                appliedThrough = changes.getAsOf();
+            });
+            if (watermark.getTime() - lastPurge > TimeUnit.HOURS.toMillis(1)) {
+                lastPurge = watermark.getTime();
+                repository.purgeTombstones(new Timestamp(lastPurge - TOMBSTONE_RETENTION_MILLIS));
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An error occurred while syncing student changes", e);
+        }
+    }
+
+    // Applies a delta to a fully loaded list: new rows are appended, changed rows are replaced in
+    // place and deleted rows removed, so listeners such as StudentIndex and TotalMarksAggregator only
+    // see the rows that really changed. index must be over target. Its positions make a delta
+    // without deletes cost O(changed rows); a delete costs one pass over the list, and the next
+    // replacement pays for rebuilding the positions. The rows are taken as they
+    // come from the change query, which reads each poll into its own small store, so nothing is
+    // appended to the shared store and a replaced row's poll store is freed with it. Must run on the
+    // FX thread.
+    public static int apply(StudentRepository.Changes changes, ObservableList<Student> target, StudentIndex index) {
+        Map<Student, Student> replacements = new IdentityHashMap<>();
+        Map<Student, Boolean> removals = new IdentityHashMap<>();
+        List<Student> additions = new ArrayList<>();
+        for (Student row : changes.getChanged()) {
+            Student existing = index.findById(row.getId());
+            if (existing == null) {
+                additions.add(row);
+            } else if (!sameValues(existing, row)) {
+                replacements.put(existing, row);
+            }
+        }
+        for (long id : changes.getDeletedIds()) {
+            Student existing = index.findById(id);
+            if (existing != null) {
+                removals.put(existing, Boolean.TRUE);
+                replacements.remove(existing);
+            }
+        }
+
+        for (Map.Entry<Student, Student> replacement : replacements.entrySet()) {
+            int position = index.positionOf(replacement.getKey());
+            if (position >= 0) {
+                target.set(position, replacement.getValue());
+            }
+        }
+        if (!removals.isEmpty()) {
+            target.removeIf(removals::containsKey);
+        }
+        if (!additions.isEmpty()) {
+            target.addAll(additions);
+        }
+        return additions.size() + replacements.size() + removals.size();
+    }
+
+    static boolean sameValues(Student a, Student b) {
+        return a.getMathematicsMarks() == b.getMathematicsMarks()
+                && a.getPhysicsMarks() == b.getPhysicsMarks()
+                && a.getChemistryMarks() == b.getChemistryMarks()
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getGender(), b.getGender())
+                && Objects.equals(a.getEmail(), b.getEmail())
+                && Objects.equals(a.getContactNumber(), b.getContactNumber())
+                && Objects.equals(a.getAddress(), b.getAddress())
+                && Objects.equals(a.getAdmissionNumber(), b.getAdmissionNumber())
+                && Objects.equals(a.getSemester(), b.getSemester());
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
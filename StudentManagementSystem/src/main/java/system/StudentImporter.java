@@ -0,0 +1,230 @@
+package system;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Bulk import pipeline: the calling thread parses the file and hands chunks of raw records to a
+// validation pool, then writes validated chunks in file order, one batched transaction per chunk.
+// A read or database error stops the import but still returns the report, with the failure, for
+// the chunks already committed.
+public class StudentImporter implements AutoCloseable {
+    static final String EXTRA_FIELDS = "__extra_fields";
+    static final String SYNTAX_ERROR = "__syntax_error";
+    public static final int DEFAULT_BATCH_SIZE = 5_000;
+
+    private static final Set<String> GENDERS = new HashSet<>(Arrays.asList("Male", "Female", "Rather not say"));
+
+    private final StudentStorage storage;
+    private final int batchSize;
+    private final int maxChunksInFlight;
+    private final ExecutorService validators;
+
+    public StudentImporter(StudentStorage storage, int batchSize, int workers) {
+        if (batchSize < 1 || workers < 1) {
+            throw new IllegalArgumentException("batchSize and workers must be at least 1");
+        }
+        this.storage = storage;
+        this.batchSize = Math.min(batchSize, storage.maxBatchSize());
+        this.maxChunksInFlight = workers * 2;
+        this.validators = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "import-validator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ImportReport importFile(Path file, Consumer<List<Student>> inserted, BooleanSupplier cancelled) throws IOException {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        ImportRecordReader records = fileName.endsWith(".json") || fileName.endsWith(".jsonl")
+                ? new JsonRecordReader(reader)
+                : new CsvRecordReader(reader);
+        try (records) {
+            return importRecords(records, inserted, cancelled);
+        }
+    }
+
+    ImportReport importRecords(ImportRecordReader records, Consumer<List<Student>> inserted, BooleanSupplier cancelled) {
+        ImportReport report = new ImportReport();
+        long start = System.nanoTime();
+        // Rows of one import share a store of their own, so rows that are never inserted (or are
+        // only counted, with a paged table) are freed with the import.
+        StudentStore store = new StudentStore();
+        ArrayDeque<Future<ValidatedChunk>> inFlight = new ArrayDeque<>();
+        try {
+            List<RawRecord> chunk = new ArrayList<>(batchSize);
+            Map<String, String> record;
+            while ((record = records.next()) != null) {
+                if (cancelled.getAsBoolean()) {
+                    report.setCancelled(true);
+                    break;
+                }
+                chunk.add(new RawRecord(records.getLine(), record));
+                if (chunk.size() == batchSize) {
+                    submit(chunk, store, inFlight);
+                    chunk = new ArrayList<>(batchSize);
+                    if (inFlight.size() >= maxChunksInFlight) {
+                        write(inFlight.poll(), report, inserted);
+                    }
+                }
+            }
+            if (!chunk.isEmpty() && !report.isCancelled()) {
+                submit(chunk, store, inFlight);
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll(), report, inserted);
+            }
+        } catch (IOException | SQLException e) {
+            report.setFailure(e);
+        } finally {
+            for (Future<ValidatedChunk> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    private void submit(List<RawRecord> chunk, StudentStore store, ArrayDeque<Future<ValidatedChunk>> inFlight) {
+        inFlight.add(validators.submit(() -> validate(chunk, store)));
+    }
+
+    private void write(Future<ValidatedChunk> future, ImportReport report, Consumer<List<Student>> inserted) throws SQLException {
+        ValidatedChunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while validating import records", e);
+        } catch (ExecutionException e) {
+            throw new SQLException("Validation of import records failed", e.getCause());
+        }
+        for (ImportReport.Rejection rejection : chunk.rejections) {
+            report.addRejection(rejection);
+        }
+        if (!chunk.students.isEmpty()) {
+            storage.insertBatch(chunk.students);
+            report.addImported(chunk.students.size());
+            inserted.accept(chunk.students);
+        }
+    }
+
+    static ValidatedChunk validate(List<RawRecord> records, StudentStore store) {
+        ValidatedChunk chunk = new ValidatedChunk(records.size());
+        for (RawRecord record : records) {
+            try {
+                chunk.students.add(toStudent(record.fields, store));
+            } catch (IllegalArgumentException e) {
+                chunk.rejections.add(new ImportReport.Rejection(record.line, e.getMessage()));
+            }
+        }
+        return chunk;
+    }
+
+    static Student toStudent(Map<String, String> fields, StudentStore store) {
+        if (fields.containsKey(SYNTAX_ERROR)) {
+            throw new IllegalArgumentException(fields.get(SYNTAX_ERROR));
+        }
+        if (fields.containsKey(EXTRA_FIELDS)) {
+            throw new IllegalArgumentException("more fields than header columns");
+        }
+        String name = text(fields, "name", 255);
+        if (name == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        String gender = text(fields, "gender", 20);
+        if (gender != null && !GENDERS.contains(gender)) {
+            throw new IllegalArgumentException("unknown gender '" + gender + "'");
+        }
+        String email = text(fields, "email", 255);
+        if (email != null && email.indexOf('@') < 1) {
+            throw new IllegalArgumentException("invalid email '" + email + "'");
+        }
+        return store.append(
+                0,
+                name,
+                gender,
+                email,
+                text(fields, "contact_number", 20),
+                text(fields, "address", 255),
+                marks(fields, "mathematics_marks"),
+                marks(fields, "physics_marks"),
+                marks(fields, "chemistry_marks"),
+                text(fields, "admission_number", 20),
+                text(fields, "semester", 20));
+    }
+
+    private static String text(Map<String, String> fields, String column, int maxLength) {
+        String value = fields.get(column);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(column + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private static int marks(Map<String, String> fields, String column) {
+        String value = text(fields, column, 11);
+        if (value == null) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        int marks;
+        try {
+            marks = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: '" + value + "'");
+        }
+        if (marks < 0 || marks > 100) {
+            throw new IllegalArgumentException(column + " must be between 0 and 100");
+        }
+        return marks;
+    }
+
+    @Override
+    public void close() {
+        validators.shutdownNow();
+    }
+
+    static final class RawRecord {
+        final int line;
+        final Map<String, String> fields;
+
+        RawRecord(int line, Map<String, String> fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    static final class ValidatedChunk {
+        final List<Student> students;
+        final List<ImportReport.Rejection> rejections = new ArrayList<>();
+
+        ValidatedChunk(int size) {
+            this.students = new ArrayList<>(size);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package system;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+// Secondary indexes over the loaded students, kept in sync with the source list through its change
+// events so every update costs O(changed rows). Student has identity equality, so each bucket is an
+// insertion-ordered identity set.
+//
+// The position of each row in the source list is built on the first positionOf call and kept up to
+// date through appends and in-place replacements. Any other change leaves it stale, and the next
+// positionOf rebuilds it in one pass.
+public class StudentIndex {
+    private static final int SMALL_CHANGE = 16;
+
+    private final ObservableList<Student> source;
+    private final Map<Student, Integer> positions = new IdentityHashMap<>();
+    private boolean positionsStale = true;
+
+    private final Map<Long, Student> byId = new HashMap<>();
+    // Rows added before their insert committed; indexed by id once the id is known.
+    private final Set<Student> withoutId = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<String, Set<Student>> byName = new HashMap<>();
+    private final Map<String, Set<Student>> byAdmissionNumber = new HashMap<>();
+    private final Map<String, Set<Student>> bySemester = new HashMap<>();
+    private final ObservableList<String> distinctNames = FXCollections.observableArrayList();
+    private final ObservableList<String> readOnlyDistinctNames = FXCollections.unmodifiableObservableList(distinctNames);
+
+    public StudentIndex(ObservableList<Student> source) {
+        this.source = source;
+        addAll(source);
+        source.addListener((ListChangeListener<Student>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    positionsStale = true;
+                }
+                if (change.wasPermutated() || change.wasUpdated()) {
+                    continue;
+                }
+                removeAll(change.getRemoved());
+                addAll(change.getAddedSubList());
+                updatePositions(change);
+            }
+        });
+    }
+
+    // Index of the row in the source list, or -1 when it is not there.
+    public int positionOf(Student student) {
+        if (positionsStale) {
+            positions.clear();
+            for (int i = 0; i < source.size(); i++) {
+                positions.put(source.get(i), i);
+            }
+            positionsStale = false;
+        }
+        Integer position = positions.get(student);
+        return position == null ? -1 : position;
+    }
+
+    private void updatePositions(ListChangeListener.Change<? extends Student> change) {
+        if (positionsStale) {
+            return;
+        }
+        List<? extends Student> removed = change.getRemoved();
+        List<? extends Student> added = change.getAddedSubList();
+        if (removed.size() == added.size()) {
+            for (Student student : removed) {
+                positions.remove(student);
+            }
+        } else if (!removed.isEmpty() || change.getFrom() != positions.size()) {
+            positionsStale = true;
+            positions.clear();
+            return;
+        }
+        for (int i = 0; i < added.size(); i++) {
+            positions.put(added.get(i), change.getFrom() + i);
+        }
+    }
+
+    public Student findById(long id) {
+        Student student = byId.get(id);
+        if (student == null && !withoutId.isEmpty()) {
+            for (Iterator<Student> pending = withoutId.iterator(); pending.hasNext(); ) {
+                Student candidate = pending.next();
+                if (candidate.getId() > 0) {
+                    byId.put(candidate.getId(), candidate);
+                    pending.remove();
+                }
+            }
+            student = byId.get(id);
+        }
+        return student;
+    }
+
+    public Set<Student> findByName(String name) {
+        return lookup(byName, name);
+    }
+
+    public Set<Student> findByAdmissionNumber(String admissionNumber) {
+        return lookup(byAdmissionNumber, admissionNumber);
+    }
+
+    public Set<Student> findBySemester(String semester) {
+        return lookup(bySemester, semester);
+    }
+
+    public Set<String> getSemesters() {
+        return new TreeSet<>(bySemester.keySet());
+    }
+
+    // Sorted distinct student names; suitable as ComboBox items since it is updated in place.
+    public ObservableList<String> getDistinctNames() {
+        return readOnlyDistinctNames;
+    }
+
+    private void addAll(Collection<? extends Student> students) {
+        List<String> newNames = new ArrayList<>();
+        for (Student student : students) {
+            if (student.getId() > 0) {
+                byId.put(student.getId(), student);
+            } else {
+                withoutId.add(student);
+            }
+            if (add(byName, student, Student::getName)) {
+                newNames.add(student.getName());
+            }
+            add(byAdmissionNumber, student, Student::getAdmissionNumber);
+            add(bySemester, student, Student::getSemester);
+        }
+        if (newNames.size() <= SMALL_CHANGE) {
+            for (String name : newNames) {
+                distinctNames.add(-Collections.binarySearch(distinctNames, name) - 1, name);
+            }
+        } else {
+            // One merge and a single change event instead of one shifting insert per name.
+            Collections.sort(newNames);
+            List<String> merged = new ArrayList<>(distinctNames.size() + newNames.size());
+            int i = 0;
+            int j = 0;
+            while (i < distinctNames.size() || j < newNames.size()) {
+                if (j == newNames.size() || (i < distinctNames.size() && distinctNames.get(i).compareTo(newNames.get(j)) < 0)) {
+                    merged.add(distinctNames.get(i++));
+                } else {
+                    merged.add(newNames.get(j++));
+                }
+            }
+            distinctNames.setAll(merged);
+        }
+    }
+
+    private void removeAll(List<? extends Student> students) {
+        Set<String> removedNames = new HashSet<>();
+        for (Student student : students) {
+            if (student.getId() > 0) {
+                byId.remove(student.getId(), student);
+            }
+            withoutId.remove(student);
+            if (remove(byName, student, Student::getName)) {
+                removedNames.add(student.getName());
+            }
+            remove(byAdmissionNumber, student, Student::getAdmissionNumber);
+            remove(bySemester, student, Student::getSemester);
+        }
+        if (removedNames.size() <= SMALL_CHANGE) {
+            for (String name : removedNames) {
+                distinctNames.remove(Collections.binarySearch(distinctNames, name));
+            }
+        } else if (!removedNames.isEmpty()) {
+            distinctNames.removeAll(removedNames);
+        }
+    }
+
+    // Returns true when the key was not indexed before.
+    private static boolean add(Map<String, Set<Student>> index, Student student, Function<Student, String> key) {
+        String value = key.apply(student);
+        if (value == null) {
+            return false;
+        }
+        Set<Student> bucket = index.get(value);
+        if (bucket == null) {
+            bucket = new LinkedHashSet<>(2);
+            index.put(value, bucket);
+            bucket.add(student);
+            return true;
+        }
+        bucket.add(student);
+        return false;
+    }
+
+    // Returns true when the last row for the key was removed.
+    private static boolean remove(Map<String, Set<Student>> index, Student student, Function<Student, String> key) {
+        String value = key.apply(student);
+        if (value == null) {
+            return false;
+        }
+        Set<Student> bucket = index.get(value);
+        if (bucket == null || !bucket.remove(student) || !bucket.isEmpty()) {
+            return false;
+        }
+        index.remove(value);
+        return true;
+    }
+
+    private static Set<Student> lookup(Map<String, Set<Student>> index, String key) {
+        Set<Student> bucket = index.get(key);
+        return bucket == null ? Collections.emptySet() : Collections.unmodifiableSet(bucket);
+    }
+}
@@ -0,0 +1,106 @@
+package system;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Loads the students table off the FX Application Thread. The first chunk is kept small so the
+// first screen of rows shows up quickly; later chunks are large so the table sees few change events.
+// With a usable local snapshot the rows come from it instead, without waiting for the database, and
+// getStartedAt() is the snapshot's watermark so the following delta sync reconciles them. Each load
+// reads into a new StudentStore generation, so rows of an earlier load are not kept alive by it.
+public class StudentLoadTask extends Task<Integer> {
+    static final int FIRST_BATCH_SIZE = 200;
+    static final int BATCH_SIZE = 5_000;
+    private static final Logger logger = Logger.getLogger(StudentLoadTask.class.getName());
+
+    private final StudentStorage storage;
+    private final ObservableList<Student> target;
+    private final Path snapshotFile;
+    private int loaded;
+    private volatile Timestamp startedAt;
+
+    public StudentLoadTask(StudentStorage storage, ObservableList<Student> target) {
+        this(storage, target, null);
+    }
+
+    public StudentLoadTask(StudentStorage storage, ObservableList<Student> target, Path snapshotFile) {
+        this.storage = storage;
+        this.target = target;
+        this.snapshotFile = snapshotFile;
+    }
+
+    @Override
+    protected Integer call() throws Exception {
+        if (snapshotFile != null && loadSnapshot(StudentStore.newGeneration())) {
+            return loaded;
+        }
+        StudentStore.newGeneration();
+        startedAt = storage.currentTimestamp();
+        updateMessage("Counting students...");
+        int total = storage.count();
+        updateProgress(0, total);
+        updateMessage("Loading students...");
+
+        return storage.streamAll(FIRST_BATCH_SIZE, BATCH_SIZE, batch -> {
+            publish(batch);
+            loaded += batch.size();
+            updateProgress(loaded, Math.max(total, loaded));
+            updateMessage("Loaded " + loaded + " of " + total + " students");
+        }, this::isCancelled);
+    }
+
+    private boolean loadSnapshot(StudentStore store) throws Exception {
+        updateMessage("Loading students from the local snapshot...");
+        Timestamp watermark = StudentSnapshot.read(snapshotFile, storage.getSource(), store, FIRST_BATCH_SIZE, BATCH_SIZE, batch -> {
+            publish(batch);
+            loaded += batch.size();
+            updateMessage("Loaded " + loaded + " students from the local snapshot");
+        });
+        if (watermark == null) {
+            return false;
+        }
+        // Deletes older than the tombstone retention can no longer be reconciled. An unreachable
+        // database keeps the snapshot on screen; the delta sync catches up once it answers.
+        // A storage without a change feed (a schema not yet migrated to change tracking) could
+        // never reconcile the snapshot, so the rows are loaded from the storage instead.
+        long age;
+        try {
+            Timestamp now = storage.currentTimestamp();
+            age = now == null ? Long.MAX_VALUE : now.getTime() - watermark.getTime();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Showing the local snapshot; the database is not reachable", e);
+            age = 0;
+        }
+        if (age > StudentDeltaSync.TOMBSTONE_RETENTION_MILLIS - TimeUnit.HOURS.toMillis(1)) {
+            Platform.runLater(target::clear);
+            loaded = 0;
+            return false;
+        }
+        startedAt = watermark;
+        updateProgress(1, 1);
+        return true;
+    }
+
+    // Database time taken before the first row was read; the watermark for a following delta sync,
+    // or null for a storage without a change feed.
+    public Timestamp getStartedAt() {
+        return startedAt;
+    }
+
+    private void publish(List<Student> batch) {
+        Platform.runLater(() -> {
+            if (!isCancelled()) {
+                target.addAll(batch);
+            }
+        });
+    }
+}
@@ -1,21 +1,49 @@
 package system;
 
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.scene.Scene;
 import javafx.scene.chart.*;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-
-import java.sql.*;
-import java.util.HashMap;
-import java.util.HashSet;
+import javafx.util.Callback;
+import javafx.util.Duration;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -27,6 +55,54 @@ public class StudentManagementSystem extends Application {
     private TableView<Student> table = new TableView<>();
     private ScatterChart<Number, Number> scatterChart;
     private ComboBox<String> studentComboBox;
+    private StudentTrendService trendService;
+    private Dialog<Void> gradingDialog;
+    private ComboBox<String> subjectComboBox;
+    private CheckBox compareCheckBox;
+    private VBox gradingBox;
+    private Label trendStatus;
+    private final List<String> comparedStudents = new ArrayList<>();
+    private CohortAnalytics cohortAnalytics;
+    private List<Student> cohortPendingAdded;
+    private List<Student> cohortPendingRemoved;
+    private Dialog<Void> cohortDialog;
+    private TableView<CohortAnalytics.SemesterStats> cohortTable;
+    private Label cohortStanding;
+    private String cohortBuildError;
+    private DatabaseConfig config;
+    private StudentStorage storage;
+    // The MySQL backend, for paging, delta sync, snapshots and migrations; null for embedded storage.
+    private StudentRepository repository;
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "student-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private HBox statusBar;
+    private PagedStudentList pagedStudents;
+    private StudentIndex studentIndex;
+    private TotalMarksAggregator totalMarksAggregator;
+    private StudentDeltaSync deltaSync;
+    private StudentSearchIndex searchIndex;
+    private WriteBehindQueue writeQueue;
+    private Label pendingWritesLabel;
+    private final ObservableList<Student> searchResults = FXCollections.observableArrayList();
+    private TextField searchField;
+    private ComboBox<String> semesterFilter;
+    private ComboBox<String> gradeFilter;
+    private Label searchStatus;
+    private HBox searchBar;
+    private FxStallWatchdog stallWatchdog;
+    private AsyncLogHandler logHandler;
+    private final ScheduledExecutorService housekeepingScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "housekeeping");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Path snapshotFile;
+    private boolean snapshotReady;
+    private static final Path METRICS_SNAPSHOT = Paths.get("student_management.metrics.json");
+    private static final Logger systemLogger = Logger.getLogger("system");
     private static final Logger logger = Logger.getLogger(StudentManagementSystem.class.getName());
 
     public static void main(String[] args) {
@@ -37,9 +113,30 @@ public class StudentManagementSystem extends Application {
     public void start(Stage primaryStage) {
         try {
             FileHandler fileHandler = new FileHandler("student_management.log");
-            logger.addHandler(fileHandler);
             SimpleFormatter formatter = new SimpleFormatter();
             fileHandler.setFormatter(formatter);
+            // Every logger under system.* writes through one background thread, never on the caller.
+            logHandler = new AsyncLogHandler(fileHandler);
+            systemLogger.addHandler(logHandler);
+            systemLogger.setUseParentHandlers(false);
+
+            config = DatabaseConfig.load();
+            stallWatchdog = new FxStallWatchdog(config.getInt("sms.metrics.stallThresholdMillis", 200));
+            stallWatchdog.start();
+            int snapshotSeconds = config.getInt("sms.metrics.snapshotSeconds", 60);
+            if (snapshotSeconds > 0) {
+                housekeepingScheduler.scheduleWithFixedDelay(this::writeMetricsSnapshot, snapshotSeconds, snapshotSeconds, TimeUnit.SECONDS);
+            }
+            storage = StudentStorage.open(config);
+            repository = storage instanceof StudentRepository ? (StudentRepository) storage : null;
+            String snapshotSetting = config.getString("sms.snapshot.file", "student_management.snapshot");
+            snapshotFile = snapshotSetting.isEmpty() || repository == null ? null : Paths.get(snapshotSetting);
+            int snapshotMinutes = config.getInt("sms.snapshot.intervalMinutes", 10);
+            if (snapshotFile != null && snapshotMinutes > 0) {
+                housekeepingScheduler.scheduleWithFixedDelay(() -> Platform.runLater(() -> writeStudentSnapshot(false)),
+                        snapshotMinutes, snapshotMinutes, TimeUnit.MINUTES);
+            }
+            GradingEngine.setDefault(GradingEngine.fromSpec(config.getString("sms.grading.bands", GradingEngine.DEFAULT_BANDS)));
 
             BorderPane root = new BorderPane();
             Scene scene = new Scene(root, 800, 600);
@@ -48,27 +145,40 @@ public class StudentManagementSystem extends Application {
             scatterChart.setTitle("Semester Marks");
             scatterChart.getXAxis().setLabel("Semester");
             scatterChart.getYAxis().setLabel("Marks");
+            scatterChart.setAnimated(false);
 
             MenuBar menuBar = new MenuBar();
             Menu fileMenu = new Menu("File");
             MenuItem newRecordMenuItem = new MenuItem("Add new record");
-            MenuItem updateChartMenuItem = new MenuItem("Update Bar Graph");
-            fileMenu.getItems().addAll(newRecordMenuItem, updateChartMenuItem);
+            MenuItem importRecordsMenuItem = new MenuItem("Import records...");
+            MenuItem deleteSelectedMenuItem = new MenuItem("Delete selected records");
+            fileMenu.getItems().addAll(newRecordMenuItem, importRecordsMenuItem, deleteSelectedMenuItem);
             menuBar.getMenus().add(fileMenu);
 
             Menu viewMenu = new Menu("View");
             MenuItem viewGradingMenuItem = new MenuItem("View Student Grading");
-            viewMenu.getItems().addAll(viewGradingMenuItem);
+            MenuItem cohortAnalyticsMenuItem = new MenuItem("View Cohort Analytics");
+            MenuItem diagnosticsMenuItem = new MenuItem("Diagnostics");
+            Menu barChartMenu = new Menu("Bar Chart");
+            ToggleGroup barChartModeGroup = new ToggleGroup();
+            barChartMenu.getItems().addAll(
+                    barChartModeItem("Automatic", TotalMarksAggregator.Mode.AUTO, barChartModeGroup),
+                    barChartModeItem("All Students", TotalMarksAggregator.Mode.ALL, barChartModeGroup),
+                    barChartModeItem("Top " + TotalMarksAggregator.TOP_N + " Students", TotalMarksAggregator.Mode.TOP_N, barChartModeGroup),
+                    barChartModeItem("Total Marks Histogram", TotalMarksAggregator.Mode.HISTOGRAM, barChartModeGroup));
+            viewMenu.getItems().addAll(viewGradingMenuItem, cohortAnalyticsMenuItem, barChartMenu, diagnosticsMenuItem);
             menuBar.getMenus().add(viewMenu);
             viewGradingMenuItem.setOnAction(event -> {
                 showStudentGrading();
             });
+            cohortAnalyticsMenuItem.setOnAction(event -> showCohortAnalytics());
+            diagnosticsMenuItem.setOnAction(event -> showDiagnostics());
 
             root.setTop(menuBar);
 
             VBox vbox = new VBox();
             vbox.setSpacing(10);
-            vbox.getChildren().add(table);
+            vbox.getChildren().addAll(createSearchBar(), table);
 
             CategoryAxis xAxis = new CategoryAxis();
             NumberAxis yAxis = new NumberAxis();
@@ -77,79 +187,107 @@ public class StudentManagementSystem extends Application {
             xAxis.setLabel("Student");
             yAxis.setLabel("Total Marks");
 
-            XYChart.Series<String, Number> series = new XYChart.Series<>();
-            series.setName("Total Marks");
-            for (Student student : studentsData) {
-                series.getData().add(new XYChart.Data<>(student.getName(), student.getTotalMarks()));
-            }
-            barChart.getData().add(series);
+            barChart.setAnimated(false);
+            totalMarksAggregator = new TotalMarksAggregator(studentsData);
+            barChart.getData().add(totalMarksAggregator.getSeries());
 
             vbox.getChildren().add(barChart);
 
             root.setCenter(vbox);
 
+            statusBar = new HBox();
+            statusBar.setSpacing(10);
+            pendingWritesLabel = new Label();
+            BorderPane bottomBar = new BorderPane();
+            bottomBar.setCenter(statusBar);
+            bottomBar.setRight(pendingWritesLabel);
+            root.setBottom(bottomBar);
+            writeQueue = new WriteBehindQueue(storage, Paths.get(config.getString("sms.writes.journal", "student_management.journal")),
+                    writeQueueListener(), Platform::runLater);
+
             newRecordMenuItem.setOnAction(event -> {
                 showAddRecordDialog();
             });
 
-            updateChartMenuItem.setOnAction(event -> {
-                updateBarGraph();
+            importRecordsMenuItem.setOnAction(event -> {
+                showImportDialog(primaryStage);
+            });
+
+            deleteSelectedMenuItem.setOnAction(event -> {
+                deleteSelectedRecords();
             });
 
-            studentComboBox = new ComboBox<>();
-            updateStudentComboBox();
+            studentIndex = new StudentIndex(studentsData);
+            studentComboBox = new ComboBox<>(studentIndex.getDistinctNames());
+            trendService = new StudentTrendService(config.getInt("sms.trends.cacheSize", 256), StudentTrendService.DEFAULT_MAX_POINTS, this::findSemesterMarks);
+            studentsData.addListener((ListChangeListener<Student>) this::invalidateTrends);
+            studentsData.addListener((ListChangeListener<Student>) this::updateCohortAnalytics);
+            table.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> showCohortStanding());
 
             table.getItems().clear();
             table.getItems().addAll(studentsData);
 
             TableColumn<Student, String> nameColumn = new TableColumn<>("Name");
-            nameColumn.setCellValueFactory(cellData -> cellData.getValue().nameProperty());
+            nameColumn.setCellValueFactory(cellValue(student -> student.nameProperty()));
+            nameColumn.setUserData("name");
 
             TableColumn<Student, String> genderColumn = new TableColumn<>("Gender");
-            genderColumn.setCellValueFactory(cellData -> cellData.getValue().genderProperty());
+            genderColumn.setCellValueFactory(cellValue(student -> student.genderProperty()));
+            genderColumn.setUserData("gender");
 
             TableColumn<Student, String> emailColumn = new TableColumn<>("Email");
-            emailColumn.setCellValueFactory(cellData -> cellData.getValue().emailProperty());
+            emailColumn.setCellValueFactory(cellValue(student -> student.emailProperty()));
+            emailColumn.setUserData("email");
 
             TableColumn<Student, String> contactNumberColumn = new TableColumn<>("Contact Number");
-            contactNumberColumn.setCellValueFactory(cellData -> cellData.getValue().contactNumberProperty());
+            contactNumberColumn.setCellValueFactory(cellValue(student -> student.contactNumberProperty()));
+            contactNumberColumn.setUserData("contact_number");
 
             TableColumn<Student, String> addressColumn = new TableColumn<>("Address");
-            addressColumn.setCellValueFactory(cellData -> cellData.getValue().addressProperty());
+            addressColumn.setCellValueFactory(cellValue(student -> student.addressProperty()));
+            addressColumn.setUserData("address");
 
             TableColumn<Student, Integer> mathMarksColumn = new TableColumn<>("Mathematics Marks");
-            mathMarksColumn.setCellValueFactory(cellData -> cellData.getValue().mathematicsMarksProperty().asObject());
+            mathMarksColumn.setCellValueFactory(cellValue(student -> student.mathematicsMarksProperty().asObject()));
+            mathMarksColumn.setUserData("mathematics_marks");
 
             TableColumn<Student, Integer> physicsMarksColumn = new TableColumn<>("Physics Marks");
-            physicsMarksColumn.setCellValueFactory(cellData -> cellData.getValue().physicsMarksProperty().asObject());
+            physicsMarksColumn.setCellValueFactory(cellValue(student -> student.physicsMarksProperty().asObject()));
+            physicsMarksColumn.setUserData("physics_marks");
 
             TableColumn<Student, Integer> chemistryMarksColumn = new TableColumn<>("Chemistry Marks");
-            chemistryMarksColumn.setCellValueFactory(cellData -> cellData.getValue().chemistryMarksProperty().asObject());
+            chemistryMarksColumn.setCellValueFactory(cellValue(student -> student.chemistryMarksProperty().asObject()));
+            chemistryMarksColumn.setUserData("chemistry_marks");
 
             TableColumn<Student, Integer> totalMarksColumn = new TableColumn<>("Total Marks");
-            totalMarksColumn.setCellValueFactory(cellData -> cellData.getValue().totalMarksProperty().asObject());
+            totalMarksColumn.setCellValueFactory(cellValue(student -> student.totalMarksProperty().asObject()));
+            totalMarksColumn.setUserData("total_marks");
 
             TableColumn<Student, String> admissionNumberColumn = new TableColumn<>("Admission Number");
-            admissionNumberColumn.setCellValueFactory(cellData -> cellData.getValue().admissionNumberProperty());
+            admissionNumberColumn.setCellValueFactory(cellValue(student -> student.admissionNumberProperty()));
+            admissionNumberColumn.setUserData("admission_number");
 
             TableColumn<Student, String> semesterColumn = new TableColumn<>("Semester");
-            semesterColumn.setCellValueFactory(cellData -> cellData.getValue().semesterProperty());
+            semesterColumn.setCellValueFactory(cellValue(student -> student.semesterProperty()));
+            semesterColumn.setUserData("semester");
 
             TableColumn<Student, Void> deleteColumn = new TableColumn<>("Delete");
+            deleteColumn.setSortable(false);
             deleteColumn.setCellFactory(param -> new TableCell<>() {
                 private final Button deleteButton = new Button("Delete");
 
                 @Override
                 protected void updateItem(Void item, boolean empty) {
                     super.updateItem(item, empty);
-                    if (empty) {
+                    if (empty || getTableRow() == null || getTableRow().getItem() == null) {
                         setGraphic(null);
                     } else {
                         deleteButton.setOnAction(event -> {
                             Student student = getTableView().getItems().get(getIndex());
-                            deleteRecord(student);
-                            studentsData.remove(student);
-                            updateStudentComboBox();
+                            if (student == null) {
+                                return;
+                            }
+                            deleteRecords(Collections.singletonList(student));
                         });
                         setGraphic(deleteButton);
                     }
@@ -159,61 +297,304 @@ public class StudentManagementSystem extends Application {
             table.getColumns().addAll(admissionNumberColumn, nameColumn, genderColumn, addressColumn, contactNumberColumn, emailColumn, semesterColumn, mathMarksColumn, physicsMarksColumn, chemistryMarksColumn, totalMarksColumn, deleteColumn);
             table.setItems(studentsData);
             table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
-
-            fetchDataFromDatabase();
-
-            table.setItems(studentsData);
+            table.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+            table.setOnKeyPressed(event -> {
+                if (event.getCode() == KeyCode.DELETE) {
+                    deleteSelectedRecords();
+                }
+            });
 
             primaryStage.setScene(scene);
             primaryStage.setTitle("Student Management System");
             primaryStage.show();
+
+            if (repository != null) {
+                backgroundExecutor.execute(this::migrateSchema);
+            } else if (config.getFlag("sms.table.paged")) {
+                logger.log(Level.WARNING, "sms.table.paged needs the mysql storage; loading the whole table instead");
+            }
+            if (repository != null && config.getFlag("sms.table.paged")) {
+                showPagedTable();
+            } else {
+                table.setItems(studentsData);
+                fetchDataFromDatabase();
+            }
         } catch (Exception e) {
             logger.log(Level.SEVERE, "An error occurred while initializing the application", e);
         }
     }
 
-    private void fetchDataFromDatabase() {
+    @Override
+    public void stop() {
+        backgroundExecutor.shutdownNow();
+        if (deltaSync != null) {
+            deltaSync.close();
+        }
+        if (stallWatchdog != null) {
+            stallWatchdog.close();
+        }
+        if (writeQueue != null) {
+            writeQueue.close();
+        }
+        housekeepingScheduler.shutdownNow();
+        writeMetricsSnapshot();
+        writeStudentSnapshot(true);
+        if (storage != null) {
+            storage.close();
+        }
+        if (logHandler != null) {
+            logHandler.close();
+        }
+    }
+
+    // Saves the loaded rows for the next warm start. The rows are copied on the FX thread; the file is
+    // written there too at shutdown and on the housekeeping thread otherwise.
+    private void writeStudentSnapshot(boolean now) {
+        if (!snapshotReady || snapshotFile == null || deltaSync == null) {
+            return;
+        }
+        // Rows still waiting for their insert have no id yet; the delta sync brings them in later.
+        List<Student> rows = new ArrayList<>(studentsData.size());
+        for (Student student : studentsData) {
+            if (student.getId() > 0) {
+                rows.add(student);
+            }
+        }
+        Timestamp watermark = deltaSync.getAppliedThrough();
+        Runnable write = () -> {
+            try (Metrics.Operation op = Metrics.getDefault().start("snapshot.write")) {
+                StudentSnapshot.write(snapshotFile, repository.getSource(), rows, watermark);
+                op.addRows(rows.size());
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "An error occurred while writing the student snapshot", e);
+            }
+        };
+        if (now) {
+            write.run();
+        } else if (!housekeepingScheduler.isShutdown()) {
+            // Both this and stop() run on the FX thread, so a periodic write queued before stop()
+            // sees the scheduler shut down and leaves the final snapshot to stop().
+            housekeepingScheduler.execute(write);
+        }
+    }
+
+    private void writeMetricsSnapshot() {
         try {
-            Connection conn = DriverManager.getConnection("jdbc:mysql://localhost:3306/student_database", "root", "root");
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT * FROM students");
-
-            while (rs.next()) {
-                studentsData.add(new Student(
-                        rs.getString("name"),
-                        rs.getString("gender"),
-                        rs.getString("email"),
-                        rs.getString("contact_number"),
-                        rs.getString("address"),
-                        rs.getInt("mathematics_marks"),
-                        rs.getInt("physics_marks"),
-                        rs.getInt("chemistry_marks"),
-                        rs.getString("admission_number"),
-                        rs.getString("semester")));
-            }
-
-            conn.close();
+            Metrics.getDefault().writeSnapshot(METRICS_SNAPSHOT);
         } catch (Exception e) {
-            e.printStackTrace();
-            logger.log(Level.SEVERE, "Error fetching data from the database", e);
+            logger.log(Level.SEVERE, "An error occurred while writing the metrics snapshot", e);
         }
     }
 
-    private void updateStudentComboBox() {
+    // Live view of the per-operation latency histograms and FX-thread stalls, refreshed every second
+    // while open.
+    private void showDiagnostics() {
         try {
-            studentComboBox.getItems().clear();
-            studentComboBox.getItems().addAll(getUniqueNames());
+            Dialog<Void> dialog = new Dialog<>();
+            dialog.setTitle("Diagnostics");
+            dialog.setHeaderText(null);
+
+            TableView<Map.Entry<String, Metrics.OperationStats>> metricsTable = new TableView<>();
+            metricsTable.getColumns().addAll(List.of(
+                    metricsColumn("Operation", entry -> entry.getKey()),
+                    metricsColumn("Count", entry -> entry.getValue().getLatency().getCount()),
+                    metricsColumn("Mean (ms)", entry -> String.format("%.2f", entry.getValue().getLatency().getMeanMicros() / 1000.0)),
+                    metricsColumn("p50 (ms)", entry -> millis(entry.getValue().getLatency().getPercentileMicros(50))),
+                    metricsColumn("p95 (ms)", entry -> millis(entry.getValue().getLatency().getPercentileMicros(95))),
+                    metricsColumn("p99 (ms)", entry -> millis(entry.getValue().getLatency().getPercentileMicros(99))),
+                    metricsColumn("Max (ms)", entry -> millis(entry.getValue().getLatency().getMaxMicros())),
+                    metricsColumn("Rows", entry -> entry.getValue().getRows()),
+                    metricsColumn("Bytes", entry -> entry.getValue().getBytes())));
+            metricsTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+            metricsTable.setPrefSize(760, 320);
+            Label memoryLabel = new Label();
+
+            Runnable refresh = () -> {
+                metricsTable.getItems().setAll(Metrics.getDefault().getOperations().entrySet());
+                Runtime runtime = Runtime.getRuntime();
+                memoryLabel.setText(String.format("Heap used: %d MB of %d MB. Snapshot file: %s",
+                        (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20, METRICS_SNAPSHOT.toAbsolutePath()));
+            };
+            refresh.run();
+            Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> refresh.run()));
+            timeline.setCycleCount(Timeline.INDEFINITE);
+            timeline.play();
+
+            VBox vbox = new VBox();
+            vbox.setSpacing(10);
+            vbox.getChildren().addAll(metricsTable, memoryLabel);
+            dialog.getDialogPane().setContent(vbox);
+
+            ButtonType closeButton = new ButtonType("Close", ButtonBar.ButtonData.CANCEL_CLOSE);
+            dialog.getDialogPane().getButtonTypes().add(closeButton);
+            dialog.setOnHidden(event -> timeline.stop());
+            dialog.show();
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "An error occurred while updating student ComboBox", e);
+            logger.log(Level.SEVERE, "An error occurred while showing diagnostics", e);
         }
     }
 
-    private Set<String> getUniqueNames() {
-        Set<String> uniqueNames = new HashSet<>();
-        for (Student student : studentsData) {
-            uniqueNames.add(student.getName());
+    private static TableColumn<Map.Entry<String, Metrics.OperationStats>, Object> metricsColumn(String title, Function<Map.Entry<String, Metrics.OperationStats>, Object> value) {
+        TableColumn<Map.Entry<String, Metrics.OperationStats>, Object> column = new TableColumn<>(title);
+        column.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(value.apply(cellData.getValue())));
+        return column;
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+    // The table reads its rows page by page straight from the database and pushes column sorts down
+    // to ORDER BY, so nothing but the visible pages is kept in memory.
+    private void showPagedTable() {
+        pagedStudents = new PagedStudentList(repository, backgroundExecutor);
+        table.setSortPolicy(tableView -> {
+            if (tableView.getSortOrder().isEmpty()) {
+                pagedStudents.setSort("id", true);
+            } else {
+                TableColumn<Student, ?> column = tableView.getSortOrder().get(0);
+                pagedStudents.setSort((String) column.getUserData(), column.getSortType() == TableColumn.SortType.ASCENDING);
+            }
+            return true;
+        });
+        table.setItems(pagedStudents);
+        searchBar.setDisable(true);
+        searchField.setPromptText("Search is available when the whole table is loaded");
+        pagedStudents.refresh();
+        backgroundExecutor.execute(() -> {
+            try {
+                startDeltaSync(repository.currentTimestamp(), changes -> {
+                    trendService.invalidateAll();
+                    pagedStudents.refresh();
+                });
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "An error occurred while starting the delta sync", e);
+            }
+        });
+    }
+
+    // Keeps the loaded rows current by polling for changed rows rather than reloading the table.
+    // since is null when the schema has no change tracking yet; the sync and the local snapshot,
+    // which relies on it, stay off then.
+    private void startDeltaSync(Timestamp since, Consumer<StudentRepository.Changes> applier) {
+        long intervalMillis = config.getInt("sms.sync.intervalSeconds", 5) * 1000L;
+        if (intervalMillis <= 0 || repository == null) {
+            return;
+        }
+        if (since == null) {
+            logger.log(Level.WARNING, "Incremental sync is off: the database schema is older than version "
+                    + SchemaMigrator.CHANGE_TRACKING_VERSION + "; an administrator needs to run system.SchemaMigrator");
+            return;
+        }
+        deltaSync = new StudentDeltaSync(repository, intervalMillis, applier);
+        deltaSync.start(since);
+    }
+
+    private static final String ALL_SEMESTERS = "All semesters";
+    private static final String ALL_GRADES = "All grades";
+
+    private HBox createSearchBar() {
+        searchIndex = new StudentSearchIndex(studentsData, GradingEngine.getDefault());
+        searchField = new TextField();
+        searchField.setPromptText("Search name, email, admission or contact number");
+        searchField.setPrefColumnCount(30);
+        semesterFilter = new ComboBox<>();
+        semesterFilter.getItems().add(ALL_SEMESTERS);
+        semesterFilter.setValue(ALL_SEMESTERS);
+        semesterFilter.setOnShowing(event -> {
+            List<String> semesters = new ArrayList<>();
+            semesters.add(ALL_SEMESTERS);
+            semesters.addAll(studentIndex.getSemesters());
+            if (!semesterFilter.getItems().equals(semesters)) {
+                String selected = semesterFilter.getValue();
+                semesterFilter.getItems().setAll(semesters);
+                semesterFilter.setValue(selected);
+            }
+        });
+        gradeFilter = new ComboBox<>();
+        gradeFilter.getItems().add(ALL_GRADES);
+        gradeFilter.getItems().addAll(GradingEngine.getDefault().getGrades());
+        gradeFilter.setValue(ALL_GRADES);
+        searchStatus = new Label();
+
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> applySearch());
+        semesterFilter.valueProperty().addListener((observable, oldValue, newValue) -> applySearch());
+        gradeFilter.valueProperty().addListener((observable, oldValue, newValue) -> applySearch());
+        studentsData.addListener((ListChangeListener<Student>) change -> {
+            if (table.getItems() == searchResults) {
+                applySearch();
+            }
+        });
+
+        searchBar = new HBox(searchField, semesterFilter, gradeFilter, searchStatus);
+        searchBar.setSpacing(10);
+        return searchBar;
+    }
+
+    // Shows the index lookup's matches in the table, or the whole list when nothing is filtered.
+    private void applySearch() {
+        if (pagedStudents != null) {
+            return;
+        }
+        String text = searchField.getText();
+        String semester = ALL_SEMESTERS.equals(semesterFilter.getValue()) ? null : semesterFilter.getValue();
+        String grade = ALL_GRADES.equals(gradeFilter.getValue()) ? null : gradeFilter.getValue();
+        if ((text == null || text.trim().isEmpty()) && semester == null && grade == null) {
+            table.setItems(studentsData);
+            searchStatus.setText("");
+            return;
+        }
+        long start = System.nanoTime();
+        List<Student> matches;
+        try (Metrics.Operation op = Metrics.getDefault().start("search")) {
+            matches = searchIndex.search(text, semester, grade);
+            op.addRows(matches.size());
+        }
+        long elapsed = System.nanoTime() - start;
+        searchResults.setAll(matches);
+        if (table.getItems() != searchResults) {
+            table.setItems(searchResults);
+        }
+        searchStatus.setText(String.format("%d matches in %.2f ms", matches.size(), elapsed / 1e6));
+    }
+
+    private static <T> Callback<TableColumn.CellDataFeatures<Student, T>, ObservableValue<T>> cellValue(Function<Student, ObservableValue<T>> property) {
+        return cellData -> cellData.getValue() == null ? null : property.apply(cellData.getValue());
+    }
+
+    private void fetchDataFromDatabase() {
+        try {
+            StudentLoadTask loadTask = new StudentLoadTask(storage, studentsData, snapshotFile);
+
+            ProgressBar progressBar = new ProgressBar();
+            progressBar.progressProperty().bind(loadTask.progressProperty());
+            Label statusLabel = new Label();
+            statusLabel.textProperty().bind(loadTask.messageProperty());
+            Button cancelButton = new Button("Cancel");
+            cancelButton.setOnAction(event -> loadTask.cancel());
+            statusBar.getChildren().setAll(progressBar, statusLabel, cancelButton);
+
+            loadTask.setOnSucceeded(event -> {
+                statusBar.getChildren().clear();
+                snapshotReady = true;
+                startDeltaSync(loadTask.getStartedAt(), changes -> StudentDeltaSync.apply(changes, studentsData, studentIndex));
+            });
+            loadTask.setOnCancelled(event -> {
+                statusLabel.textProperty().unbind();
+                statusLabel.setText("Loading cancelled after " + studentsData.size() + " students");
+                statusBar.getChildren().setAll(statusLabel);
+            });
+            loadTask.setOnFailed(event -> {
+                statusLabel.textProperty().unbind();
+                statusLabel.setText("Could not load students from the database");
+                statusBar.getChildren().setAll(statusLabel);
+                logger.log(Level.SEVERE, "Error fetching data from the database", loadTask.getException());
+            });
+
+            backgroundExecutor.execute(loadTask);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error fetching data from the database", e);
         }
-        return uniqueNames;
     }
 
     private void showAddRecordDialog() {
@@ -274,11 +655,8 @@ public class StudentManagementSystem extends Application {
                     );
 
                     studentsData.add(student);
-
                     saveRecord(student);
 
-                    updateStudentComboBox();
-
                     return student;
                 }
                 return null;
@@ -290,152 +668,532 @@ public class StudentManagementSystem extends Application {
         }
     }
 
-    private void deleteRecord(Student student) {
+    private void showImportDialog(Stage owner) {
         try {
-            Connection conn = DriverManager.getConnection("jdbc:mysql://localhost:3306/student_database", "root", "root");
-            PreparedStatement stmt = conn.prepareStatement("DELETE FROM students WHERE name=? AND email=?");
-            stmt.setString(1, student.getName());
-            stmt.setString(2, student.getEmail());
-            stmt.executeUpdate();
-            conn.close();
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Import Records");
+            fileChooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("CSV or JSON files", "*.csv", "*.json", "*.jsonl"),
+                    new FileChooser.ExtensionFilter("All files", "*.*"));
+            File file = fileChooser.showOpenDialog(owner);
+            if (file == null) {
+                return;
+            }
+
+            int batchSize = config.getInt("sms.import.batchSize", StudentImporter.DEFAULT_BATCH_SIZE);
+            int workers = config.getInt("sms.import.workers", Runtime.getRuntime().availableProcessors());
+            Task<ImportReport> importTask = new Task<>() {
+                @Override
+                protected ImportReport call() throws Exception {
+                    updateMessage("Importing " + file.getName() + "...");
+                    try (StudentImporter importer = new StudentImporter(storage, batchSize, workers)) {
+                        return importer.importFile(file.toPath(), batch -> {
+                            if (pagedStudents == null) {
+                                Platform.runLater(() -> studentsData.addAll(batch));
+                            }
+                        }, this::isCancelled);
+                    }
+                }
+            };
+
+            ProgressIndicator progressIndicator = new ProgressIndicator();
+            progressIndicator.setPrefSize(16, 16);
+            Label statusLabel = new Label();
+            statusLabel.textProperty().bind(importTask.messageProperty());
+            Button cancelButton = new Button("Cancel");
+            cancelButton.setOnAction(event -> importTask.cancel());
+            statusBar.getChildren().setAll(progressIndicator, statusLabel, cancelButton);
+
+            importTask.setOnSucceeded(event -> {
+                statusBar.getChildren().clear();
+                if (pagedStudents != null) {
+                    trendService.invalidateAll();
+                    pagedStudents.refresh();
+                }
+                showImportReport(file, importTask.getValue());
+            });
+            importTask.setOnCancelled(event -> {
+                statusBar.getChildren().clear();
+                if (pagedStudents != null) {
+                    trendService.invalidateAll();
+                    pagedStudents.refresh();
+                }
+            });
+            importTask.setOnFailed(event -> {
+                statusBar.getChildren().clear();
+                logger.log(Level.SEVERE, "An error occurred while importing records", importTask.getException());
+                new Alert(Alert.AlertType.ERROR, "Import failed: " + importTask.getException().getMessage()).showAndWait();
+            });
+
+            Thread importThread = new Thread(importTask, "student-import");
+            importThread.setDaemon(true);
+            importThread.start();
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "An error occurred while deleting record", e);
+            logger.log(Level.SEVERE, "An error occurred while showing import dialog", e);
         }
     }
 
-    private void updateBarGraph() {
+    private void showImportReport(File file, ImportReport report) {
         try {
-            Map<String, Integer> totalMarksMap = new HashMap<>();
-
-            for (Student student : studentsData) {
-                String name = student.getName();
-                int totalMarks = student.getTotalMarks();
-                totalMarksMap.put(name, totalMarksMap.getOrDefault(name, 0) + totalMarks);
+            String summary = String.format("Imported %d records in %.1f s (%.0f rows/s). Rejected %d records.",
+                    report.getImported(), report.getElapsedNanos() / 1e9, report.getRowsPerSecond(), report.getRejected());
+            if (report.getRejected() > 0) {
+                Path rejectedFile = file.toPath().resolveSibling(file.getName() + ".rejected.txt");
+                List<String> lines = new ArrayList<>();
+                for (ImportReport.Rejection rejection : report.getRejections()) {
+                    lines.add(rejection.toString());
+                }
+                Files.write(rejectedFile, lines, StandardCharsets.UTF_8);
+                summary += "\nRejected rows were written to " + rejectedFile;
+            }
+            Exception failure = report.getFailure();
+            if (failure != null) {
+                logger.log(Level.SEVERE, "An error occurred while importing records", failure);
+                summary = "Import stopped: " + failure.getMessage() + "\nRecords imported before the error were kept.\n" + summary;
             }
+            Alert alert = new Alert(failure == null ? Alert.AlertType.INFORMATION : Alert.AlertType.ERROR, summary);
+            alert.setTitle("Import Records");
+            alert.setHeaderText(null);
+            alert.showAndWait();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An error occurred while showing import report", e);
+        }
+    }
 
-            XYChart.Series<String, Number> series = new XYChart.Series<>();
-            series.setName("Total Marks");
+    // Migrations that rewrite the students table are left to SchemaMigrator's command line unless
+    // sms.schema.migrateOnStartup is set.
+    private void migrateSchema() {
+        try {
+            boolean all = config.getFlag("sms.schema.migrateOnStartup");
+            int applied = repository.migrateSchema(all ? SchemaMigrator.MIGRATIONS.length : SchemaMigrator.LAST_CLIENT_MIGRATION);
+            if (applied > 0) {
+                logger.log(Level.INFO, "Applied " + applied + " schema migration(s)");
+            }
+            int version = repository.schemaVersion();
+            if (version < SchemaMigrator.MIGRATIONS.length) {
+                logger.log(Level.SEVERE, "The database schema is at version " + version + " of " + SchemaMigrator.MIGRATIONS.length
+                        + "; an administrator needs to run system.SchemaMigrator");
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An error occurred while migrating the database schema", e);
+        }
+    }
 
-            for (Map.Entry<String, Integer> entry : totalMarksMap.entrySet()) {
-                series.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
+    private void deleteSelectedRecords() {
+        List<Student> selected = new ArrayList<>();
+        for (Student student : table.getSelectionModel().getSelectedItems()) {
+            if (student != null) {
+                selected.add(student);
             }
+        }
+        if (!selected.isEmpty()) {
+            deleteRecords(selected);
+        }
+    }
 
-            barChart.getData().setAll(series);
+    // Removed from the list right away; the database delete goes through the write-behind queue.
+    private void deleteRecords(List<Student> students) {
+        try {
+            Set<Student> deleted = Collections.newSetFromMap(new IdentityHashMap<>());
+            deleted.addAll(students);
+            studentsData.removeIf(deleted::contains);
+            writeQueue.enqueueDelete(students);
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "An error occurred while updating bar graph", e);
+            logger.log(Level.SEVERE, "An error occurred while deleting record", e);
         }
     }
 
+    private RadioMenuItem barChartModeItem(String text, TotalMarksAggregator.Mode mode, ToggleGroup group) {
+        RadioMenuItem item = new RadioMenuItem(text);
+        item.setToggleGroup(group);
+        item.setSelected(mode == TotalMarksAggregator.Mode.AUTO);
+        item.setOnAction(event -> {
+            try {
+                totalMarksAggregator.setMode(mode);
+                boolean histogram = mode == TotalMarksAggregator.Mode.HISTOGRAM;
+                barChart.getXAxis().setLabel(histogram ? "Total Marks" : "Student");
+                barChart.getYAxis().setLabel(histogram ? "Students" : "Total Marks");
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "An error occurred while updating bar graph", e);
+            }
+        });
+        return item;
+    }
+
     private void saveRecord(Student student) {
         try {
-            Connection conn = DriverManager.getConnection("jdbc:mysql://localhost:3306/student_database", "root", "root");
-            PreparedStatement stmt = conn.prepareStatement("INSERT INTO students (name, gender, email, contact_number, address, mathematics_marks, physics_marks, chemistry_marks, admission_number, semester) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
-            stmt.setString(1, student.getName());
-            stmt.setString(2, student.getGender());
-            stmt.setString(3, student.getEmail());
-            stmt.setString(4, student.getContactNumber());
-            stmt.setString(5, student.getAddress());
-            stmt.setInt(6, student.getMathematicsMarks());
-            stmt.setInt(7, student.getPhysicsMarks());
-            stmt.setInt(8, student.getChemistryMarks());
-            stmt.setString(9, student.getAdmissionNumber());
-            stmt.setString(10, student.getSemester());
-            stmt.executeUpdate();
-            conn.close();
+            writeQueue.enqueueInsert(student);
         } catch (Exception e) {
             logger.log(Level.SEVERE, "An error occurred while saving record", e);
         }
     }
 
-    private void showStudentGrading() {
-        try {
-            Dialog<Void> dialog = new Dialog<>();
-            dialog.setTitle("Student Grading");
-            dialog.setHeaderText(null);
-
-            ComboBox<String> subjectComboBox = new ComboBox<>();
-            subjectComboBox.getItems().addAll("Mathematics", "Physics", "Chemistry");
-            subjectComboBox.setValue("Mathematics");
+    private WriteBehindQueue.Listener writeQueueListener() {
+        return new WriteBehindQueue.Listener() {
+            @Override
+            public void pendingChanged(int pending) {
+                pendingWritesLabel.setText(pending == 0 ? "" : pending + " change(s) waiting to be saved");
+                if (pending == 0 && pagedStudents != null) {
+                    trendService.invalidateAll();
+                    pagedStudents.refresh();
+                }
+            }
 
-            studentComboBox.getItems().addAll(getUniqueNames());
+            @Override
+            public void rolledBack(List<Student> inserted, List<Student> deleted, Exception cause) {
+                Set<Student> undone = Collections.newSetFromMap(new IdentityHashMap<>());
+                undone.addAll(inserted);
+                studentsData.removeIf(undone::contains);
+                studentsData.addAll(deleted);
+                Alert alert = new Alert(Alert.AlertType.ERROR, (inserted.isEmpty()
+                        ? "Deleting " + deleted.size() + " record(s) failed; they have been restored."
+                        : "Saving " + inserted.get(0).getName() + " failed; the record has been removed.")
+                        + "\n" + cause.getMessage());
+                alert.setHeaderText(null);
+                alert.show();
+            }
+        };
+    }
 
-            Button selectStudentButton = new Button("Select Student");
-            selectStudentButton.setOnAction(event -> {
-                String selectedSubject = subjectComboBox.getValue();
-                String selectedStudentName = studentComboBox.getValue();
-                populateScatterChart(selectedStudentName, selectedSubject);
-            });
+    private static final int MAX_COMPARED_STUDENTS = 8;
+    private static final int TREND_INVALIDATE_ALL_ROWS = 1_000;
 
-            scatterChart = new ScatterChart<>(new NumberAxis(), new NumberAxis());
-            scatterChart.setTitle("Semester Marks");
-            scatterChart.getXAxis().setLabel("Semester");
-            scatterChart.getYAxis().setLabel("Marks");
+    // The dialog is built once and kept, so reopening it does not rebuild the chart. Picking a student
+    // or subject redraws straight away from the trend cache.
+    private void showStudentGrading() {
+        try {
+            if (gradingDialog == null) {
+                gradingDialog = createGradingDialog();
+            }
+            if (gradingDialog.isShowing()) {
+                ((Stage) gradingDialog.getDialogPane().getScene().getWindow()).toFront();
+            } else {
+                showTrends();
+                gradingDialog.showAndWait();
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An error occurred while showing student grading dialog", e);
+        }
+    }
 
-            VBox vbox = new VBox();
-            vbox.setSpacing(10);
-            vbox.getChildren().addAll(subjectComboBox, studentComboBox, selectStudentButton, scatterChart);
+    private Dialog<Void> createGradingDialog() {
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("Student Grading");
+        dialog.setHeaderText(null);
+
+        subjectComboBox = new ComboBox<>();
+        subjectComboBox.getItems().addAll(StudentTrendService.SUBJECTS);
+        subjectComboBox.setValue("Mathematics");
+        compareCheckBox = new CheckBox("Compare students");
+        Button clearButton = new Button("Clear comparison");
+        trendStatus = new Label();
+        gradingBox = new VBox();
+
+        studentComboBox.valueProperty().addListener((observable, oldValue, newValue) -> showTrends());
+        subjectComboBox.valueProperty().addListener((observable, oldValue, newValue) -> showTrends());
+        compareCheckBox.selectedProperty().addListener((observable, oldValue, newValue) -> showTrends());
+        clearButton.setOnAction(event -> {
+            comparedStudents.clear();
+            showTrends();
+        });
+        clearButton.disableProperty().bind(compareCheckBox.selectedProperty().not());
+
+        HBox controls = new HBox(subjectComboBox, studentComboBox, compareCheckBox, clearButton);
+        controls.setSpacing(10);
+        VBox vbox = new VBox();
+        vbox.setSpacing(10);
+        vbox.getChildren().addAll(controls, scatterChart, trendStatus, gradingBox);
+
+        BorderPane borderPane = new BorderPane();
+        borderPane.setCenter(vbox);
+
+        dialog.getDialogPane().setContent(borderPane);
+
+        ButtonType closeButton = new ButtonType("Close", ButtonBar.ButtonData.CANCEL_CLOSE);
+        dialog.getDialogPane().getButtonTypes().add(closeButton);
+        return dialog;
+    }
 
-            BorderPane borderPane = new BorderPane();
-            borderPane.setCenter(vbox);
+    // Draws the selected student, or every compared student, for the selected subject. Cached series
+    // are drawn at once; in paged mode a miss is loaded on the background thread and drawn when it
+    // arrives, provided the selection has not moved on by then.
+    private void showTrends() {
+        String subject = subjectComboBox.getValue();
+        String selected = studentComboBox.getValue();
+        if (!compareCheckBox.isSelected()) {
+            comparedStudents.clear();
+        }
+        if (selected != null && !comparedStudents.contains(selected)) {
+            comparedStudents.add(selected);
+            if (comparedStudents.size() > MAX_COMPARED_STUDENTS) {
+                comparedStudents.remove(0);
+            }
+        }
+        List<String> names = new ArrayList<>(comparedStudents);
+        List<StudentTrendService.Trend> trends = new ArrayList<>(names.size());
+        try {
+            for (String name : names) {
+                StudentTrendService.Trend trend = trendService.getIfCached(name, subject);
+                if (trend == null && pagedStudents != null) {
+                    loadTrends(names, subject);
+                    return;
+                }
+                trends.add(trend != null ? trend : trendService.get(name, subject));
+            }
+            renderTrends(subject, trends);
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "An error occurred while populating scatter chart", e);
+        }
+    }
 
-            dialog.getDialogPane().setContent(borderPane);
+    private void loadTrends(List<String> names, String subject) {
+        trendStatus.setText("Loading...");
+        backgroundExecutor.execute(() -> {
+            try {
+                List<StudentTrendService.Trend> trends = new ArrayList<>(names.size());
+                for (String name : names) {
+                    trends.add(trendService.get(name, subject));
+                }
+                Platform.runLater(() -> {
+                    if (subject.equals(subjectComboBox.getValue()) && names.equals(comparedStudents)) {
+                        renderTrends(subject, trends);
+                    }
+                });
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, "An error occurred while populating scatter chart", e);
+            }
+        });
+    }
 
-            ButtonType closeButton = new ButtonType("Close", ButtonBar.ButtonData.CANCEL_CLOSE);
-            dialog.getDialogPane().getButtonTypes().add(closeButton);
+    private void renderTrends(String subject, List<StudentTrendService.Trend> trends) {
+        try (Metrics.Operation op = Metrics.getDefault().start("trend.render")) {
+            List<XYChart.Series<Number, Number>> seriesList = new ArrayList<>(trends.size());
+            List<Label> grades = new ArrayList<>();
+            int shown = 0;
+            int total = 0;
+            for (StudentTrendService.Trend trend : trends) {
+                XYChart.Series<Number, Number> series = new XYChart.Series<>();
+                series.setName(trends.size() == 1 ? subject : trend.getStudentName());
+                List<XYChart.Data<Number, Number>> points = new ArrayList<>(trend.size());
+                for (int i = 0; i < trend.size(); i++) {
+                    points.add(new XYChart.Data<>(trend.getSemester(i), trend.getMarks(i)));
+                    if (trends.size() == 1) {
+                        grades.add(new Label("Semester " + trend.getSemester(i) + " Grade: " + Grades.calculateGrade(trend.getMarks(i))));
+                    }
+                }
+                series.getData().setAll(points);
+                seriesList.add(series);
+                shown += trend.size();
+                total += trend.getSourceSize();
+            }
+            scatterChart.getData().setAll(seriesList);
+            gradingBox.getChildren().setAll(grades);
+            trendStatus.setText(shown < total ? "Showing " + shown + " of " + total + " semesters" : "");
+            op.addRows(shown);
+        }
+    }
 
-            dialog.showAndWait();
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "An error occurred while showing student grading dialog", e);
+    // Drops the cached series of every student whose rows were added or removed. Large changes, such
+    // as the initial load, clear the whole cache instead of walking every row.
+    private void invalidateTrends(ListChangeListener.Change<? extends Student> change) {
+        int changed = 0;
+        while (change.next()) {
+            changed += change.getRemovedSize() + change.getAddedSize();
+        }
+        if (changed > TREND_INVALIDATE_ALL_ROWS) {
+            trendService.invalidateAll();
+            return;
+        }
+        change.reset();
+        while (change.next()) {
+            for (Student student : change.getRemoved()) {
+                trendService.invalidate(student.getName());
+            }
+            for (Student student : change.getAddedSubList()) {
+                trendService.invalidate(student.getName());
+            }
         }
     }
 
-    private void populateScatterChart(String studentName, String subject) {
+    // Per-semester ranks and statistics, kept current while records change. The analytics are built
+    // on the common fork/join pool the first time the dialog opens, so they neither wait for nor hold
+    // up the loader thread; changes made meanwhile are buffered and folded in once the build is done.
+    private void showCohortAnalytics() {
         try {
-            Connection conn = DriverManager.getConnection("jdbc:mysql://localhost:3306/student_database", "root", "root");
-            PreparedStatement stmt = conn.prepareStatement("SELECT semester, " + subject.toLowerCase() + "_marks FROM students WHERE name = ?");
-            stmt.setString(1, studentName);
-            ResultSet rs = stmt.executeQuery();
-
-            XYChart.Series<Number, Number> series = new XYChart.Series<>();
-            series.setName(subject);
+            if (pagedStudents != null) {
+                new Alert(Alert.AlertType.INFORMATION, "Cohort analytics are available when the whole table is loaded.").showAndWait();
+                return;
+            }
+            if (cohortDialog == null) {
+                cohortDialog = createCohortDialog();
+            }
+            if (cohortAnalytics == null && cohortPendingAdded == null) {
+                buildCohortAnalytics();
+            }
+            if (!cohortDialog.isShowing()) {
+                cohortDialog.show();
+            }
+            refreshCohortAnalytics();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An error occurred while showing cohort analytics", e);
+        }
+    }
 
-            VBox gradingBox = new VBox();
-            gradingBox.getChildren().clear();
+    private Dialog<Void> createCohortDialog() {
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("Cohort Analytics");
+        dialog.setHeaderText(null);
+
+        cohortTable = new TableView<>();
+        cohortTable.getColumns().add(cohortColumn("Semester", stats -> stats.getSemester().isEmpty() ? "(none)" : stats.getSemester()));
+        cohortTable.getColumns().add(cohortColumn("Students", CohortAnalytics.SemesterStats::getCount));
+        for (int i = 0; i < CohortAnalytics.MEASURES.length; i++) {
+            int measure = i;
+            TableColumn<CohortAnalytics.SemesterStats, Object> group = new TableColumn<>(CohortAnalytics.MEASURES[measure]);
+            group.getColumns().addAll(List.of(
+                    cohortColumn("Mean", stats -> decimal(stats.getMean(measure))),
+                    cohortColumn("Median", stats -> decimal(stats.getMedian(measure))),
+                    cohortColumn("Std dev", stats -> decimal(stats.getStandardDeviation(measure)))));
+            cohortTable.getColumns().add(group);
+        }
+        TableColumn<CohortAnalytics.SemesterStats, Object> correlation = new TableColumn<>("Correlation");
+        correlation.getColumns().addAll(List.of(
+                cohortColumn("Maths/Phys", stats -> decimal(stats.getMathematicsPhysicsCorrelation())),
+                cohortColumn("Maths/Chem", stats -> decimal(stats.getMathematicsChemistryCorrelation())),
+                cohortColumn("Phys/Chem", stats -> decimal(stats.getPhysicsChemistryCorrelation()))));
+        cohortTable.getColumns().add(correlation);
+        cohortTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        cohortTable.setPrefSize(1000, 320);
+        cohortStanding = new Label();
+
+        VBox vbox = new VBox();
+        vbox.setSpacing(10);
+        vbox.getChildren().addAll(cohortTable, cohortStanding);
+        dialog.getDialogPane().setContent(vbox);
+
+        ButtonType closeButton = new ButtonType("Close", ButtonBar.ButtonData.CANCEL_CLOSE);
+        dialog.getDialogPane().getButtonTypes().add(closeButton);
+        return dialog;
+    }
 
-            while (rs.next()) {
-                int semester = rs.getInt("semester");
-                int marks = rs.getInt(subject.toLowerCase() + "_marks");
+    private static TableColumn<CohortAnalytics.SemesterStats, Object> cohortColumn(String title, Function<CohortAnalytics.SemesterStats, Object> value) {
+        TableColumn<CohortAnalytics.SemesterStats, Object> column = new TableColumn<>(title);
+        column.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(value.apply(cellData.getValue())));
+        return column;
+    }
 
-                String grade = calculateGrade(marks);
+    private static String decimal(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.2f", value);
+    }
 
-                series.getData().add(new XYChart.Data<>(semester, marks));
-                gradingBox.getChildren().add(new Label("Semester " + semester + " Grade: " + grade));
+    private void buildCohortAnalytics() {
+        List<Student> snapshot = new ArrayList<>(studentsData);
+        cohortPendingAdded = new ArrayList<>();
+        cohortPendingRemoved = new ArrayList<>();
+        cohortBuildError = null;
+        ForkJoinPool.commonPool().execute(() -> {
+            try (Metrics.Operation op = Metrics.getDefault().start("cohort.build")) {
+                CohortAnalytics built = CohortAnalytics.build(snapshot, ForkJoinPool.commonPool());
+                op.addRows(snapshot.size());
+                Platform.runLater(() -> {
+                    built.apply(cohortPendingAdded, cohortPendingRemoved);
+                    cohortPendingAdded = null;
+                    cohortPendingRemoved = null;
+                    cohortAnalytics = built;
+                    refreshCohortAnalytics();
+                });
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "An error occurred while building cohort analytics", e);
+                Platform.runLater(() -> {
+                    cohortPendingAdded = null;
+                    cohortPendingRemoved = null;
+                    cohortBuildError = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+                    refreshCohortAnalytics();
+                });
             }
+        });
+    }
 
-            scatterChart.getData().clear();
-            scatterChart.getData().add(series);
+    private void updateCohortAnalytics(ListChangeListener.Change<? extends Student> change) {
+        if (cohortAnalytics == null && cohortPendingAdded == null) {
+            return;
+        }
+        List<Student> added = new ArrayList<>();
+        List<Student> removed = new ArrayList<>();
+        while (change.next()) {
+            if (change.wasPermutated() || change.wasUpdated()) {
+                continue;
+            }
+            removed.addAll(change.getRemoved());
+            added.addAll(change.getAddedSubList());
+        }
+        if (cohortAnalytics == null) {
+            cohortPendingAdded.addAll(added);
+            cohortPendingRemoved.addAll(removed);
+            return;
+        }
+        try (Metrics.Operation op = Metrics.getDefault().start("cohort.update")) {
+            cohortAnalytics.apply(added, removed);
+            op.addRows(added.size() + removed.size());
+        } catch (IllegalStateException e) {
+            logger.log(Level.SEVERE, "An error occurred while updating cohort analytics", e);
+            cohortAnalytics = null;
+        }
+        if (cohortDialog != null && cohortDialog.isShowing()) {
+            if (cohortAnalytics == null) {
+                buildCohortAnalytics();
+            }
+            refreshCohortAnalytics();
+        }
+    }
 
-            VBox root = (VBox) scatterChart.getParent();
-            root.getChildren().removeIf(node -> node instanceof VBox);
-            root.getChildren().add(gradingBox);
+    private void refreshCohortAnalytics() {
+        if (cohortDialog == null) {
+            return;
+        }
+        if (cohortAnalytics == null) {
+            cohortTable.getItems().clear();
+            // A failed build is retried the next time the dialog is opened.
+            cohortTable.setPlaceholder(new Label(cohortBuildError == null ? "Computing..."
+                    : "Could not compute cohort analytics: " + cohortBuildError));
+            cohortStanding.setText("");
+            return;
+        }
+        cohortTable.setPlaceholder(new Label("No records"));
+        cohortTable.getItems().setAll(cohortAnalytics.getSemesterStats());
+        showCohortStanding();
+    }
 
-            conn.close();
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE, "An error occurred while populating scatter chart", e);
+    private void showCohortStanding() {
+        if (cohortAnalytics == null || cohortDialog == null || !cohortDialog.isShowing()) {
+            return;
         }
+        Student selected = table.getSelectionModel().getSelectedItem();
+        CohortAnalytics.Standing standing = selected == null ? null : cohortAnalytics.standing(selected);
+        cohortStanding.setText(standing == null ? "Select a record in the table to see its class rank."
+                : String.format("%s, semester %s: rank %d of %d by total marks, %.1f percentile",
+                selected.getName(), selected.getSemester(), standing.getRank(), standing.getCohortSize(), standing.getPercentile()));
     }
 
-    private String calculateGrade(int marks) {
-        if (marks >= 75 && marks <= 100) {
-            return "A";
-        } else if (marks >= 65 && marks < 75) {
-            return "B";
-        } else if (marks >= 55 && marks < 65) {
-            return "C";
-        } else if (marks >= 35 && marks < 55) {
-            return "S";
-        } else {
-            return "F";
+    // Served from the in-memory name index; only the paged table, which does not hold every row,
+    // has to ask the database.
+    private List<StudentRepository.SemesterMark> findSemesterMarks(String studentName, String subject) throws SQLException {
+        if (pagedStudents != null) {
+            return repository.findSemesterMarks(studentName, subject);
+        }
+        List<StudentRepository.SemesterMark> semesterMarks = new ArrayList<>();
+        try (Metrics.Operation op = Metrics.getDefault().start("semesterMarks.index")) {
+            for (Student student : studentIndex.findByName(studentName)) {
+                int semester = StudentRepository.SemesterMark.parseSemester(student.getSemester());
+                if (semester < 0) {
+                    logger.log(Level.FINE, "Skipping row with non-numeric semester for " + studentName);
+                    continue;
+                }
+                semesterMarks.add(new StudentRepository.SemesterMark(semester, student.getMarks(subject)));
+            }
+            op.addRows(semesterMarks.size());
         }
+        semesterMarks.sort(Comparator.comparingInt(StudentRepository.SemesterMark::getSemester));
+        return semesterMarks;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,244 @@
+package system;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Headless nightly report: streams the students table and writes per-student totals and grades plus
+// per-semester subject averages and grade counts, without starting JavaFX. The table is split into
+// admission-number ranges scanned in parallel; each shard buffers GRADE_CHUNK rows at a time, grades
+// them a mark column at a time with the grading engine and writes them to its own part files, so
+// memory stays constant. The parts are concatenated at the end.
+//
+//   java -cp ... system.StudentReportCli [--out DIR] [--format csv,jsonl] [--shards N]
+public class StudentReportCli {
+    static final int GRADE_CHUNK = 4096;
+    static final String STUDENTS_CSV_HEADER = "id,admission_number,name,semester,mathematics_marks,physics_marks,chemistry_marks,total_marks,mathematics_grade,physics_grade,chemistry_grade";
+    private static final Logger logger = Logger.getLogger(StudentReportCli.class.getName());
+
+    private final StudentRepository repository;
+    private final GradingEngine engine;
+    private final Path outputDirectory;
+    private final boolean csv;
+    private final boolean jsonLines;
+    private final int shards;
+
+    public StudentReportCli(StudentRepository repository, GradingEngine engine, Path outputDirectory, boolean csv, boolean jsonLines, int shards) {
+        this.repository = repository;
+        this.engine = engine;
+        this.outputDirectory = outputDirectory;
+        this.csv = csv;
+        this.jsonLines = jsonLines;
+        this.shards = Math.max(1, shards);
+    }
+
+    public static void main(String[] args) {
+        try {
+            DatabaseConfig config = DatabaseConfig.load();
+            Path out = Paths.get("reports");
+            String format = "csv,jsonl";
+            int shards = config.getInt("sms.report.shards", Runtime.getRuntime().availableProcessors());
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--out":
+                        out = Paths.get(args[++i]);
+                        break;
+                    case "--format":
+                        format = args[++i];
+                        break;
+                    case "--shards":
+                        shards = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            GradingEngine engine = GradingEngine.fromSpec(config.getString("sms.grading.bands", GradingEngine.DEFAULT_BANDS));
+            GradingEngine.setDefault(engine);
+            DatabaseConfig poolConfig = new DatabaseConfig(config.getUrl(), config.getUser(), config.getPassword(),
+                    Math.max(shards, config.getPoolSize()), config.getAcquireTimeoutMillis());
+            try (StudentRepository repository = new StudentRepository(poolConfig)) {
+                StudentReportCli report = new StudentReportCli(repository, engine, out, format.contains("csv"), format.contains("jsonl"), shards);
+                long start = System.nanoTime();
+                long rows = report.run();
+                System.out.printf("Reported %d students to %s in %.1f s%n", rows, out.toAbsolutePath(), (System.nanoTime() - start) / 1e9);
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An error occurred while generating the student report", e);
+            System.exit(1);
+        }
+    }
+
+    // Returns the number of students reported.
+    public long run() throws Exception {
+        Files.createDirectories(outputDirectory);
+        List<String> boundaries = repository.admissionNumberBoundaries(shards);
+        int shardCount = boundaries.size() + 1;
+        ExecutorService workers = Executors.newFixedThreadPool(shardCount, runnable -> {
+            Thread thread = new Thread(runnable, "student-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<ReportSummary>> results = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                String from = shard == 0 ? null : boundaries.get(shard - 1);
+                String to = shard == boundaries.size() ? null : boundaries.get(shard);
+                int index = shard;
+                results.add(workers.submit(() -> scanShard(index, from, to)));
+            }
+            ReportSummary summary = new ReportSummary(engine);
+            for (Future<ReportSummary> result : results) {
+                summary.merge(result.get());
+            }
+
+            if (csv) {
+                concatenate("students", ".csv", STUDENTS_CSV_HEADER, shardCount);
+                try (ReportWriter writer = new ReportWriter(outputDirectory.resolve("summary.csv"))) {
+                    summary.writeCsv(writer);
+                }
+            }
+            if (jsonLines) {
+                concatenate("students", ".jsonl", null, shardCount);
+                try (ReportWriter writer = new ReportWriter(outputDirectory.resolve("summary.jsonl"))) {
+                    summary.writeJsonLines(writer);
+                }
+            }
+            return summary.getStudentCount();
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private ReportSummary scanShard(int shard, String from, String to) throws SQLException, IOException {
+        ReportSummary summary = new ReportSummary(engine);
+        Chunk chunk = new Chunk();
+        StringBuilder line = new StringBuilder(256);
+        try (ReportWriter csvWriter = csv ? new ReportWriter(partFile("students", ".csv", shard)) : null;
+             ReportWriter jsonWriter = jsonLines ? new ReportWriter(partFile("students", ".jsonl", shard)) : null) {
+            repository.scanAdmissionRange(from, to, rs -> {
+                int row = chunk.size++;
+                chunk.ids[row] = rs.getLong("id");
+                chunk.admissionNumbers[row] = rs.getString("admission_number");
+                chunk.names[row] = rs.getString("name");
+                chunk.semesters[row] = rs.getString("semester");
+                chunk.marks[0][row] = rs.getInt("mathematics_marks");
+                chunk.marks[1][row] = rs.getInt("physics_marks");
+                chunk.marks[2][row] = rs.getInt("chemistry_marks");
+                if (chunk.size == GRADE_CHUNK) {
+                    writeChunk(chunk, summary, line, csvWriter, jsonWriter);
+                }
+            });
+            writeChunk(chunk, summary, line, csvWriter, jsonWriter);
+        }
+        return summary;
+    }
+
+    // Grades the buffered rows one mark column at a time, then writes them and adds them to the summary.
+    private void writeChunk(Chunk chunk, ReportSummary summary, StringBuilder line, ReportWriter csvWriter, ReportWriter jsonWriter) throws IOException {
+        if (chunk.size == 0) {
+            return;
+        }
+        byte[][] bands = new byte[GradingEngine.SUBJECTS.length][];
+        for (int subject = 0; subject < bands.length; subject++) {
+            int[] column = chunk.size == GRADE_CHUNK ? chunk.marks[subject] : Arrays.copyOf(chunk.marks[subject], chunk.size);
+            bands[subject] = engine.gradeColumn(column);
+        }
+        List<String> grades = engine.getGrades();
+        int[] marks = new int[GradingEngine.SUBJECTS.length];
+        byte[] rowBands = new byte[GradingEngine.SUBJECTS.length];
+        for (int row = 0; row < chunk.size; row++) {
+            int total = 0;
+            for (int subject = 0; subject < marks.length; subject++) {
+                marks[subject] = chunk.marks[subject][row];
+                rowBands[subject] = bands[subject][row];
+                total += marks[subject];
+            }
+            summary.add(chunk.semesters[row], marks, rowBands);
+
+            if (csvWriter != null) {
+                line.setLength(0);
+                line.append(chunk.ids[row]).append(',');
+                ReportWriter.appendCsv(line, chunk.admissionNumbers[row]).append(',');
+                ReportWriter.appendCsv(line, chunk.names[row]).append(',');
+                ReportWriter.appendCsv(line, chunk.semesters[row]);
+                for (int mark : marks) {
+                    line.append(',').append(mark);
+                }
+                line.append(',').append(total);
+                for (byte band : rowBands) {
+                    ReportWriter.appendCsv(line.append(','), grades.get(band));
+                }
+                csvWriter.writeLine(line);
+            }
+            if (jsonWriter != null) {
+                line.setLength(0);
+                line.append("{\"id\":").append(chunk.ids[row]);
+                ReportWriter.appendJson(line.append(",\"admission_number\":"), chunk.admissionNumbers[row]);
+                ReportWriter.appendJson(line.append(",\"name\":"), chunk.names[row]);
+                ReportWriter.appendJson(line.append(",\"semester\":"), chunk.semesters[row]);
+                line.append(",\"mathematics_marks\":").append(marks[0])
+                        .append(",\"physics_marks\":").append(marks[1])
+                        .append(",\"chemistry_marks\":").append(marks[2])
+                        .append(",\"total_marks\":").append(total);
+                ReportWriter.appendJson(line.append(",\"mathematics_grade\":"), grades.get(rowBands[0]));
+                ReportWriter.appendJson(line.append(",\"physics_grade\":"), grades.get(rowBands[1]));
+                ReportWriter.appendJson(line.append(",\"chemistry_grade\":"), grades.get(rowBands[2]));
+                jsonWriter.writeLine(line.append('}'));
+            }
+        }
+        chunk.size = 0;
+    }
+
+    private Path partFile(String name, String extension, int shard) {
+        return outputDirectory.resolve(String.format("%s.part%04d%s", name, shard, extension));
+    }
+
+    // Joins the shard parts in admission-number order with channel-to-channel transfers, then
+    // removes them.
+    private void concatenate(String name, String extension, String header, int shardCount) throws IOException {
+        Path target = outputDirectory.resolve(name + extension);
+        if (header != null) {
+            try (ReportWriter writer = new ReportWriter(target)) {
+                writer.writeLine(header);
+            }
+        } else {
+            Files.deleteIfExists(target);
+        }
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (int shard = 0; shard < shardCount; shard++) {
+                Path part = partFile(name, extension, shard);
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long position = 0;
+                    long size = in.size();
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+                Files.delete(part);
+            }
+        }
+    }
+
+    // Rows of one shard waiting to be graded, kept as columns so each subject is graded in one pass.
+    private static final class Chunk {
+        private final long[] ids = new long[GRADE_CHUNK];
+        private final String[] admissionNumbers = new String[GRADE_CHUNK];
+        private final String[] names = new String[GRADE_CHUNK];
+        private final String[] semesters = new String[GRADE_CHUNK];
+        private final int[][] marks = new int[GradingEngine.SUBJECTS.length][GRADE_CHUNK];
+        private int size;
+    }
+}
@@ -0,0 +1,892 @@
+package system;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+public class StudentRepository implements StudentStorage {
+    static final String SELECT_ALL = "SELECT * FROM students";
+    static final String COUNT_ALL = "SELECT COUNT(*) FROM students";
+    static final String INSERT = "INSERT INTO students (name, gender, email, contact_number, address, mathematics_marks, physics_marks, chemistry_marks, admission_number, semester) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final int DELETE_CHUNK_SIZE = 500;
+    static final String DELETE_CHUNK = "DELETE FROM students WHERE id IN (" + String.join(", ", Collections.nCopies(DELETE_CHUNK_SIZE, "?")) + ")";
+    static final String TOMBSTONE_CHUNK = "INSERT IGNORE INTO student_tombstones (id) SELECT id FROM students WHERE id IN (" + String.join(", ", Collections.nCopies(DELETE_CHUNK_SIZE, "?")) + ")";
+    static final String CURRENT_TIMESTAMP = "SELECT CURRENT_TIMESTAMP(6)";
+    static final String SELECT_CHANGED = "SELECT * FROM students WHERE updated_at > ?";
+    static final String SELECT_TOMBSTONES = "SELECT id FROM student_tombstones WHERE deleted_at > ?";
+    static final String PURGE_TOMBSTONES = "DELETE FROM student_tombstones WHERE deleted_at < ?";
+    static final String SELECT_ADMISSION_BOUNDARY = "SELECT admission_number FROM students WHERE admission_number IS NOT NULL ORDER BY admission_number LIMIT 1 OFFSET ?";
+    static final String SELECT_MATCHING_ID = "SELECT id FROM students WHERE name = ? AND (admission_number = ? OR (admission_number IS NULL AND ? IS NULL)) AND (semester = ? OR (semester IS NULL AND ? IS NULL)) LIMIT 1";
+    static final String SELECT_SEMESTER_MARKS = "SELECT semester, %s FROM students WHERE name = ?";
+
+    // Normalized layout (see V3 and StudentSchemaNormalizer): students becomes a view over
+    // student_profiles and student_marks, so every read above keeps working unchanged, while writes,
+    // the full load and the change feed go to the two tables directly.
+    static final String NORMALIZED_COLUMNS = "m.id, p.admission_number, p.name, p.gender, p.address, p.contact_number, p.email, m.semester, m.mathematics_marks, m.physics_marks, m.chemistry_marks";
+    static final String NORMALIZED_JOIN = " FROM student_marks m JOIN student_profiles p ON p.id = m.profile_id";
+    static final String CREATE_STUDENTS_VIEW = "CREATE VIEW students AS SELECT " + NORMALIZED_COLUMNS + ", GREATEST(m.updated_at, p.updated_at) AS updated_at, m.profile_id" + NORMALIZED_JOIN;
+    static final String SELECT_CHANGED_NORMALIZED = "SELECT " + NORMALIZED_COLUMNS + NORMALIZED_JOIN + " WHERE m.updated_at > ?"
+            + " UNION SELECT " + NORMALIZED_COLUMNS + NORMALIZED_JOIN + " WHERE p.updated_at > ?";
+    static final String SELECT_PROFILES = "SELECT id, admission_number, name, gender, address, contact_number, email FROM student_profiles";
+    static final String SELECT_PROFILE_CANDIDATES = SELECT_PROFILES + " WHERE name IN (" + String.join(", ", Collections.nCopies(DELETE_CHUNK_SIZE, "?")) + ")";
+    static final String SELECT_MARKS = "SELECT id, profile_id, semester, mathematics_marks, physics_marks, chemistry_marks FROM student_marks";
+    static final String INSERT_PROFILE = "INSERT INTO student_profiles (admission_number, name, gender, address, contact_number, email) VALUES (?, ?, ?, ?, ?, ?)";
+    static final String INSERT_MARKS = "INSERT INTO student_marks (profile_id, semester, mathematics_marks, physics_marks, chemistry_marks) VALUES (?, ?, ?, ?, ?)";
+    static final String DELETE_MARKS_CHUNK = "DELETE FROM student_marks WHERE id IN (" + String.join(", ", Collections.nCopies(DELETE_CHUNK_SIZE, "?")) + ")";
+
+    static final String SELECT_PAGE = "SELECT *, %1$s AS sort_key FROM students%2$s ORDER BY %1$s %3$s, id %3$s LIMIT ? OFFSET ?";
+    static final Map<String, String> SORT_EXPRESSIONS = new HashMap<>();
+
+    static {
+        SORT_EXPRESSIONS.put("id", "id");
+        SORT_EXPRESSIONS.put("name", "name");
+        SORT_EXPRESSIONS.put("gender", "COALESCE(gender, '')");
+        SORT_EXPRESSIONS.put("email", "COALESCE(email, '')");
+        SORT_EXPRESSIONS.put("contact_number", "COALESCE(contact_number, '')");
+        SORT_EXPRESSIONS.put("address", "COALESCE(address, '')");
+        SORT_EXPRESSIONS.put("admission_number", "COALESCE(admission_number, '')");
+        SORT_EXPRESSIONS.put("semester", "COALESCE(semester, '')");
+        SORT_EXPRESSIONS.put("mathematics_marks", "COALESCE(mathematics_marks, -1)");
+        SORT_EXPRESSIONS.put("physics_marks", "COALESCE(physics_marks, -1)");
+        SORT_EXPRESSIONS.put("chemistry_marks", "COALESCE(chemistry_marks, -1)");
+        SORT_EXPRESSIONS.put("total_marks", "(COALESCE(mathematics_marks, 0) + COALESCE(physics_marks, 0) + COALESCE(chemistry_marks, 0))");
+    }
+
+    private final ConnectionPool pool;
+    private volatile Boolean normalized;
+    private volatile Boolean changeTracking;
+
+    public StudentRepository(DatabaseConfig config) {
+        this(new ConnectionPool(config));
+    }
+
+    public StudentRepository(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public List<Student> findAll() throws SQLException {
+        List<Student> students = new ArrayList<>();
+        try (Metrics.Operation op = Metrics.getDefault().start("load"); PooledConnection conn = pool.borrow()) {
+            try (ResultSet rs = conn.prepare(SELECT_ALL).executeQuery()) {
+                while (rs.next()) {
+                    Student student = mapRow(rs);
+                    students.add(student);
+                    op.addRow(student);
+                }
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+        return students;
+    }
+
+    public int count() throws SQLException {
+        try (Metrics.Operation op = Metrics.getDefault().start("count"); PooledConnection conn = pool.borrow()) {
+            try (ResultSet rs = conn.prepare(COUNT_ALL).executeQuery()) {
+                op.addRows(1);
+                return rs.next() ? rs.getInt(1) : 0;
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    // Streams every row through a forward-only cursor and hands them to the consumer in chunks: the
+    // first holds firstBatchSize rows so something can be shown early, the rest hold batchSize rows.
+    public int streamAll(int firstBatchSize, int batchSize, Consumer<List<Student>> consumer, BooleanSupplier cancelled) throws SQLException {
+        boolean normalized = isNormalized();
+        try (Metrics.Operation op = Metrics.getDefault().start("load"); PooledConnection conn = pool.borrow()) {
+            try {
+                if (!normalized) {
+                    return streamRows(conn, op, SELECT_ALL, firstBatchSize, batchSize, consumer, cancelled, StudentRepository::mapRow);
+                }
+                // Profiles are read once and shared by all of a student's semester rows; the marks
+                // rows then only carry a profile id. A marks row whose profile was inserted after the
+                // profiles were read is skipped here and arrives with the next delta sync.
+                Connection connection = conn.getConnection();
+                connection.setAutoCommit(false);
+                StudentStore store = StudentStore.getDefault();
+                Map<Long, Integer> profiles = new HashMap<>();
+                try (PreparedStatement stmt = connection.prepareStatement(SELECT_PROFILES, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    stmt.setFetchSize(streamingFetchSize(pool.getConfig().getUrl(), batchSize));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            profiles.put(rs.getLong("id"), store.profile(rs.getString("name"), rs.getString("gender"), rs.getString("email"),
+                                    rs.getString("contact_number"), rs.getString("address"), rs.getString("admission_number")));
+                        }
+                    }
+                }
+                int loaded = streamRows(conn, op, SELECT_MARKS, firstBatchSize, batchSize, consumer, cancelled, rs -> {
+                    Integer profile = profiles.get(rs.getLong("profile_id"));
+                    return profile == null ? null : store.appendWithProfile(rs.getLong("id"), profile,
+                            rs.getInt("mathematics_marks"), rs.getInt("physics_marks"), rs.getInt("chemistry_marks"), rs.getString("semester"));
+                });
+                if (!cancelled.getAsBoolean()) {
+                    connection.commit();
+                    connection.setAutoCommit(true);
+                }
+                return loaded;
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    // Streams sql through a forward-only cursor in batches as described for streamAll. Rows the
+    // mapper returns null for are skipped. On cancellation the connection is invalidated.
+    private int streamRows(PooledConnection conn, Metrics.Operation op, String sql, int firstBatchSize, int batchSize,
+                           Consumer<List<Student>> consumer, BooleanSupplier cancelled, RowMapper mapper) throws SQLException {
+        int loaded = 0;
+        try (PreparedStatement stmt = conn.getConnection().prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(streamingFetchSize(pool.getConfig().getUrl(), batchSize));
+            try (ResultSet rs = stmt.executeQuery()) {
+                int limit = firstBatchSize;
+                List<Student> batch = new ArrayList<>(limit);
+                while (rs.next()) {
+                    if (cancelled.getAsBoolean()) {
+                        conn.invalidate();
+                        stmt.cancel();
+                        return loaded;
+                    }
+                    Student student = mapper.map(rs);
+                    if (student == null) {
+                        continue;
+                    }
+                    batch.add(student);
+                    op.addRow(student);
+                    if (batch.size() == limit) {
+                        loaded += batch.size();
+                        consumer.accept(batch);
+                        limit = batchSize;
+                        batch = new ArrayList<>(limit);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    loaded += batch.size();
+                    consumer.accept(batch);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    // Connector/J buffers the whole result set unless the URL enables server-side cursors
+    // (useCursorFetch=true) or the fetch size is Integer.MIN_VALUE, which streams row by row.
+    static int streamingFetchSize(String url, int batchSize) {
+        if (url.startsWith("jdbc:mysql:") && !url.contains("useCursorFetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return batchSize;
+    }
+
+    // Keyset pagination ordered by (sortColumn, id). When after is null the page starts at the top
+    // of the ordering; offset skips whole rows past the key, for jumps to a page whose start key is
+    // not known yet.
+    public Page findPage(String sortColumn, boolean ascending, PageKey after, int offset, int limit) throws SQLException {
+        String expression = SORT_EXPRESSIONS.get(sortColumn);
+        if (expression == null) {
+            throw new IllegalArgumentException("Unknown sort column: " + sortColumn);
+        }
+        String comparison = ascending ? ">" : "<";
+        String where = "";
+        if (after != null) {
+            where = "id".equals(sortColumn)
+                    ? " WHERE id " + comparison + " ?"
+                    : " WHERE (" + expression + " " + comparison + " ? OR (" + expression + " = ? AND id " + comparison + " ?))";
+        }
+        String sql = String.format(SELECT_PAGE, expression, where, ascending ? "ASC" : "DESC");
+
+        List<Student> rows = new ArrayList<>(limit);
+        StudentStore pageStore = new StudentStore(Math.max(4, 32 - Integer.numberOfLeadingZeros(Math.max(1, limit - 1))));
+        PageKey last = null;
+        try (Metrics.Operation op = Metrics.getDefault().start("page"); PooledConnection conn = pool.borrow()) {
+            try {
+                PreparedStatement stmt = conn.prepare(sql);
+                int index = 1;
+                if (after != null) {
+                    if ("id".equals(sortColumn)) {
+                        stmt.setLong(index++, after.getId());
+                    } else {
+                        stmt.setObject(index++, after.getValue());
+                        stmt.setObject(index++, after.getValue());
+                        stmt.setLong(index++, after.getId());
+                    }
+                }
+                stmt.setInt(index++, limit);
+                stmt.setInt(index, offset);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Student student = mapRow(rs, pageStore);
+                        rows.add(student);
+                        op.addRow(student);
+                        last = new PageKey(rs.getObject("sort_key"), student.getId());
+                    }
+                }
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+        return new Page(rows, last);
+    }
+
+    public void save(Student student) throws SQLException {
+        boolean normalized = isNormalized();
+        try (Metrics.Operation op = Metrics.getDefault().start("save"); PooledConnection conn = pool.borrow()) {
+            try {
+                if (normalized) {
+                    insertNormalized(conn, Collections.singletonList(student));
+                    op.addRows(1);
+                    return;
+                }
+                PreparedStatement stmt = conn.prepareReturningKeys(INSERT);
+                bindInsert(stmt, student);
+                stmt.executeUpdate();
+                op.addRows(1);
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        student.setId(keys.getLong(1));
+                    }
+                }
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    // Inserts all students in one transaction and copies the generated ids back onto them.
+    public void insertBatch(List<Student> students) throws SQLException {
+        boolean normalized = isNormalized();
+        try (Metrics.Operation op = Metrics.getDefault().start("insert"); PooledConnection conn = pool.borrow()) {
+            Connection connection = conn.getConnection();
+            try {
+                if (normalized) {
+                    insertNormalized(conn, students);
+                    op.addRows(students.size());
+                    return;
+                }
+                connection.setAutoCommit(false);
+                PreparedStatement stmt = conn.prepareReturningKeys(INSERT);
+                for (Student student : students) {
+                    bindInsert(stmt, student);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                op.addRows(students.size());
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    for (int i = 0; i < students.size() && keys.next(); i++) {
+                        students.get(i).setId(keys.getLong(1));
+                    }
+                }
+                connection.commit();
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    // One transaction: profiles first (reusing identical stored ones), then one marks row per student.
+    private void insertNormalized(PooledConnection conn, List<Student> students) throws SQLException {
+        Connection connection = conn.getConnection();
+        connection.setAutoCommit(false);
+        long[] profileIds = resolveProfiles(conn, students);
+        PreparedStatement stmt = conn.prepareReturningKeys(INSERT_MARKS);
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+            stmt.setLong(1, profileIds[i]);
+            stmt.setString(2, student.getSemester());
+            stmt.setInt(3, student.getMathematicsMarks());
+            stmt.setInt(4, student.getPhysicsMarks());
+            stmt.setInt(5, student.getChemistryMarks());
+            stmt.addBatch();
+        }
+        stmt.executeBatch();
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            for (int i = 0; i < students.size() && keys.next(); i++) {
+                students.get(i).setId(keys.getLong(1));
+            }
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    // Profile ids for the students: stored profiles are matched on all six fields, so two students
+    // only share a profile when nothing about them differs; the missing ones are inserted.
+    private long[] resolveProfiles(PooledConnection conn, List<Student> students) throws SQLException {
+        Map<ProfileKey, Long> ids = new HashMap<>();
+        List<String> names = new ArrayList<>(new LinkedHashSet<>(students.stream().map(Student::getName).toList()));
+        PreparedStatement candidates = conn.prepare(SELECT_PROFILE_CANDIDATES);
+        for (int from = 0; from < names.size(); from += DELETE_CHUNK_SIZE) {
+            int to = Math.min(names.size(), from + DELETE_CHUNK_SIZE);
+            for (int i = 0; i < DELETE_CHUNK_SIZE; i++) {
+                candidates.setString(i + 1, names.get(Math.min(from + i, to - 1)));
+            }
+            try (ResultSet rs = candidates.executeQuery()) {
+                while (rs.next()) {
+                    ids.putIfAbsent(ProfileKey.of(rs), rs.getLong("id"));
+                }
+            }
+        }
+        List<ProfileKey> missing = new ArrayList<>();
+        Set<ProfileKey> seen = new HashSet<>();
+        for (Student student : students) {
+            ProfileKey key = ProfileKey.of(student);
+            if (!ids.containsKey(key) && seen.add(key)) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            PreparedStatement insert = conn.prepareReturningKeys(INSERT_PROFILE);
+            for (ProfileKey key : missing) {
+                key.bind(insert, 1);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                for (int i = 0; i < missing.size() && keys.next(); i++) {
+                    ids.put(missing.get(i), keys.getLong(1));
+                }
+            }
+        }
+        long[] profileIds = new long[students.size()];
+        for (int i = 0; i < profileIds.length; i++) {
+            Long id = ids.get(ProfileKey.of(students.get(i)));
+            if (id == null) {
+                throw new SQLException("No profile id was generated for student " + students.get(i).getName());
+            }
+            profileIds[i] = id;
+        }
+        return profileIds;
+    }
+
+    public void delete(Student student) throws SQLException {
+        deleteAll(Collections.singletonList(student));
+    }
+
+    // Deletes by primary key in one transaction, DELETE_CHUNK_SIZE ids per statement. A short last
+    // chunk repeats its final id so every chunk reuses the same cached statement. Once the schema has
+    // change tracking, each deleted row leaves a tombstone so other clients can drop it in their next
+    // delta sync.
+    public int deleteAll(List<Student> students) throws SQLException {
+        long[] ids = new long[students.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = requireId(students.get(i));
+        }
+        return deleteByIds(ids);
+    }
+
+    public int deleteByIds(long[] ids) throws SQLException {
+        if (ids.length == 0) {
+            return 0;
+        }
+        String delete = isNormalized() ? DELETE_MARKS_CHUNK : DELETE_CHUNK;
+        boolean tracked = hasChangeTracking();
+        int deleted = 0;
+        try (Metrics.Operation op = Metrics.getDefault().start("delete"); PooledConnection conn = pool.borrow()) {
+            Connection connection = conn.getConnection();
+            try {
+                connection.setAutoCommit(false);
+                PreparedStatement tombstones = tracked ? conn.prepare(TOMBSTONE_CHUNK) : null;
+                PreparedStatement stmt = conn.prepare(delete);
+                for (int from = 0; from < ids.length; from += DELETE_CHUNK_SIZE) {
+                    int to = Math.min(ids.length, from + DELETE_CHUNK_SIZE);
+                    for (int i = 0; i < DELETE_CHUNK_SIZE; i++) {
+                        long id = ids[Math.min(from + i, to - 1)];
+                        if (tracked) {
+                            tombstones.setLong(i + 1, id);
+                        }
+                        stmt.setLong(i + 1, id);
+                    }
+                    if (tracked) {
+                        tombstones.executeUpdate();
+                    }
+                    deleted += stmt.executeUpdate();
+                }
+                connection.commit();
+                connection.setAutoCommit(true);
+                op.addRows(deleted);
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+        return deleted;
+    }
+
+    private static long requireId(Student student) {
+        if (student.getId() <= 0) {
+            throw new IllegalArgumentException("Student " + student.getName() + " has no database id");
+        }
+        return student.getId();
+    }
+
+    // Id of a stored row with the student's name, admission number and semester, or 0 when there is
+    // none. Used to make replayed inserts idempotent.
+    public long findMatchingId(Student student) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            try {
+                PreparedStatement stmt = conn.prepare(SELECT_MATCHING_ID);
+                stmt.setString(1, student.getName());
+                stmt.setString(2, student.getAdmissionNumber());
+                stmt.setString(3, student.getAdmissionNumber());
+                stmt.setString(4, student.getSemester());
+                stmt.setString(5, student.getSemester());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : 0;
+                }
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    // The database clock, so change watermarks never depend on the client's clock. Null while the
+    // schema has no change tracking, since there is no change feed to sync from yet.
+    public Timestamp currentTimestamp() throws SQLException {
+        return hasChangeTracking() ? databaseTime() : null;
+    }
+
+    private Timestamp databaseTime() throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            try (ResultSet rs = conn.prepare(CURRENT_TIMESTAMP).executeQuery()) {
+                rs.next();
+                return rs.getTimestamp(1);
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    // Rows inserted or updated and ids deleted after since. The returned asOf is read before the
+    // queries run, so it is a safe watermark for the next call. Changed rows are mapped into a store
+    // of their own, which callers may keep rows of; it is freed with the last of them.
+    public Changes findChangesSince(Timestamp since) throws SQLException {
+        boolean normalized = isNormalized();
+        Timestamp asOf = databaseTime();
+        List<Student> changed = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        StudentStore scratch = new StudentStore(6);
+        try (Metrics.Operation op = Metrics.getDefault().start("sync"); PooledConnection conn = pool.borrow()) {
+            try {
+                PreparedStatement stmt = conn.prepare(normalized ? SELECT_CHANGED_NORMALIZED : SELECT_CHANGED);
+                stmt.setTimestamp(1, since);
+                if (normalized) {
+                    stmt.setTimestamp(2, since);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Student student = mapRow(rs, scratch);
+                        changed.add(student);
+                        op.addRow(student);
+                    }
+                }
+                PreparedStatement tombstones = conn.prepare(SELECT_TOMBSTONES);
+                tombstones.setTimestamp(1, since);
+                try (ResultSet rs = tombstones.executeQuery()) {
+                    while (rs.next()) {
+                        deletedIds.add(rs.getLong(1));
+                        op.addRows(1);
+                    }
+                }
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+        return new Changes(changed, deletedIds, asOf);
+    }
+
+    public int purgeTombstones(Timestamp before) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            try {
+                PreparedStatement stmt = conn.prepare(PURGE_TOMBSTONES);
+                stmt.setTimestamp(1, before);
+                return stmt.executeUpdate();
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    // Admission numbers that split the table into up to shards ranges of roughly equal size, in
+    // ascending order and without duplicates. Each boundary starts a range; see scanAdmissionRange.
+    public List<String> admissionNumberBoundaries(int shards) throws SQLException {
+        int total = count();
+        List<String> boundaries = new ArrayList<>();
+        try (PooledConnection conn = pool.borrow()) {
+            try {
+                PreparedStatement stmt = conn.prepare(SELECT_ADMISSION_BOUNDARY);
+                for (int shard = 1; shard < shards; shard++) {
+                    stmt.setLong(1, (long) total * shard / shards);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            String boundary = rs.getString(1);
+                            if (boundaries.isEmpty() || boundaries.get(boundaries.size() - 1).compareTo(boundary) < 0) {
+                                boundaries.add(boundary);
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+        return boundaries;
+    }
+
+    // Streams the rows with from <= admission_number < to through a forward-only cursor without
+    // building Student objects. A null from also takes rows without an admission number; a null to
+    // leaves the range open.
+    public long scanAdmissionRange(String from, String to, RowHandler handler) throws SQLException, IOException {
+        StringBuilder sql = new StringBuilder(SELECT_ALL);
+        if (from == null && to != null) {
+            sql.append(" WHERE admission_number IS NULL OR admission_number < ?");
+        } else if (from != null && to == null) {
+            sql.append(" WHERE admission_number >= ?");
+        } else if (from != null) {
+            sql.append(" WHERE admission_number >= ? AND admission_number < ?");
+        }
+        long rows = 0;
+        try (Metrics.Operation op = Metrics.getDefault().start("report.scan"); PooledConnection conn = pool.borrow()) {
+            try (PreparedStatement stmt = conn.getConnection().prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(streamingFetchSize(pool.getConfig().getUrl(), StudentLoadTask.BATCH_SIZE));
+                int index = 1;
+                if (from != null) {
+                    stmt.setString(index++, from);
+                }
+                if (to != null) {
+                    stmt.setString(index, to);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        handler.accept(rs);
+                        rows++;
+                        op.addRows(1);
+                    }
+                }
+            } catch (SQLException | IOException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+        return rows;
+    }
+
+    // Identifies the database the rows come from, e.g. to tell whether a local snapshot belongs to it.
+    public String getSource() {
+        return pool.getConfig().getUrl() + "|" + pool.getConfig().getUser();
+    }
+
+    // True once StudentSchemaNormalizer has replaced the students table with a view over the
+    // normalized tables. Checked once per repository, since the switch needs the application stopped.
+    public boolean isNormalized() throws SQLException {
+        Boolean value = normalized;
+        if (value == null) {
+            try (PooledConnection conn = pool.borrow()) {
+                try {
+                    value = isNormalized(conn.getConnection());
+                } catch (SQLException e) {
+                    conn.invalidate();
+                    throw e;
+                }
+            }
+            normalized = value;
+        }
+        return value;
+    }
+
+    static boolean isNormalized(Connection connection) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(connection.getCatalog(), null, "students", new String[]{"VIEW"})) {
+            return rs.next();
+        }
+    }
+
+    // True once the schema has the updated_at column and the tombstones table. Checked once per
+    // repository and again after migrateSchema; a schema migrated by another process is picked up
+    // on the next start.
+    public boolean hasChangeTracking() throws SQLException {
+        Boolean value = changeTracking;
+        if (value == null) {
+            value = schemaVersion() >= SchemaMigrator.CHANGE_TRACKING_VERSION;
+            changeTracking = value;
+        }
+        return value;
+    }
+
+    public int migrateSchema() throws SQLException, IOException {
+        return migrateSchema(SchemaMigrator.MIGRATIONS.length);
+    }
+
+    public int migrateSchema(int throughVersion) throws SQLException, IOException {
+        try {
+            return new SchemaMigrator(pool).migrate(throughVersion);
+        } finally {
+            changeTracking = null;
+        }
+    }
+
+    public int schemaVersion() throws SQLException {
+        return new SchemaMigrator(pool).version();
+    }
+
+    public List<SemesterMark> findSemesterMarks(String studentName, String subject) throws SQLException {
+        String column = marksColumn(subject);
+        List<SemesterMark> marks = new ArrayList<>();
+        try (Metrics.Operation op = Metrics.getDefault().start("semesterMarks"); PooledConnection conn = pool.borrow()) {
+            try {
+                PreparedStatement stmt = conn.prepare(String.format(SELECT_SEMESTER_MARKS, column));
+                stmt.setString(1, studentName);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int semester = SemesterMark.parseSemester(rs.getString("semester"));
+                        if (semester >= 0) {
+                            marks.add(new SemesterMark(semester, rs.getInt(column)));
+                        }
+                        op.addRows(1);
+                    }
+                }
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+        marks.sort(Comparator.comparingInt(SemesterMark::getSemester));
+        return marks;
+    }
+
+    public static Student mapRow(ResultSet rs) throws SQLException {
+        return mapRow(rs, StudentStore.getDefault());
+    }
+
+    public static Student mapRow(ResultSet rs, StudentStore store) throws SQLException {
+        return store.append(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("gender"),
+                rs.getString("email"),
+                rs.getString("contact_number"),
+                rs.getString("address"),
+                rs.getInt("mathematics_marks"),
+                rs.getInt("physics_marks"),
+                rs.getInt("chemistry_marks"),
+                rs.getString("admission_number"),
+                rs.getString("semester"));
+    }
+
+    static void bindInsert(PreparedStatement stmt, Student student) throws SQLException {
+        stmt.setString(1, student.getName());
+        stmt.setString(2, student.getGender());
+        stmt.setString(3, student.getEmail());
+        stmt.setString(4, student.getContactNumber());
+        stmt.setString(5, student.getAddress());
+        stmt.setInt(6, student.getMathematicsMarks());
+        stmt.setInt(7, student.getPhysicsMarks());
+        stmt.setInt(8, student.getChemistryMarks());
+        stmt.setString(9, student.getAdmissionNumber());
+        stmt.setString(10, student.getSemester());
+    }
+
+    // Subject names reach SQL as column identifiers, so only the known mark columns are accepted.
+    static String marksColumn(String subject) {
+        switch (subject) {
+            case "Mathematics":
+                return "mathematics_marks";
+            case "Physics":
+                return "physics_marks";
+            case "Chemistry":
+                return "chemistry_marks";
+            default:
+                throw new IllegalArgumentException("Unknown subject: " + subject);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    public interface RowHandler {
+        void accept(ResultSet row) throws SQLException, IOException;
+    }
+
+    private interface RowMapper {
+        Student map(ResultSet rs) throws SQLException;
+    }
+
+    // The six profile fields, as the identity of a stored profile.
+    static final class ProfileKey {
+        private final String admissionNumber;
+        private final String name;
+        private final String gender;
+        private final String address;
+        private final String contactNumber;
+        private final String email;
+
+        ProfileKey(String admissionNumber, String name, String gender, String address, String contactNumber, String email) {
+            this.admissionNumber = admissionNumber;
+            this.name = name;
+            this.gender = gender;
+            this.address = address;
+            this.contactNumber = contactNumber;
+            this.email = email;
+        }
+
+        static ProfileKey of(Student student) {
+            return new ProfileKey(student.getAdmissionNumber(), student.getName(), student.getGender(), student.getAddress(), student.getContactNumber(), student.getEmail());
+        }
+
+        static ProfileKey of(ResultSet rs) throws SQLException {
+            return new ProfileKey(rs.getString("admission_number"), rs.getString("name"), rs.getString("gender"), rs.getString("address"), rs.getString("contact_number"), rs.getString("email"));
+        }
+
+        // Binds admission_number, name, gender, address, contact_number and email from index on.
+        void bind(PreparedStatement stmt, int index) throws SQLException {
+            stmt.setString(index, admissionNumber);
+            stmt.setString(index + 1, name);
+            stmt.setString(index + 2, gender);
+            stmt.setString(index + 3, address);
+            stmt.setString(index + 4, contactNumber);
+            stmt.setString(index + 5, email);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ProfileKey)) {
+                return false;
+            }
+            ProfileKey other = (ProfileKey) o;
+            return Objects.equals(admissionNumber, other.admissionNumber) && Objects.equals(name, other.name)
+                    && Objects.equals(gender, other.gender) && Objects.equals(address, other.address)
+                    && Objects.equals(contactNumber, other.contactNumber) && Objects.equals(email, other.email);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(admissionNumber, name, gender, address, contactNumber, email);
+        }
+    }
+
+    public static final class PageKey {
+        private final Object value;
+        private final long id;
+
+        public PageKey(Object value, long id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public long getId() {
+            return id;
+        }
+    }
+
+    public static final class Page {
+        private final List<Student> rows;
+        private final PageKey lastKey;
+
+        public Page(List<Student> rows, PageKey lastKey) {
+            this.rows = rows;
+            this.lastKey = lastKey;
+        }
+
+        public List<Student> getRows() {
+            return rows;
+        }
+
+        public PageKey getLastKey() {
+            return lastKey;
+        }
+    }
+
+    public static final class Changes {
+        private final List<Student> changed;
+        private final List<Long> deletedIds;
+        private final Timestamp asOf;
+
+        public Changes(List<Student> changed, List<Long> deletedIds, Timestamp asOf) {
+            this.changed = changed;
+            this.deletedIds = deletedIds;
+            this.asOf = asOf;
+        }
+
+        public List<Student> getChanged() {
+            return changed;
+        }
+
+        public List<Long> getDeletedIds() {
+            return deletedIds;
+        }
+
+        public Timestamp getAsOf() {
+            return asOf;
+        }
+
+        public boolean isEmpty() {
+            return changed.isEmpty() && deletedIds.isEmpty();
+        }
+    }
+
+    public static final class SemesterMark {
+        private final int semester;
+        private final int marks;
+
+        public SemesterMark(int semester, int marks) {
+            this.semester = semester;
+            this.marks = marks;
+        }
+
+        public int getSemester() {
+            return semester;
+        }
+
+        public int getMarks() {
+            return marks;
+        }
+
+        // semester is a VARCHAR column holding "2" or "Semester 2"; the trailing number is the
+        // semester. Returns -1 when there is none.
+        public static int parseSemester(String value) {
+            if (value == null) {
+                return -1;
+            }
+            int end = value.length();
+            while (end > 0 && Character.isWhitespace(value.charAt(end - 1))) {
+                end--;
+            }
+            int start = end;
+            while (start > 0 && start > end - 9 && value.charAt(start - 1) >= '0' && value.charAt(start - 1) <= '9') {
+                start--;
+            }
+            return start == end ? -1 : Integer.parseInt(value, start, end, 10);
+        }
+    }
+}
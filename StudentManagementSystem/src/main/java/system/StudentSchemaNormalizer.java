@@ -0,0 +1,220 @@
+package system;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// One-off migration of an existing students table to the normalized layout added by V3: each
+// distinct profile is stored once in student_profiles and every semester row becomes a student_marks
+// row that keeps its old id. Once everything is copied and the counts match, students is renamed to
+// students_legacy and replaced by a view over the two tables, so older clients keep reading.
+// Run it with the application stopped. Until the final rename it can be re-run after a failure,
+// since each run clears the normalized tables and copies from the start. MySQL commits the rename
+// and the view creation separately: a failed view creation renames the table back, and a run that
+// finds only students_legacy (the rename back failed too) finishes the swap.
+//
+//   java -cp ... system.StudentSchemaNormalizer [--batch N]
+public class StudentSchemaNormalizer {
+    static final String LEGACY_TABLE = "students_legacy";
+    static final String SELECT_LEGACY = "SELECT id, admission_number, name, gender, address, contact_number, email, semester, mathematics_marks, physics_marks, chemistry_marks, updated_at FROM students ORDER BY id";
+    static final String COPY_PROFILE = "INSERT INTO student_profiles (id, admission_number, name, gender, address, contact_number, email, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String COPY_MARKS = "INSERT INTO student_marks (id, profile_id, semester, mathematics_marks, physics_marks, chemistry_marks, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    static final String RENAME_STUDENTS = "ALTER TABLE students RENAME TO " + LEGACY_TABLE;
+    static final String RESTORE_STUDENTS = "ALTER TABLE " + LEGACY_TABLE + " RENAME TO students";
+    private static final Logger logger = Logger.getLogger(StudentSchemaNormalizer.class.getName());
+
+    private final ConnectionPool pool;
+    private final int batchSize;
+
+    public StudentSchemaNormalizer(ConnectionPool pool, int batchSize) {
+        this.pool = pool;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public static void main(String[] args) {
+        try {
+            DatabaseConfig config = DatabaseConfig.load();
+            int batchSize = config.getInt("sms.import.batchSize", 1_000);
+            for (int i = 0; i < args.length; i++) {
+                if ("--batch".equals(args[i])) {
+                    batchSize = Integer.parseInt(args[++i]);
+                } else {
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            DatabaseConfig poolConfig = new DatabaseConfig(config.getUrl(), config.getUser(), config.getPassword(),
+                    Math.max(2, config.getPoolSize()), config.getAcquireTimeoutMillis());
+            try (ConnectionPool pool = new ConnectionPool(poolConfig)) {
+                long start = System.nanoTime();
+                Result result = new StudentSchemaNormalizer(pool, batchSize).run();
+                if (result == null) {
+                    System.out.println("The students table is already normalized");
+                } else {
+                    System.out.printf("Moved %d rows into %d profiles in %.1f s; the old table is kept as %s%n",
+                            result.getRows(), result.getProfiles(), (System.nanoTime() - start) / 1e9, LEGACY_TABLE);
+                }
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An error occurred while normalizing the students table", e);
+            System.exit(1);
+        }
+    }
+
+    // Returns null when the database is already normalized.
+    public Result run() throws SQLException, IOException {
+        Result finished = finishSwap();
+        if (finished != null) {
+            return finished;
+        }
+        new SchemaMigrator(pool).migrate();
+        try (PooledConnection read = pool.borrow(); PooledConnection write = pool.borrow()) {
+            try {
+                if (StudentRepository.isNormalized(read.getConnection())) {
+                    return null;
+                }
+                Result result = copy(read, write);
+                long legacyRows = count(write.getConnection(), "students");
+                long copiedRows = count(write.getConnection(), "student_marks");
+                if (legacyRows != result.getRows() || copiedRows != result.getRows()) {
+                    throw new SQLException("Copied " + copiedRows + " of " + legacyRows + " rows; students was changed during the migration");
+                }
+                try (Statement stmt = write.getConnection().createStatement()) {
+                    stmt.execute(RENAME_STUDENTS);
+                    try {
+                        stmt.execute(StudentRepository.CREATE_STUDENTS_VIEW);
+                    } catch (SQLException e) {
+                        try {
+                            stmt.execute(RESTORE_STUDENTS);
+                        } catch (SQLException restore) {
+                            e.addSuppressed(restore);
+                        }
+                        throw e;
+                    }
+                }
+                logger.log(Level.INFO, "Normalized " + result.getRows() + " student rows into " + result.getProfiles() + " profiles");
+                return result;
+            } catch (SQLException e) {
+                read.invalidate();
+                write.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    // students_legacy without students is left by a run whose view creation and rename back both
+    // failed. Its rows were already checked against the normalized tables, so creating the view
+    // completes that run. Returns null when there is nothing to finish.
+    private Result finishSwap() throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            Connection connection = conn.getConnection();
+            try {
+                if (tableExists(connection, "students", "TABLE", "VIEW") || !tableExists(connection, LEGACY_TABLE, "TABLE")) {
+                    return null;
+                }
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute(StudentRepository.CREATE_STUDENTS_VIEW);
+                }
+                logger.log(Level.INFO, "Finished replacing students with the normalized view after an interrupted run");
+                return new Result(count(connection, "student_marks"), (int) count(connection, "student_profiles"));
+            } catch (SQLException e) {
+                conn.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table, String... types) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(connection.getCatalog(), null, table, types)) {
+            return rs.next();
+        }
+    }
+
+    // Streams the legacy rows in id order and writes profiles and marks in batches of batchSize rows,
+    // one transaction per batch. Profile ids are assigned here, so the profile of a row is known
+    // without a round trip; a profile takes the updated_at of its first row.
+    private Result copy(PooledConnection read, PooledConnection write) throws SQLException {
+        Connection connection = write.getConnection();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("DELETE FROM student_marks");
+            stmt.executeUpdate("DELETE FROM student_profiles");
+        }
+        connection.setAutoCommit(false);
+        Map<StudentRepository.ProfileKey, Long> profiles = new HashMap<>();
+        long rows = 0;
+        int pending = 0;
+        PreparedStatement insertProfile = write.prepare(COPY_PROFILE);
+        PreparedStatement insertMarks = write.prepare(COPY_MARKS);
+        try (PreparedStatement select = read.getConnection().prepareStatement(SELECT_LEGACY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            select.setFetchSize(StudentRepository.streamingFetchSize(pool.getConfig().getUrl(), batchSize));
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp updatedAt = rs.getTimestamp("updated_at");
+                    StudentRepository.ProfileKey key = StudentRepository.ProfileKey.of(rs);
+                    Long profileId = profiles.get(key);
+                    if (profileId == null) {
+                        profileId = (long) profiles.size() + 1;
+                        profiles.put(key, profileId);
+                        insertProfile.setLong(1, profileId);
+                        key.bind(insertProfile, 2);
+                        insertProfile.setTimestamp(8, updatedAt);
+                        insertProfile.addBatch();
+                    }
+                    insertMarks.setLong(1, rs.getLong("id"));
+                    insertMarks.setLong(2, profileId);
+                    insertMarks.setString(3, rs.getString("semester"));
+                    insertMarks.setObject(4, rs.getObject("mathematics_marks"));
+                    insertMarks.setObject(5, rs.getObject("physics_marks"));
+                    insertMarks.setObject(6, rs.getObject("chemistry_marks"));
+                    insertMarks.setTimestamp(7, updatedAt);
+                    insertMarks.addBatch();
+                    rows++;
+                    if (++pending == batchSize) {
+                        flush(connection, insertProfile, insertMarks);
+                        pending = 0;
+                    }
+                }
+            }
+        }
+        flush(connection, insertProfile, insertMarks);
+        connection.setAutoCommit(true);
+        return new Result(rows, profiles.size());
+    }
+
+    private static void flush(Connection connection, PreparedStatement insertProfile, PreparedStatement insertMarks) throws SQLException {
+        insertProfile.executeBatch();
+        insertMarks.executeBatch();
+        connection.commit();
+    }
+
+    private static long count(Connection connection, String table) throws SQLException {
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    public static final class Result {
+        private final long rows;
+        private final int profiles;
+
+        public Result(long rows, int profiles) {
+            this.rows = rows;
+            this.profiles = profiles;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public int getProfiles() {
+            return profiles;
+        }
+    }
+}
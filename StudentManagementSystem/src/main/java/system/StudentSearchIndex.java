@@ -0,0 +1,377 @@
+package system;
+
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Search over name, email, admission number and contact number without scanning rows. Every student
+// gets an int document id and the index keeps sorted posting lists of ids per key: the bigrams and
+// trigrams of the lower-cased fields (packed into longs), the semester and the grade band of the
+// student's average mark. A query of three or more letters intersects its trigram lists, shortest
+// first, and confirms each candidate with a substring check; a two-letter query is its bigram list,
+// and a single letter is checked against every candidate. Like longer queries, short ones match
+// anywhere in a field.
+// The index follows the source list's change events; removed ids are only marked dead and the
+// lists are rebuilt once most of them are. The rebuild runs on the compaction executor from a copy
+// of the live students while the old lists keep answering; changes made in the meantime are
+// replayed onto the new lists before they replace the old ones on the apply executor.
+public class StudentSearchIndex {
+    static final int MIN_COMPACT_SIZE = 1_024;
+    private static final Logger logger = Logger.getLogger(StudentSearchIndex.class.getName());
+    private static final long BIGRAM = 2L << 48;
+    private static final long TRIGRAM = 3L << 48;
+
+    private final GradingEngine engine;
+    private final Executor compactionExecutor;
+    private final Executor applyExecutor;
+    private Postings postings;
+    // Changes made while a compaction is building its lists (true for an add); null when none runs.
+    private List<Map.Entry<Student, Boolean>> changesDuringCompaction;
+
+    public StudentSearchIndex(ObservableList<Student> source, GradingEngine engine) {
+        this(source, engine, ForkJoinPool.commonPool(), Platform::runLater);
+    }
+
+    // applyExecutor must run on the thread that changes the source list; the UI uses the FX thread.
+    public StudentSearchIndex(ObservableList<Student> source, GradingEngine engine, Executor compactionExecutor, Executor applyExecutor) {
+        this.engine = engine;
+        this.compactionExecutor = compactionExecutor;
+        this.applyExecutor = applyExecutor;
+        postings = new Postings(engine, 1_024);
+        postings.addAll(source);
+        source.addListener((ListChangeListener<Student>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated() || change.wasUpdated()) {
+                    continue;
+                }
+                for (Student student : change.getRemoved()) {
+                    postings.remove(student);
+                    if (changesDuringCompaction != null) {
+                        changesDuringCompaction.add(Map.entry(student, Boolean.FALSE));
+                    }
+                }
+                for (Student student : change.getAddedSubList()) {
+                    postings.add(student);
+                    if (changesDuringCompaction != null) {
+                        changesDuringCompaction.add(Map.entry(student, Boolean.TRUE));
+                    }
+                }
+            }
+            if (changesDuringCompaction == null && postings.nextId >= MIN_COMPACT_SIZE && postings.live.cardinality() < postings.nextId / 2) {
+                compact();
+            }
+        });
+    }
+
+    // Students matching every given criterion, in index order; null or empty criteria are ignored.
+    // grade is one of engine.getGrades(), matched against the average of the three marks.
+    public List<Student> search(String text, String semester, String grade) {
+        return postings.search(text, semester, grade);
+    }
+
+    public int size() {
+        return postings.ids.size();
+    }
+
+    // Renumbers the live students from zero into new posting lists, off the calling thread.
+    private void compact() {
+        List<Student> remaining = new ArrayList<>(postings.ids.size());
+        for (int id = postings.live.nextSetBit(0); id >= 0; id = postings.live.nextSetBit(id + 1)) {
+            remaining.add(postings.students[id]);
+        }
+        changesDuringCompaction = new ArrayList<>();
+        compactionExecutor.execute(() -> {
+            Postings compacted;
+            try {
+                compacted = new Postings(engine, Math.max(1_024, remaining.size()));
+                compacted.addAll(remaining);
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "An error occurred while compacting the search index", e);
+                applyExecutor.execute(() -> changesDuringCompaction = null);
+                return;
+            }
+            applyExecutor.execute(() -> {
+                for (Map.Entry<Student, Boolean> change : changesDuringCompaction) {
+                    if (change.getValue()) {
+                        compacted.add(change.getKey());
+                    } else {
+                        compacted.remove(change.getKey());
+                    }
+                }
+                changesDuringCompaction = null;
+                postings = compacted;
+            });
+        });
+    }
+
+    // Posting lists over one numbering of the students. Only the compaction that creates an instance
+    // touches it until it is handed to the apply executor.
+    private static final class Postings {
+        private final GradingEngine engine;
+        private final PostingMap textPostings = new PostingMap();
+        private final Map<String, IntList> semesterPostings = new HashMap<>();
+        private final Map<String, IntList> gradePostings = new HashMap<>();
+        private final Map<Student, Integer> ids = new IdentityHashMap<>();
+        private final BitSet live = new BitSet();
+        private Student[] students;
+        private int nextId;
+        private long[] keyBuffer = new long[64];
+
+        private Postings(GradingEngine engine, int capacity) {
+            this.engine = engine;
+            this.students = new Student[capacity];
+        }
+
+        List<Student> search(String text, String semester, String grade) {
+            List<IntList> lists = new ArrayList<>();
+            String query = text == null ? "" : text.trim();
+            if (query.length() >= 3) {
+                for (int i = 0; i + 3 <= query.length(); i++) {
+                    lists.add(textPostings.get(trigram(query, i)));
+                }
+            } else if (query.length() == 2) {
+                lists.add(textPostings.get(bigram(query, 0)));
+            }
+            if (semester != null && !semester.isEmpty()) {
+                lists.add(semesterPostings.get(semester));
+            }
+            if (grade != null && !grade.isEmpty()) {
+                lists.add(gradePostings.get(grade));
+            }
+
+            List<Student> results = new ArrayList<>();
+            // A single letter has no list of its own and is checked row by row.
+            boolean verify = query.length() > 3 || query.length() == 1;
+            if (lists.isEmpty()) {
+                for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) {
+                    if (!verify || contains(students[id], query)) {
+                        results.add(students[id]);
+                    }
+                }
+                return results;
+            }
+            if (lists.contains(null)) {
+                return results;
+            }
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+            IntList candidates = lists.get(0);
+            for (int i = 1; i < lists.size() && candidates.size > 0; i++) {
+                if (lists.get(i) != lists.get(i - 1)) {
+                    candidates = candidates.intersect(lists.get(i));
+                }
+            }
+            for (int i = 0; i < candidates.size; i++) {
+                int id = candidates.values[i];
+                if (live.get(id) && (!verify || contains(students[id], query))) {
+                    results.add(students[id]);
+                }
+            }
+            return results;
+        }
+
+        void addAll(Collection<? extends Student> added) {
+            for (Student student : added) {
+                add(student);
+            }
+        }
+
+        void add(Student student) {
+            int id = nextId++;
+            if (id == students.length) {
+                students = Arrays.copyOf(students, students.length * 2);
+            }
+            students[id] = student;
+            ids.put(student, id);
+            live.set(id);
+
+            int keys = 0;
+            keys = textKeys(student.getName(), keys);
+            keys = textKeys(student.getEmail(), keys);
+            keys = textKeys(student.getAdmissionNumber(), keys);
+            keys = textKeys(student.getContactNumber(), keys);
+            Arrays.sort(keyBuffer, 0, keys);
+            for (int i = 0; i < keys; i++) {
+                if (i == 0 || keyBuffer[i] != keyBuffer[i - 1]) {
+                    textPostings.getOrCreate(keyBuffer[i]).add(id);
+                }
+            }
+            if (student.getSemester() != null) {
+                semesterPostings.computeIfAbsent(student.getSemester(), key -> new IntList()).add(id);
+            }
+            gradePostings.computeIfAbsent(engine.grade(Math.round(student.getTotalMarks() / 3.0f)), key -> new IntList()).add(id);
+        }
+
+        private int textKeys(String value, int keys) {
+            if (value == null || value.length() < 2) {
+                return keys;
+            }
+            int needed = keys + 2 * value.length();
+            if (needed > keyBuffer.length) {
+                keyBuffer = Arrays.copyOf(keyBuffer, Math.max(needed, keyBuffer.length * 2));
+            }
+            for (int i = 0; i + 2 <= value.length(); i++) {
+                keyBuffer[keys++] = bigram(value, i);
+            }
+            for (int i = 0; i + 3 <= value.length(); i++) {
+                keyBuffer[keys++] = trigram(value, i);
+            }
+            return keys;
+        }
+
+        void remove(Student student) {
+            Integer id = ids.remove(student);
+            if (id != null) {
+                live.clear(id);
+                students[id] = null;
+            }
+        }
+    }
+
+    private static long bigram(String value, int at) {
+        return BIGRAM
+                | (long) Character.toLowerCase(value.charAt(at)) << 16
+                | Character.toLowerCase(value.charAt(at + 1));
+    }
+
+    private static long trigram(String value, int at) {
+        return TRIGRAM
+                | (long) Character.toLowerCase(value.charAt(at)) << 32
+                | (long) Character.toLowerCase(value.charAt(at + 1)) << 16
+                | Character.toLowerCase(value.charAt(at + 2));
+    }
+
+    private static boolean contains(Student student, String query) {
+        return contains(student.getName(), query) || contains(student.getEmail(), query)
+                || contains(student.getAdmissionNumber(), query) || contains(student.getContactNumber(), query);
+    }
+
+    private static boolean contains(String field, String query) {
+        if (field == null) {
+            return false;
+        }
+        for (int i = 0; i + query.length() <= field.length(); i++) {
+            if (field.regionMatches(true, i, query, 0, query.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Ascending document ids; ids are handed out in increasing order, so appends keep it sorted.
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        // Merges when the lists are of similar length; otherwise walks this (shorter) list and
+        // binary-searches forward through the other.
+        IntList intersect(IntList other) {
+            IntList result = new IntList();
+            if (other.size / 16 <= size) {
+                for (int i = 0, j = 0; i < size && j < other.size; ) {
+                    if (values[i] < other.values[j]) {
+                        i++;
+                    } else if (values[i] > other.values[j]) {
+                        j++;
+                    } else {
+                        result.add(values[i]);
+                        i++;
+                        j++;
+                    }
+                }
+                return result;
+            }
+            int from = 0;
+            for (int i = 0; i < size && from < other.size; i++) {
+                int found = Arrays.binarySearch(other.values, from, other.size, values[i]);
+                if (found >= 0) {
+                    result.add(values[i]);
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            return result;
+        }
+    }
+
+    // Open-addressing map from packed text keys to posting lists, so lookups neither box nor hash
+    // strings.
+    private static final class PostingMap {
+        private long[] keys = new long[1 << 12];
+        private IntList[] lists = new IntList[1 << 12];
+        private int size;
+
+        IntList get(long key) {
+            for (int slot = slot(key, keys.length); lists[slot] != null; slot = (slot + 1) & (keys.length - 1)) {
+                if (keys[slot] == key) {
+                    return lists[slot];
+                }
+            }
+            return null;
+        }
+
+        IntList getOrCreate(long key) {
+            int slot = slot(key, keys.length);
+            for (; lists[slot] != null; slot = (slot + 1) & (keys.length - 1)) {
+                if (keys[slot] == key) {
+                    return lists[slot];
+                }
+            }
+            IntList list = new IntList();
+            keys[slot] = key;
+            lists[slot] = list;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return list;
+        }
+
+        void clear() {
+            keys = new long[1 << 12];
+            lists = new IntList[1 << 12];
+            size = 0;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            IntList[] oldLists = lists;
+            keys = new long[oldKeys.length * 2];
+            lists = new IntList[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldLists[i] != null) {
+                    int slot = slot(oldKeys[i], keys.length);
+                    while (lists[slot] != null) {
+                        slot = (slot + 1) & (keys.length - 1);
+                    }
+                    keys[slot] = oldKeys[i];
+                    lists[slot] = oldLists[i];
+                }
+            }
+        }
+
+        private static int slot(long key, int capacity) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 40) & (capacity - 1);
+        }
+    }
+}
@@ -0,0 +1,791 @@
+package system;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Read-through HTTP front for one shared copy of the students table, so desktops in client mode
+// (sms.storage=server) cost the database a single full load plus their writes, instead of a full
+// load and per-action queries each. Reads are answered from memory; writes go to the backing
+// storage first and then into the cache. With the MySQL backend a StudentDeltaSync folds in changes
+// made by clients that still talk to the database directly. Each request runs on a virtual thread.
+//
+// Answers are JSON, or the StudentWire binary form when the request accepts StudentWire.BINARY_TYPE:
+//   GET  /students?after=ID&limit=N                  rows with id > after in id order, next cursor
+//   GET  /students/count
+//   GET  /students/match?name=&admission=&semester=  id of a matching row, or 0
+//   GET  /students/marks?name=&subject=              semester marks in semester order
+//   GET  /students/grades?name=                      the student's rows with their grades
+//   GET  /aggregates                                 per-semester statistics (CohortAnalytics)
+//   GET  /aggregates/grades                          grade counts per semester and subject
+//   POST /students                                   binary rows to insert; answers their ids
+//   POST /students/delete                            binary ids; answers the number deleted
+// Every GET carries an ETag of the cache version, so a repeated request with If-None-Match is
+// answered 304 without a body until some row changes. The two aggregates are tagged with the
+// version they were computed from and may lag writes by sms.server.aggregateMillis.
+//
+// The server listens on sms.server.bindAddress, loopback unless set. The two POSTs need the shared
+// sms.server.token as "Authorization: Bearer <token>" and are refused when no token is set. Their
+// bodies must carry a Content-Length of at most MAX_BODY_BYTES, and the row count is checked
+// against that length before anything is allocated.
+//
+//   java -cp ... system.StudentServer [--port N]
+public class StudentServer implements AutoCloseable {
+    static final int DEFAULT_PORT = 8085;
+    static final int MAX_PAGE_SIZE = 10_000;
+    static final int LOAD_BATCH_SIZE = 5_000;
+    static final long DEFAULT_AGGREGATE_MILLIS = 1_000;
+    static final String DEFAULT_BIND_ADDRESS = "127.0.0.1";
+    static final int MAX_BATCH_ROWS = 100_000;
+    static final int MAX_BODY_BYTES = 64 * 1024 * 1024;
+    // Smallest encoded row: the id, seven null strings and three marks.
+    static final int MIN_ROW_BYTES = Long.BYTES + 7 * Integer.BYTES + 3 * Integer.BYTES;
+    private static final Logger logger = Logger.getLogger(StudentServer.class.getName());
+
+    private final StudentStorage storage;
+    private final byte[] writeToken;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentSkipListMap<Long, Student> rows = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<Long>> idsByName = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+    private final Object derivedLock = new Object();
+    private volatile long aggregateNanos = DEFAULT_AGGREGATE_MILLIS * 1_000_000;
+    private volatile Derived<List<CohortAnalytics.SemesterStats>> aggregates;
+    private volatile Derived<Map<String, long[][]>> gradeCounts;
+    private final Map<String, Map<String, Handler>> routes = new HashMap<>();
+    private StudentDeltaSync deltaSync;
+
+    // A server without a write token only answers reads.
+    public StudentServer(StudentStorage storage, InetSocketAddress address, int backlog) throws IOException {
+        this(storage, address, backlog, null);
+    }
+
+    public StudentServer(StudentStorage storage, InetSocketAddress address, int backlog, String writeToken) throws IOException {
+        this.storage = storage;
+        this.writeToken = writeToken == null || writeToken.isEmpty() ? null : writeToken.getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(address, backlog);
+        server.setExecutor(executor);
+        route("GET", "/students", this::page);
+        route("GET", "/students/count", this::count);
+        route("GET", "/students/match", this::match);
+        route("GET", "/students/marks", this::marks);
+        route("GET", "/students/grades", this::grades);
+        route("GET", "/aggregates", this::aggregates);
+        route("GET", "/aggregates/grades", this::gradeCounts);
+        route("POST", "/students", authorized(this::insert));
+        route("POST", "/students/delete", authorized(this::delete));
+    }
+
+    public static void main(String[] args) {
+        try {
+            DatabaseConfig config = DatabaseConfig.load();
+            int port = config.getInt("sms.server.port", DEFAULT_PORT);
+            for (int i = 0; i < args.length; i++) {
+                if ("--port".equals(args[i])) {
+                    port = Integer.parseInt(args[++i]);
+                } else {
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            String backend = config.getString("sms.server.storage", "mysql");
+            if ("server".equals(backend)) {
+                throw new IllegalArgumentException("sms.server.storage must name a database backend, not the server itself");
+            }
+            GradingEngine.setDefault(GradingEngine.fromSpec(config.getString("sms.grading.bands", GradingEngine.DEFAULT_BANDS)));
+            String token = config.getString("sms.server.token", null);
+            if (token == null || token.isEmpty()) {
+                logger.log(Level.WARNING, "sms.server.token is not set; writes to the server are refused");
+            }
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getByName(config.getString("sms.server.bindAddress", DEFAULT_BIND_ADDRESS)), port);
+            StudentStorage storage = StudentStorage.open(config, backend);
+            StudentServer server = new StudentServer(storage, address, config.getInt("sms.server.backlog", 1_024), token);
+            server.setAggregateMillis(config.getInt("sms.server.aggregateMillis", (int) DEFAULT_AGGREGATE_MILLIS));
+            long start = System.nanoTime();
+            server.start(config.getInt("sms.sync.intervalSeconds", 5) * 1000L);
+            System.out.printf("Serving %d students from %s on %s port %d (loaded in %.1f s)%n",
+                    server.size(), storage.getSource(), address.getAddress().getHostAddress(), server.getPort(), (System.nanoTime() - start) / 1e9);
+            CountDownLatch stopped = new CountDownLatch(1);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                storage.close();
+                stopped.countDown();
+            }, "student-server-shutdown"));
+            stopped.await();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An error occurred while running the student server", e);
+            System.exit(1);
+        }
+    }
+
+    // Loads every row into the cache, starts the delta sync when the storage has a change feed and
+    // then starts answering requests.
+    public void start(long syncIntervalMillis) throws SQLException {
+        Timestamp since = storage.currentTimestamp();
+        storage.streamAll(LOAD_BATCH_SIZE, LOAD_BATCH_SIZE, batch -> batch.forEach(this::cache), () -> false);
+        if (since != null && syncIntervalMillis > 0 && storage instanceof StudentRepository) {
+            deltaSync = new StudentDeltaSync((StudentRepository) storage, syncIntervalMillis, this::applyChanges, Runnable::run);
+            deltaSync.start(since);
+        }
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    // How long whole-table aggregates may lag behind writes; 0 recomputes them after every change.
+    public void setAggregateMillis(long millis) {
+        aggregateNanos = Math.max(0, millis) * 1_000_000;
+    }
+
+    // Writers are few, so cache changes are serialized; readers never lock.
+    private synchronized void cache(Student student) {
+        Student previous = rows.put(student.getId(), student);
+        if (previous == null) {
+            size.incrementAndGet();
+        } else if (!Objects.equals(previous.getName(), student.getName())) {
+            uncacheName(previous);
+        }
+        idsByName.computeIfAbsent(student.getName(), name -> ConcurrentHashMap.newKeySet()).add(student.getId());
+    }
+
+    private synchronized void uncache(long id) {
+        Student previous = rows.remove(id);
+        if (previous != null) {
+            size.decrementAndGet();
+            uncacheName(previous);
+        }
+    }
+
+    private void uncacheName(Student student) {
+        idsByName.computeIfPresent(student.getName(), (name, ids) -> {
+            ids.remove(student.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // Readers take the version before the rows, and writers bump it after changing them, so an
+    // answer is never tagged newer than what it holds.
+    private void changed() {
+        version.incrementAndGet();
+    }
+
+    private void applyChanges(StudentRepository.Changes changes) {
+        boolean changed = false;
+        for (Student row : changes.getChanged()) {
+            Student existing = rows.get(row.getId());
+            if (existing == null || !StudentDeltaSync.sameValues(existing, row)) {
+                cache(row);
+                changed = true;
+            }
+        }
+        for (long id : changes.getDeletedIds()) {
+            if (rows.containsKey(id)) {
+                uncache(id);
+                changed = true;
+            }
+        }
+        if (changed) {
+            changed();
+        }
+    }
+
+    private List<Student> named(String name) {
+        List<Student> named = new ArrayList<>();
+        Set<Long> ids = name == null ? null : idsByName.get(name);
+        if (ids != null) {
+            for (long id : ids) {
+                Student student = rows.get(id);
+                if (student != null) {
+                    named.add(student);
+                }
+            }
+        }
+        return named;
+    }
+
+    private void page(Request request) throws IOException {
+        long after = request.longParameter("after", 0);
+        int limit = (int) Math.max(1, Math.min(MAX_PAGE_SIZE, request.longParameter("limit", 1_000)));
+        if (request.notModified()) {
+            return;
+        }
+        List<Student> page = new ArrayList<>(Math.min(limit, 1_024));
+        Iterator<Student> it = rows.tailMap(after, false).values().iterator();
+        while (it.hasNext() && page.size() < limit) {
+            page.add(it.next());
+        }
+        long next = it.hasNext() ? page.get(page.size() - 1).getId() : 0;
+        request.op.addRows(page.size());
+        if (request.binary) {
+            request.sendBinary(out -> {
+                out.writeInt(page.size());
+                for (Student student : page) {
+                    StudentWire.writeRow(out, student);
+                }
+                out.writeLong(next);
+            });
+            return;
+        }
+        StringBuilder json = new StringBuilder(page.size() * 200 + 32).append("{\"rows\":[");
+        for (int i = 0; i < page.size(); i++) {
+            StudentWire.appendRowJson(json.append(i == 0 ? "" : ","), page.get(i));
+        }
+        request.sendJson(json.append("],\"next\":").append(next == 0 ? "null" : String.valueOf(next)).append('}'));
+    }
+
+    private void count(Request request) throws IOException {
+        if (request.notModified()) {
+            return;
+        }
+        int count = size.get();
+        if (request.binary) {
+            request.sendBinary(out -> out.writeLong(count));
+        } else {
+            request.sendJson("{\"count\":" + count + "}");
+        }
+    }
+
+    private void match(Request request) throws IOException {
+        String admissionNumber = request.parameter("admission");
+        String semester = request.parameter("semester");
+        if (request.notModified()) {
+            return;
+        }
+        long id = 0;
+        for (Student student : named(request.requiredParameter("name"))) {
+            if (Objects.equals(student.getAdmissionNumber(), admissionNumber) && Objects.equals(student.getSemester(), semester)) {
+                id = student.getId();
+                break;
+            }
+        }
+        long found = id;
+        if (request.binary) {
+            request.sendBinary(out -> out.writeLong(found));
+        } else {
+            request.sendJson("{\"id\":" + found + "}");
+        }
+    }
+
+    private void marks(Request request) throws IOException {
+        String name = request.requiredParameter("name");
+        String subject = request.requiredParameter("subject");
+        if (!StudentTrendService.SUBJECTS.contains(subject)) {
+            throw new IllegalArgumentException("Unknown subject: " + subject);
+        }
+        if (request.notModified()) {
+            return;
+        }
+        List<StudentRepository.SemesterMark> marks = new ArrayList<>();
+        for (Student student : named(name)) {
+            int semester = StudentRepository.SemesterMark.parseSemester(student.getSemester());
+            if (semester >= 0) {
+                marks.add(new StudentRepository.SemesterMark(semester, student.getMarks(subject)));
+            }
+        }
+        marks.sort(Comparator.comparingInt(StudentRepository.SemesterMark::getSemester));
+        request.op.addRows(marks.size());
+        if (request.binary) {
+            request.sendBinary(out -> {
+                out.writeInt(marks.size());
+                for (StudentRepository.SemesterMark mark : marks) {
+                    out.writeInt(mark.getSemester());
+                    out.writeInt(mark.getMarks());
+                }
+            });
+            return;
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < marks.size(); i++) {
+            json.append(i == 0 ? "" : ",").append("{\"semester\":").append(marks.get(i).getSemester())
+                    .append(",\"marks\":").append(marks.get(i).getMarks()).append('}');
+        }
+        request.sendJson(json.append(']'));
+    }
+
+    private void grades(Request request) throws IOException {
+        String name = request.requiredParameter("name");
+        if (request.notModified()) {
+            return;
+        }
+        GradingEngine engine = GradingEngine.getDefault();
+        List<Student> named = named(name);
+        named.sort(Comparator.comparing(Student::getSemester, Comparator.nullsFirst(CohortAnalytics.SEMESTER_ORDER)));
+        request.op.addRows(named.size());
+        if (request.binary) {
+            request.sendBinary(out -> {
+                out.writeInt(named.size());
+                for (Student student : named) {
+                    out.writeLong(student.getId());
+                    StudentWire.writeString(out, student.getSemester());
+                    for (String subject : GradingEngine.SUBJECTS) {
+                        out.writeInt(student.getMarks(subject));
+                        StudentWire.writeString(out, engine.grade(student.getMarks(subject)));
+                    }
+                }
+            });
+            return;
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < named.size(); i++) {
+            Student student = named.get(i);
+            json.append(i == 0 ? "{\"id\":" : ",{\"id\":").append(student.getId()).append(",\"semester\":");
+            ReportWriter.appendJson(json, student.getSemester());
+            for (String subject : GradingEngine.SUBJECTS) {
+                String key = subject.toLowerCase(Locale.ROOT);
+                json.append(",\"").append(key).append("_marks\":").append(student.getMarks(subject))
+                        .append(",\"").append(key).append("_grade\":\"").append(engine.grade(student.getMarks(subject))).append('"');
+            }
+            json.append('}');
+        }
+        request.sendJson(json.append(']'));
+    }
+
+    private void aggregates(Request request) throws IOException {
+        Derived<List<CohortAnalytics.SemesterStats>> derived = derive(request.version, () -> aggregates,
+                computed -> aggregates = computed, all -> CohortAnalytics.build(all, ForkJoinPool.commonPool()).getSemesterStats());
+        if (request.notModified(derived.version)) {
+            return;
+        }
+        List<CohortAnalytics.SemesterStats> stats = derived.value;
+        if (request.binary) {
+            request.sendBinary(out -> {
+                out.writeInt(stats.size());
+                for (CohortAnalytics.SemesterStats semester : stats) {
+                    StudentWire.writeString(out, semester.getSemester());
+                    out.writeInt(semester.getCount());
+                    for (int measure = 0; measure < CohortAnalytics.MEASURES.length; measure++) {
+                        out.writeDouble(semester.getMean(measure));
+                        out.writeDouble(semester.getMedian(measure));
+                        out.writeDouble(semester.getStandardDeviation(measure));
+                    }
+                    out.writeDouble(semester.getMathematicsPhysicsCorrelation());
+                    out.writeDouble(semester.getMathematicsChemistryCorrelation());
+                    out.writeDouble(semester.getPhysicsChemistryCorrelation());
+                }
+            });
+            return;
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < stats.size(); i++) {
+            CohortAnalytics.SemesterStats semester = stats.get(i);
+            json.append(i == 0 ? "{\"semester\":" : ",{\"semester\":");
+            ReportWriter.appendJson(json, semester.getSemester()).append(",\"count\":").append(semester.getCount());
+            for (int measure = 0; measure < CohortAnalytics.MEASURES.length; measure++) {
+                String key = CohortAnalytics.MEASURES[measure].toLowerCase(Locale.ROOT);
+                json.append(",\"").append(key).append("\":{\"mean\":").append(number(semester.getMean(measure)))
+                        .append(",\"median\":").append(number(semester.getMedian(measure)))
+                        .append(",\"standard_deviation\":").append(number(semester.getStandardDeviation(measure))).append('}');
+            }
+            json.append(",\"correlations\":{\"mathematics_physics\":").append(number(semester.getMathematicsPhysicsCorrelation()))
+                    .append(",\"mathematics_chemistry\":").append(number(semester.getMathematicsChemistryCorrelation()))
+                    .append(",\"physics_chemistry\":").append(number(semester.getPhysicsChemistryCorrelation())).append("}}");
+        }
+        request.sendJson(json.append(']'));
+    }
+
+    private void gradeCounts(Request request) throws IOException {
+        GradingEngine engine = GradingEngine.getDefault();
+        Derived<Map<String, long[][]>> derived = derive(request.version, () -> gradeCounts,
+                computed -> gradeCounts = computed, engine::distributionBySemester);
+        if (request.notModified(derived.version)) {
+            return;
+        }
+        Map<String, long[][]> counts = derived.value;
+        List<String> grades = engine.getGrades();
+        if (request.binary) {
+            request.sendBinary(out -> {
+                out.writeInt(grades.size());
+                for (String grade : grades) {
+                    StudentWire.writeString(out, grade);
+                }
+                out.writeInt(counts.size());
+                for (Map.Entry<String, long[][]> entry : counts.entrySet()) {
+                    StudentWire.writeString(out, entry.getKey());
+                    for (long[] subject : entry.getValue()) {
+                        for (long count : subject) {
+                            out.writeLong(count);
+                        }
+                    }
+                }
+            });
+            return;
+        }
+        StringBuilder json = new StringBuilder("{\"grades\":[");
+        for (int i = 0; i < grades.size(); i++) {
+            ReportWriter.appendJson(json.append(i == 0 ? "" : ","), grades.get(i));
+        }
+        json.append("],\"semesters\":{");
+        boolean first = true;
+        for (Map.Entry<String, long[][]> entry : counts.entrySet()) {
+            ReportWriter.appendJson(json.append(first ? "" : ","), entry.getKey()).append(":{");
+            for (int subject = 0; subject < GradingEngine.SUBJECTS.length; subject++) {
+                json.append(subject == 0 ? "\"" : ",\"").append(GradingEngine.SUBJECTS[subject].toLowerCase(Locale.ROOT)).append("\":[");
+                long[] bands = entry.getValue()[subject];
+                for (int band = 0; band < bands.length; band++) {
+                    json.append(band == 0 ? "" : ",").append(bands[band]);
+                }
+                json.append(']');
+            }
+            json.append('}');
+            first = false;
+        }
+        request.sendJson(json.append("}}"));
+    }
+
+    // Whole-table results are computed by the first request that needs them and reused until the
+    // cache has changed and the result is older than aggregateNanos. Each one is tagged with the
+    // version it was computed from, so a steady trickle of writes does not rebuild it per request.
+    private <T> Derived<T> derive(long version, Supplier<Derived<T>> current, Consumer<Derived<T>> store,
+                                  Function<List<Student>, T> compute) {
+        Derived<T> derived = current.get();
+        if (derived != null && derived.isCurrent(version, aggregateNanos)) {
+            return derived;
+        }
+        synchronized (derivedLock) {
+            derived = current.get();
+            if (derived == null || !derived.isCurrent(version, aggregateNanos)) {
+                long at = this.version.get();
+                derived = new Derived<>(at, compute.apply(new ArrayList<>(rows.values())));
+                store.accept(derived);
+            }
+            return derived;
+        }
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    private void insert(Request request) throws IOException, SQLException {
+        List<Student> students = new ArrayList<>();
+        try (DataInputStream in = request.binaryBody()) {
+            int count = batchCount(in, MIN_ROW_BYTES);
+            // The request's rows get a store of their own, sized like a page, rather than growing the
+            // default one; the cached ones keep it alive.
+            StudentStore store = new StudentStore(Math.max(4, Math.min(14, 32 - Integer.numberOfLeadingZeros(Math.max(1, count - 1)))));
+            for (int i = 0; i < count; i++) {
+                students.add(StudentWire.readRow(in, store));
+            }
+        }
+        storage.insertBatch(students);
+        for (Student student : students) {
+            cache(student);
+        }
+        changed();
+        request.op.addRows(students.size());
+        if (request.binary) {
+            request.sendBinary(out -> {
+                out.writeInt(students.size());
+                for (Student student : students) {
+                    out.writeLong(student.getId());
+                }
+            });
+            return;
+        }
+        StringBuilder json = new StringBuilder("{\"ids\":[");
+        for (int i = 0; i < students.size(); i++) {
+            json.append(i == 0 ? "" : ",").append(students.get(i).getId());
+        }
+        request.sendJson(json.append("]}"));
+    }
+
+    private void delete(Request request) throws IOException, SQLException {
+        long[] ids;
+        try (DataInputStream in = request.binaryBody()) {
+            ids = new long[batchCount(in, Long.BYTES)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = in.readLong();
+            }
+        }
+        int deleted = storage.deleteByIds(ids);
+        for (long id : ids) {
+            uncache(id);
+        }
+        changed();
+        request.op.addRows(deleted);
+        if (request.binary) {
+            request.sendBinary(out -> out.writeLong(deleted));
+        } else {
+            request.sendJson("{\"deleted\":" + deleted + "}");
+        }
+    }
+
+    // Reads a batch's row count and checks it against the bytes left in the body before the caller
+    // allocates anything for it.
+    private static int batchCount(DataInputStream in, int minBytesPerRow) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_BATCH_ROWS || (long) count * minBytesPerRow > in.available()) {
+            throw new IllegalArgumentException("Invalid row count " + count);
+        }
+        return count;
+    }
+
+    private Handler authorized(Handler handler) {
+        return request -> {
+            if (writeToken == null) {
+                request.sendError(403, "Writes are disabled: the server has no sms.server.token");
+            } else if (!request.hasToken(writeToken)) {
+                request.sendError(401, "Missing or wrong write token");
+            } else {
+                handler.handle(request);
+            }
+        };
+    }
+
+    // Contexts match by prefix, so requests are dispatched on the exact path and the method.
+    private void route(String method, String path, Handler handler) {
+        Map<String, Handler> methods = routes.get(path);
+        if (methods == null) {
+            methods = new HashMap<>();
+            routes.put(path, methods);
+            server.createContext(path, exchange -> dispatch(exchange, path));
+        }
+        methods.put(method, handler);
+    }
+
+    private void dispatch(HttpExchange exchange, String path) {
+        try (Request request = new Request(exchange, path)) {
+            Handler handler = routes.get(path).get(exchange.getRequestMethod());
+            if (!exchange.getRequestURI().getPath().equals(path)) {
+                request.sendError(404, "Not found");
+            } else if (handler == null) {
+                request.sendError(405, "Method not allowed");
+            } else {
+                handler.handle(request);
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, "Bad request: " + e.getMessage());
+        } catch (EOFException e) {
+            sendError(exchange, 400, "Bad request: the body ended early");
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "An error occurred while serving " + exchange.getRequestURI(), e);
+            // 503 asks the client to retry; 422 tells it the change was rejected for good.
+            sendError(exchange, WriteBehindQueue.isTransient(e) ? 503 : 422, e.getMessage());
+        } catch (IOException e) {
+            logger.log(Level.FINE, "The client went away during " + exchange.getRequestURI(), e);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An error occurred while serving " + exchange.getRequestURI(), e);
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            if (exchange.getResponseCode() == -1) {
+                byte[] body = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                exchange.sendResponseHeaders(status, body.length);
+                exchange.getResponseBody().write(body);
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not send an error response", e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        // Requests still running after the grace period are interrupted rather than waited for.
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (deltaSync != null) {
+            deltaSync.close();
+        }
+    }
+
+    private interface Handler {
+        void handle(Request request) throws IOException, SQLException;
+    }
+
+    private interface BinaryBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static final class Derived<T> {
+        private final long version;
+        private final T value;
+        private final long computedAt = System.nanoTime();
+
+        private Derived(long version, T value) {
+            this.version = version;
+            this.value = value;
+        }
+
+        private boolean isCurrent(long version, long maxAgeNanos) {
+            return this.version >= version || System.nanoTime() - computedAt < maxAgeNanos;
+        }
+    }
+
+    // One exchange: parsed query, negotiated format and the version its answer is tagged with.
+    private final class Request implements AutoCloseable {
+        private final HttpExchange exchange;
+        private final Map<String, String> parameters = new HashMap<>();
+        private final boolean binary;
+        private final long version;
+        private final Metrics.Operation op;
+
+        private Request(HttpExchange exchange, String path) {
+            this.exchange = exchange;
+            this.binary = Objects.toString(exchange.getRequestHeaders().getFirst("Accept"), "").contains(StudentWire.BINARY_TYPE);
+            this.version = StudentServer.this.version.get();
+            this.op = Metrics.getDefault().start("server " + exchange.getRequestMethod() + " " + path);
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query != null) {
+                for (String pair : query.split("&")) {
+                    int equals = pair.indexOf('=');
+                    if (equals > 0) {
+                        parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                                URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        }
+
+        String parameter(String name) {
+            return parameters.get(name);
+        }
+
+        String requiredParameter(String name) {
+            String value = parameters.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing parameter: " + name);
+            }
+            return value;
+        }
+
+        long longParameter(String name, long defaultValue) {
+            String value = parameters.get(name);
+            return value == null ? defaultValue : Long.parseLong(value);
+        }
+
+        boolean notModified() throws IOException {
+            return notModified(version);
+        }
+
+        // Tags the answer with the version; true (and answered 304) when the client already has it.
+        boolean notModified(long version) throws IOException {
+            String etag = "\"" + version + (binary ? "b" : "j") + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Vary", "Accept");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return true;
+            }
+            return false;
+        }
+
+        boolean hasToken(byte[] token) {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            return authorization != null && authorization.startsWith("Bearer ")
+                    && MessageDigest.isEqual(token, authorization.substring(7).getBytes(StandardCharsets.UTF_8));
+        }
+
+        // The whole body, read up front so its length bounds what the handler allocates.
+        DataInputStream binaryBody() throws IOException {
+            String type = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (type == null || !type.startsWith(StudentWire.BINARY_TYPE)) {
+                throw new IllegalArgumentException("Expected a " + StudentWire.BINARY_TYPE + " body");
+            }
+            String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (contentLength == null) {
+                throw new IllegalArgumentException("A Content-Length is required");
+            }
+            long length = Long.parseLong(contentLength);
+            if (length < 0 || length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("The body must be at most " + MAX_BODY_BYTES + " bytes");
+            }
+            byte[] body = exchange.getRequestBody().readNBytes((int) length);
+            if (body.length < length) {
+                throw new EOFException();
+            }
+            return new DataInputStream(new ByteArrayInputStream(body));
+        }
+
+        void sendBinary(BinaryBody body) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                body.write(out);
+            }
+            send(StudentWire.BINARY_TYPE, bytes.toByteArray());
+        }
+
+        void sendJson(CharSequence json) throws IOException {
+            send(StudentWire.JSON_TYPE, json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        void sendError(int status, String message) {
+            StudentServer.sendError(exchange, status, message);
+        }
+
+        private void send(String contentType, byte[] body) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            op.addBytes(body.length);
+        }
+
+        // The exchange stays open so dispatch can still answer with an error.
+        @Override
+        public void close() {
+            op.close();
+        }
+    }
+}
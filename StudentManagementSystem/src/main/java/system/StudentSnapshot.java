@@ -0,0 +1,199 @@
+package system;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Compact binary copy of the loaded students, so the next launch can show the table from a memory-
+// mapped file before the database answers. The file records the database time the rows are current
+// as of; StudentDeltaSync brings them up to date from there. Layout (big-endian):
+//
+//   int magic, int version, int source hash, long watermark millis, int watermark nanos, int rows,
+//   int dictionary size, dictionary strings,
+//   rows of: long id, int mathematics, physics, chemistry marks, int gender, semester, address
+//            dictionary codes (-1 for null), strings name, email, contact number, admission number,
+//   long CRC32 of everything before it.
+//
+// Strings are a short UTF-8 byte length (-1 for null) followed by the bytes.
+public class StudentSnapshot {
+    static final int MAGIC = 0x534D5353;
+    static final int VERSION = 1;
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private StudentSnapshot() {
+    }
+
+    // Writes to a temporary file and renames it over the old snapshot, so a crash mid-write never
+    // leaves a torn file behind.
+    public static void write(Path file, String source, List<Student> students, Timestamp watermark) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> dictionaryValues = new ArrayList<>();
+        for (Student student : students) {
+            code(dictionary, dictionaryValues, student.getGender());
+            code(dictionary, dictionaryValues, student.getSemester());
+            code(dictionary, dictionaryValues, student.getAddress());
+        }
+
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(source.hashCode())
+                        .putLong(watermark.getTime()).putInt(watermark.getNanos())
+                        .putInt(students.size()).putInt(dictionaryValues.size());
+                for (String value : dictionaryValues) {
+                    buffer = putString(channel, buffer, crc, value);
+                }
+                for (Student student : students) {
+                    buffer = ensure(channel, buffer, crc, 8 + 6 * 4);
+                    buffer.putLong(student.getId())
+                            .putInt(student.getMathematicsMarks()).putInt(student.getPhysicsMarks()).putInt(student.getChemistryMarks())
+                            .putInt(code(dictionary, dictionaryValues, student.getGender()))
+                            .putInt(code(dictionary, dictionaryValues, student.getSemester()))
+                            .putInt(code(dictionary, dictionaryValues, student.getAddress()));
+                    buffer = putString(channel, buffer, crc, student.getName());
+                    buffer = putString(channel, buffer, crc, student.getEmail());
+                    buffer = putString(channel, buffer, crc, student.getContactNumber());
+                    buffer = putString(channel, buffer, crc, student.getAdmissionNumber());
+                }
+                drain(channel, buffer, crc);
+                buffer.putLong(crc.getValue());
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // Gone after a successful move; left over only when the write failed.
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Maps the file and hands its rows, appended to store, to the consumer in batches of the given
+    // sizes. Returns the watermark, or null when the file is missing, damaged, of another version
+    // or taken from another database.
+    public static Timestamp read(Path file, String source, StudentStore store, int firstBatchSize, int batchSize, Consumer<List<Student>> consumer) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 40 || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION || mapped.getInt(8) != source.hashCode()) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(mapped.slice(0, (int) size - 8));
+            if (crc.getValue() != mapped.getLong((int) size - 8)) {
+                return null;
+            }
+
+            ByteBuffer in = mapped.slice(0, (int) size - 8).position(12);
+            Timestamp watermark = new Timestamp(in.getLong());
+            watermark.setNanos(in.getInt());
+            int rows = in.getInt();
+            String[] dictionary = new String[in.getInt()];
+            byte[] scratch = new byte[Short.MAX_VALUE];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = getString(in, scratch);
+            }
+            int limit = firstBatchSize;
+            List<Student> batch = new ArrayList<>(limit);
+            for (int row = 0; row < rows; row++) {
+                long id = in.getLong();
+                int mathematicsMarks = in.getInt();
+                int physicsMarks = in.getInt();
+                int chemistryMarks = in.getInt();
+                String gender = lookup(dictionary, in.getInt());
+                String semester = lookup(dictionary, in.getInt());
+                String address = lookup(dictionary, in.getInt());
+                String name = getString(in, scratch);
+                String email = getString(in, scratch);
+                String contactNumber = getString(in, scratch);
+                String admissionNumber = getString(in, scratch);
+                batch.add(store.append(id, name, gender, email, contactNumber, address, mathematicsMarks, physicsMarks, chemistryMarks, admissionNumber, semester));
+                if (batch.size() == limit) {
+                    consumer.accept(batch);
+                    limit = batchSize;
+                    batch = new ArrayList<>(limit);
+                }
+            }
+            if (!batch.isEmpty()) {
+                consumer.accept(batch);
+            }
+            return watermark;
+        }
+    }
+
+    private static int code(Map<String, Integer> dictionary, List<String> values, String value) {
+        if (value == null) {
+            return -1;
+        }
+        return dictionary.computeIfAbsent(value, key -> {
+            values.add(key);
+            return values.size() - 1;
+        });
+    }
+
+    private static String lookup(String[] dictionary, int code) {
+        return code < 0 ? null : dictionary[code];
+    }
+
+    private static ByteBuffer putString(FileChannel channel, ByteBuffer buffer, CRC32 crc, String value) throws IOException {
+        if (value == null) {
+            buffer = ensure(channel, buffer, crc, 2);
+            return buffer.putShort((short) -1);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IOException("Value too long for the snapshot: " + bytes.length + " bytes");
+        }
+        buffer = ensure(channel, buffer, crc, 2 + bytes.length);
+        return buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in, byte[] scratch) {
+        int length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        in.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer ensure(FileChannel channel, ByteBuffer buffer, CRC32 crc, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer, crc);
+        }
+        return buffer;
+    }
+
+    // Writes out the buffered bytes, folding them into the checksum, and leaves the buffer empty.
+    private static void drain(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,76 @@
+package system;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Where the student rows live: the load, save, delete and scatter-query operations the table, the
+// importer and the write-behind queue need. StudentRepository is the MySQL backend and also offers
+// the SQL-only features (paging, delta sync, reports, migrations); LogStructuredStudentStorage keeps
+// the rows in local files for offline and test use. Failures of either surface as SQLException, so
+// callers handle both alike.
+public interface StudentStorage extends AutoCloseable {
+    int count() throws SQLException;
+
+    // Every row, in chunks: the first holds firstBatchSize rows, the rest hold batchSize rows.
+    int streamAll(int firstBatchSize, int batchSize, Consumer<List<Student>> consumer, BooleanSupplier cancelled) throws SQLException;
+
+    void save(Student student) throws SQLException;
+
+    // Stores all students at once and copies the assigned ids back onto them. Either every student
+    // is stored or none is; a batch larger than maxBatchSize() is rejected.
+    void insertBatch(List<Student> students) throws SQLException;
+
+    // Most students one insertBatch call accepts.
+    default int maxBatchSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    int deleteByIds(long[] ids) throws SQLException;
+
+    // Id of a stored row with the student's name, admission number and semester, or 0 when there is
+    // none.
+    long findMatchingId(Student student) throws SQLException;
+
+    // The student's marks in the subject per semester, in semester order.
+    List<StudentRepository.SemesterMark> findSemesterMarks(String studentName, String subject) throws SQLException;
+
+    // The storage clock as a delta sync watermark, or null when there is no change feed because no
+    // other client can write to the storage.
+    Timestamp currentTimestamp() throws SQLException;
+
+    // Identifies the storage the rows come from, e.g. to tell whether a local snapshot belongs to it.
+    String getSource();
+
+    @Override
+    void close();
+
+    // sms.storage selects the backend: "mysql" (the default) is StudentRepository on sms.db.url,
+    // "embedded" is LogStructuredStudentStorage in the sms.storage.path directory and "server" is
+    // HttpStudentStorage, a client of the StudentServer at sms.server.url that writes with the
+    // shared sms.server.token.
+    static StudentStorage open(DatabaseConfig config) throws IOException {
+        return open(config, config.getString("sms.storage", "mysql"));
+    }
+
+    static StudentStorage open(DatabaseConfig config, String backend) throws IOException {
+        switch (backend) {
+            case "mysql":
+                return new StudentRepository(config);
+            case "embedded":
+                return new LogStructuredStudentStorage(Paths.get(config.getString("sms.storage.path", "student_data")),
+                        config.getInt("sms.storage.segmentMegabytes", 64) * 1024L * 1024L,
+                        config.getInt("sms.storage.compactionSeconds", 60));
+            case "server":
+                return new HttpStudentStorage(URI.create(config.getString("sms.server.url", "http://localhost:" + StudentServer.DEFAULT_PORT)),
+                        config.getString("sms.server.token", null));
+            default:
+                throw new IllegalArgumentException("Unknown storage backend: " + backend);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package system;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Columnar storage behind Student: marks and ids are primitive columns, gender, semester and address
+// are dictionary-encoded, and a Student is just a (store, row) view. Columns are allocated in fixed
+// chunks that never move, so appends from loader threads cannot lose a concurrent write to an
+// existing row. Rows are append-only, so short-lived rows (a table page, a benchmark pass, a request
+// body) belong in their own store rather than the shared default one. The default store is replaced
+// by a new generation on every full load, so the rows of earlier loads are freed together with the
+// last Student that refers to them.
+//
+// The profile fields (name, gender, email, contact number, address, admission number) live in a
+// separate profile table, and a row only holds the index of its profile. Rows with an identical
+// profile, i.e. one student's semester rows, share a single entry. Profiles are never changed in
+// place: setting a profile field on a row points that row at another profile, so the edit does
+// not leak into the student's other rows.
+public class StudentStore {
+    private static final int DEFAULT_CHUNK_BITS = 14;
+    private static volatile StudentStore generation = new StudentStore();
+
+    private final StringDictionary genders = new StringDictionary();
+    private final StringDictionary semesters = new StringDictionary();
+    private final StringDictionary addresses = new StringDictionary();
+
+    private final int chunkBits;
+    private final int chunkMask;
+    private volatile Chunk[] chunks = new Chunk[16];
+    private int size;
+
+    // Every profile by its full value; guarded by profileLock.
+    private final Object profileLock = new Object();
+    private final Map<ProfileKey, Integer> profilesByValue = new HashMap<>();
+    private volatile ProfileChunk[] profileChunks = new ProfileChunk[16];
+    private int profileCount;
+
+    public StudentStore() {
+        this(DEFAULT_CHUNK_BITS);
+    }
+
+    // Small stores (e.g. one table page) should use small chunks; a chunk holds 2^chunkBits rows.
+    public StudentStore(int chunkBits) {
+        if (chunkBits < 4 || chunkBits > 20) {
+            throw new IllegalArgumentException("chunkBits must be between 4 and 20");
+        }
+        this.chunkBits = chunkBits;
+        this.chunkMask = (1 << chunkBits) - 1;
+    }
+
+    public static StudentStore getDefault() {
+        return generation;
+    }
+
+    // Starts a new default store for a full load; the previous one is no longer appended to.
+    public static StudentStore newGeneration() {
+        StudentStore store = new StudentStore();
+        generation = store;
+        return store;
+    }
+
+    public Student append(long id, String name, String gender, String email, String contactNumber, String address, int mathematicsMarks, int physicsMarks, int chemistryMarks, String admissionNumber, String semester) {
+        return new Student(this, appendRow(id, name, gender, email, contactNumber, address, mathematicsMarks, physicsMarks, chemistryMarks, admissionNumber, semester));
+    }
+
+    public Student copyOf(Student source) {
+        return append(source.getId(), source.getName(), source.getGender(), source.getEmail(), source.getContactNumber(), source.getAddress(),
+                source.getMathematicsMarks(), source.getPhysicsMarks(), source.getChemistryMarks(), source.getAdmissionNumber(), source.getSemester());
+    }
+
+    int appendRow(long id, String name, String gender, String email, String contactNumber, String address, int mathematicsMarks, int physicsMarks, int chemistryMarks, String admissionNumber, String semester) {
+        return appendRow(id, profile(name, gender, email, contactNumber, address, admissionNumber), mathematicsMarks, physicsMarks, chemistryMarks, semester);
+    }
+
+    // Appends a row for an existing profile, as returned by profile(...).
+    public Student appendWithProfile(long id, int profile, int mathematicsMarks, int physicsMarks, int chemistryMarks, String semester) {
+        if (profile < 0 || profile >= profileCount()) {
+            throw new IndexOutOfBoundsException(profile);
+        }
+        return new Student(this, appendRow(id, profile, mathematicsMarks, physicsMarks, chemistryMarks, semester));
+    }
+
+    private int appendRow(long id, int profile, int mathematicsMarks, int physicsMarks, int chemistryMarks, String semester) {
+        int semesterCode = semesters.encode(semester);
+        int row;
+        Chunk chunk;
+        synchronized (this) {
+            row = size++;
+            int index = row >>> chunkBits;
+            Chunk[] current = chunks;
+            if (index == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            if (current[index] == null) {
+                current[index] = new Chunk(chunkMask + 1);
+            }
+            chunks = current;
+            chunk = current[index];
+        }
+        int offset = row & chunkMask;
+        chunk.ids[offset] = id;
+        chunk.profiles[offset] = profile;
+        chunk.mathematicsMarks[offset] = mathematicsMarks;
+        chunk.physicsMarks[offset] = physicsMarks;
+        chunk.chemistryMarks[offset] = chemistryMarks;
+        chunk.semesters[offset] = semesterCode;
+        return row;
+    }
+
+    // Index of a profile with exactly these fields, adding a new one when no profile has them all.
+    public int profile(String name, String gender, String email, String contactNumber, String address, String admissionNumber) {
+        ProfileKey key = new ProfileKey(name, genders.encode(gender), email, contactNumber, addresses.encode(address), admissionNumber);
+        synchronized (profileLock) {
+            Integer existing = profilesByValue.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            int profile = profileCount++;
+            int index = profile >>> chunkBits;
+            ProfileChunk[] current = profileChunks;
+            if (index == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            if (current[index] == null) {
+                current[index] = new ProfileChunk(chunkMask + 1);
+            }
+            profileChunks = current;
+            ProfileChunk chunk = current[index];
+            int offset = profile & chunkMask;
+            chunk.names[offset] = name;
+            chunk.genders[offset] = key.gender;
+            chunk.emails[offset] = email;
+            chunk.contactNumbers[offset] = contactNumber;
+            chunk.addresses[offset] = key.address;
+            chunk.admissionNumbers[offset] = admissionNumber;
+            profilesByValue.put(key, profile);
+            return profile;
+        }
+    }
+
+    public int profileCount() {
+        synchronized (profileLock) {
+            return profileCount;
+        }
+    }
+
+    // Points the row at a profile equal to its current one except for the fields set by edit.
+    private void editProfile(int row, ProfileEdit edit) {
+        synchronized (profileLock) {
+            int current = getProfile(row);
+            ProfileChunk chunk = profileChunk(current);
+            int offset = current & chunkMask;
+            String[] fields = {chunk.names[offset], genders.decode(chunk.genders[offset]), chunk.emails[offset],
+                    chunk.contactNumbers[offset], addresses.decode(chunk.addresses[offset]), chunk.admissionNumbers[offset]};
+            edit.apply(fields);
+            chunk(row).profiles[row & chunkMask] = profile(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5]);
+        }
+    }
+
+    // A fresh view of an existing row; properties created through it are not shared with other views.
+    public Student view(int row) {
+        if (row < 0 || row >= size()) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        return new Student(this, row);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private Chunk chunk(int row) {
+        return chunks[row >>> chunkBits];
+    }
+
+    private ProfileChunk profileChunk(int profile) {
+        return profileChunks[profile >>> chunkBits];
+    }
+
+    int getProfile(int row) {
+        return chunk(row).profiles[row & chunkMask];
+    }
+
+    long getId(int row) {
+        return chunk(row).ids[row & chunkMask];
+    }
+
+    void setId(int row, long id) {
+        chunk(row).ids[row & chunkMask] = id;
+    }
+
+    String getName(int row) {
+        int profile = getProfile(row);
+        return profileChunk(profile).names[profile & chunkMask];
+    }
+
+    void setName(int row, String name) {
+        editProfile(row, fields -> fields[0] = name);
+    }
+
+    String getGender(int row) {
+        int profile = getProfile(row);
+        return genders.decode(profileChunk(profile).genders[profile & chunkMask]);
+    }
+
+    void setGender(int row, String gender) {
+        editProfile(row, fields -> fields[1] = gender);
+    }
+
+    String getEmail(int row) {
+        int profile = getProfile(row);
+        return profileChunk(profile).emails[profile & chunkMask];
+    }
+
+    void setEmail(int row, String email) {
+        editProfile(row, fields -> fields[2] = email);
+    }
+
+    String getContactNumber(int row) {
+        int profile = getProfile(row);
+        return profileChunk(profile).contactNumbers[profile & chunkMask];
+    }
+
+    void setContactNumber(int row, String contactNumber) {
+        editProfile(row, fields -> fields[3] = contactNumber);
+    }
+
+    String getAddress(int row) {
+        int profile = getProfile(row);
+        return addresses.decode(profileChunk(profile).addresses[profile & chunkMask]);
+    }
+
+    void setAddress(int row, String address) {
+        editProfile(row, fields -> fields[4] = address);
+    }
+
+    int getMathematicsMarks(int row) {
+        return chunk(row).mathematicsMarks[row & chunkMask];
+    }
+
+    void setMathematicsMarks(int row, int marks) {
+        chunk(row).mathematicsMarks[row & chunkMask] = marks;
+    }
+
+    int getPhysicsMarks(int row) {
+        return chunk(row).physicsMarks[row & chunkMask];
+    }
+
+    void setPhysicsMarks(int row, int marks) {
+        chunk(row).physicsMarks[row & chunkMask] = marks;
+    }
+
+    int getChemistryMarks(int row) {
+        return chunk(row).chemistryMarks[row & chunkMask];
+    }
+
+    void setChemistryMarks(int row, int marks) {
+        chunk(row).chemistryMarks[row & chunkMask] = marks;
+    }
+
+    String getAdmissionNumber(int row) {
+        int profile = getProfile(row);
+        return profileChunk(profile).admissionNumbers[profile & chunkMask];
+    }
+
+    void setAdmissionNumber(int row, String admissionNumber) {
+        editProfile(row, fields -> fields[5] = admissionNumber);
+    }
+
+    String getSemester(int row) {
+        return semesters.decode(chunk(row).semesters[row & chunkMask]);
+    }
+
+    void setSemester(int row, String semester) {
+        chunk(row).semesters[row & chunkMask] = semesters.encode(semester);
+    }
+
+    private interface ProfileEdit {
+        void apply(String[] fields);
+    }
+
+    private static final class ProfileKey {
+        private final String name;
+        private final int gender;
+        private final String email;
+        private final String contactNumber;
+        private final int address;
+        private final String admissionNumber;
+
+        private ProfileKey(String name, int gender, String email, String contactNumber, int address, String admissionNumber) {
+            this.name = name;
+            this.gender = gender;
+            this.email = email;
+            this.contactNumber = contactNumber;
+            this.address = address;
+            this.admissionNumber = admissionNumber;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ProfileKey)) {
+                return false;
+            }
+            ProfileKey other = (ProfileKey) o;
+            return gender == other.gender && address == other.address && Objects.equals(name, other.name)
+                    && Objects.equals(email, other.email) && Objects.equals(contactNumber, other.contactNumber)
+                    && Objects.equals(admissionNumber, other.admissionNumber);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, gender, email, contactNumber, address, admissionNumber);
+        }
+    }
+
+    private static final class Chunk {
+        private final long[] ids;
+        private final int[] profiles;
+        private final int[] mathematicsMarks;
+        private final int[] physicsMarks;
+        private final int[] chemistryMarks;
+        private final int[] semesters;
+
+        private Chunk(int size) {
+            ids = new long[size];
+            profiles = new int[size];
+            mathematicsMarks = new int[size];
+            physicsMarks = new int[size];
+            chemistryMarks = new int[size];
+            semesters = new int[size];
+        }
+    }
+
+    private static final class ProfileChunk {
+        private final String[] names;
+        private final int[] genders;
+        private final String[] emails;
+        private final String[] contactNumbers;
+        private final int[] addresses;
+        private final String[] admissionNumbers;
+
+        private ProfileChunk(int size) {
+            names = new String[size];
+            genders = new int[size];
+            emails = new String[size];
+            contactNumbers = new String[size];
+            addresses = new int[size];
+            admissionNumbers = new String[size];
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package system;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-student, per-subject semester series for the grading dialog, kept in an LRU cache so switching
+// between students does not query again. Writes invalidate the affected student (or everything,
+// when the caller cannot tell which). Series longer than maxPoints are downsampled with
+// largest-triangle-three-buckets, which keeps the peaks and dips a plain stride would drop.
+public class StudentTrendService {
+    static final List<String> SUBJECTS = List.of("Mathematics", "Physics", "Chemistry");
+    public static final int DEFAULT_MAX_POINTS = 120;
+
+    private final int capacity;
+    private final int maxPoints;
+    private final Loader loader;
+    private final Map<String, Trend> cache;
+    private long generation;
+
+    public StudentTrendService(int capacity, int maxPoints, Loader loader) {
+        this.capacity = Math.max(1, capacity);
+        this.maxPoints = Math.max(3, maxPoints);
+        this.loader = loader;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Trend> eldest) {
+                return size() > StudentTrendService.this.capacity;
+            }
+        };
+    }
+
+    // The cached series, or null when it has to be loaded first.
+    public synchronized Trend getIfCached(String studentName, String subject) {
+        return cache.get(key(studentName, subject));
+    }
+
+    // Loads outside the lock; a load that raced with an invalidation is returned but not cached.
+    public Trend get(String studentName, String subject) throws SQLException {
+        long loadedAt;
+        synchronized (this) {
+            Trend cached = cache.get(key(studentName, subject));
+            if (cached != null) {
+                return cached;
+            }
+            loadedAt = generation;
+        }
+        Trend trend = build(studentName, subject, loader.load(studentName, subject), maxPoints);
+        synchronized (this) {
+            if (generation == loadedAt) {
+                cache.put(key(studentName, subject), trend);
+            }
+        }
+        return trend;
+    }
+
+    public synchronized void invalidate(String studentName) {
+        generation++;
+        for (String subject : SUBJECTS) {
+            cache.remove(key(studentName, subject));
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        cache.clear();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    private static String key(String studentName, String subject) {
+        return studentName + '\u0000' + subject;
+    }
+
+    static Trend build(String studentName, String subject, List<StudentRepository.SemesterMark> marks, int maxPoints) {
+        int[] semesters = new int[marks.size()];
+        int[] values = new int[marks.size()];
+        for (int i = 0; i < semesters.length; i++) {
+            semesters[i] = marks.get(i).getSemester();
+            values[i] = marks.get(i).getMarks();
+        }
+        int[] points = downsample(semesters, values, maxPoints);
+        int[] shownSemesters = new int[points.length];
+        int[] shownMarks = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+            shownSemesters[i] = semesters[points[i]];
+            shownMarks[i] = values[points[i]];
+        }
+        return new Trend(studentName, subject, shownSemesters, shownMarks, semesters.length);
+    }
+
+    // Largest-triangle-three-buckets: keeps the first and last point and, from each of threshold - 2
+    // equal buckets in between, the point forming the largest triangle with the point kept from the
+    // previous bucket and the average of the next bucket. Returns the indices of the kept points.
+    static int[] downsample(int[] x, int[] y, int threshold) {
+        int n = x.length;
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        int[] kept = new int[threshold];
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int previous = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int from = (int) (bucket * bucketSize) + 1;
+            int to = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextFrom = to;
+            int nextTo = Math.min(n, (int) ((bucket + 2) * bucketSize) + 1);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextFrom; i < nextTo; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            int nextCount = Math.max(1, nextTo - nextFrom);
+            averageX /= nextCount;
+            averageY /= nextCount;
+
+            double largestArea = -1;
+            int selected = from;
+            for (int i = from; i < to; i++) {
+                double area = Math.abs((x[previous] - averageX) * (y[i] - y[previous]) - (x[previous] - x[i]) * (averageY - y[previous]));
+                if (area > largestArea) {
+                    largestArea = area;
+                    selected = i;
+                }
+            }
+            kept[bucket + 1] = selected;
+            previous = selected;
+        }
+        kept[threshold - 1] = n - 1;
+        return kept;
+    }
+
+    public interface Loader {
+        // Semester marks in ascending semester order.
+        List<StudentRepository.SemesterMark> load(String studentName, String subject) throws SQLException;
+    }
+
+    public static final class Trend {
+        private final String studentName;
+        private final String subject;
+        private final int[] semesters;
+        private final int[] marks;
+        private final int sourceSize;
+
+        public Trend(String studentName, String subject, int[] semesters, int[] marks, int sourceSize) {
+            this.studentName = studentName;
+            this.subject = subject;
+            this.semesters = semesters;
+            this.marks = marks;
+            this.sourceSize = sourceSize;
+        }
+
+        public String getStudentName() {
+            return studentName;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public int size() {
+            return semesters.length;
+        }
+
+        public int getSemester(int point) {
+            return semesters[point];
+        }
+
+        public int getMarks(int point) {
+            return marks[point];
+        }
+
+        // Number of semesters before downsampling.
+        public int getSourceSize() {
+            return sourceSize;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package system;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Encodings StudentServer answers in. The binary one is what HttpStudentStorage speaks: big-endian
+// DataOutput values, strings as an int UTF-8 length (-1 for null) and the bytes, and rows as long id,
+// the strings name, gender, email, contact number, address, admission number, semester and int
+// mathematics, physics and chemistry marks. JSON is for scripts and browsers.
+final class StudentWire {
+    static final String BINARY_TYPE = "application/x-sms-students";
+    static final String JSON_TYPE = "application/json; charset=utf-8";
+
+    private StudentWire() {
+    }
+
+    static void writeRow(DataOutputStream out, Student student) throws IOException {
+        out.writeLong(student.getId());
+        writeString(out, student.getName());
+        writeString(out, student.getGender());
+        writeString(out, student.getEmail());
+        writeString(out, student.getContactNumber());
+        writeString(out, student.getAddress());
+        writeString(out, student.getAdmissionNumber());
+        writeString(out, student.getSemester());
+        out.writeInt(student.getMathematicsMarks());
+        out.writeInt(student.getPhysicsMarks());
+        out.writeInt(student.getChemistryMarks());
+    }
+
+    static Student readRow(DataInputStream in, StudentStore store) throws IOException {
+        long id = in.readLong();
+        String name = readString(in);
+        String gender = readString(in);
+        String email = readString(in);
+        String contactNumber = readString(in);
+        String address = readString(in);
+        String admissionNumber = readString(in);
+        String semester = readString(in);
+        return store.append(id, name, gender, email, contactNumber, address, in.readInt(), in.readInt(), in.readInt(), admissionNumber, semester);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // in is always over a byte array, so available() is exactly what is left of the message.
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new EOFException();
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static StringBuilder appendRowJson(StringBuilder json, Student student) {
+        json.append("{\"id\":").append(student.getId()).append(",\"name\":");
+        ReportWriter.appendJson(json, student.getName()).append(",\"gender\":");
+        ReportWriter.appendJson(json, student.getGender()).append(",\"email\":");
+        ReportWriter.appendJson(json, student.getEmail()).append(",\"contact_number\":");
+        ReportWriter.appendJson(json, student.getContactNumber()).append(",\"address\":");
+        ReportWriter.appendJson(json, student.getAddress()).append(",\"admission_number\":");
+        ReportWriter.appendJson(json, student.getAdmissionNumber()).append(",\"semester\":");
+        ReportWriter.appendJson(json, student.getSemester())
+                .append(",\"mathematics_marks\":").append(student.getMathematicsMarks())
+                .append(",\"physics_marks\":").append(student.getPhysicsMarks())
+                .append(",\"chemistry_marks\":").append(student.getChemistryMarks());
+        return json.append('}');
+    }
+}
@@ -0,0 +1,223 @@
+package system;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.XYChart;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Running per-student totals for the "Total Marks of Students" bar chart. Change events from the
+// source list are folded into per-name deltas, and only the bars whose values changed are touched.
+// With many students the chart shows the top N or a histogram, since thousands of category bars
+// make chart layout the bottleneck.
+public final class TotalMarksAggregator {
+    public enum Mode { AUTO, ALL, TOP_N, HISTOGRAM }
+
+    static final int TOP_N = 25;
+    static final int AUTO_THRESHOLD = 50;
+    static final int BUCKET_WIDTH = 50;
+
+    private final Map<String, Aggregate> aggregates = new HashMap<>();
+    private final TreeSet<Aggregate> ranking = new TreeSet<>(
+            Comparator.comparingLong((Aggregate aggregate) -> aggregate.total).reversed().thenComparing(aggregate -> aggregate.name));
+    private final TreeMap<Long, Integer> histogram = new TreeMap<>();
+    private final XYChart.Series<String, Number> series = new XYChart.Series<>();
+    private final Map<String, XYChart.Data<String, Number>> displayed = new HashMap<>();
+    private Mode mode = Mode.AUTO;
+    private Mode displayedMode;
+
+    public TotalMarksAggregator(ObservableList<Student> source) {
+        apply(deltas(source, 1, null));
+        source.addListener((ListChangeListener<Student>) change -> {
+            Map<String, Aggregate> deltas = new HashMap<>();
+            while (change.next()) {
+                if (change.wasPermutated() || change.wasUpdated()) {
+                    continue;
+                }
+                deltas(change.getRemoved(), -1, deltas);
+                deltas(change.getAddedSubList(), 1, deltas);
+            }
+            apply(deltas);
+        });
+    }
+
+    public XYChart.Series<String, Number> getSeries() {
+        return series;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+        refresh(null);
+    }
+
+    public Mode getEffectiveMode() {
+        if (mode != Mode.AUTO) {
+            return mode;
+        }
+        return aggregates.size() <= AUTO_THRESHOLD ? Mode.ALL : Mode.TOP_N;
+    }
+
+    public long getTotal(String name) {
+        Aggregate aggregate = aggregates.get(name);
+        return aggregate == null ? 0 : aggregate.total;
+    }
+
+    public int getStudentCount() {
+        return aggregates.size();
+    }
+
+    private static Map<String, Aggregate> deltas(List<? extends Student> students, int sign, Map<String, Aggregate> deltas) {
+        if (deltas == null) {
+            deltas = new HashMap<>();
+        }
+        for (Student student : students) {
+            if (student.getName() == null) {
+                continue;
+            }
+            Aggregate delta = deltas.computeIfAbsent(student.getName(), Aggregate::new);
+            delta.rows += sign;
+            delta.total += sign * (long) student.getTotalMarks();
+        }
+        return deltas;
+    }
+
+    private void apply(Map<String, Aggregate> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        for (Aggregate delta : deltas.values()) {
+            if (delta.rows == 0 && delta.total == 0) {
+                continue;
+            }
+            Aggregate aggregate = aggregates.get(delta.name);
+            if (aggregate == null) {
+                aggregate = new Aggregate(delta.name);
+                aggregates.put(delta.name, aggregate);
+            } else {
+                ranking.remove(aggregate);
+                histogram.merge(bucket(aggregate.total), -1, (count, change) -> count + change == 0 ? null : count + change);
+            }
+            aggregate.rows += delta.rows;
+            aggregate.total += delta.total;
+            if (aggregate.rows <= 0) {
+                aggregates.remove(delta.name);
+            } else {
+                ranking.add(aggregate);
+                histogram.merge(bucket(aggregate.total), 1, Integer::sum);
+            }
+        }
+        refresh(deltas.keySet());
+    }
+
+    // changedNames == null forces every visible bar to be re-synchronized.
+    private void refresh(Iterable<String> changedNames) {
+        Mode effective = getEffectiveMode();
+        if (effective != displayedMode) {
+            displayed.clear();
+            series.getData().clear();
+            displayedMode = effective;
+            changedNames = null;
+        }
+        switch (effective) {
+            case ALL:
+                series.setName("Total Marks");
+                if (changedNames == null) {
+                    changedNames = new ArrayList<>(aggregates.keySet());
+                }
+                for (String name : changedNames) {
+                    Aggregate aggregate = aggregates.get(name);
+                    XYChart.Data<String, Number> data = displayed.get(name);
+                    if (aggregate == null) {
+                        if (data != null) {
+                            displayed.remove(name);
+                            series.getData().remove(data);
+                        }
+                    } else if (data == null) {
+                        data = new XYChart.Data<>(name, aggregate.total);
+                        displayed.put(name, data);
+                        series.getData().add(data);
+                    } else if (data.getYValue().longValue() != aggregate.total) {
+                        data.setYValue(aggregate.total);
+                    }
+                }
+                break;
+            case TOP_N:
+                series.setName("Total Marks (top " + TOP_N + " of " + aggregates.size() + ")");
+                Map<String, Number> top = new LinkedHashMap<>();
+                Iterator<Aggregate> iterator = ranking.iterator();
+                while (iterator.hasNext() && top.size() < TOP_N) {
+                    Aggregate aggregate = iterator.next();
+                    top.put(aggregate.name, aggregate.total);
+                }
+                sync(top);
+                break;
+            case HISTOGRAM:
+                series.setName("Students per Total Marks range");
+                Map<String, Number> buckets = new LinkedHashMap<>();
+                for (Map.Entry<Long, Integer> entry : histogram.entrySet()) {
+                    buckets.put(entry.getKey() + "-" + (entry.getKey() + BUCKET_WIDTH - 1), entry.getValue());
+                }
+                sync(buckets);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected mode " + effective);
+        }
+    }
+
+    // Brings the (small) visible category set in line with wanted, in wanted's order, reusing
+    // existing bars: a new bar is inserted at its index and a bar whose rank changed is moved.
+    private void sync(Map<String, Number> wanted) {
+        Iterator<Map.Entry<String, XYChart.Data<String, Number>>> iterator = displayed.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, XYChart.Data<String, Number>> entry = iterator.next();
+            if (!wanted.containsKey(entry.getKey())) {
+                series.getData().remove(entry.getValue());
+                iterator.remove();
+            }
+        }
+        int index = 0;
+        for (Map.Entry<String, Number> entry : wanted.entrySet()) {
+            XYChart.Data<String, Number> data = displayed.get(entry.getKey());
+            if (data == null) {
+                data = new XYChart.Data<>(entry.getKey(), entry.getValue());
+                displayed.put(entry.getKey(), data);
+                series.getData().add(index, data);
+            } else {
+                if (series.getData().get(index) != data) {
+                    series.getData().remove(data);
+                    series.getData().add(index, data);
+                }
+                if (!data.getYValue().equals(entry.getValue())) {
+                    data.setYValue(entry.getValue());
+                }
+            }
+            index++;
+        }
+    }
+
+    private static long bucket(long total) {
+        return Math.floorDiv(total, BUCKET_WIDTH) * BUCKET_WIDTH;
+    }
+
+    private static final class Aggregate {
+        private final String name;
+        private int rows;
+        private long total;
+
+        private Aggregate(String name) {
+            this.name = name;
+        }
+    }
+}
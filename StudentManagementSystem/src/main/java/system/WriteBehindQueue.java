@@ -0,0 +1,507 @@
+package system;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Takes inserts and deletes off the FX thread. The UI applies each change to its list right away and
+// enqueues it here; a writer thread drains the queue, coalescing consecutive inserts and deletes into
+// one transaction each. Transient failures (lost connection, pool timeout, deadlock) are retried
+// with capped exponential backoff for as long as the application runs. A permanent failure is
+// narrowed down to the failing change, which is handed back to the Listener so the UI can undo it.
+//
+// Every change is appended to a local journal (and forced to disk) before enqueue returns, and
+// marked done once committed, so changes still pending at a crash are replayed on the next start.
+// A replayed insert is skipped when a matching row already exists, which covers a crash between
+// the commit and its journal mark. The marks of a batch are written together and forced once,
+// outside the queue's lock, so enqueueing never waits behind the writer's disk flushes. A failure
+// that is not an SQLException (a storage bug, a broken journal) rolls the batch back like a
+// rejected change instead of dropping it.
+public class WriteBehindQueue implements AutoCloseable {
+    static final int MAX_BATCH = 5_000;
+    static final long INITIAL_BACKOFF_MILLIS = 250;
+    static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final String NULL = "\\N";
+    private static final Logger logger = Logger.getLogger(WriteBehindQueue.class.getName());
+
+    private final StudentStorage storage;
+    private final Listener listener;
+    private final Executor listenerExecutor;
+    private final FileChannel journal;
+    private final Deque<Op> queue = new ArrayDeque<>();
+    private final Map<Student, Long> insertSeqs = new IdentityHashMap<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private long nextSeq = 1;
+    private int inFlight;
+
+    // listenerExecutor runs the Listener callbacks; the UI passes Platform::runLater.
+    public WriteBehindQueue(StudentStorage storage, Path journalFile, Listener listener, Executor listenerExecutor) throws IOException {
+        this.storage = storage;
+        this.listener = listener;
+        this.listenerExecutor = listenerExecutor;
+        List<Op> recovered = recover(journalFile);
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        queue.addAll(recovered);
+        if (!recovered.isEmpty()) {
+            logger.log(Level.INFO, "Replaying " + recovered.size() + " pending change(s) from " + journalFile);
+        }
+        writer = new Thread(this::writeLoop, "student-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public synchronized void enqueueInsert(Student student) throws IOException {
+        long seq = nextSeq++;
+        journal(seq + "\tI\t" + encode(student) + "\n");
+        journal.force(false);
+        Op op = new Op(seq);
+        op.insert = student;
+        insertSeqs.put(student, seq);
+        queue.add(op);
+        notifyAll();
+        pendingChanged();
+    }
+
+    // Students whose insert has not been taken by the writer yet cancel out against it; the rest are
+    // deleted by id once their insert, if still in flight, has committed.
+    public synchronized void enqueueDelete(List<Student> students) throws IOException {
+        Op op = new Op(nextSeq);
+        StringBuilder refs = new StringBuilder();
+        boolean journaled = false;
+        for (Student student : students) {
+            if (student.getId() <= 0 && cancelQueuedInsert(student)) {
+                journaled = true;
+                continue;
+            }
+            Long insertSeq = insertSeqs.get(student);
+            if (student.getId() <= 0 && insertSeq == null) {
+                continue;
+            }
+            refs.append(refs.length() == 0 ? "" : ",").append(student.getId() > 0 ? String.valueOf(student.getId()) : "@" + insertSeq);
+            op.deletes.add(student);
+        }
+        if (!op.deletes.isEmpty()) {
+            nextSeq++;
+            journal(op.seq + "\tD\t" + refs + "\n");
+            journaled = true;
+            queue.add(op);
+            notifyAll();
+        }
+        if (journaled) {
+            journal.force(false);
+        }
+        pendingChanged();
+    }
+
+    private boolean cancelQueuedInsert(Student student) throws IOException {
+        for (Iterator<Op> it = queue.iterator(); it.hasNext(); ) {
+            Op op = it.next();
+            if (op.insert == student) {
+                it.remove();
+                insertSeqs.remove(student);
+                journal(op.seq + "\tOK\t0\n");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int getPending() {
+        return queue.size() + inFlight;
+    }
+
+    private void writeLoop() {
+        while (running) {
+            List<Op> batch = new ArrayList<>();
+            try {
+                synchronized (this) {
+                    while (running && queue.isEmpty()) {
+                        wait();
+                    }
+                    while (!queue.isEmpty() && batch.size() < MAX_BATCH) {
+                        batch.add(queue.poll());
+                    }
+                    inFlight = batch.size();
+                }
+                try (Metrics.Operation op = Metrics.getDefault().start("writeBehind.flush")) {
+                    write(batch);
+                    op.addRows(batch.size());
+                }
+                synchronized (this) {
+                    inFlight = 0;
+                    if (queue.isEmpty()) {
+                        journal.truncate(0);
+                    }
+                    pendingChanged();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "An error occurred while writing queued changes", e);
+                rollBack(batch, e);
+            }
+        }
+    }
+
+    // Hands the batch's unfinished changes back to the listener after an unexpected failure, so the
+    // UI undoes them instead of showing rows that were never written.
+    private void rollBack(List<Op> batch, Exception cause) {
+        for (Op op : batch) {
+            if (op.done) {
+                continue;
+            }
+            try {
+                fail(op, cause);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "An error occurred while marking a rolled back change in the journal", e);
+            }
+        }
+        synchronized (this) {
+            inFlight = 0;
+            pendingChanged();
+        }
+    }
+
+    private void write(List<Op> batch) throws InterruptedException, IOException {
+        int from = 0;
+        while (from < batch.size()) {
+            boolean insert = batch.get(from).insert != null;
+            int to = from;
+            while (to < batch.size() && (batch.get(to).insert != null) == insert) {
+                to++;
+            }
+            List<Op> group = batch.subList(from, to);
+            if (insert) {
+                writeInserts(group);
+            } else {
+                writeDeletes(group);
+            }
+            from = to;
+        }
+    }
+
+    private void writeInserts(List<Op> ops) throws InterruptedException, IOException {
+        List<Op> pending = new ArrayList<>();
+        List<Op> existing = new ArrayList<>();
+        for (Op op : ops) {
+            if (op.replayed) {
+                long id = 0;
+                try {
+                    id = withRetry(() -> storage.findMatchingId(op.insert));
+                } catch (SQLException e) {
+                    logger.log(Level.WARNING, "Could not check whether a replayed insert was already written", e);
+                }
+                if (id > 0) {
+                    op.insert.setId(id);
+                    existing.add(op);
+                    continue;
+                }
+            }
+            pending.add(op);
+        }
+        complete(existing);
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            List<Student> students = new ArrayList<>();
+            for (Op op : pending) {
+                students.add(op.insert);
+            }
+            withRetry(() -> {
+                storage.insertBatch(students);
+                return null;
+            });
+            complete(pending);
+        } catch (SQLException e) {
+            for (Op op : pending) {
+                op.insert.setId(0);
+            }
+            if (pending.size() == 1) {
+                fail(pending.get(0), e);
+                return;
+            }
+            // One bad row fails the whole transaction; retry one by one to find it.
+            for (Op op : pending) {
+                writeInserts(Collections.singletonList(op));
+            }
+        }
+    }
+
+    private void writeDeletes(List<Op> ops) throws InterruptedException, IOException {
+        List<Long> ids = new ArrayList<>();
+        for (Op op : ops) {
+            for (Student student : op.deletes) {
+                if (student.getId() > 0) {
+                    ids.add(student.getId());
+                }
+            }
+            for (long id : op.deleteIds) {
+                ids.add(id);
+            }
+        }
+        try {
+            long[] idArray = ids.stream().mapToLong(Long::longValue).toArray();
+            withRetry(() -> storage.deleteByIds(idArray));
+            complete(ops);
+        } catch (SQLException e) {
+            if (ops.size() == 1) {
+                fail(ops.get(0), e);
+                return;
+            }
+            for (Op op : ops) {
+                writeDeletes(Collections.singletonList(op));
+            }
+        }
+    }
+
+    // Runs the call until it succeeds or fails permanently; transient failures back off and retry.
+    private <T> T withRetry(SqlCall<T> call) throws SQLException, InterruptedException {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        while (true) {
+            try {
+                return call.run();
+            } catch (RuntimeException e) {
+                // A storage bug is narrowed down and rolled back like a rejected change.
+                throw new SQLNonTransientException("The storage failed unexpectedly", e);
+            } catch (SQLException e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                logger.log(Level.WARNING, "Queued changes could not be written, retrying in " + backoff + " ms", e);
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff / 4 + 1));
+                if (!running) {
+                    throw new InterruptedException("Write-behind queue closed");
+                }
+                backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+            }
+        }
+    }
+
+    static boolean isTransient(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        // 08: connection exceptions; 40: transaction rollback (deadlock, serialization failure).
+        // 1205/1213: MySQL lock wait timeout and deadlock.
+        return state != null && (state.startsWith("08") || state.startsWith("40"))
+                || e.getErrorCode() == 1205 || e.getErrorCode() == 1213;
+    }
+
+    // Marks committed changes done: one journal write for all of them, forced once outside the lock.
+    private void complete(List<Op> ops) throws IOException {
+        if (ops.isEmpty()) {
+            return;
+        }
+        StringBuilder marks = new StringBuilder();
+        for (Op op : ops) {
+            marks.append(op.seq).append("\tOK\t").append(op.insert != null ? op.insert.getId() : 0).append('\n');
+        }
+        synchronized (this) {
+            journal(marks);
+            for (Op op : ops) {
+                op.done = true;
+                if (op.insert != null) {
+                    insertSeqs.remove(op.insert);
+                }
+            }
+        }
+        journal.force(false);
+    }
+
+    private void fail(Op op, Exception cause) throws IOException {
+        logger.log(Level.SEVERE, "A queued change was rejected by the database and has been undone", cause);
+        op.done = true;
+        try {
+            synchronized (this) {
+                if (op.insert != null) {
+                    insertSeqs.remove(op.insert);
+                }
+                journal(op.seq + "\tOK\t0\n");
+            }
+            journal.force(false);
+        } finally {
+            List<Student> inserted = op.insert == null ? Collections.emptyList() : Collections.singletonList(op.insert);
+            List<Student> deleted = op.replayed ? Collections.emptyList() : op.deletes;
+            listenerExecutor.execute(() -> listener.rolledBack(inserted, deleted, cause));
+        }
+    }
+    private void pendingChanged() {
+        int pending = queue.size() + inFlight;
+        listenerExecutor.execute(() -> listener.pendingChanged(pending));
+    }
+
+    // Appends whole lines; callers force the journal once they have written all of theirs.
+    private void journal(CharSequence lines) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            journal.write(bytes);
+        }
+    }
+
+    // Rebuilds the changes that were journaled but never marked done, in their original order.
+    private List<Op> recover(Path journalFile) throws IOException {
+        if (!Files.exists(journalFile)) {
+            return Collections.emptyList();
+        }
+        Map<Long, Op> pending = new TreeMap<>();
+        Map<Long, Long> committedIds = new HashMap<>();
+        // Journaled inserts are decoded into a store of their own: most were committed long ago and
+        // are dropped again right away.
+        StudentStore store = new StudentStore(8);
+        for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length < 3) {
+                continue;
+            }
+            long seq = Long.parseLong(fields[0]);
+            nextSeq = Math.max(nextSeq, seq + 1);
+            Op op = new Op(seq);
+            op.replayed = true;
+            switch (fields[1]) {
+                case "I":
+                    op.insert = decode(fields, store);
+                    pending.put(seq, op);
+                    break;
+                case "D":
+                    List<Long> ids = new ArrayList<>();
+                    for (String ref : fields[2].split(",")) {
+                        if (!ref.startsWith("@")) {
+                            ids.add(Long.parseLong(ref));
+                            continue;
+                        }
+                        long insertSeq = Long.parseLong(ref.substring(1));
+                        Op insert = pending.get(insertSeq);
+                        if (insert != null) {
+                            op.deletes.add(insert.insert);
+                        } else if (committedIds.getOrDefault(insertSeq, 0L) > 0) {
+                            ids.add(committedIds.get(insertSeq));
+                        }
+                    }
+                    op.deleteIds = ids.stream().mapToLong(Long::longValue).toArray();
+                    pending.put(seq, op);
+                    break;
+                case "OK":
+                    pending.remove(seq);
+                    committedIds.put(seq, Long.parseLong(fields[2]));
+                    break;
+                default:
+                    logger.log(Level.WARNING, "Skipping unreadable journal line: " + line);
+            }
+        }
+        List<Op> ops = new ArrayList<>(pending.values());
+        for (Op op : ops) {
+            if (op.insert != null) {
+                insertSeqs.put(op.insert, op.seq);
+            }
+        }
+        return ops;
+    }
+
+    private static String encode(Student student) {
+        return String.join("\t", escape(student.getName()), escape(student.getGender()), escape(student.getEmail()),
+                escape(student.getContactNumber()), escape(student.getAddress()),
+                String.valueOf(student.getMathematicsMarks()), String.valueOf(student.getPhysicsMarks()), String.valueOf(student.getChemistryMarks()),
+                escape(student.getAdmissionNumber()), escape(student.getSemester()));
+    }
+
+    private static Student decode(String[] fields, StudentStore store) {
+        return store.append(0, unescape(fields[2]), unescape(fields[3]), unescape(fields[4]), unescape(fields[5]), unescape(fields[6]),
+                Integer.parseInt(fields[7]), Integer.parseInt(fields[8]), Integer.parseInt(fields[9]),
+                unescape(fields[10]), unescape(fields[11]));
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (NULL.equals(value)) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                out.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    // Stops the writer; anything not yet written stays in the journal for the next start.
+    @Override
+    public void close() {
+        running = false;
+        synchronized (this) {
+            notifyAll();
+        }
+        try {
+            writer.join(2_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.interrupt();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "An error occurred while closing the write journal", e);
+        }
+    }
+
+    public interface Listener {
+        // Called whenever the number of queued or in-flight changes moves.
+        void pendingChanged(int pending);
+
+        // Called when a change was rejected for good: inserted students should be
+        // taken out of the UI again and deleted ones put back.
+        void rolledBack(List<Student> inserted, List<Student> deleted, Exception cause);
+    }
+
+    private interface SqlCall<T> {
+        T run() throws SQLException;
+    }
+
+    private static final class Op {
+        private final long seq;
+        private Student insert;
+        private final List<Student> deletes = new ArrayList<>();
+        private long[] deleteIds = new long[0];
+        private boolean replayed;
+        private boolean done;
+
+        private Op(long seq) {
+            this.seq = seq;
+        }
+    }
+}
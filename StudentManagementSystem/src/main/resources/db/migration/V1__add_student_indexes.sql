@@ -0,0 +1,4 @@
+-- Lookups by name (grading dialog) and by admission number / semester were full table scans.
+CREATE INDEX idx_students_name ON students (name);
+CREATE INDEX idx_students_admission_number ON students (admission_number);
+CREATE INDEX idx_students_admission_number_semester ON students (admission_number, semester);
@@ -0,0 +1,9 @@
+-- Change tracking for delta sync: every insert/update stamps updated_at, and deletes leave a
+-- tombstone (written by StudentRepository in the deleting transaction).
+ALTER TABLE students ADD COLUMN updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+CREATE INDEX idx_students_updated_at ON students (updated_at);
+CREATE TABLE IF NOT EXISTS student_tombstones (
+    id INT NOT NULL PRIMARY KEY,
+    deleted_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)
+);
+CREATE INDEX idx_student_tombstones_deleted_at ON student_tombstones (deleted_at);
@@ -0,0 +1,29 @@
+-- Normalized storage: one profile per student and one marks row per semester, instead of repeating
+-- the full profile on every semester row of students. The tables start empty; StudentSchemaNormalizer
+-- copies the existing rows over and replaces students with a view over the two tables. Marks rows
+-- keep the old students ids, so tombstones, snapshots and sync watermarks stay valid.
+CREATE TABLE IF NOT EXISTS student_profiles (
+    id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    admission_number VARCHAR(20),
+    name VARCHAR(255) NOT NULL,
+    gender VARCHAR(20),
+    address VARCHAR(255),
+    contact_number VARCHAR(20),
+    email VARCHAR(255),
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)
+);
+CREATE INDEX idx_student_profiles_admission_number ON student_profiles (admission_number);
+CREATE INDEX idx_student_profiles_name ON student_profiles (name);
+CREATE INDEX idx_student_profiles_updated_at ON student_profiles (updated_at);
+CREATE TABLE IF NOT EXISTS student_marks (
+    id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    profile_id INT NOT NULL,
+    semester VARCHAR(20),
+    mathematics_marks INT,
+    physics_marks INT,
+    chemistry_marks INT,
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    CONSTRAINT fk_student_marks_profile FOREIGN KEY (profile_id) REFERENCES student_profiles (id)
+);
+CREATE INDEX idx_student_marks_profile_id_semester ON student_marks (profile_id, semester);
+CREATE INDEX idx_student_marks_updated_at ON student_marks (updated_at);
@@ -0,0 +1,95 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CohortAnalyticsTest {
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void applyAndRemoveMatchARebuild() {
+        SplittableRandom random = new SplittableRandom(3);
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < CohortAnalytics.LEAF_SIZE + 500; i++) {
+            students.add(student(random, i));
+        }
+        CohortAnalytics analytics = CohortAnalytics.build(students, ForkJoinPool.commonPool());
+        int next = students.size();
+
+        for (int round = 0; round < 20; round++) {
+            List<Student> added = new ArrayList<>();
+            for (int i = random.nextInt(300); i > 0; i--) {
+                added.add(student(random, next++));
+            }
+            List<Student> removed = new ArrayList<>();
+            for (int i = random.nextInt(300); i > 0 && !students.isEmpty(); i--) {
+                removed.add(students.remove(random.nextInt(students.size())));
+            }
+            // A row added and removed in the same change cancels out.
+            if (!added.isEmpty() && random.nextBoolean()) {
+                removed.add(added.get(0));
+                students.addAll(added.subList(1, added.size()));
+            } else {
+                students.addAll(added);
+            }
+            analytics.apply(added, removed);
+
+            CohortAnalytics rebuilt = CohortAnalytics.build(students, ForkJoinPool.commonPool());
+            assertSameStats(rebuilt.getSemesterStats(), analytics.getSemesterStats());
+            for (int i = 0; i < 50; i++) {
+                Student student = students.get(random.nextInt(students.size()));
+                CohortAnalytics.Standing expected = rebuilt.standing(student);
+                CohortAnalytics.Standing actual = analytics.standing(student);
+                assertEquals(expected.getRank(), actual.getRank());
+                assertEquals(expected.getCohortSize(), actual.getCohortSize());
+                assertEquals(expected.getPercentile(), actual.getPercentile(), TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    void removingACohortsLastStudentDropsTheCohort() {
+        Student only = new Student("Nimal", "Male", null, null, null, 75, 64, 80, "DSE-1", "9");
+        List<Student> students = new ArrayList<>(List.of(only,
+                new Student("Kamala", "Female", null, null, null, 55, 35, 90, "DSE-2", "1")));
+        CohortAnalytics analytics = CohortAnalytics.build(students, ForkJoinPool.commonPool());
+
+        analytics.apply(List.of(), List.of(only));
+
+        assertEquals(1, analytics.getSemesterStats().size());
+        assertEquals("1", analytics.getSemesterStats().get(0).getSemester());
+        assertNull(analytics.standing(only));
+    }
+
+    private static void assertSameStats(List<CohortAnalytics.SemesterStats> expected, List<CohortAnalytics.SemesterStats> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            CohortAnalytics.SemesterStats want = expected.get(i);
+            CohortAnalytics.SemesterStats got = actual.get(i);
+            String semester = want.getSemester();
+            assertEquals(semester, got.getSemester());
+            assertEquals(want.getCount(), got.getCount(), semester);
+            for (int measure = 0; measure < CohortAnalytics.MEASURES.length; measure++) {
+                assertEquals(want.getMean(measure), got.getMean(measure), TOLERANCE, semester);
+                assertEquals(want.getMedian(measure), got.getMedian(measure), TOLERANCE, semester);
+                assertEquals(want.getStandardDeviation(measure), got.getStandardDeviation(measure), TOLERANCE, semester);
+            }
+            assertEquals(want.getMathematicsPhysicsCorrelation(), got.getMathematicsPhysicsCorrelation(), TOLERANCE, semester);
+            assertEquals(want.getMathematicsChemistryCorrelation(), got.getMathematicsChemistryCorrelation(), TOLERANCE, semester);
+            assertEquals(want.getPhysicsChemistryCorrelation(), got.getPhysicsChemistryCorrelation(), TOLERANCE, semester);
+        }
+    }
+
+    private static Student student(SplittableRandom random, int number) {
+        String semester = random.nextInt(20) == 0 ? null : String.valueOf(1 + random.nextInt(8));
+        return new Student("Student " + number, "Male", null, null, null,
+                random.nextInt(101), random.nextInt(101), random.nextInt(101), "DSE-" + number, semester);
+    }
+}
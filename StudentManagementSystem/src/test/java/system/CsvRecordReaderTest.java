@@ -0,0 +1,84 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvRecordReaderTest {
+    @Test
+    void quotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        List<Map<String, String>> records = read("name,address,email\r\n"
+                + "\"Perera, Nimal\",\"12 \"\"Lake\"\" Road\nKandy\",nimal@example.com\r\n"
+                + "Kamal,Galle,kamal@example.com\n");
+
+        assertEquals(2, records.size());
+        assertEquals("Perera, Nimal", records.get(0).get("name"));
+        assertEquals("12 \"Lake\" Road\nKandy", records.get(0).get("address"));
+        assertEquals("nimal@example.com", records.get(0).get("email"));
+        assertEquals("Kamal", records.get(1).get("name"));
+    }
+
+    @Test
+    void recordLinesCountLineBreaksInsideQuotes() throws IOException {
+        try (CsvRecordReader reader = new CsvRecordReader(new StringReader("name,address\na,\"x\ny\"\nb,z\n"))) {
+            reader.next();
+            assertEquals(2, reader.getLine());
+            reader.next();
+            assertEquals(4, reader.getLine());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void byteOrderMarkBeforeTheHeaderIsSkipped() throws IOException {
+        List<Map<String, String>> records = read("\uFEFFname,Mathematics Marks\nNimal,75\n");
+
+        assertEquals(Map.of("name", "Nimal", "mathematics_marks", "75"), records.get(0));
+    }
+
+    @Test
+    void byteOrderMarkBeforeAQuotedHeaderIsSkipped() throws IOException {
+        List<Map<String, String>> records = read("\uFEFF\"name\",\"semester\"\nNimal,2\n");
+
+        assertEquals(Map.of("name", "Nimal", "semester", "2"), records.get(0));
+    }
+
+    @Test
+    void blankLinesAreSkippedAndExtraFieldsFlagged() throws IOException {
+        List<Map<String, String>> records = read("name,semester\n\nNimal,2,surplus\n");
+
+        assertEquals(1, records.size());
+        assertEquals("1", records.get(0).get(StudentImporter.EXTRA_FIELDS));
+    }
+
+    @Test
+    void camelCaseAndSpacedHeadersAreNormalized() {
+        assertEquals("mathematics_marks", ImportRecordReader.normalizeColumn(" mathematicsMarks "));
+        assertEquals("admission_number", ImportRecordReader.normalizeColumn("Admission Number"));
+        assertEquals("contact_number", ImportRecordReader.normalizeColumn("contact-number"));
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertTrue(read("").isEmpty());
+    }
+
+    private static List<Map<String, String>> read(String csv) throws IOException {
+        List<Map<String, String>> records = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(new StringReader(csv))) {
+            Map<String, String> record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,119 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GradingEngineTest {
+    private final GradingEngine engine = GradingEngine.fromSpec(GradingEngine.DEFAULT_BANDS);
+
+    @Test
+    void defaultBandEdges() {
+        assertEquals(List.of("A", "B", "C", "S", "F"), engine.getGrades());
+        for (int marks = -10; marks <= 110; marks++) {
+            assertEquals(expectedGrade(marks), engine.grade(marks), "marks " + marks);
+        }
+    }
+
+    @Test
+    void bandsAreSortedByThresholdWhateverTheSpecOrder() {
+        GradingEngine custom = GradingEngine.fromSpec("Pass:50, Distinction:85 ,Fail:0, Merit:70");
+
+        assertEquals(List.of("Distinction", "Merit", "Pass", "Fail"), custom.getGrades());
+        assertEquals("Fail", custom.grade(49));
+        assertEquals("Pass", custom.grade(50));
+        assertEquals("Merit", custom.grade(84));
+        assertEquals("Distinction", custom.grade(85));
+        assertEquals("Fail", custom.grade(101));
+    }
+
+    @Test
+    void marksBelowEveryBandGetTheLowestBand() {
+        GradingEngine custom = new GradingEngine(Map.of("A", 80, "B", 40));
+
+        assertEquals("B", custom.grade(0));
+        assertEquals("B", custom.grade(-1));
+        assertEquals("A", custom.grade(80));
+    }
+
+    @Test
+    void invalidSpecsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> GradingEngine.fromSpec("A75,B:65"));
+        assertThrows(IllegalArgumentException.class, () -> GradingEngine.fromSpec("A:high"));
+        assertThrows(IllegalArgumentException.class, () -> new GradingEngine(Map.of()));
+    }
+
+    @Test
+    void gradeColumnMatchesSingleMarksOnBothPaths() {
+        for (int size : new int[]{121, GradingEngine.PARALLEL_THRESHOLD * 3 + 7}) {
+            int[] marks = new int[size];
+            for (int i = 0; i < size; i++) {
+                marks[i] = i % 121 - 10;
+            }
+            byte[] bands = engine.gradeColumn(marks);
+            byte[] expected = new byte[size];
+            for (int i = 0; i < size; i++) {
+                expected[i] = (byte) engine.band(marks[i]);
+            }
+            assertArrayEquals(expected, bands, "size " + size);
+        }
+    }
+
+    @Test
+    void distributionBySemesterMatchesBruteForce() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int size : new int[]{500, GradingEngine.PARALLEL_THRESHOLD * 2 + 13}) {
+            List<Student> students = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                String semester = i % 17 == 0 ? null : String.valueOf(1 + random.nextInt(8));
+                students.add(new Student("Student " + i, "Male", null, null, null,
+                        random.nextInt(101), random.nextInt(101), random.nextInt(101), "DSE-" + i, semester));
+            }
+
+            Map<String, long[][]> counts = engine.distributionBySemester(students);
+
+            long total = 0;
+            for (Map.Entry<String, long[][]> entry : counts.entrySet()) {
+                long[][] expected = new long[GradingEngine.SUBJECTS.length][engine.getGrades().size()];
+                for (Student student : students) {
+                    String semester = student.getSemester() == null ? "" : student.getSemester();
+                    if (semester.equals(entry.getKey())) {
+                        expected[0][engine.band(student.getMathematicsMarks())]++;
+                        expected[1][engine.band(student.getPhysicsMarks())]++;
+                        expected[2][engine.band(student.getChemistryMarks())]++;
+                    }
+                }
+                for (int subject = 0; subject < expected.length; subject++) {
+                    assertArrayEquals(expected[subject], entry.getValue()[subject], "semester " + entry.getKey());
+                }
+                for (long count : entry.getValue()[0]) {
+                    total += count;
+                }
+            }
+            assertEquals(size, total);
+        }
+    }
+
+    private static String expectedGrade(int marks) {
+        if (marks < 0 || marks > 100) {
+            return "F";
+        }
+        if (marks >= 75) {
+            return "A";
+        } else if (marks >= 65) {
+            return "B";
+        } else if (marks >= 55) {
+            return "C";
+        } else if (marks >= 35) {
+            return "S";
+        }
+        return "F";
+    }
+}
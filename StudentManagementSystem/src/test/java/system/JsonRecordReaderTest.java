@@ -0,0 +1,89 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonRecordReaderTest {
+    @Test
+    void readsATopLevelArray() throws IOException {
+        List<Map<String, String>> records = read("[\n  {\"name\": \"Nimal\", \"mathematicsMarks\": 75, \"email\": null},\n"
+                + "  {\"name\": \"K\\u0061mal \\\"K\\\"\", \"semester\": \"2\"}\n]\n");
+
+        assertEquals(2, records.size());
+        assertEquals("Nimal", records.get(0).get("name"));
+        assertEquals("75", records.get(0).get("mathematics_marks"));
+        assertTrue(records.get(0).containsKey("email"));
+        assertNull(records.get(0).get("email"));
+        assertEquals("Kamal \"K\"", records.get(1).get("name"));
+    }
+
+    @Test
+    void readsJsonLinesAfterAByteOrderMark() throws IOException {
+        List<Map<String, String>> records = read("\uFEFF{\"name\":\"Nimal\"}\n{\"name\":\"Kamal\"}\n");
+
+        assertEquals(List.of(Map.of("name", "Nimal"), Map.of("name", "Kamal")), records);
+    }
+
+    @Test
+    void syntaxErrorRejectsOnlyItsRecord() throws IOException {
+        List<Map<String, String>> records = read("{\"name\":\"Nimal\"}\n"
+                + "{\"name\" \"missing colon\", \"semester\": \"1\"}\n"
+                + "{\"name\":\"Kamal\",\"address\":{\"town\":\"Galle\"}}\n"
+                + "{\"name\":\"Sunil\"}\n");
+
+        assertEquals(4, records.size());
+        assertEquals("Nimal", records.get(0).get("name"));
+        assertTrue(records.get(1).get(StudentImporter.SYNTAX_ERROR).contains("expected ':'"));
+        assertTrue(records.get(2).get(StudentImporter.SYNTAX_ERROR).contains("nested"));
+        assertEquals(Map.of("name", "Sunil"), records.get(3));
+    }
+
+    @Test
+    void recordCutShortDoesNotSwallowTheNextLine() throws IOException {
+        try (JsonRecordReader reader = new JsonRecordReader(new StringReader("{\"name\":\"Nimal\"\n{\"name\":\"Kamal\"}\n"))) {
+            assertTrue(reader.next().containsKey(StudentImporter.SYNTAX_ERROR));
+            assertEquals(1, reader.getLine());
+            assertEquals(Map.of("name", "Kamal"), reader.next());
+            assertEquals(2, reader.getLine());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void garbageBetweenRecordsAndBadEscapesAreRejected() throws IOException {
+        List<Map<String, String>> records = read("oops {\"name\":\"bad \\uZZZZ escape\",\"semester\":\"1\"} {\"name\":\"Kamal\"}");
+
+        assertEquals(3, records.size());
+        assertTrue(records.get(0).get(StudentImporter.SYNTAX_ERROR).contains("expected '{'"));
+        assertTrue(records.get(1).get(StudentImporter.SYNTAX_ERROR).contains("escape"));
+        assertEquals(Map.of("name", "Kamal"), records.get(2));
+    }
+
+    @Test
+    void unterminatedStringEndsTheInput() throws IOException {
+        List<Map<String, String>> records = read("{\"name\":\"Nimal");
+
+        assertEquals(1, records.size());
+        assertTrue(records.get(0).get(StudentImporter.SYNTAX_ERROR).contains("unterminated"));
+    }
+
+    private static List<Map<String, String>> read(String json) throws IOException {
+        List<Map<String, String>> records = new ArrayList<>();
+        try (JsonRecordReader reader = new JsonRecordReader(new StringReader(json))) {
+            Map<String, String> record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
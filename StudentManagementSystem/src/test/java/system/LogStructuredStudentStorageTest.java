@@ -0,0 +1,142 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogStructuredStudentStorageTest {
+    // Rounded up to the smallest segment the storage allows, so tens of thousands of rows span several.
+    private static final long SEGMENT_SIZE = 0;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenReplaysInsertsAndDeletes() throws Exception {
+        try (LogStructuredStudentStorage storage = open()) {
+            storage.insertBatch(students(0, 10));
+            storage.deleteByIds(new long[]{2, 5});
+        }
+        try (LogStructuredStudentStorage storage = open()) {
+            TreeMap<Long, Student> rows = load(storage);
+            assertEquals(8, storage.count());
+            assertEquals(8, rows.size());
+            assertTrue(!rows.containsKey(2L) && !rows.containsKey(5L));
+            assertEquals("Student 9", rows.get(10L).getName());
+            assertEquals(9 % 101, rows.get(10L).getMathematicsMarks());
+        }
+    }
+
+    @Test
+    void tornTailOfTheActiveSegmentIsTruncated() throws Exception {
+        try (LogStructuredStudentStorage storage = open()) {
+            storage.insertBatch(students(0, 3));
+        }
+        Path segment = segments().get(0);
+        long complete = Files.size(segment);
+        // A record header promising 200 bytes of payload, of which the crash wrote 4.
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(12).putInt(200).putInt(0).putInt(7).flip());
+        }
+
+        try (LogStructuredStudentStorage storage = open()) {
+            assertEquals(3, storage.count());
+            assertEquals(complete, Files.size(segment));
+            storage.save(student(3));
+        }
+        try (LogStructuredStudentStorage storage = open()) {
+            assertEquals(4, storage.count());
+            assertEquals(4, load(storage).size());
+        }
+    }
+
+    @Test
+    void damageInASealedSegmentFailsTheOpen() throws Exception {
+        try (LogStructuredStudentStorage storage = open()) {
+            for (int from = 0; from < 30_000; from += 1_000) {
+                storage.insertBatch(students(from, 1_000));
+            }
+        }
+        List<Path> segments = segments();
+        assertTrue(segments.size() > 1, "expected the rows to span several segments");
+        Path sealed = segments.get(0);
+        try (FileChannel channel = FileChannel.open(sealed, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long middle = channel.size() / 2;
+            ByteBuffer bit = ByteBuffer.allocate(1);
+            channel.read(bit, middle);
+            bit.put(0, (byte) (bit.get(0) ^ 0x10)).rewind();
+            channel.write(bit, middle);
+        }
+        long sizeBefore = Files.size(sealed);
+
+        assertThrows(IOException.class, this::open);
+        assertEquals(sizeBefore, Files.size(sealed));
+    }
+
+    @Test
+    void compactionKeepsTheLiveRows() throws Exception {
+        try (LogStructuredStudentStorage storage = open()) {
+            for (int from = 0; from < 30_000; from += 1_000) {
+                storage.insertBatch(students(from, 1_000));
+            }
+            long[] deleted = new long[25_000];
+            for (int i = 0; i < deleted.length; i++) {
+                deleted[i] = i + 1;
+            }
+            storage.deleteByIds(deleted);
+            int before = segments().size();
+            storage.compact();
+            assertTrue(segments().size() < before, "expected compaction to remove sealed segments");
+            assertEquals(5_000, storage.count());
+        }
+        try (LogStructuredStudentStorage storage = open()) {
+            TreeMap<Long, Student> rows = load(storage);
+            assertEquals(5_000, rows.size());
+            assertEquals(25_001L, rows.firstKey());
+            assertEquals("Student 29999", rows.get(30_000L).getName());
+        }
+    }
+
+    private LogStructuredStudentStorage open() throws IOException {
+        return new LogStructuredStudentStorage(directory, SEGMENT_SIZE, 0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).sorted().toList();
+        }
+    }
+
+    private static TreeMap<Long, Student> load(LogStructuredStudentStorage storage) throws Exception {
+        TreeMap<Long, Student> rows = new TreeMap<>();
+        storage.streamAll(100, 1_000, batch -> batch.forEach(student -> rows.put(student.getId(), student)), () -> false);
+        return rows;
+    }
+
+    private static List<Student> students(int from, int count) {
+        List<Student> students = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            students.add(student(i));
+        }
+        return students;
+    }
+
+    private static Student student(int i) {
+        return new Student("Student " + i, i % 2 == 0 ? "Male" : "Female", "student" + i + "@example.com", "0710000000",
+                "Colombo", i % 101, (i * 7) % 101, (i * 13) % 101, "DSE-" + i, String.valueOf(1 + i % 8));
+    }
+}
@@ -0,0 +1,63 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReportSummaryTest {
+    private final GradingEngine engine = GradingEngine.fromSpec(GradingEngine.DEFAULT_BANDS);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void aSemesterNamedAllIsKeptApartFromTheTotals() throws Exception {
+        ReportSummary summary = new ReportSummary(engine);
+        add(summary, "ALL", 80, 70, 60);
+        add(summary, "1", 40, 50, 30);
+        add(summary, null, 90, 90, 90);
+
+        List<String> csv = write(summary, "summary.csv", true);
+
+        assertEquals("scope,semester,subject,students,average,grade_A,grade_B,grade_C,grade_S,grade_F", csv.get(0));
+        assertEquals(1 + 4 * GradingEngine.SUBJECTS.length, csv.size());
+        assertEquals("semester,," + GradingEngine.SUBJECTS[0] + ",1,90.00,1,0,0,0,0", csv.get(1));
+        assertEquals("semester,1," + GradingEngine.SUBJECTS[0] + ",1,40.00,0,0,0,1,0", csv.get(4));
+        assertEquals("semester,ALL," + GradingEngine.SUBJECTS[0] + ",1,80.00,1,0,0,0,0", csv.get(7));
+        assertEquals("all,," + GradingEngine.SUBJECTS[0] + ",3,70.00,2,0,0,1,0", csv.get(10));
+
+        List<String> json = write(summary, "summary.jsonl", false);
+
+        assertEquals(4 * GradingEngine.SUBJECTS.length, json.size());
+        assertEquals("{\"scope\":\"semester\",\"semester\":\"ALL\",\"subject\":\"" + GradingEngine.SUBJECTS[0]
+                + "\",\"students\":1,\"average\":80.00,\"grades\":{\"A\":1,\"B\":0,\"C\":0,\"S\":0,\"F\":0}}", json.get(6));
+        assertEquals("{\"scope\":\"all\",\"semester\":null,\"subject\":\"" + GradingEngine.SUBJECTS[0]
+                + "\",\"students\":3,\"average\":70.00,\"grades\":{\"A\":2,\"B\":0,\"C\":0,\"S\":1,\"F\":0}}", json.get(9));
+    }
+
+    private void add(ReportSummary summary, String semester, int... marks) {
+        byte[] bands = new byte[marks.length];
+        for (int i = 0; i < marks.length; i++) {
+            bands[i] = (byte) engine.band(marks[i]);
+        }
+        summary.add(semester, marks, bands);
+    }
+
+    private List<String> write(ReportSummary summary, String name, boolean csv) throws Exception {
+        Path file = directory.resolve(name);
+        try (ReportWriter writer = new ReportWriter(file)) {
+            if (csv) {
+                summary.writeCsv(writer);
+            } else {
+                summary.writeJsonLines(writer);
+            }
+        }
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+}
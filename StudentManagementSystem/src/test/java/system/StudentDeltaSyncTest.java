@@ -0,0 +1,84 @@
+package system;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentDeltaSyncTest {
+    @Test
+    void randomDeltasMatchAFullReload() {
+        SplittableRandom random = new SplittableRandom(11);
+        // What a full reload would return, by id.
+        TreeMap<Long, Student> database = new TreeMap<>();
+        ObservableList<Student> target = FXCollections.observableArrayList();
+        for (long id = 1; id <= 500; id++) {
+            database.put(id, student(id, random.nextInt(101)));
+            target.add(student(id, database.get(id).getMathematicsMarks()));
+        }
+        StudentIndex index = new StudentIndex(target);
+        long nextId = 501;
+
+        for (int poll = 0; poll < 200; poll++) {
+            List<Student> changed = new ArrayList<>();
+            List<Long> deleted = new ArrayList<>();
+            for (int i = random.nextInt(6); i > 0; i--) {
+                long id = 1 + random.nextLong(nextId - 1);
+                Student row = student(id, random.nextInt(101));
+                if (database.containsKey(id)) {
+                    database.put(id, row);
+                    changed.add(row);
+                }
+            }
+            for (int i = random.nextInt(3); i > 0; i--) {
+                Student row = student(nextId++, random.nextInt(101));
+                database.put(row.getId(), row);
+                changed.add(row);
+            }
+            // Deletes in a third of the polls; the rest exercise the kept positions.
+            if (poll % 3 == 0 && !database.isEmpty()) {
+                Long id = database.ceilingKey(1 + random.nextLong(nextId - 1));
+                if (id == null) {
+                    id = database.firstKey();
+                }
+                database.remove(id);
+                deleted.add(id);
+            }
+
+            StudentDeltaSync.apply(new StudentRepository.Changes(changed, deleted, new Timestamp(poll)), target, index);
+
+            assertEquals(database.size(), target.size(), "poll " + poll);
+            for (int i = 0; i < target.size(); i++) {
+                Student row = target.get(i);
+                assertTrue(StudentDeltaSync.sameValues(database.get(row.getId()), row), "poll " + poll + " id " + row.getId());
+                assertEquals(i, index.positionOf(row));
+                assertSame(row, index.findById(row.getId()));
+            }
+        }
+    }
+
+    @Test
+    void unchangedRowsAreNotReplaced() {
+        Student loaded = student(1, 70);
+        ObservableList<Student> target = FXCollections.observableArrayList(loaded);
+        StudentIndex index = new StudentIndex(target);
+
+        int applied = StudentDeltaSync.apply(new StudentRepository.Changes(List.of(student(1, 70)), List.of(), new Timestamp(0)), target, index);
+
+        assertEquals(0, applied);
+        assertSame(loaded, target.get(0));
+    }
+
+    private static Student student(long id, int marks) {
+        return new Student(id, "Student " + id, "Male", null, null, null, marks, 60, 50, "DSE-" + id, "1");
+    }
+}
@@ -0,0 +1,161 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentImporterTest {
+    private static final String HEADER = "admission_number,name,gender,address,contact_number,email,semester,mathematics_marks,physics_marks,chemistry_marks\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void excelCsvWithByteOrderMarkImportsEveryRow() throws Exception {
+        Path file = directory.resolve("students.csv");
+        Files.writeString(file, "\uFEFF" + HEADER
+                + "DSE-1,\"Perera, Nimal\",Male,Kandy,0711234567,nimal@example.com,1,75,64,80\r\n"
+                + "DSE-2,Kamala,Female,Galle,0777654321,kamala@example.com,1,55,35,101\r\n"
+                + "DSE-3,Sunil,Male,Matara,0712223334,sunil@example.com,2,90,88,91\r\n", StandardCharsets.UTF_8);
+        RecordingStorage storage = new RecordingStorage(Integer.MAX_VALUE);
+
+        ImportReport report;
+        try (StudentImporter importer = new StudentImporter(storage, 2, 2)) {
+            report = importer.importFile(file, batch -> { }, () -> false);
+        }
+
+        assertNull(report.getFailure());
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertEquals(3, report.getRejections().get(0).getLine());
+        assertTrue(report.getRejections().get(0).getReason().contains("chemistry_marks"));
+        assertEquals("Perera, Nimal", storage.stored.get(0).getName());
+    }
+
+    @Test
+    void jsonSyntaxErrorIsARejectionNotAFailure() throws Exception {
+        Path file = directory.resolve("students.jsonl");
+        Files.writeString(file, "{\"name\":\"Nimal\",\"mathematicsMarks\":75,\"physicsMarks\":64,\"chemistryMarks\":80}\n"
+                + "{\"name\":\"Kamala\",\"mathematicsMarks\":75 \"physicsMarks\":64}\n"
+                + "{\"name\":\"Sunil\",\"mathematicsMarks\":90,\"physicsMarks\":88,\"chemistryMarks\":91}\n", StandardCharsets.UTF_8);
+        RecordingStorage storage = new RecordingStorage(Integer.MAX_VALUE);
+
+        ImportReport report;
+        try (StudentImporter importer = new StudentImporter(storage, 10, 1)) {
+            report = importer.importFile(file, batch -> { }, () -> false);
+        }
+
+        assertNull(report.getFailure());
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertEquals(2, report.getRejections().get(0).getLine());
+        assertTrue(report.getRejections().get(0).getReason().startsWith("invalid JSON"));
+    }
+
+    @Test
+    void storageFailureReturnsThePartialReport() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 10; i++) {
+            csv.append("DSE-").append(i).append(",Student ").append(i).append(",Male,Kandy,0711234567,s").append(i)
+                    .append("@example.com,1,").append(i == 1 ? "x" : "50").append(",60,70\n");
+        }
+        Path file = directory.resolve("students.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+        RecordingStorage storage = new RecordingStorage(2);
+        List<Student> inserted = new ArrayList<>();
+
+        ImportReport report;
+        try (StudentImporter importer = new StudentImporter(storage, 3, 2)) {
+            report = importer.importFile(file, inserted::addAll, () -> false);
+        }
+
+        assertInstanceOf(SQLException.class, report.getFailure());
+        // The first two chunks (rows 0-2 with row 1 rejected, rows 3-5) were committed before the failure.
+        assertEquals(5, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertEquals(5, storage.stored.size());
+        assertEquals(5, inserted.size());
+    }
+
+    // Keeps inserted rows in memory and fails every insertBatch after the first batchesBeforeFailure.
+    private static final class RecordingStorage implements StudentStorage {
+        private final List<Student> stored = new ArrayList<>();
+        private final int batchesBeforeFailure;
+        private int batches;
+
+        private RecordingStorage(int batchesBeforeFailure) {
+            this.batchesBeforeFailure = batchesBeforeFailure;
+        }
+
+        @Override
+        public void insertBatch(List<Student> students) throws SQLException {
+            if (batches++ >= batchesBeforeFailure) {
+                throw new SQLTransientConnectionException("The database went away");
+            }
+            for (Student student : students) {
+                stored.add(student);
+                student.setId(stored.size());
+            }
+        }
+
+        @Override
+        public void save(Student student) throws SQLException {
+            insertBatch(List.of(student));
+        }
+
+        @Override
+        public int count() {
+            return stored.size();
+        }
+
+        @Override
+        public int streamAll(int firstBatchSize, int batchSize, Consumer<List<Student>> consumer, BooleanSupplier cancelled) {
+            consumer.accept(new ArrayList<>(stored));
+            return stored.size();
+        }
+
+        @Override
+        public int deleteByIds(long[] ids) {
+            return 0;
+        }
+
+        @Override
+        public long findMatchingId(Student student) {
+            return 0;
+        }
+
+        @Override
+        public List<StudentRepository.SemesterMark> findSemesterMarks(String studentName, String subject) {
+            return List.of();
+        }
+
+        @Override
+        public Timestamp currentTimestamp() {
+            return null;
+        }
+
+        @Override
+        public String getSource() {
+            return "memory";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
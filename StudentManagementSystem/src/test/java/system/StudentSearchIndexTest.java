@@ -0,0 +1,130 @@
+package system;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class StudentSearchIndexTest {
+    private static final String[] NAMES = {"Nimal Perera", "Kamala Silva", "Sunil Fernando", "Ayesha de Mel", "Ruwan Jayasuriya"};
+
+    private final GradingEngine engine = GradingEngine.fromSpec(GradingEngine.DEFAULT_BANDS);
+
+    @Test
+    void searchMatchesBruteForceThroughCompactions() {
+        SplittableRandom random = new SplittableRandom(11);
+        ObservableList<Student> students = FXCollections.observableArrayList();
+        for (int i = 0; i < 300; i++) {
+            students.add(student(random, i));
+        }
+        StudentSearchIndex index = new StudentSearchIndex(students, engine, Runnable::run, Runnable::run);
+        int nextId = 300;
+
+        for (int round = 0; round < 8; round++) {
+            List<Student> added = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                added.add(student(random, nextId++));
+            }
+            students.addAll(added);
+            students.removeIf(student -> random.nextInt(3) > 0);
+            assertEquals(students.size(), index.size());
+            assertSearchesMatch(random, students, index);
+        }
+    }
+
+    @Test
+    void changesDuringABackgroundCompactionAreKept() {
+        SplittableRandom random = new SplittableRandom(5);
+        ObservableList<Student> students = FXCollections.observableArrayList();
+        for (int i = 0; i < StudentSearchIndex.MIN_COMPACT_SIZE; i++) {
+            students.add(student(random, i));
+        }
+        Queue<Runnable> compactions = new ArrayDeque<>();
+        StudentSearchIndex index = new StudentSearchIndex(students, engine, compactions::add, Runnable::run);
+
+        students.remove(0, StudentSearchIndex.MIN_COMPACT_SIZE / 2 + 1);
+        assertEquals(1, compactions.size());
+        List<Student> added = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            added.add(student(random, StudentSearchIndex.MIN_COMPACT_SIZE + i));
+        }
+        students.addAll(added);
+        students.remove(0, 20);
+        assertSearchesMatch(random, students, index);
+
+        compactions.remove().run();
+        assertEquals(students.size(), index.size());
+        assertSearchesMatch(random, students, index);
+    }
+
+    @Test
+    void shortQueriesMatchAnywhereInAField() {
+        ObservableList<Student> students = FXCollections.observableArrayList(
+                new Student("Nimal Perera", "Male", "nimal@example.com", "0711234567", "Kandy", 75, 64, 80, "DSE-1", "1"));
+        StudentSearchIndex index = new StudentSearchIndex(students, engine, Runnable::run, Runnable::run);
+
+        assertEquals(1, index.search("er", null, null).size());
+        assertEquals(1, index.search("P", null, null).size());
+        assertEquals(1, index.search("@", null, null).size());
+        assertEquals(0, index.search("zz", null, null).size());
+    }
+
+    private void assertSearchesMatch(SplittableRandom random, List<Student> students, StudentSearchIndex index) {
+        for (int i = 0; i < 200; i++) {
+            Student sample = students.get(random.nextInt(students.size()));
+            String field = random.nextBoolean() ? sample.getName() : random.nextBoolean() ? sample.getEmail() : sample.getAdmissionNumber();
+            int length = 1 + random.nextInt(Math.min(6, field.length()));
+            int at = random.nextInt(field.length() - length + 1);
+            String text = random.nextBoolean() ? field.substring(at, at + length) : field.substring(at, at + length).toUpperCase(Locale.ROOT);
+            String semester = random.nextInt(3) == 0 ? String.valueOf(1 + random.nextInt(8)) : null;
+            String grade = random.nextInt(3) == 0 ? engine.getGrades().get(random.nextInt(engine.getGrades().size())) : null;
+
+            List<Student> expected = bruteForce(students, text, semester, grade);
+            List<Student> actual = new ArrayList<>(index.search(text, semester, grade));
+            assertFalse(semester == null && grade == null && expected.isEmpty(), text);
+            assertEquals(sorted(expected), sorted(actual), "text " + text + ", semester " + semester + ", grade " + grade);
+        }
+    }
+
+    private List<Student> bruteForce(List<Student> students, String text, String semester, String grade) {
+        String query = text.trim().toLowerCase(Locale.ROOT);
+        List<Student> matches = new ArrayList<>();
+        for (Student student : students) {
+            boolean textMatches = lowerContains(student.getName(), query) || lowerContains(student.getEmail(), query)
+                    || lowerContains(student.getAdmissionNumber(), query) || lowerContains(student.getContactNumber(), query);
+            if (textMatches
+                    && (semester == null || semester.equals(student.getSemester()))
+                    && (grade == null || grade.equals(engine.grade(Math.round(student.getTotalMarks() / 3.0f))))) {
+                matches.add(student);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean lowerContains(String field, String query) {
+        return field != null && field.toLowerCase(Locale.ROOT).contains(query);
+    }
+
+    private static List<Student> sorted(List<Student> students) {
+        List<Student> copy = new ArrayList<>(students);
+        copy.sort(Comparator.comparing(Student::getAdmissionNumber));
+        return copy;
+    }
+
+    private static Student student(SplittableRandom random, int number) {
+        String name = NAMES[random.nextInt(NAMES.length)] + " " + number;
+        String semester = random.nextInt(10) == 0 ? null : String.valueOf(1 + random.nextInt(8));
+        return new Student(name, "Male", "s" + number + "@example.com", "07" + (10_000_000 + random.nextInt(90_000_000)), "Kandy",
+                random.nextInt(101), random.nextInt(101), random.nextInt(101), "DSE-" + number, semester);
+    }
+}
@@ -0,0 +1,114 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.SQLNonTransientException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentServerTest {
+    private static final String TOKEN = "s3cret";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesNeedTheSharedToken() throws Exception {
+        try (LogStructuredStudentStorage storage = new LogStructuredStudentStorage(directory, 0, 0);
+             StudentServer server = start(storage, TOKEN)) {
+            URI base = URI.create("http://127.0.0.1:" + server.getPort());
+            try (HttpStudentStorage client = new HttpStudentStorage(base, TOKEN)) {
+                client.insertBatch(List.of(student("Nimal"), student("Kamal")));
+                assertEquals(1, client.deleteByIds(new long[]{1}));
+            }
+            try (HttpStudentStorage client = new HttpStudentStorage(base, "wrong")) {
+                SQLNonTransientException e = assertThrows(SQLNonTransientException.class, () -> client.insertBatch(List.of(student("Sunil"))));
+                assertTrue(e.getMessage().contains("401"));
+            }
+            assertEquals(1, storage.count());
+        }
+    }
+
+    @Test
+    void serverWithoutATokenRefusesWrites() throws Exception {
+        try (LogStructuredStudentStorage storage = new LogStructuredStudentStorage(directory, 0, 0);
+             StudentServer server = start(storage, null)) {
+            assertEquals(403, post(server, "/students", body(1, 0)));
+            assertEquals(0, storage.count());
+        }
+    }
+
+    @Test
+    void rowCountsBeyondTheBodyAreRejectedBeforeAllocating() throws Exception {
+        try (LogStructuredStudentStorage storage = new LogStructuredStudentStorage(directory, 0, 0);
+             StudentServer server = start(storage, TOKEN)) {
+            assertEquals(400, post(server, "/students/delete", body(Integer.MAX_VALUE, 16)));
+            assertEquals(400, post(server, "/students/delete", body(-1, 0)));
+            assertEquals(400, post(server, "/students", body(StudentServer.MAX_BATCH_ROWS + 1, 0)));
+            // Three ids promised, two sent.
+            assertEquals(400, post(server, "/students/delete", body(3, 16)));
+        }
+    }
+
+    @Test
+    void oversizedBatchesAreRejectedWholeInsteadOfSplit() throws Exception {
+        try (LogStructuredStudentStorage storage = new LogStructuredStudentStorage(directory, 0, 0);
+             StudentServer server = start(storage, TOKEN);
+             HttpStudentStorage client = new HttpStudentStorage(URI.create("http://127.0.0.1:" + server.getPort()), TOKEN)) {
+            List<Student> students = new ArrayList<>();
+            for (int i = 0; i <= StudentServer.MAX_BATCH_ROWS; i++) {
+                students.add(student("Student " + i));
+            }
+
+            assertThrows(SQLNonTransientException.class, () -> client.insertBatch(students));
+            assertEquals(0, storage.count());
+            client.insertBatch(students.subList(0, client.maxBatchSize()));
+            assertEquals(StudentServer.MAX_BATCH_ROWS, storage.count());
+        }
+    }
+
+    private static StudentServer start(StudentStorage storage, String token) throws Exception {
+        StudentServer server = new StudentServer(storage, new InetSocketAddress(StudentServer.DEFAULT_BIND_ADDRESS, 0), 16, token);
+        server.start(0);
+        return server;
+    }
+
+    private static int post(StudentServer server, String path, byte[] body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .header("Content-Type", StudentWire.BINARY_TYPE)
+                .header("Authorization", "Bearer " + TOKEN)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+    }
+
+    // A count followed by padding bytes.
+    private static byte[] body(int count, int padding) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(count);
+            out.write(new byte[padding]);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Student student(String name) {
+        return new Student(name, "Male", null, null, null, 70, 60, 50, null, "1");
+    }
+}
@@ -0,0 +1,66 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentSnapshotTest {
+    private static final String SOURCE = "jdbc:mysql://localhost:3306/students";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripKeepsEveryFieldAndTheWatermark() throws Exception {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            students.add(new Student(i + 1, "Student " + i, i % 2 == 0 ? "Male" : "Female", "s" + i + "@example.com", "07112345" + i,
+                    i % 3 == 0 ? null : "Kandy", i, 50 + i, 100 - i, "DSE-" + i, i % 5 == 0 ? null : String.valueOf(1 + i % 8)));
+        }
+        students.add(new Student(99, "Ruwan Jayasūriya ප", null, null, null, null, 0, 0, 0, null, null));
+        Timestamp watermark = Timestamp.valueOf("2024-03-01 10:15:30.123456789");
+        Path file = directory.resolve("students.snapshot");
+
+        StudentSnapshot.write(file, SOURCE, students, watermark);
+        List<Integer> batchSizes = new ArrayList<>();
+        List<Student> read = new ArrayList<>();
+        Timestamp readWatermark = StudentSnapshot.read(file, SOURCE, new StudentStore(), 4, 10, batch -> {
+            batchSizes.add(batch.size());
+            read.addAll(batch);
+        });
+
+        assertEquals(watermark, readWatermark);
+        assertEquals(List.of(4, 10, 10, 2), batchSizes);
+        assertEquals(students.size(), read.size());
+        for (int i = 0; i < students.size(); i++) {
+            assertEquals(students.get(i).getId(), read.get(i).getId());
+            assertTrue(StudentDeltaSync.sameValues(students.get(i), read.get(i)), "row " + i);
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void damagedOrForeignSnapshotsAreIgnored() throws Exception {
+        Path file = directory.resolve("students.snapshot");
+        List<Student> students = List.of(new Student(1, "Nimal", "Male", null, null, null, 75, 64, 80, "DSE-1", "1"));
+        StudentSnapshot.write(file, SOURCE, students, new Timestamp(1_000));
+
+        assertNull(StudentSnapshot.read(file, "jdbc:mysql://elsewhere/students", new StudentStore(), 10, 10, batch -> { }));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        assertNull(StudentSnapshot.read(file, SOURCE, new StudentStore(), 10, 10, batch -> { }));
+        assertNull(StudentSnapshot.read(directory.resolve("missing.snapshot"), SOURCE, new StudentStore(), 10, 10, batch -> { }));
+    }
+}
@@ -0,0 +1,51 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class StudentStoreTest {
+    @Test
+    void profilesAreSharedByFullValueNotJustTheLatestPerStudent() {
+        StudentStore store = new StudentStore(4);
+
+        int first = store.profile("Nimal", "Male", "nimal@example.com", "0711234567", "Kandy", "DSE-1");
+        int changed = store.profile("Nimal", "Male", "nimal@work.example.com", "0711234567", "Kandy", "DSE-1");
+        int again = store.profile("Nimal", "Male", "nimal@example.com", "0711234567", "Kandy", "DSE-1");
+
+        assertNotEquals(first, changed);
+        assertEquals(first, again);
+        assertEquals(2, store.profileCount());
+    }
+
+    @Test
+    void editingAProfileFieldLeavesTheStudentsOtherRowsAlone() {
+        StudentStore store = new StudentStore(4);
+        Student first = store.append(1, "Nimal", "Male", "nimal@example.com", null, "Kandy", 70, 60, 50, "DSE-1", "1");
+        Student second = store.append(2, "Nimal", "Male", "nimal@example.com", null, "Kandy", 75, 65, 55, "DSE-1", "2");
+
+        second.addressProperty().set("Galle");
+
+        assertEquals("Kandy", first.getAddress());
+        assertEquals("Galle", second.getAddress());
+        second.addressProperty().set("Kandy");
+        assertEquals(2, store.profileCount());
+        assertEquals(store.getProfile(0), store.getProfile(1));
+    }
+
+    @Test
+    void newGenerationReplacesTheDefaultStore() {
+        StudentStore before = StudentStore.getDefault();
+        Student old = new Student("Nimal", "Male", null, null, null, 70, 60, 50, "DSE-1", "1");
+
+        StudentStore generation = StudentStore.newGeneration();
+
+        assertNotSame(before, generation);
+        assertSame(generation, StudentStore.getDefault());
+        assertEquals("Nimal", old.getName());
+        assertEquals(0, generation.size());
+    }
+}
@@ -0,0 +1,125 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentTrendServiceTest {
+
+    @Test
+    void downsampleKeepsTheEndsAndOnePointPerBucket() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (int n : new int[]{10, 121, 1_000, 4_097}) {
+            int[] x = new int[n];
+            int[] y = new int[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = i + 1;
+                y[i] = random.nextInt(101);
+            }
+            for (int threshold : new int[]{3, 7, 120}) {
+                if (threshold >= n) {
+                    continue;
+                }
+                int[] kept = StudentTrendService.downsample(x, y, threshold);
+
+                assertEquals(threshold, kept.length);
+                assertEquals(0, kept[0]);
+                assertEquals(n - 1, kept[threshold - 1]);
+                double bucketSize = (double) (n - 2) / (threshold - 2);
+                for (int bucket = 0; bucket < threshold - 2; bucket++) {
+                    int point = kept[bucket + 1];
+                    assertTrue(point >= (int) (bucket * bucketSize) + 1 && point < (int) ((bucket + 1) * bucketSize) + 1,
+                            "n " + n + ", threshold " + threshold + ", bucket " + bucket);
+                }
+            }
+        }
+    }
+
+    @Test
+    void downsampleKeepsASpikeAPlainStrideWouldDrop() {
+        int n = 500;
+        int[] x = new int[n];
+        int[] y = new int[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i + 1;
+            y[i] = 50;
+        }
+        y[251] = 100;
+        y[377] = 0;
+
+        int[] kept = StudentTrendService.downsample(x, y, 20);
+
+        assertTrue(contains(kept, 251));
+        assertTrue(contains(kept, 377));
+    }
+
+    @Test
+    void shortSeriesAreKeptWhole() {
+        int[] x = {1, 2, 3, 4};
+        int[] y = {40, 70, 20, 90};
+
+        assertArrayEquals(new int[]{0, 1, 2, 3}, StudentTrendService.downsample(x, y, 4));
+        assertArrayEquals(new int[]{0, 1, 2, 3}, StudentTrendService.downsample(x, y, 120));
+    }
+
+    @Test
+    void cachedTrendsAreServedUntilInvalidated() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        StudentTrendService service = new StudentTrendService(4, 3, (name, subject) -> {
+            loads.incrementAndGet();
+            return marks(1, 2, 3, 4, 5);
+        });
+
+        StudentTrendService.Trend trend = service.get("Nimal", "Physics");
+        assertEquals(3, trend.size());
+        assertEquals(5, trend.getSourceSize());
+        assertEquals(1, trend.getSemester(0));
+        assertEquals(5, trend.getSemester(2));
+        service.get("Nimal", "Physics");
+        assertEquals(1, loads.get());
+
+        service.invalidate("Nimal");
+        assertNull(service.getIfCached("Nimal", "Physics"));
+        service.get("Nimal", "Physics");
+        assertEquals(2, loads.get());
+        assertNotNull(service.getIfCached("Nimal", "Physics"));
+    }
+
+    @Test
+    void aLoadRacingAnInvalidationIsNotCached() throws Exception {
+        StudentTrendService[] service = new StudentTrendService[1];
+        service[0] = new StudentTrendService(4, 10, (name, subject) -> {
+            service[0].invalidateAll();
+            return marks(1, 2);
+        });
+
+        assertEquals(2, service[0].get("Nimal", "Chemistry").size());
+        assertEquals(0, service[0].size());
+    }
+
+    private static List<StudentRepository.SemesterMark> marks(int... semesters) {
+        List<StudentRepository.SemesterMark> marks = new ArrayList<>();
+        for (int semester : semesters) {
+            marks.add(new StudentRepository.SemesterMark(semester, 10 * semester));
+        }
+        return marks;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
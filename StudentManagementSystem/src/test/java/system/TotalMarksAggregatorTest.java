@@ -0,0 +1,73 @@
+package system;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.XYChart;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TotalMarksAggregatorTest {
+    @Test
+    void histogramBucketsStayInNumericOrder() {
+        ObservableList<Student> students = FXCollections.observableArrayList(student("A", 100), student("B", 250));
+        TotalMarksAggregator aggregator = new TotalMarksAggregator(students);
+        aggregator.setMode(TotalMarksAggregator.Mode.HISTOGRAM);
+
+        // New buckets below, between and above the ones already shown.
+        students.add(student("C", 10));
+        students.add(student("D", 170));
+        students.add(student("E", 290));
+
+        assertEquals(List.of("0-49", "100-149", "150-199", "250-299"), categories(aggregator));
+    }
+
+    @Test
+    void topBarsFollowTheRankingAsTotalsChange() {
+        SplittableRandom random = new SplittableRandom(3);
+        ObservableList<Student> students = FXCollections.observableArrayList();
+        for (int i = 0; i < 60; i++) {
+            students.add(student("Student " + i, random.nextInt(301)));
+        }
+        TotalMarksAggregator aggregator = new TotalMarksAggregator(students);
+        aggregator.setMode(TotalMarksAggregator.Mode.TOP_N);
+
+        for (int round = 0; round < 100; round++) {
+            int i = random.nextInt(students.size());
+            students.set(i, student(students.get(i).getName(), random.nextInt(301)));
+
+            Map<String, Long> totals = new HashMap<>();
+            for (Student student : students) {
+                totals.merge(student.getName(), (long) student.getTotalMarks(), Long::sum);
+            }
+            List<String> expected = totals.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(TotalMarksAggregator.TOP_N)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            assertEquals(expected, categories(aggregator), "round " + round);
+        }
+    }
+
+    private static List<String> categories(TotalMarksAggregator aggregator) {
+        List<String> categories = new ArrayList<>();
+        for (XYChart.Data<String, Number> data : aggregator.getSeries().getData()) {
+            categories.add(data.getXValue());
+        }
+        return categories;
+    }
+
+    // Total marks split over the three subjects.
+    private static Student student(String name, int total) {
+        int mathematics = Math.min(100, total);
+        int physics = Math.min(100, total - mathematics);
+        return new Student(name, "Male", null, null, null, mathematics, physics, total - mathematics - physics, null, "1");
+    }
+}
@@ -0,0 +1,194 @@
+package system;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindQueueTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void changesPendingAtACrashAreReplayedOnce() throws Exception {
+        Path journal = directory.resolve("writes.journal");
+        MemoryStorage unreachable = new MemoryStorage();
+        unreachable.failure = new SQLTransientConnectionException("The database went away");
+        WriteBehindQueue crashed = new WriteBehindQueue(unreachable, journal, new RecordingListener(), Runnable::run);
+        crashed.enqueueInsert(student("Nimal"));
+        crashed.enqueueInsert(student("Kamal"));
+        crashed.enqueueInsert(student("Sunil"));
+        Student committed = student("Amal");
+        committed.setId(42);
+        crashed.enqueueDelete(List.of(committed));
+        // Closing while the writer is still retrying leaves every change in the journal, as a crash would.
+        crashed.close();
+
+        MemoryStorage storage = new MemoryStorage();
+        // Sunil's insert committed before the crash; only its journal mark was lost.
+        storage.existing = "Sunil";
+        try (WriteBehindQueue queue = new WriteBehindQueue(storage, journal, new RecordingListener(), Runnable::run)) {
+            awaitIdle(queue);
+        }
+
+        assertEquals(List.of("Nimal", "Kamal"), storage.insertedNames);
+        assertEquals(List.of(42L), storage.deletedIds);
+        assertEquals(0, Files.size(journal));
+    }
+
+    @Test
+    void unexpectedStorageFailureRollsTheChangeBack() throws Exception {
+        MemoryStorage storage = new MemoryStorage();
+        storage.bug = new IllegalStateException("storage is closed");
+        RecordingListener listener = new RecordingListener();
+        Student student = student("Nimal");
+        try (WriteBehindQueue queue = new WriteBehindQueue(storage, directory.resolve("writes.journal"), listener, Runnable::run)) {
+            queue.enqueueInsert(student);
+            List<Student> inserted = listener.rolledBack.poll(10, TimeUnit.SECONDS);
+            assertNotNull(inserted);
+            assertSame(student, inserted.get(0));
+            assertInstanceOf(IllegalStateException.class, listener.cause.getCause());
+            awaitIdle(queue);
+        }
+    }
+
+    @Test
+    void oneRejectedRowDoesNotRollBackTheRestOfItsBatch() throws Exception {
+        MemoryStorage storage = new MemoryStorage();
+        storage.rejected = "Kamal";
+        RecordingListener listener = new RecordingListener();
+        try (WriteBehindQueue queue = new WriteBehindQueue(storage, directory.resolve("writes.journal"), listener, Runnable::run)) {
+            for (String name : new String[]{"Nimal", "Kamal", "Sunil"}) {
+                queue.enqueueInsert(student(name));
+            }
+            awaitIdle(queue);
+        }
+
+        assertTrue(storage.insertedNames.containsAll(List.of("Nimal", "Sunil")));
+        assertFalse(storage.insertedNames.contains("Kamal"));
+        assertEquals("Kamal", listener.rolledBack.poll(10, TimeUnit.SECONDS).get(0).getName());
+    }
+
+    private static void awaitIdle(WriteBehindQueue queue) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (queue.getPending() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, queue.getPending());
+    }
+
+    private static Student student(String name) {
+        return new Student(name, "Male", null, null, null, 70, 60, 50, null, "1");
+    }
+
+    private static final class RecordingListener implements WriteBehindQueue.Listener {
+        private final BlockingQueue<List<Student>> rolledBack = new LinkedBlockingQueue<>();
+        private volatile Exception cause;
+
+        @Override
+        public void pendingChanged(int pending) {
+        }
+
+        @Override
+        public void rolledBack(List<Student> inserted, List<Student> deleted, Exception cause) {
+            this.cause = cause;
+            rolledBack.add(inserted);
+        }
+    }
+
+    private static final class MemoryStorage implements StudentStorage {
+        private final List<String> insertedNames = new ArrayList<>();
+        private final List<Long> deletedIds = new ArrayList<>();
+        private volatile SQLException failure;
+        private volatile RuntimeException bug;
+        private volatile String existing;
+        private volatile String rejected;
+
+        @Override
+        public synchronized void insertBatch(List<Student> students) throws SQLException {
+            if (failure != null) {
+                throw failure;
+            }
+            if (bug != null) {
+                throw bug;
+            }
+            for (Student student : students) {
+                if (student.getName().equals(rejected)) {
+                    throw new SQLException("Data too long for column 'name'", "22001");
+                }
+            }
+            for (Student student : students) {
+                insertedNames.add(student.getName());
+                student.setId(insertedNames.size());
+            }
+        }
+
+        @Override
+        public void save(Student student) throws SQLException {
+            insertBatch(List.of(student));
+        }
+
+        @Override
+        public int count() {
+            return insertedNames.size();
+        }
+
+        @Override
+        public int streamAll(int firstBatchSize, int batchSize, Consumer<List<Student>> consumer, BooleanSupplier cancelled) {
+            return 0;
+        }
+
+        @Override
+        public synchronized int deleteByIds(long[] ids) throws SQLException {
+            if (failure != null) {
+                throw failure;
+            }
+            for (long id : ids) {
+                deletedIds.add(id);
+            }
+            return ids.length;
+        }
+
+        @Override
+        public long findMatchingId(Student student) {
+            return student.getName().equals(existing) ? 7 : 0;
+        }
+
+        @Override
+        public List<StudentRepository.SemesterMark> findSemesterMarks(String studentName, String subject) {
+            return List.of();
+        }
+
+        @Override
+        public Timestamp currentTimestamp() {
+            return null;
+        }
+
+        @Override
+        public String getSource() {
+            return "memory";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package system.benchmark;
+
+import system.DatabaseConfig;
+import system.Student;
+import system.StudentStorage;
+import system.StudentStore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+// Synthetic students tables at production scale. Every student gets an admission number, a profile
+// (name, gender, home town, contact details) and one row per semester taken so far, 1 to 8. Marks
+// come from a per-student ability, a per-subject aptitude and a per-student trend across semesters,
+// plus noise, clamped to 0..100, with the odd absence recorded as 0.
+//
+// Row n is a function of the seed and n alone: each student draws from its own random stream, so
+// the same seed and row count give the same table whatever the batch size or output format, and a
+// smaller table is a prefix of a larger one.
+//
+// Usage: DatasetGenerator <rows> <sql|csv|embedded|database> [path] [seed]
+//   sql       a MySQL dump shaped like Database File/student_database_students.sql
+//   csv       a bulk file the application's "Import records..." reads
+//   embedded  straight into a new LogStructuredStudentStorage directory (sms.storage=embedded)
+//   database  straight into the database of student_management.properties (sms.db.*)
+public class DatasetGenerator {
+    public static final long DEFAULT_SEED = 20240320L;
+    static final int BATCH_SIZE = 5_000;
+    static final String[] COLUMNS = {"admission_number", "name", "gender", "address", "contact_number", "email",
+            "semester", "mathematics_marks", "physics_marks", "chemistry_marks"};
+
+    private static final String[] MALE_NAMES = {"Hirumitha", "Minindu", "Kasun", "Nuwan", "Chamara", "Dinesh", "Tharindu",
+            "Isuru", "Lahiru", "Sahan", "Ravindu", "Pasindu", "Dulaj", "Chathura", "Kavindu", "Sanjaya", "Ruwan", "Amila",
+            "Supun", "Gayan", "Janith", "Yasiru", "Dilshan", "Hasitha", "Malith", "Nimesh", "Ashen", "Thisara", "Vihanga",
+            "Kusal", "Dasun", "Akila", "Chanuka", "Ishan", "Sachith", "Buddhika", "Heshan", "Oshada", "Pathum", "Sineth"};
+    private static final String[] FEMALE_NAMES = {"Sahansi", "Nethmi", "Dilini", "Chamodi", "Hansika", "Ishara", "Kavindi",
+            "Sachini", "Tharushi", "Nadeesha", "Anjali", "Piumi", "Sewwandi", "Thilini", "Hiruni", "Madushi", "Dulmini",
+            "Shehani", "Rashmi", "Nimasha", "Oshadi", "Sanduni", "Yashodha", "Chathuri", "Gayani", "Imesha", "Janani",
+            "Kaushalya", "Lakmini", "Malsha", "Nethuli", "Pabasara", "Ruvini", "Senuri", "Thamali", "Upeksha", "Vinodi",
+            "Wasana", "Amaya", "Binuri"};
+    private static final String[] SURNAMES = {"Perera", "Fernando", "Silva", "de Silva", "Jayasinghe", "Bandara", "Dissanayake",
+            "Rajapaksha", "Wickramasinghe", "Gunawardena", "Senanayake", "Herath", "Kumara", "Rathnayake", "Weerasinghe",
+            "Jayawardena", "Liyanage", "Samarasinghe", "Wijesinghe", "Karunaratne", "Peiris", "Mendis", "Abeysekara",
+            "Amarasinghe", "Ekanayake", "Gamage", "Hettiarachchi", "Jayasuriya", "Kodikara", "Madushanka", "Nanayakkara",
+            "Pathirana", "Ranasinghe", "Senaratne", "Tennakoon", "Udugama", "Vithanage", "Wanigasekara", "Yapa",
+            "Abeywardena", "Balasuriya", "Chandrasiri", "Dias", "Edirisinghe", "Fonseka", "Gunasekara", "Hewage",
+            "Illangakoon", "Jayakody", "Kulatunga", "Lokuge", "Munasinghe", "Nawarathna", "Obeysekera", "Premadasa",
+            "Rodrigo", "Siriwardena", "Thilakarathne", "Wijeratne", "Zoysa"};
+    private static final String[] TOWNS = {"Kelaniya", "Kosgama", "Colombo", "Gampaha", "Kandy", "Galle", "Matara",
+            "Negombo", "Kurunegala", "Ratnapura", "Kalutara", "Panadura", "Moratuwa", "Maharagama", "Homagama", "Kadawatha",
+            "Kiribathgoda", "Nugegoda", "Dehiwala", "Battaramulla", "Kaduwela", "Avissawella", "Anuradhapura",
+            "Polonnaruwa", "Badulla", "Nuwara Eliya", "Jaffna", "Trincomalee", "Batticaloa", "Hambantota", "Chilaw",
+            "Puttalam", "Kegalle", "Matale", "Ampara", "Vavuniya", "Horana", "Wattala", "Ja-Ela", "Minuwangoda"};
+    private static final String[] MOBILE_PREFIXES = {"070", "071", "072", "074", "075", "076", "077", "078"};
+    // Share of students (percent) by how many semesters they have taken: intakes still in progress
+    // have fewer rows than graduated ones.
+    private static final int[] SEMESTER_WEIGHTS = {6, 10, 14, 16, 16, 14, 12, 12};
+    private static final int FIRST_INTAKE = 2015;
+    private static final int INTAKES = 10;
+
+    private final long seed;
+
+    public DatasetGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: DatasetGenerator <rows> <sql|csv|embedded|database> [path] [seed]");
+            System.exit(2);
+        }
+        int rows = Integer.parseInt(args[0]);
+        String format = args[1];
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+        DatasetGenerator generator = new DatasetGenerator(seed);
+        long start = System.nanoTime();
+        switch (format) {
+            case "sql":
+                generator.writeSql(rows, Paths.get(args.length > 2 ? args[2] : "students_" + rows + ".sql"));
+                break;
+            case "csv":
+                generator.writeCsv(rows, Paths.get(args.length > 2 ? args[2] : "students_" + rows + ".csv"));
+                break;
+            case "embedded":
+                try (StudentStorage storage = openEmbedded(Paths.get(args.length > 2 ? args[2] : "student_data"))) {
+                    generator.load(rows, storage);
+                }
+                break;
+            case "database":
+                try (StudentStorage storage = StudentStorage.open(DatabaseConfig.load(), "mysql")) {
+                    generator.load(rows, storage);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        System.out.printf("%d rows (seed %d) as %s in %.1f s%n", rows, seed, format, (System.nanoTime() - start) / 1e9);
+    }
+
+    // The application's embedded backend, opened the way sms.storage=embedded opens it. The directory
+    // has to be new or empty, so the ids match the row numbers.
+    public static StudentStorage openEmbedded(Path directory) throws Exception {
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                if (files.findAny().isPresent()) {
+                    throw new IllegalArgumentException(directory + " is not empty");
+                }
+            }
+        }
+        Properties properties = new Properties();
+        properties.setProperty("sms.storage.path", directory.toString());
+        properties.setProperty("sms.storage.compactionSeconds", "0");
+        return StudentStorage.open(DatabaseConfig.fromProperties(properties), "embedded");
+    }
+
+    // Rows 1..rows in id order, grouped by student and in semester order within one. Each batch has
+    // its own StudentStore, so nothing is kept once the consumer is done with it.
+    public void generate(int rows, int batchSize, BatchConsumer consumer) throws Exception {
+        StudentStore store = new StudentStore();
+        List<Student> batch = new ArrayList<>(batchSize);
+        int id = 0;
+        for (int student = 0; id < rows; student++) {
+            Profile profile = new Profile(student);
+            for (int semester = 1; semester <= profile.semesters && id < rows; semester++) {
+                id++;
+                batch.add(profile.row(store, id, semester));
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    store = new StudentStore();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    public void load(int rows, StudentStorage storage) throws Exception {
+        generate(rows, BATCH_SIZE, storage::insertBatch);
+    }
+
+    public void writeSql(int rows, Path file) throws Exception {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("-- Synthetic students table: " + rows + " rows, DatasetGenerator seed " + seed + "\n");
+            out.write("/*!40101 SET NAMES utf8mb4 */;\n");
+            out.write("/*!40014 SET @OLD_UNIQUE_CHECKS=@@UNIQUE_CHECKS, UNIQUE_CHECKS=0 */;\n\n");
+            out.write("DROP TABLE IF EXISTS `students`;\n");
+            out.write("CREATE TABLE `students` (\n"
+                    + "  `id` int NOT NULL AUTO_INCREMENT,\n"
+                    + "  `admission_number` varchar(20) DEFAULT NULL,\n"
+                    + "  `name` varchar(255) NOT NULL,\n"
+                    + "  `gender` varchar(20) DEFAULT NULL,\n"
+                    + "  `address` varchar(255) DEFAULT NULL,\n"
+                    + "  `contact_number` varchar(20) DEFAULT NULL,\n"
+                    + "  `email` varchar(255) DEFAULT NULL,\n"
+                    + "  `semester` varchar(20) DEFAULT NULL,\n"
+                    + "  `mathematics_marks` int DEFAULT NULL,\n"
+                    + "  `physics_marks` int DEFAULT NULL,\n"
+                    + "  `chemistry_marks` int DEFAULT NULL,\n"
+                    + "  PRIMARY KEY (`id`)\n"
+                    + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;\n\n");
+            out.write("LOCK TABLES `students` WRITE;\n");
+            out.write("/*!40000 ALTER TABLE `students` DISABLE KEYS */;\n");
+            // Extended inserts of 1,000 rows stay well under the default max_allowed_packet.
+            generate(rows, 1_000, batch -> {
+                StringBuilder line = new StringBuilder(batch.size() * 160).append("INSERT INTO `students` VALUES ");
+                for (int i = 0; i < batch.size(); i++) {
+                    Student student = batch.get(i);
+                    line.append(i == 0 ? "(" : ",(").append(student.getId()).append(',');
+                    sqlString(line, student.getAdmissionNumber()).append(',');
+                    sqlString(line, student.getName()).append(',');
+                    sqlString(line, student.getGender()).append(',');
+                    sqlString(line, student.getAddress()).append(',');
+                    sqlString(line, student.getContactNumber()).append(',');
+                    sqlString(line, student.getEmail()).append(',');
+                    sqlString(line, student.getSemester()).append(',')
+                            .append(student.getMathematicsMarks()).append(',')
+                            .append(student.getPhysicsMarks()).append(',')
+                            .append(student.getChemistryMarks()).append(')');
+                }
+                out.append(line).append(";\n");
+            });
+            out.write("/*!40000 ALTER TABLE `students` ENABLE KEYS */;\n");
+            out.write("UNLOCK TABLES;\n");
+            out.write("/*!40014 SET UNIQUE_CHECKS=@OLD_UNIQUE_CHECKS */;\n");
+        }
+    }
+
+    // Without ids: the importer assigns them, like it does for any other bulk file.
+    public void writeCsv(int rows, Path file) throws Exception {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(String.join(",", COLUMNS));
+            out.write("\r\n");
+            generate(rows, BATCH_SIZE, batch -> {
+                StringBuilder lines = new StringBuilder(batch.size() * 120);
+                for (Student student : batch) {
+                    csvField(lines, student.getAdmissionNumber()).append(',');
+                    csvField(lines, student.getName()).append(',');
+                    csvField(lines, student.getGender()).append(',');
+                    csvField(lines, student.getAddress()).append(',');
+                    csvField(lines, student.getContactNumber()).append(',');
+                    csvField(lines, student.getEmail()).append(',');
+                    csvField(lines, student.getSemester()).append(',')
+                            .append(student.getMathematicsMarks()).append(',')
+                            .append(student.getPhysicsMarks()).append(',')
+                            .append(student.getChemistryMarks()).append("\r\n");
+                }
+                out.append(lines);
+            });
+        }
+    }
+
+    private static StringBuilder sqlString(StringBuilder line, String value) {
+        if (value == null) {
+            return line.append("NULL");
+        }
+        line.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\'' || c == '\\') {
+                line.append('\\');
+            }
+            line.append(c);
+        }
+        return line.append('\'');
+    }
+
+    private static StringBuilder csvField(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static int weighted(SplittableRandom random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int pick = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    public interface BatchConsumer {
+        void accept(List<Student> batch) throws Exception;
+    }
+
+    // One student's fixed traits, drawn from the student's own stream; rows add per-semester noise
+    // from a stream of their own, so a row does not depend on how many semesters came before it.
+    private final class Profile {
+        private final int student;
+        private final int semesters;
+        private final String admissionNumber;
+        private final String name;
+        private final String gender;
+        private final String address;
+        private final String contactNumber;
+        private final String email;
+        private final double ability;
+        private final double[] aptitude = new double[3];
+        private final double trend;
+
+        private Profile(int student) {
+            this.student = student;
+            SplittableRandom random = new SplittableRandom(mix(seed, student, 0));
+            semesters = 1 + weighted(random, SEMESTER_WEIGHTS);
+            admissionNumber = String.format(Locale.ROOT, "DSE-%02d-%06d",
+                    (FIRST_INTAKE + student % INTAKES) % 100, student / INTAKES + 1);
+            int genderPick = random.nextInt(100);
+            gender = genderPick < 49 ? "Male" : genderPick < 98 ? "Female" : "Rather not say";
+            boolean male = genderPick < 49 || (genderPick >= 98 && random.nextBoolean());
+            String first = male ? MALE_NAMES[random.nextInt(MALE_NAMES.length)] : FEMALE_NAMES[random.nextInt(FEMALE_NAMES.length)];
+            String surname = SURNAMES[random.nextInt(SURNAMES.length)];
+            // Two initials, the way names are usually written here, keep most names unique.
+            name = first + " " + (char) ('A' + random.nextInt(26)) + ". " + (char) ('A' + random.nextInt(26)) + ". " + surname;
+            address = TOWNS[random.nextInt(TOWNS.length)];
+            contactNumber = MOBILE_PREFIXES[random.nextInt(MOBILE_PREFIXES.length)]
+                    + String.format(Locale.ROOT, "%07d", random.nextInt(10_000_000));
+            email = (first + "." + surname.replace(" ", "")).toLowerCase(Locale.ROOT) + (student / INTAKES + 1)
+                    + (random.nextInt(4) == 0 ? "@yahoo.com" : "@gmail.com");
+            ability = random.nextGaussian(62, 12);
+            for (int subject = 0; subject < aptitude.length; subject++) {
+                aptitude[subject] = random.nextGaussian(0, 9);
+            }
+            trend = random.nextGaussian(0.8, 1.5);
+        }
+
+        private Student row(StudentStore store, long id, int semester) {
+            SplittableRandom random = new SplittableRandom(mix(seed, student, semester));
+            int[] marks = new int[3];
+            for (int subject = 0; subject < marks.length; subject++) {
+                double mark = ability + aptitude[subject] + trend * (semester - 1) + random.nextGaussian(0, 6);
+                marks[subject] = random.nextInt(100) == 0 ? 0 : (int) Math.max(0, Math.min(100, Math.round(mark)));
+            }
+            return store.append(id, name, gender, email, contactNumber, address, marks[0], marks[1], marks[2],
+                    admissionNumber, String.valueOf(semester));
+        }
+    }
+
+    private static long mix(long seed, int student, int semester) {
+        long z = seed + 0x9E3779B97F4A7C15L * ((long) student * 16 + semester + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,67 @@
+package system.benchmark;
+
+import org.h2.tools.Server;
+import system.ConnectionPool;
+import system.DatabaseConfig;
+import system.SchemaMigrator;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// H2 in MySQL compatibility mode served over TCP, so every new connection pays a real socket and
+// authentication handshake the way a connection to the registrar's MySQL server does. The schema
+// migrations run on startup so the tables match a migrated production database.
+public class EmbeddedDatabase implements AutoCloseable {
+    static final String USER = "sa";
+    static final String PASSWORD = "";
+
+    private final Server server;
+    private final String url;
+    private final Connection keepAlive;
+
+    public EmbeddedDatabase(String name) throws SQLException {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+        keepAlive = DriverManager.getConnection(url, USER, PASSWORD);
+        try (Statement stmt = keepAlive.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS students ("
+                    + "id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "admission_number VARCHAR(20), "
+                    + "name VARCHAR(255) NOT NULL, "
+                    + "gender VARCHAR(20), "
+                    + "address VARCHAR(255), "
+                    + "contact_number VARCHAR(20), "
+                    + "email VARCHAR(255), "
+                    + "semester VARCHAR(20), "
+                    + "mathematics_marks INT, "
+                    + "physics_marks INT, "
+                    + "chemistry_marks INT)");
+        }
+        try (ConnectionPool pool = new ConnectionPool(config(1))) {
+            new SchemaMigrator(pool).migrate();
+        } catch (IOException e) {
+            throw new SQLException("Could not migrate the benchmark schema", e);
+        }
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Connection getConnection() {
+        return keepAlive;
+    }
+
+    public DatabaseConfig config(int poolSize) {
+        return new DatabaseConfig(url, USER, PASSWORD, poolSize, 10_000);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        keepAlive.close();
+        server.stop();
+    }
+}
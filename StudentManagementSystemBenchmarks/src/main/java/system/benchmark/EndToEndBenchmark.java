@@ -0,0 +1,485 @@
+package system.benchmark;
+
+import javafx.application.Platform;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.ScatterChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import system.DatabaseConfig;
+import system.LatencyHistogram;
+import system.Student;
+import system.StudentIndex;
+import system.StudentLoadTask;
+import system.StudentRepository;
+import system.StudentStorage;
+import system.StudentTrendService;
+import system.TotalMarksAggregator;
+import system.WriteBehindQueue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// What a user waits for, at one dataset size and storage backend: a generated table (see
+// DatasetGenerator) is loaded into the same list, table, bar chart and indexes the main window
+// uses, on a real JavaFX toolkit. Unless -Dglass.platform says otherwise the toolkit is Monocle's
+// headless platform with software rendering, so runs on build machines and laptops are comparable.
+//
+//   startup to first row  storage opened, first batch on screen (after the next layout pulse)
+//   full load             last batch on screen
+//   heap after load       used heap after GC, total and per row
+//   add / delete          on the FX thread (list change plus journal append), and until the
+//                         write-behind queue reports the change stored
+//   chart refresh         bar chart mode switches and per-student trend charts, each laid out
+//                         and rendered through Node.snapshot
+//
+// Every run writes a JSON report to the output directory (target/e2e by default); --baseline
+// prints each metric next to an earlier report's.
+// Usage: EndToEndBenchmark [rows] [embedded|jdbc] [--ops N] [--seed N] [--out dir] [--baseline report.json]
+public class EndToEndBenchmark {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private static final int CHART_REFRESHES = 40;
+    private static final long TIMEOUT_SECONDS = 600;
+    private static final Pattern METRIC = Pattern.compile("\"([a-z0-9_]+)\"\\s*:\\s*(-?[0-9.]+(?:[eE][-+]?[0-9]+)?)");
+
+    public static void main(String[] args) throws Exception {
+        int rows = 100_000;
+        String backend = "embedded";
+        int ops = 200;
+        long seed = DatasetGenerator.DEFAULT_SEED;
+        Path out = Paths.get("target", "e2e");
+        Path baseline = null;
+        int positional = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--ops":
+                    ops = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--out":
+                    out = Paths.get(args[++i]);
+                    break;
+                case "--baseline":
+                    baseline = Paths.get(args[++i]);
+                    break;
+                default:
+                    if (positional++ == 0) {
+                        rows = Integer.parseInt(args[i]);
+                    } else {
+                        backend = args[i];
+                    }
+            }
+        }
+
+        Map<String, String> environment = new LinkedHashMap<>();
+        environment.put("rows", String.valueOf(rows));
+        environment.put("backend", backend);
+        environment.put("seed", String.valueOf(seed));
+        environment.put("ops", String.valueOf(ops));
+        environment.put("started", LocalDateTime.now().toString());
+        environment.put("java", System.getProperty("java.vm.name") + " " + System.getProperty("java.version"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        environment.put("processors", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        environment.put("max_heap_mb", String.valueOf(Runtime.getRuntime().maxMemory() >> 20));
+        Map<String, Double> metrics = new LinkedHashMap<>();
+
+        metrics.put("fx_startup_ms", millis(startToolkit()));
+        environment.put("glass_platform", System.getProperty("glass.platform", "default"));
+        environment.put("prism_order", System.getProperty("prism.order", "default"));
+
+        DatasetGenerator generator = new DatasetGenerator(seed);
+        Path work = Files.createTempDirectory("e2e_benchmark");
+        try {
+            long start = System.nanoTime();
+            if ("embedded".equals(backend)) {
+                Path directory = work.resolve("students");
+                try (StudentStorage storage = DatasetGenerator.openEmbedded(directory)) {
+                    generator.load(rows, storage);
+                }
+                metrics.put("generate_ms", millis(System.nanoTime() - start));
+                Properties properties = new Properties();
+                properties.setProperty("sms.storage.path", directory.toString());
+                DatabaseConfig config = DatabaseConfig.fromProperties(properties);
+                run(() -> StudentStorage.open(config, "embedded"), seed, rows, ops, work, metrics);
+            } else if ("jdbc".equals(backend)) {
+                try (EmbeddedDatabase database = new EmbeddedDatabase("e2e_benchmark")) {
+                    try (StudentRepository repository = new StudentRepository(database.config(2))) {
+                        generator.load(rows, repository);
+                    }
+                    metrics.put("generate_ms", millis(System.nanoTime() - start));
+                    run(() -> new StudentRepository(database.config(4)), seed, rows, ops, work, metrics);
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown backend: " + backend);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(work)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Platform.exit();
+        }
+
+        Map<String, Double> previous = baseline == null ? null : readMetrics(baseline);
+        Path report = writeReport(out, environment, metrics);
+        print(environment, metrics, previous, baseline);
+        System.out.println("\nreport: " + report);
+        System.exit(0);
+    }
+
+    private static long startToolkit() throws InterruptedException {
+        if (System.getProperty("glass.platform") == null) {
+            System.setProperty("glass.platform", "Monocle");
+            System.setProperty("monocle.platform", "Headless");
+            System.setProperty("prism.order", "sw");
+        }
+        CountDownLatch started = new CountDownLatch(1);
+        long start = System.nanoTime();
+        Platform.startup(started::countDown);
+        started.await();
+        Platform.setImplicitExit(false);
+        return System.nanoTime() - start;
+    }
+
+    private static void run(StorageOpener opener, long seed, int rows, int ops, Path work,
+                            Map<String, Double> metrics) throws Exception {
+        ObservableList<Student> students = FXCollections.observableArrayList();
+        Window window = fx(() -> new Window(students));
+        long heapBefore = usedHeap();
+
+        CompletableFuture<Long> firstRow = new CompletableFuture<>();
+        CompletableFuture<Long> loaded = new CompletableFuture<>();
+        fx(() -> {
+            students.addListener(new ListChangeListener<Student>() {
+                @Override
+                public void onChanged(Change<? extends Student> change) {
+                    students.removeListener(this);
+                    window.afterNextLayout(() -> firstRow.complete(System.nanoTime()));
+                }
+            });
+            return null;
+        });
+        long start = System.nanoTime();
+        try (StudentStorage storage = opener.open()) {
+            metrics.put("open_storage_ms", millis(System.nanoTime() - start));
+            StudentLoadTask task = new StudentLoadTask(storage, students);
+            task.setOnSucceeded(event -> window.afterNextLayout(() -> loaded.complete(System.nanoTime())));
+            task.setOnFailed(event -> loaded.completeExceptionally(task.getException()));
+            Thread loader = new Thread(task, "student-loader");
+            loader.setDaemon(true);
+            loader.start();
+            metrics.put("startup_to_first_row_ms", millis(firstRow.get(TIMEOUT_SECONDS, TimeUnit.SECONDS) - start));
+            metrics.put("full_load_ms", millis(loaded.get(TIMEOUT_SECONDS, TimeUnit.SECONDS) - start));
+            if (students.size() != rows) {
+                throw new IllegalStateException("Loaded " + students.size() + " of " + rows + " rows");
+            }
+
+            long heapAfter = usedHeap();
+            metrics.put("heap_after_load_mb", heapAfter / (1024.0 * 1024.0));
+            metrics.put("heap_per_row_bytes", (double) (heapAfter - heapBefore) / rows);
+
+            measureWrites(storage, seed, students, ops, work, metrics);
+            measureCharts(storage, window, students, metrics);
+        } finally {
+            fx(() -> {
+                window.stage.close();
+                return null;
+            });
+        }
+    }
+
+    // The added students come from a generator with another seed, so they look like the loaded ones.
+    private static void measureWrites(StudentStorage storage, long seed, ObservableList<Student> students,
+                                      int ops, Path work, Map<String, Double> metrics) throws Exception {
+        List<Student> added = new ArrayList<>(ops);
+        new DatasetGenerator(seed + 1).generate(ops, ops, batch -> {
+            for (Student student : batch) {
+                student.setId(0);
+                added.add(student);
+            }
+        });
+        LinkedBlockingQueue<Integer> pending = new LinkedBlockingQueue<>();
+        List<Exception> rejected = new ArrayList<>();
+        LatencyHistogram addUi = new LatencyHistogram();
+        LatencyHistogram addStored = new LatencyHistogram();
+        LatencyHistogram deleteUi = new LatencyHistogram();
+        LatencyHistogram deleteStored = new LatencyHistogram();
+        try (WriteBehindQueue queue = new WriteBehindQueue(storage, work.resolve("e2e.journal"), new WriteBehindQueue.Listener() {
+            @Override
+            public void pendingChanged(int count) {
+                pending.add(count);
+            }
+
+            @Override
+            public void rolledBack(List<Student> inserted, List<Student> deleted, Exception cause) {
+                rejected.add(cause);
+            }
+        }, Platform::runLater)) {
+            for (Student student : added) {
+                long start = System.nanoTime();
+                addUi.recordNanos(fx(() -> {
+                    long onFx = System.nanoTime();
+                    students.add(student);
+                    queue.enqueueInsert(student);
+                    return System.nanoTime() - onFx;
+                }));
+                awaitStored(pending);
+                addStored.recordNanos(System.nanoTime() - start);
+            }
+            for (Student student : added) {
+                long start = System.nanoTime();
+                deleteUi.recordNanos(fx(() -> {
+                    long onFx = System.nanoTime();
+                    students.removeIf(row -> row == student);
+                    queue.enqueueDelete(List.of(student));
+                    return System.nanoTime() - onFx;
+                }));
+                awaitStored(pending);
+                deleteStored.recordNanos(System.nanoTime() - start);
+            }
+        }
+        if (!rejected.isEmpty()) {
+            throw new IllegalStateException(rejected.size() + " writes were rejected", rejected.get(0));
+        }
+        percentiles("add_ui", addUi, metrics);
+        percentiles("add_stored", addStored, metrics);
+        percentiles("delete_ui", deleteUi, metrics);
+        percentiles("delete_stored", deleteStored, metrics);
+    }
+
+    private static void awaitStored(LinkedBlockingQueue<Integer> pending) throws Exception {
+        while (true) {
+            Integer count = pending.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (count == null) {
+                throw new TimeoutException("The write-behind queue did not drain");
+            }
+            if (count == 0) {
+                return;
+            }
+        }
+    }
+
+    // Trend series are loaded off the FX thread, as the grading dialog does on a cache miss, then
+    // drawn on it; the second pass over the same students is served from the trend cache.
+    private static void measureCharts(StudentStorage storage, Window window, ObservableList<Student> students,
+                                      Map<String, Double> metrics) throws Exception {
+        LatencyHistogram bars = new LatencyHistogram();
+        TotalMarksAggregator.Mode[] modes = {TotalMarksAggregator.Mode.HISTOGRAM, TotalMarksAggregator.Mode.TOP_N};
+        for (int i = 0; i < CHART_REFRESHES; i++) {
+            TotalMarksAggregator.Mode mode = modes[i % modes.length];
+            bars.recordNanos(fx(() -> {
+                long start = System.nanoTime();
+                window.aggregator.setMode(mode);
+                window.barChart.snapshot(null, null);
+                return System.nanoTime() - start;
+            }));
+        }
+        percentiles("bar_chart_refresh", bars, metrics);
+
+        List<String> names = new ArrayList<>(CHART_REFRESHES);
+        for (int i = 0; i < CHART_REFRESHES; i++) {
+            names.add(students.get((int) ((long) i * students.size() / CHART_REFRESHES)).getName());
+        }
+        StudentTrendService trends = new StudentTrendService(256, StudentTrendService.DEFAULT_MAX_POINTS, storage::findSemesterMarks);
+        for (String pass : new String[]{"trend_chart_refresh", "trend_chart_cached"}) {
+            LatencyHistogram latency = new LatencyHistogram();
+            for (String name : names) {
+                long start = System.nanoTime();
+                StudentTrendService.Trend trend = trends.get(name, "Mathematics");
+                fx(() -> {
+                    window.drawTrend(trend);
+                    window.scatterChart.snapshot(null, null);
+                    return null;
+                });
+                latency.recordNanos(System.nanoTime() - start);
+            }
+            percentiles(pass, latency, metrics);
+        }
+    }
+
+    private static void percentiles(String name, LatencyHistogram latency, Map<String, Double> metrics) {
+        metrics.put(name + "_p50_ms", latency.getPercentileMicros(50) / 1e3);
+        metrics.put(name + "_p99_ms", latency.getPercentileMicros(99) / 1e3);
+    }
+
+    private static <T> T fx(Callable<T> call) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(call.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static Path writeReport(Path directory, Map<String, String> environment, Map<String, Double> metrics) throws Exception {
+        StringBuilder json = new StringBuilder("{\n  \"environment\": {");
+        boolean first = true;
+        for (Map.Entry<String, String> entry : environment.entrySet()) {
+            json.append(first ? "\n" : ",\n").append("    \"").append(entry.getKey()).append("\": \"")
+                    .append(entry.getValue().replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            first = false;
+        }
+        json.append("\n  },\n  \"metrics\": {");
+        first = true;
+        for (Map.Entry<String, Double> entry : metrics.entrySet()) {
+            json.append(first ? "\n" : ",\n").append("    \"").append(entry.getKey()).append("\": ")
+                    .append(String.format(Locale.ROOT, "%.3f", entry.getValue()));
+            first = false;
+        }
+        json.append("\n  }\n}\n");
+        Files.createDirectories(directory);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = directory.resolve("e2e-" + environment.get("backend") + "-" + environment.get("rows") + "-" + stamp + ".json");
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    // Environment values are all strings, so only the metrics match "name": number.
+    private static Map<String, Double> readMetrics(Path report) throws Exception {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        Matcher matcher = METRIC.matcher(Files.readString(report, StandardCharsets.UTF_8));
+        while (matcher.find()) {
+            metrics.put(matcher.group(1), Double.parseDouble(matcher.group(2)));
+        }
+        return metrics;
+    }
+
+    private static void print(Map<String, String> environment, Map<String, Double> metrics, Map<String, Double> baseline, Path baselineFile) {
+        System.out.printf("%n%s rows on %s, %s, %s processors, %s MB max heap, %s/%s%n", environment.get("rows"),
+                environment.get("backend"), environment.get("java"), environment.get("processors"),
+                environment.get("max_heap_mb"), environment.get("glass_platform"), environment.get("prism_order"));
+        if (baseline == null) {
+            System.out.printf("%-30s %12s%n", "metric", "value");
+            for (Map.Entry<String, Double> entry : metrics.entrySet()) {
+                System.out.printf("%-30s %12.2f%n", entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        System.out.println("baseline: " + baselineFile);
+        System.out.printf("%-30s %12s %12s %9s%n", "metric", "baseline", "this run", "change");
+        for (Map.Entry<String, Double> entry : metrics.entrySet()) {
+            Double before = baseline.get(entry.getKey());
+            String change = before == null || before == 0 ? "-"
+                    : String.format(Locale.ROOT, "%+.1f%%", 100 * (entry.getValue() - before) / before);
+            System.out.printf("%-30s %12s %12.2f %9s%n", entry.getKey(),
+                    before == null ? "-" : String.format(Locale.ROOT, "%.2f", before), entry.getValue(), change);
+        }
+    }
+
+    private interface StorageOpener {
+        StudentStorage open() throws Exception;
+    }
+
+    // The parts of the main window that react to the students list: table, bar chart with its
+    // aggregator, the name index and the grading dialog's scatter chart.
+    private static final class Window {
+        private final Stage stage = new Stage();
+        private final Scene scene;
+        private final TotalMarksAggregator aggregator;
+        private final BarChart<String, Number> barChart = new BarChart<>(new CategoryAxis(), new NumberAxis());
+        private final ScatterChart<Number, Number> scatterChart = new ScatterChart<>(new NumberAxis(), new NumberAxis());
+
+        private Window(ObservableList<Student> students) {
+            TableView<Student> table = new TableView<>(students);
+            table.getColumns().add(column("Admission Number", student -> student.admissionNumberProperty()));
+            table.getColumns().add(column("Name", student -> student.nameProperty()));
+            table.getColumns().add(column("Semester", student -> student.semesterProperty()));
+            table.getColumns().add(column("Mathematics Marks", student -> student.mathematicsMarksProperty().asObject()));
+            table.getColumns().add(column("Physics Marks", student -> student.physicsMarksProperty().asObject()));
+            table.getColumns().add(column("Chemistry Marks", student -> student.chemistryMarksProperty().asObject()));
+            table.getColumns().add(column("Total Marks", student -> student.totalMarksProperty().asObject()));
+            table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+            new StudentIndex(students);
+            aggregator = new TotalMarksAggregator(students);
+            barChart.setAnimated(false);
+            barChart.getData().add(aggregator.getSeries());
+            scatterChart.setAnimated(false);
+
+            BorderPane root = new BorderPane();
+            root.setCenter(new VBox(10, table, barChart));
+            root.setRight(scatterChart);
+            scene = new Scene(root, 1280, 800);
+            stage.setScene(scene);
+            stage.show();
+        }
+
+        private static <T> TableColumn<Student, T> column(String title, Function<Student, ObservableValue<T>> property) {
+            TableColumn<Student, T> column = new TableColumn<>(title);
+            column.setCellValueFactory(cell -> property.apply(cell.getValue()));
+            return column;
+        }
+
+        // Runs once, after the next pulse has laid out the scene.
+        private void afterNextLayout(Runnable action) {
+            Runnable[] listener = new Runnable[1];
+            listener[0] = () -> {
+                scene.removePostLayoutPulseListener(listener[0]);
+                action.run();
+            };
+            scene.addPostLayoutPulseListener(listener[0]);
+            Platform.requestNextPulse();
+        }
+
+        private void drawTrend(StudentTrendService.Trend trend) {
+            XYChart.Series<Number, Number> series = new XYChart.Series<>();
+            series.setName(trend.getStudentName());
+            List<XYChart.Data<Number, Number>> points = new ArrayList<>(trend.size());
+            for (int i = 0; i < trend.size(); i++) {
+                points.add(new XYChart.Data<>(trend.getSemester(i), trend.getMarks(i)));
+            }
+            series.getData().setAll(points);
+            scatterChart.getData().setAll(List.of(series));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package system.benchmark;
+
+import system.StudentStore;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+
+// Retained heap of N loaded rows with the legacy property-per-field layout and with the columnar
+// StudentStore. Strings are built per row, as the JDBC driver does; each student has four semester
+// rows, which share one profile in the columnar store. Run with a large -Xmx, e.g.
+// MAVEN_OPTS=-Xmx12g mvn exec:java -Dbenchmark.mainClass=system.benchmark.HeapBenchmark
+// Usage: HeapBenchmark [rows...]
+public class HeapBenchmark {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[]{100_000, 1_000_000, 5_000_000} : new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        System.out.printf("%-10s %10s %14s %10s%n", "layout", "rows", "heap (MB)", "bytes/row");
+        for (int rows : sizes) {
+            measure("legacy", rows, false);
+            measure("columnar", rows, true);
+        }
+    }
+
+    private static void measure(String label, int rows, boolean columnar) {
+        long before = usedHeap();
+        List<Object> retained = new ArrayList<>(rows);
+        try {
+            StudentStore store = new StudentStore();
+            for (int i = 0; i < rows; i++) {
+                int student = i / 4;
+                String name = new String("Student " + student);
+                String gender = new String(student % 2 == 0 ? "Male" : "Female");
+                String email = "student" + student + "@example.com";
+                String contact = "07" + (10_000_000 + student);
+                String address = new String("City " + student % 500);
+                String admission = "DSE-" + student;
+                String semester = String.valueOf(1 + i % 4);
+                if (columnar) {
+                    retained.add(store.append(i, name, gender, email, contact, address, i % 101, (i * 7) % 101, (i * 13) % 101, admission, semester));
+                } else {
+                    retained.add(new LegacyStudent(name, gender, email, contact, address, i % 101, (i * 7) % 101, (i * 13) % 101, admission, semester));
+                }
+            }
+            long used = usedHeap() - before;
+            System.out.printf("%-10s %10d %14.1f %10d%n", label, rows, used / 1048576.0, used / rows);
+            Reference.reachabilityFence(retained);
+        } catch (OutOfMemoryError e) {
+            retained.clear();
+            System.out.printf("%-10s %10d %14s %10s%n", label, rows, "OOM", "-");
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
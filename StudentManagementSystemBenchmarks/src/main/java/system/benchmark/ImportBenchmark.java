@@ -0,0 +1,70 @@
+package system.benchmark;
+
+import system.ImportReport;
+import system.StudentImporter;
+import system.StudentRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Generates a CSV and a JSON Lines file and imports both into the embedded database.
+// Usage: ImportBenchmark [rows] [batchSize]
+public class ImportBenchmark {
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : StudentImporter.DEFAULT_BATCH_SIZE;
+        int workers = Runtime.getRuntime().availableProcessors();
+
+        Path csv = Files.createTempFile("students", ".csv");
+        Path json = Files.createTempFile("students", ".jsonl");
+        try (EmbeddedDatabase database = new EmbeddedDatabase("import_benchmark");
+             StudentRepository repository = new StudentRepository(database.config(2));
+             StudentImporter importer = new StudentImporter(repository, batchSize, workers)) {
+            writeCsv(csv, rows);
+            writeJson(json, rows);
+
+            report("warmup", importer.importFile(csv, batch -> { }, () -> false));
+            report("csv", importer.importFile(csv, batch -> { }, () -> false));
+            report("jsonl", importer.importFile(json, batch -> { }, () -> false));
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(json);
+        }
+    }
+
+    private static void report(String format, ImportReport report) {
+        if (report.getFailure() != null) {
+            throw new IllegalStateException("The " + format + " import failed", report.getFailure());
+        }
+        System.out.printf("%-6s imported %d, rejected %d in %.2f s: %.0f rows/s%n", format,
+                report.getImported(), report.getRejected(), report.getElapsedNanos() / 1e9, report.getRowsPerSecond());
+    }
+
+    private static void writeCsv(Path file, int rows) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("admission_number,name,gender,address,contact_number,email,semester,mathematics_marks,physics_marks,chemistry_marks\n");
+            for (int i = 0; i < rows; i++) {
+                int marks = i % 1_000 == 999 ? 101 : i % 101;
+                out.write("DSE-" + i / 4 + ",Student " + i / 4 + "," + (i % 2 == 0 ? "Male" : "Female")
+                        + ",\"Colombo, Sri Lanka\",07" + (10_000_000 + i / 4) + ",student" + i / 4 + "@example.com,"
+                        + (1 + i % 4) + "," + marks + "," + (i * 7) % 101 + "," + (i * 13) % 101 + "\n");
+            }
+        }
+    }
+
+    private static void writeJson(Path file, int rows) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                int marks = i % 1_000 == 999 ? 101 : i % 101;
+                out.write("{\"admissionNumber\":\"DSE-" + i / 4 + "\",\"name\":\"Student " + i / 4 + "\",\"gender\":\""
+                        + (i % 2 == 0 ? "Male" : "Female") + "\",\"address\":\"Colombo\",\"contactNumber\":\"07"
+                        + (10_000_000 + i / 4) + "\",\"email\":\"student" + i / 4 + "@example.com\",\"semester\":\""
+                        + (1 + i % 4) + "\",\"mathematicsMarks\":" + marks + ",\"physicsMarks\":" + (i * 7) % 101
+                        + ",\"chemistryMarks\":" + (i * 13) % 101 + "}\n");
+            }
+        }
+    }
+}
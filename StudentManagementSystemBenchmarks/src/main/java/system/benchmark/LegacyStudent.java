@@ -0,0 +1,44 @@
+package system.benchmark;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+// The property-per-field Student layout the application used before the columnar store, kept
+// only as the baseline for HeapBenchmark.
+public class LegacyStudent {
+    private final StringProperty name;
+    private final StringProperty gender;
+    private final StringProperty email;
+    private final StringProperty contactNumber;
+    private final StringProperty address;
+    private final IntegerProperty mathematicsMarks;
+    private final IntegerProperty physicsMarks;
+    private final IntegerProperty chemistryMarks;
+    private final StringProperty admissionNumber;
+    private final StringProperty semester;
+    private final IntegerProperty totalMarks;
+
+    public LegacyStudent(String name, String gender, String email, String contactNumber, String address, int mathematicsMarks, int physicsMarks, int chemistryMarks, String admissionNumber, String semester) {
+        this.name = new SimpleStringProperty(name);
+        this.gender = new SimpleStringProperty(gender);
+        this.email = new SimpleStringProperty(email);
+        this.contactNumber = new SimpleStringProperty(contactNumber);
+        this.address = new SimpleStringProperty(address);
+        this.mathematicsMarks = new SimpleIntegerProperty(mathematicsMarks);
+        this.physicsMarks = new SimpleIntegerProperty(physicsMarks);
+        this.chemistryMarks = new SimpleIntegerProperty(chemistryMarks);
+        this.admissionNumber = new SimpleStringProperty(admissionNumber);
+        this.semester = new SimpleStringProperty(semester);
+        this.totalMarks = new SimpleIntegerProperty(mathematicsMarks + physicsMarks + chemistryMarks);
+    }
+
+    public String getName() {
+        return name.get();
+    }
+
+    public int getTotalMarks() {
+        return totalMarks.get();
+    }
+}
@@ -0,0 +1,102 @@
+package system.benchmark;
+
+import system.ConnectionPool;
+import system.Student;
+import system.StudentRepository;
+import system.StudentSchemaNormalizer;
+import system.StudentStore;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+// Full load before and after StudentSchemaNormalizer, for students with several semester rows each:
+// result-set payload (string bytes plus 4 bytes per number) and load time. Both loads share profiles
+// in memory, so for heap per row see HeapBenchmark.
+// Usage: NormalizationBenchmark [students] [semesters]
+public class NormalizationBenchmark {
+    private static final int BATCH_SIZE = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int semesters = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int rows = students * semesters;
+
+        try (EmbeddedDatabase database = new EmbeddedDatabase("normalization_benchmark")) {
+            try (StudentRepository repository = new StudentRepository(database.config(2))) {
+                fill(repository, students, semesters);
+            }
+            System.out.printf("%d students x %d semesters = %d rows%n", students, semesters, rows);
+            System.out.printf("%-12s %16s %12s%n", "layout", "payload B/row", "load ms");
+
+            long legacyPayload = payload(database, "SELECT * FROM students");
+            try (StudentRepository repository = new StudentRepository(database.config(2))) {
+                load("legacy", repository, legacyPayload, rows);
+            }
+
+            long start = System.nanoTime();
+            StudentSchemaNormalizer.Result result;
+            try (ConnectionPool pool = new ConnectionPool(database.config(2))) {
+                result = new StudentSchemaNormalizer(pool, BATCH_SIZE).run();
+            }
+            long migration = System.nanoTime() - start;
+
+            long normalizedPayload = payload(database, "SELECT id, admission_number, name, gender, address, contact_number, email FROM student_profiles")
+                    + payload(database, "SELECT id, profile_id, semester, mathematics_marks, physics_marks, chemistry_marks FROM student_marks");
+            try (StudentRepository repository = new StudentRepository(database.config(2))) {
+                load("normalized", repository, normalizedPayload, rows);
+            }
+            System.out.printf("%nmigration: %d rows into %d profiles in %.1f s%n", result.getRows(), result.getProfiles(), migration / 1e9);
+        }
+    }
+
+    private static void load(String label, StudentRepository repository, long payload, int rows) throws SQLException {
+        long start = System.nanoTime();
+        repository.streamAll(BATCH_SIZE, BATCH_SIZE, batch -> { }, () -> false);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-12s %16d %12.1f%n", label, payload / rows, elapsed / 1e6);
+    }
+
+    // Bytes the rows of sql carry: UTF-8 length of every string plus 4 bytes per non-null number.
+    private static long payload(EmbeddedDatabase database, String sql) throws SQLException {
+        long bytes = 0;
+        try (Statement stmt = database.getConnection().createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            ResultSetMetaData meta = rs.getMetaData();
+            while (rs.next()) {
+                for (int column = 1; column <= meta.getColumnCount(); column++) {
+                    if (meta.getColumnType(column) == Types.VARCHAR) {
+                        String value = rs.getString(column);
+                        bytes += value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+                    } else if (rs.getObject(column) != null) {
+                        bytes += 4;
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static void fill(StudentRepository repository, int students, int semesters) throws SQLException {
+        List<Student> batch = new ArrayList<>(BATCH_SIZE);
+        StudentStore store = new StudentStore(13);
+        for (int i = 0; i < students * semesters; i++) {
+            int student = i / semesters;
+            batch.add(store.append(0, "Student " + student, student % 2 == 0 ? "Male" : "Female", "student" + student + "@example.com",
+                    "07" + (10_000_000 + student), "No. " + student % 200 + ", Main Street, Colombo", i % 101, (i * 7) % 101, (i * 13) % 101,
+                    "DSE-" + student, String.valueOf(1 + i % semesters)));
+            if (batch.size() == BATCH_SIZE) {
+                repository.insertBatch(batch);
+                batch.clear();
+                store = new StudentStore(13);
+            }
+        }
+        if (!batch.isEmpty()) {
+            repository.insertBatch(batch);
+        }
+    }
+}
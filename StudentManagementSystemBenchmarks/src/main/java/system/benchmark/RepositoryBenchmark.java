@@ -0,0 +1,120 @@
+package system.benchmark;
+
+import system.Student;
+import system.StudentRepository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Compares the original connection-per-operation access pattern with StudentRepository.
+// Usage: RepositoryBenchmark [iterations]
+public class RepositoryBenchmark {
+    private static final int WARMUP = 200;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+
+        try (EmbeddedDatabase database = new EmbeddedDatabase("repository_benchmark");
+             StudentRepository repository = new StudentRepository(database.config(4))) {
+            String url = database.getUrl();
+
+            run("warmup", WARMUP, i -> legacySave(url, student(i)));
+            run("warmup", WARMUP, i -> repository.save(student(i)));
+
+            System.out.printf("%-32s %12s %12s%n", "operation", "ops", "us/op");
+            run("save (DriverManager)", iterations, i -> legacySave(url, student(i)));
+            Student[] saved = new Student[iterations];
+            run("save (StudentRepository)", iterations, i -> repository.save(saved[i] = student(i)));
+            run("scatter query (DriverManager)", iterations, i -> legacySemesterMarks(url, "Student " + i));
+            run("scatter query (StudentRepository)", iterations, i -> repository.findSemesterMarks("Student " + i, "Physics"));
+            run("delete (StudentRepository)", iterations, i -> repository.delete(saved[i]));
+            run("delete (DriverManager)", iterations, i -> legacyDelete(url, student(i)));
+
+            loadTimes(repository, iterations * 50);
+        }
+    }
+
+    private static void run(String label, int iterations, Operation operation) throws SQLException {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (!label.equals("warmup")) {
+            System.out.printf("%-32s %12d %12.1f%n", label, iterations, elapsed / 1_000.0 / iterations);
+        }
+    }
+
+    private static void loadTimes(StudentRepository repository, int rows) throws SQLException {
+        for (int i = 0; i < rows; i++) {
+            repository.save(student(i));
+        }
+        long start = System.nanoTime();
+        repository.findAll();
+        long fullLoad = System.nanoTime() - start;
+
+        long[] firstBatch = {-1};
+        start = System.nanoTime();
+        long streamStart = start;
+        repository.streamAll(200, 5_000, batch -> {
+            if (firstBatch[0] < 0) {
+                firstBatch[0] = System.nanoTime() - streamStart;
+            }
+        }, () -> false);
+        long streamed = System.nanoTime() - start;
+
+        System.out.printf("%nload of %d rows: findAll %.1f ms, streamAll %.1f ms (first batch after %.1f ms)%n",
+                rows, fullLoad / 1e6, streamed / 1e6, firstBatch[0] / 1e6);
+    }
+
+    private static Student student(int i) {
+        return new Student("Student " + i, i % 2 == 0 ? "Male" : "Female", "student" + i + "@example.com",
+                "07" + (10_000_000 + i), "Colombo", i % 101, (i * 7) % 101, (i * 13) % 101,
+                "DSE-" + i, String.valueOf(1 + i % 8));
+    }
+
+    private static void legacySave(String url, Student student) throws SQLException {
+        Connection conn = DriverManager.getConnection(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        PreparedStatement stmt = conn.prepareStatement("INSERT INTO students (name, gender, email, contact_number, address, mathematics_marks, physics_marks, chemistry_marks, admission_number, semester) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        stmt.setString(1, student.getName());
+        stmt.setString(2, student.getGender());
+        stmt.setString(3, student.getEmail());
+        stmt.setString(4, student.getContactNumber());
+        stmt.setString(5, student.getAddress());
+        stmt.setInt(6, student.getMathematicsMarks());
+        stmt.setInt(7, student.getPhysicsMarks());
+        stmt.setInt(8, student.getChemistryMarks());
+        stmt.setString(9, student.getAdmissionNumber());
+        stmt.setString(10, student.getSemester());
+        stmt.executeUpdate();
+        conn.close();
+    }
+
+    private static void legacySemesterMarks(String url, String name) throws SQLException {
+        Connection conn = DriverManager.getConnection(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        PreparedStatement stmt = conn.prepareStatement("SELECT semester, physics_marks FROM students WHERE name = ?");
+        stmt.setString(1, name);
+        ResultSet rs = stmt.executeQuery();
+        while (rs.next()) {
+            rs.getInt("semester");
+            rs.getInt("physics_marks");
+        }
+        conn.close();
+    }
+
+    private static void legacyDelete(String url, Student student) throws SQLException {
+        Connection conn = DriverManager.getConnection(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        PreparedStatement stmt = conn.prepareStatement("DELETE FROM students WHERE name=? AND email=?");
+        stmt.setString(1, student.getName());
+        stmt.setString(2, student.getEmail());
+        stmt.executeUpdate();
+        conn.close();
+    }
+
+    private interface Operation {
+        void run(int i) throws SQLException;
+    }
+}
@@ -0,0 +1,217 @@
+package system.benchmark;
+
+import system.LatencyHistogram;
+import system.LogStructuredStudentStorage;
+import system.Student;
+import system.StudentServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Many desktops reading through one StudentServer. Each client is a virtual thread that loops over
+// the read mix (pages, semester marks, counts and aggregates), remembers ETags like
+// HttpStudentStorage does, and sends them back as If-None-Match. A writer saves a row every
+// writeIntervalMillis so cached answers keep going stale. Reports requests per second, latency
+// percentiles and the share of 304 answers per request kind, over the seconds after a warmup that
+// lets the JIT settle.
+// Usage: ServerLoadBenchmark [rows] [clients] [seconds] [writeIntervalMillis] [warmupSeconds]
+public class ServerLoadBenchmark {
+    private static final int STUDENTS = 1_000;
+    private static final int BATCH_SIZE = 5_000;
+    private static final String BINARY_TYPE = "application/x-sms-students";
+    private static final String[] KINDS = {"page", "marks", "count", "aggregates", "grades"};
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long writeIntervalMillis = args.length > 3 ? Long.parseLong(args[3]) : 100;
+        int warmupSeconds = args.length > 4 ? Integer.parseInt(args[4]) : 15;
+
+        Path directory = Files.createTempDirectory("server_benchmark");
+        try (LogStructuredStudentStorage storage = new LogStructuredStudentStorage(directory, 64L * 1024 * 1024, 0)) {
+            for (int from = 0; from < rows; from += BATCH_SIZE) {
+                List<Student> batch = new ArrayList<>(BATCH_SIZE);
+                for (int i = from; i < Math.min(rows, from + BATCH_SIZE); i++) {
+                    batch.add(student(i));
+                }
+                storage.insertBatch(batch);
+            }
+            try (StudentServer server = new StudentServer(storage, new InetSocketAddress("127.0.0.1", 0), clients)) {
+                long start = System.nanoTime();
+                server.start(0);
+                System.out.printf("server loaded %d rows in %.1f ms%n", server.size(), (System.nanoTime() - start) / 1e6);
+                run(URI.create("http://127.0.0.1:" + server.getPort()), rows, clients, seconds, writeIntervalMillis, warmupSeconds);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static void run(URI base, int rows, int clients, int seconds, long writeIntervalMillis, int warmupSeconds) throws Exception {
+        Map<String, LatencyHistogram> latencies = new HashMap<>();
+        Map<String, LongAdder> notModified = new HashMap<>();
+        for (String kind : KINDS) {
+            latencies.put(kind, new LatencyHistogram());
+            notModified.put(kind, new LongAdder());
+        }
+        LatencyHistogram all = new LatencyHistogram();
+        LongAdder failures = new LongAdder();
+        long measureFrom = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+        long deadline = measureFrom + seconds * 1_000_000_000L;
+
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+             ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            threads.submit(() -> {
+                int i = rows;
+                while (System.nanoTime() < deadline) {
+                    try {
+                        Thread.sleep(writeIntervalMillis);
+                        write(client, base, student(i++));
+                    } catch (Exception e) {
+                        failures.increment();
+                    }
+                }
+                return null;
+            });
+            for (int c = 0; c < clients; c++) {
+                threads.submit(() -> {
+                    Map<String, String> etags = new HashMap<>();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        int pick = random.nextInt(100);
+                        String kind;
+                        String path;
+                        if (pick < 40) {
+                            kind = "page";
+                            path = "/students?after=" + random.nextInt(rows) + "&limit=200";
+                        } else if (pick < 80) {
+                            kind = "marks";
+                            path = "/students/marks?name=" + URLEncoder.encode("Student " + random.nextInt(STUDENTS), StandardCharsets.UTF_8)
+                                    + "&subject=" + (random.nextBoolean() ? "Physics" : "Chemistry");
+                        } else if (pick < 90) {
+                            kind = "count";
+                            path = "/students/count";
+                        } else if (pick < 95) {
+                            kind = "aggregates";
+                            path = "/aggregates";
+                        } else {
+                            kind = "grades";
+                            path = "/aggregates/grades";
+                        }
+                        HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve(path))
+                                .timeout(Duration.ofSeconds(60))
+                                .header("Accept", BINARY_TYPE);
+                        String etag = etags.get(path);
+                        if (etag != null) {
+                            request.header("If-None-Match", etag);
+                        }
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                            long done = System.nanoTime();
+                            boolean measured = sent >= measureFrom && done <= deadline;
+                            if (measured) {
+                                latencies.get(kind).recordNanos(done - sent);
+                                all.recordNanos(done - sent);
+                            }
+                            if (response.statusCode() == 304) {
+                                if (measured) {
+                                    notModified.get(kind).increment();
+                                }
+                            } else if (response.statusCode() == 200) {
+                                response.headers().firstValue("ETag").ifPresent(tag -> etags.put(path, tag));
+                            } else {
+                                failures.increment();
+                            }
+                        } catch (Exception e) {
+                            failures.increment();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        System.out.printf("%n%d clients for %d s after %d s of warmup, one write every %d ms%n", clients, seconds, warmupSeconds, writeIntervalMillis);
+        System.out.printf("%-12s %10s %10s %10s %10s %8s%n", "request", "requests", "req/s", "p50 (ms)", "p99 (ms)", "304 %");
+        long totalNotModified = 0;
+        for (String kind : KINDS) {
+            long cached = notModified.get(kind).sum();
+            totalNotModified += cached;
+            report(kind, seconds, latencies.get(kind), cached);
+        }
+        report("all", seconds, all, totalNotModified);
+        System.out.printf("failures: %d%n", failures.sum());
+    }
+
+    private static void report(String kind, int seconds, LatencyHistogram latency, long notModified) {
+        long requests = latency.getCount();
+        System.out.printf("%-12s %10d %10.0f %10.2f %10.2f %8.1f%n", kind, requests, requests / (double) seconds,
+                latency.getPercentileMicros(50) / 1e3, latency.getPercentileMicros(99) / 1e3, 100.0 * notModified / Math.max(1, requests));
+    }
+
+    // One row in the StudentWire binary layout: count, then id, seven strings and three marks.
+    private static void write(HttpClient client, URI base, Student student) throws Exception {
+        byte[] body;
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(1);
+            out.writeLong(0);
+            for (String value : new String[]{student.getName(), student.getGender(), student.getEmail(), student.getContactNumber(),
+                    student.getAddress(), student.getAdmissionNumber(), student.getSemester()}) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+            out.writeInt(student.getMathematicsMarks());
+            out.writeInt(student.getPhysicsMarks());
+            out.writeInt(student.getChemistryMarks());
+            out.flush();
+            body = bytes.toByteArray();
+        }
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(base.resolve("/students"))
+                .header("Accept", BINARY_TYPE)
+                .header("Content-Type", BINARY_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Write answered " + response.statusCode());
+        }
+    }
+
+    // Rows of STUDENTS students, one per semester, so each marks query finds rows / STUDENTS rows.
+    private static Student student(int i) {
+        int student = i % STUDENTS;
+        return new Student("Student " + student, student % 2 == 0 ? "Male" : "Female", "student" + student + "@example.com",
+                "07" + (10_000_000 + student), "Colombo", i % 101, (i * 7) % 101, (i * 13) % 101,
+                "DSE-" + student, String.valueOf(1 + i / STUDENTS));
+    }
+}
@@ -0,0 +1,93 @@
+package system.benchmark;
+
+import system.Student;
+import system.StudentRepository;
+import system.StudentSnapshot;
+import system.StudentStore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+// Cold start (stream every row from the database) against warm start (map the local snapshot, then
+// fetch the rows changed since its watermark). Times are to the first screen of rows and to the
+// whole dataset.
+// Usage: SnapshotBenchmark [rows] [changedRows]
+public class SnapshotBenchmark {
+    private static final int FIRST_BATCH_SIZE = 200;
+    private static final int BATCH_SIZE = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int changedRows = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        Path snapshot = Files.createTempFile("students", ".snapshot");
+        try (EmbeddedDatabase database = new EmbeddedDatabase("snapshot_benchmark");
+             StudentRepository repository = new StudentRepository(database.config(2))) {
+            fill(repository, rows);
+
+            List<Student> loaded = new ArrayList<>(rows);
+            long[] firstBatch = {-1};
+            long start = System.nanoTime();
+            repository.streamAll(FIRST_BATCH_SIZE, BATCH_SIZE, batch -> {
+                if (firstBatch[0] < 0) {
+                    firstBatch[0] = System.nanoTime() - start;
+                }
+                loaded.addAll(batch);
+            }, () -> false);
+            long cold = System.nanoTime() - start;
+            Timestamp watermark = repository.currentTimestamp();
+
+            long writeStart = System.nanoTime();
+            StudentSnapshot.write(snapshot, repository.getSource(), loaded, watermark);
+            long write = System.nanoTime() - writeStart;
+            loaded.clear();
+
+            Thread.sleep(10);
+            try (Statement stmt = database.getConnection().createStatement()) {
+                stmt.executeUpdate("UPDATE students SET physics_marks = physics_marks + 1 WHERE id <= " + changedRows);
+            }
+
+            List<Student> warmRows = new ArrayList<>(rows);
+            long[] warmFirstBatch = {-1};
+            long warmStart = System.nanoTime();
+            StudentSnapshot.read(snapshot, repository.getSource(), new StudentStore(), FIRST_BATCH_SIZE, BATCH_SIZE, batch -> {
+                if (warmFirstBatch[0] < 0) {
+                    warmFirstBatch[0] = System.nanoTime() - warmStart;
+                }
+                warmRows.addAll(batch);
+            });
+            long mapped = System.nanoTime() - warmStart;
+            int changed = repository.findChangesSince(watermark).getChanged().size();
+            long warm = System.nanoTime() - warmStart;
+
+            System.out.printf("%d rows, snapshot %.1f MB written in %.2f s%n", rows, Files.size(snapshot) / 1e6, write / 1e9);
+            System.out.printf("%-28s %14s %14s%n", "start", "first rows ms", "all rows ms");
+            System.out.printf("%-28s %14.1f %14.1f%n", "cold (database)", firstBatch[0] / 1e6, cold / 1e6);
+            System.out.printf("%-28s %14.1f %14.1f%n", "warm (snapshot)", warmFirstBatch[0] / 1e6, mapped / 1e6);
+            System.out.printf("%-28s %14s %14.1f  (%d changed rows)%n", "warm + reconcile", "", warm / 1e6, changed);
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    private static void fill(StudentRepository repository, int rows) throws Exception {
+        List<Student> batch = new ArrayList<>(BATCH_SIZE);
+        StudentStore store = new StudentStore(13);
+        for (int i = 0; i < rows; i++) {
+            batch.add(store.append(0, "Student " + i, i % 2 == 0 ? "Male" : "Female", "student" + i + "@example.com",
+                    "07" + (10_000_000 + i), "Colombo", i % 101, (i * 7) % 101, (i * 13) % 101, "DSE-" + i, String.valueOf(1 + i % 8)));
+            if (batch.size() == BATCH_SIZE) {
+                repository.insertBatch(batch);
+                batch.clear();
+                store = new StudentStore(13);
+            }
+        }
+        if (!batch.isEmpty()) {
+            repository.insertBatch(batch);
+        }
+    }
+}
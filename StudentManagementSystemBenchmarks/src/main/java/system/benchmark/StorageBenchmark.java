@@ -0,0 +1,128 @@
+package system.benchmark;
+
+import system.LogStructuredStudentStorage;
+import system.Student;
+import system.StudentRepository;
+import system.StudentStorage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+// The same workload against both storage backends: StudentRepository on H2 over TCP, and
+// LogStructuredStudentStorage in a temporary directory. H2 keeps its tables in memory and never
+// fsyncs, while every embedded write is forced to disk, so the save rows mostly show how far group
+// commit takes the embedded store. Usage: StorageBenchmark [rows] [threads]
+public class StorageBenchmark {
+    private static final int BATCH_SIZE = 5_000;
+    private static final int STUDENTS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        System.out.printf("%-10s %-28s %10s %12s%n", "backend", "operation", "ops", "us/op");
+        try (EmbeddedDatabase database = new EmbeddedDatabase("storage_benchmark");
+             StudentRepository repository = new StudentRepository(database.config(threads))) {
+            run("jdbc", repository, rows, threads);
+        }
+        Path directory = Files.createTempDirectory("storage_benchmark");
+        try {
+            try (LogStructuredStudentStorage storage = new LogStructuredStudentStorage(directory, 64L * 1024 * 1024, 0)) {
+                run("embedded", storage, rows, threads);
+                long syncs = storage.getSyncCount();
+                long start = System.nanoTime();
+                storage.compact();
+                report("embedded", "compact", storage.count(), System.nanoTime() - start);
+                System.out.printf("%nembedded: %d forces for all writes, %d bytes on disk after compaction%n", syncs, size(directory));
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static void run(String backend, StudentStorage storage, int rows, int threads) throws Exception {
+        int saves = Math.max(threads, rows / 100);
+        List<Student> saved = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<List<Student>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    List<Student> mine = new ArrayList<>();
+                    for (int i = thread; i < saves; i += threads) {
+                        Student student = student(i);
+                        storage.save(student);
+                        mine.add(student);
+                    }
+                    return mine;
+                }));
+            }
+            for (Future<List<Student>> future : futures) {
+                saved.addAll(future.get());
+            }
+            report(backend, "save (" + threads + " threads)", saves, System.nanoTime() - start);
+        } finally {
+            pool.shutdown();
+        }
+
+        long start = System.nanoTime();
+        for (int from = saves; from < rows; from += BATCH_SIZE) {
+            List<Student> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = from; i < Math.min(rows, from + BATCH_SIZE); i++) {
+                batch.add(student(i));
+            }
+            storage.insertBatch(batch);
+        }
+        report(backend, "insertBatch", rows - saves, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        int loaded = storage.streamAll(200, BATCH_SIZE, batch -> { }, () -> false);
+        report(backend, "streamAll", loaded, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < STUDENTS; i++) {
+            storage.findSemesterMarks("Student " + i, "Physics");
+        }
+        report(backend, "scatter query (" + rows / STUDENTS + " rows)", STUDENTS, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        long[] ids = saved.stream().mapToLong(Student::getId).toArray();
+        int deleted = storage.deleteByIds(ids);
+        report(backend, "deleteByIds", deleted, System.nanoTime() - start);
+    }
+
+    private static void report(String backend, String operation, int ops, long nanos) {
+        System.out.printf("%-10s %-28s %10d %12.1f%n", backend, operation, ops, nanos / 1e3 / Math.max(1, ops));
+    }
+
+    private static long size(Path directory) throws Exception {
+        long bytes = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                bytes += Files.size(file);
+            }
+        }
+        return bytes;
+    }
+
+    // Rows of STUDENTS students, one per semester, so each scatter query finds rows / STUDENTS rows.
+    private static Student student(int i) {
+        int student = i % STUDENTS;
+        return new Student("Student " + student, student % 2 == 0 ? "Male" : "Female", "student" + student + "@example.com",
+                "07" + (10_000_000 + student), "Colombo", i % 101, (i * 7) % 101, (i * 13) % 101,
+                "DSE-" + student, String.valueOf(1 + i / STUDENTS));
+    }
+}
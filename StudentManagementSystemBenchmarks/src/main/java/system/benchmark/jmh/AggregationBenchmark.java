@@ -0,0 +1,69 @@
+package system.benchmark.jmh;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import system.Student;
+import system.StudentIndex;
+import system.StudentStore;
+import system.TotalMarksAggregator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Covers the bar chart aggregation (formerly updateBarGraph) and the distinct-name set (formerly
+// getUniqueNames): a full build over the dataset and a single-row add/remove against a built one.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private List<Student> students;
+    private ObservableList<Student> source;
+    private TotalMarksAggregator aggregator;
+    private StudentIndex index;
+    private Student extra;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        students = Datasets.students(size);
+        source = FXCollections.observableArrayList(students);
+        aggregator = new TotalMarksAggregator(source);
+        index = new StudentIndex(source);
+        extra = Datasets.student(new StudentStore(), size * 4 + 3);
+    }
+
+    @Benchmark
+    public TotalMarksAggregator buildTotals() {
+        return new TotalMarksAggregator(FXCollections.observableArrayList(students));
+    }
+
+    @Benchmark
+    public int buildUniqueNames() {
+        return new StudentIndex(FXCollections.observableArrayList(students)).getDistinctNames().size();
+    }
+
+    @Benchmark
+    public long addAndRemoveOneRow() {
+        source.add(extra);
+        long total = aggregator.getTotal(extra.getName()) + index.getDistinctNames().size();
+        source.remove(source.size() - 1);
+        return total;
+    }
+}
@@ -0,0 +1,29 @@
+package system.benchmark.jmh;
+
+import system.Student;
+import system.StudentStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Deterministic rows shared by the JMH benchmarks: four semester rows per admission number.
+final class Datasets {
+    private Datasets() {
+    }
+
+    static Student student(StudentStore store, int i) {
+        int student = i / 4;
+        return store.append(i + 1, "Student " + student, student % 2 == 0 ? "Male" : "Female",
+                "student" + student + "@example.com", "07" + (10_000_000 + student), "City " + student % 500,
+                i % 101, (i * 7) % 101, (i * 13) % 101, "DSE-" + student, String.valueOf(1 + i % 4));
+    }
+
+    static List<Student> students(int size) {
+        StudentStore store = new StudentStore();
+        List<Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(student(store, i));
+        }
+        return students;
+    }
+}
@@ -0,0 +1,94 @@
+package system.benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import system.Student;
+import system.StudentRepository;
+import system.StudentStore;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+// The row mapping done by the startup load, over an in-process H2 table so driver I/O stays small.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSetMappingBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:mapping;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE students (id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, admission_number VARCHAR(20), "
+                    + "name VARCHAR(255) NOT NULL, gender VARCHAR(20), address VARCHAR(255), contact_number VARCHAR(20), "
+                    + "email VARCHAR(255), semester VARCHAR(20), mathematics_marks INT, physics_marks INT, chemistry_marks INT)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO students (admission_number, name, gender, address, "
+                + "contact_number, email, semester, mathematics_marks, physics_marks, chemistry_marks) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < size; i++) {
+                int student = i / 4;
+                stmt.setString(1, "DSE-" + student);
+                stmt.setString(2, "Student " + student);
+                stmt.setString(3, student % 2 == 0 ? "Male" : "Female");
+                stmt.setString(4, "City " + student % 500);
+                stmt.setString(5, "07" + (10_000_000 + student));
+                stmt.setString(6, "student" + student + "@example.com");
+                stmt.setString(7, String.valueOf(1 + i % 4));
+                stmt.setInt(8, i % 101);
+                stmt.setInt(9, (i * 7) % 101);
+                stmt.setInt(10, (i * 13) % 101);
+                stmt.addBatch();
+                if (i % 10_000 == 9_999) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE students");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void mapAllRows(Blackhole blackhole) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM students")) {
+            StudentStore store = new StudentStore();
+            while (rs.next()) {
+                Student student = StudentRepository.mapRow(rs, store);
+                blackhole.consume(student);
+            }
+        }
+    }
+}
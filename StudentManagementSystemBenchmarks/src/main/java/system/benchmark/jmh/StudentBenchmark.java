@@ -0,0 +1,66 @@
+package system.benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import system.StudentStore;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private StudentStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new StudentStore();
+        for (int i = 0; i < size; i++) {
+            Datasets.student(store, i);
+        }
+    }
+
+    @Benchmark
+    public StudentStore construct() {
+        StudentStore fresh = new StudentStore();
+        for (int i = 0; i < size; i++) {
+            Datasets.student(fresh, i);
+        }
+        return fresh;
+    }
+
+    @Benchmark
+    public long getterScan() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += store.view(i).getTotalMarks();
+        }
+        return sum;
+    }
+
+    // Fresh views, so every access pays for materializing the JavaFX properties a table cell asks for.
+    @Benchmark
+    public long propertyAccess() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += store.view(i).nameProperty().get().length() + store.view(i).totalMarksProperty().get();
+        }
+        return sum;
+    }
+}